@@ -127,13 +127,7 @@ public class LinkStats implements MATSimAppCommand {
                     List<Object> row = Lists.newArrayList(link.getId(), time, avgTt);
 
                     for (String mode : modes) {
-                        int[] vol = volume.getVolumesForLink(link.getId(), mode);
-
-                        // can be null (if no vehicle uses this link?)
-                        if (vol == null)
-                            row.add(0);
-                        else
-                            row.add(vol[i]);
+                        row.add(volume.getVolume(link.getId(), mode, i));
                     }
 
                     writer.printRecord(row);
@@ -0,0 +1,18 @@
+package org.matsim.contrib.osm.networkReader;
+
+import org.matsim.api.core.v01.Coord;
+
+/**
+ * A node as it is needed to split ways into segments. It is either a {@link ProcessedOsmNode}, which knows its
+ * referencing ways, or a node from the {@link OsmNodeStore} in streaming mode, which only keeps flags for them.
+ */
+interface OsmNetworkNode {
+
+	long getId();
+
+	Coord getCoord();
+
+	boolean isWayReferenced(ProcessedOsmWay way);
+
+	boolean isIntersection();
+}
@@ -14,6 +14,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 class OsmNetworkParser {
@@ -69,6 +70,62 @@ class OsmNetworkParser {
 		log.info("finished reading nodes");
 	}
 
+	/**
+	 * First pass of the streaming mode: collects the nodes which are referenced by the ways of interest into an
+	 * {@link OsmNodeStore}, without keeping the ways.
+	 *
+	 * @param coordinatesFile file for memory mapped node coordinates, or null to keep the coordinates on the heap
+	 */
+	OsmNodeStore collectReferencedNodes(Path inputFile, Path coordinatesFile) {
+
+		OsmNodeStore.References references = new OsmNodeStore.References();
+		new PbfParser.Builder()
+				.setWaysHandler(osmWay -> {
+					Map<String, String> tags = OsmModelUtil.getTagsAsMap(osmWay);
+					if (isStreetOfInterest(tags)) {
+						references.add(osmWay, linkProperties.get(tags.get(OsmTags.HIGHWAY)).hierarchyLevel);
+					}
+				})
+				.setExecutor(executor)
+				.build()
+				.parse(inputFile);
+
+		log.info("Finished reading ways");
+		OsmNodeStore store = OsmNodeStore.create(references, coordinatesFile);
+		log.info("Collected " + numberFormat.format(store.size()) + " referenced nodes");
+		return store;
+	}
+
+	/**
+	 * Second pass of the streaming mode: reads the referenced nodes into the store, and then passes the ways of interest
+	 * to the way handler while they are read. The way handler is invoked concurrently.
+	 * <p>
+	 * This requires the input file to be sorted by type, i.e. all nodes are stored before the ways.
+	 */
+	void stream(Path inputFile, OsmNodeStore store, Consumer<ProcessedOsmWay> wayHandler) {
+
+		new PbfParser.Builder()
+				.setNodeHandler(osmNode -> {
+					int index = store.getIndex(osmNode.getId());
+					if (index >= 0) {
+						Coord transformedCoord = transformation.transform(new Coord(osmNode.getLongitude(), osmNode.getLatitude()));
+						store.setNode(index, transformedCoord, linkFilter);
+					}
+				})
+				.setWaysHandler(osmWay -> {
+					Map<String, String> tags = OsmModelUtil.getTagsAsMap(osmWay);
+					if (isStreetOfInterest(tags)) {
+						wayHandler.accept(ProcessedOsmWay.create(osmWay, tags, linkProperties.get(tags.get(OsmTags.HIGHWAY))));
+					}
+				})
+				.setNodesBeforeWays(true)
+				.setExecutor(executor)
+				.build()
+				.parse(inputFile);
+
+		log.info("Finished reading nodes and ways");
+	}
+
 	void handleNode(OsmNode osmNode) {
 
 		if (nodeReferences.containsKey(osmNode.getId())) {
@@ -0,0 +1,334 @@
+package org.matsim.contrib.osm.networkReader;
+
+import com.slimjars.dist.gnu.trove.list.array.TLongArrayList;
+import de.topobyte.osm4j.core.model.iface.OsmWay;
+import org.matsim.api.core.v01.Coord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * Compact store of the osm nodes which are referenced by the parsed ways. It is used by the streaming mode of the
+ * {@link SupersonicOsmNetworkReader}, which doesn't keep the ways in memory and therefore can't keep the ways which
+ * reference a node either.
+ * <p>
+ * The node ids are kept in a sorted array. While the ways are read, one long per node holds the number of referencing
+ * ways per hierarchy level. Once the node is read, it holds the hierarchy levels which are included by the link filter
+ * at the node's coordinate. The coordinates are kept in primitive arrays, or in a memory mapped file to keep them off
+ * the heap.
+ */
+class OsmNodeStore implements AutoCloseable {
+
+	static final int MAX_HIERARCHY_LEVEL = 30;
+
+	// a reference is encoded as node id, hierarchy level of the way and whether the node is an end node of the way
+	private static final int REFERENCE_SHIFT = 6;
+	private static final long LEVEL_MASK = 0x1f;
+
+	// before a node is read, two bits per hierarchy level count the references up to 2, which is enough to tell intersections
+	private static final long COUNT_MASK = 0x3;
+	private static final long END_NODE = 1L << 62;
+
+	// after a node is read, the lower bits hold the hierarchy levels which are included by the link filter
+	private static final long INTERSECTION = 1L << 32;
+	private static final long HANDLED = 1L << 63;
+
+	private final long[] ids;
+	private final long[] flags;
+	private final Coordinates coordinates;
+
+	private OsmNodeStore(long[] ids, long[] flags, Coordinates coordinates) {
+		this.ids = ids;
+		this.flags = flags;
+		this.coordinates = coordinates;
+	}
+
+	/**
+	 * @param coordinatesFile file for memory mapped coordinates. If null, the coordinates are kept on the heap
+	 */
+	static OsmNodeStore create(References references, Path coordinatesFile) {
+
+		long[] sorted = references.drain();
+		Arrays.parallelSort(sorted);
+
+		int size = 0;
+		for (int i = 0; i < sorted.length; i++) {
+			if (i == 0 || (sorted[i] >> REFERENCE_SHIFT) != (sorted[i - 1] >> REFERENCE_SHIFT)) size++;
+		}
+
+		long[] ids = new long[size];
+		long[] flags = new long[size];
+		int index = -1;
+		for (long reference : sorted) {
+			long id = reference >> REFERENCE_SHIFT;
+			if (index < 0 || ids[index] != id) {
+				index++;
+				ids[index] = id;
+			}
+			int shift = 2 * (int) ((reference >>> 1) & LEVEL_MASK);
+			if (((flags[index] >>> shift) & COUNT_MASK) < 2) flags[index] += 1L << shift;
+			if ((reference & 1) != 0) flags[index] |= END_NODE;
+		}
+
+		Coordinates coordinates = coordinatesFile == null ? new HeapCoordinates(size) : new MappedCoordinates(coordinatesFile, size);
+		return new OsmNodeStore(ids, flags, coordinates);
+	}
+
+	int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @return the index of the node, or a negative number if it is not referenced by any way
+	 */
+	int getIndex(long id) {
+		return Arrays.binarySearch(ids, id);
+	}
+
+	/**
+	 * Stores the coordinate of a referenced node and tests the link filter for the hierarchy levels of the referencing
+	 * ways. Like in {@link OsmNetworkParser#handleNode}, the filter is only tested for nodes which may become the from-
+	 * or to-node of a link, i.e. nodes which are referenced more than once or which are an end node of a way.
+	 * <p>
+	 * Different nodes may be set concurrently.
+	 */
+	void setNode(int index, Coord coord, BiPredicate<Coord, Integer> linkFilter) {
+
+		long references = flags[index];
+		if ((references & HANDLED) != 0) return;
+
+		int numberOfReferences = 0;
+		for (int level = 0; level <= MAX_HIERARCHY_LEVEL; level++) {
+			numberOfReferences += (int) ((references >>> 2 * level) & COUNT_MASK);
+		}
+
+		long result = HANDLED;
+		if (numberOfReferences > 1 || (references & END_NODE) != 0) {
+			int numberOfFilteredReferences = 0;
+			for (int level = 0; level <= MAX_HIERARCHY_LEVEL; level++) {
+				int count = (int) ((references >>> 2 * level) & COUNT_MASK);
+				if (count > 0 && linkFilter.test(coord, level)) {
+					result |= 1L << level;
+					numberOfFilteredReferences += count;
+				}
+			}
+			if (numberOfFilteredReferences > 1) result |= INTERSECTION;
+		}
+		coordinates.set(index, coord.getX(), coord.getY());
+		flags[index] = result;
+	}
+
+	/**
+	 * @return the node, or null if it is not referenced or was not read
+	 */
+	OsmNetworkNode getNode(long id) {
+		int index = getIndex(id);
+		if (index < 0 || (flags[index] & HANDLED) == 0) return null;
+		return new StoredOsmNode(id, new Coord(coordinates.getX(index), coordinates.getY(index)), flags[index]);
+	}
+
+	@Override
+	public void close() {
+		coordinates.close();
+	}
+
+	/**
+	 * Collects the node references of the ways. Ways may be added concurrently, each thread writes into its own buffer.
+	 */
+	static class References {
+
+		private final List<TLongArrayList> buffers = Collections.synchronizedList(new ArrayList<>());
+		private final ThreadLocal<TLongArrayList> buffer = ThreadLocal.withInitial(() -> {
+			TLongArrayList result = new TLongArrayList();
+			buffers.add(result);
+			return result;
+		});
+
+		void add(OsmWay way, int hierarchyLevel) {
+
+			if (hierarchyLevel < 0 || hierarchyLevel > MAX_HIERARCHY_LEVEL) {
+				throw new IllegalArgumentException("The streaming mode supports hierarchy levels from 0 to " + MAX_HIERARCHY_LEVEL + ", but way "
+						+ way.getId() + " has level " + hierarchyLevel);
+			}
+
+			TLongArrayList references = buffer.get();
+			int lastIndex = way.getNumberOfNodes() - 1;
+			for (int i = 0; i <= lastIndex; i++) {
+				long isEndNode = i == 0 || i == lastIndex ? 1 : 0;
+				references.add(way.getNodeId(i) << REFERENCE_SHIFT | (long) hierarchyLevel << 1 | isEndNode);
+			}
+		}
+
+		/**
+		 * Copies all references into one array and empties the buffers
+		 */
+		private long[] drain() {
+
+			long size = 0;
+			for (TLongArrayList references : buffers) {
+				size += references.size();
+			}
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new RuntimeException("The ways reference " + size + " nodes, which is more than the streaming mode can handle.");
+			}
+
+			long[] result = new long[(int) size];
+			int offset = 0;
+			for (TLongArrayList references : buffers) {
+				references.toArray(result, 0, offset, references.size());
+				offset += references.size();
+				references.clear();
+			}
+			buffers.clear();
+			return result;
+		}
+	}
+
+	private static class StoredOsmNode implements OsmNetworkNode {
+
+		private final long id;
+		private final Coord coord;
+		private final long flags;
+
+		StoredOsmNode(long id, Coord coord, long flags) {
+			this.id = id;
+			this.coord = coord;
+			this.flags = flags;
+		}
+
+		@Override
+		public long getId() {
+			return id;
+		}
+
+		@Override
+		public Coord getCoord() {
+			return coord;
+		}
+
+		@Override
+		public boolean isWayReferenced(ProcessedOsmWay way) {
+			return (flags & 1L << way.getLinkProperties().hierarchyLevel) != 0;
+		}
+
+		@Override
+		public boolean isIntersection() {
+			return (flags & INTERSECTION) != 0;
+		}
+	}
+
+	private interface Coordinates extends AutoCloseable {
+
+		void set(int index, double x, double y);
+
+		double getX(int index);
+
+		double getY(int index);
+
+		@Override
+		void close();
+	}
+
+	private static class HeapCoordinates implements Coordinates {
+
+		private final double[] x;
+		private final double[] y;
+
+		HeapCoordinates(int size) {
+			this.x = new double[size];
+			this.y = new double[size];
+		}
+
+		@Override
+		public void set(int index, double x, double y) {
+			this.x[index] = x;
+			this.y[index] = y;
+		}
+
+		@Override
+		public double getX(int index) {
+			return x[index];
+		}
+
+		@Override
+		public double getY(int index) {
+			return y[index];
+		}
+
+		@Override
+		public void close() {
+			// nothing to do here
+		}
+	}
+
+	/**
+	 * Keeps the coordinates in a memory mapped file. A mapped buffer can't be larger than 2GB, therefore the file is
+	 * mapped in segments of 1GB. The buffers are only accessed with absolute positions, so different coordinates can be
+	 * written concurrently. The file is deleted on close.
+	 */
+	private static class MappedCoordinates implements Coordinates {
+
+		private static final int BYTES = 2 * Double.BYTES;
+		private static final int SEGMENT_SHIFT = 26;
+		private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+		private final Path file;
+		private final FileChannel channel;
+		private final MappedByteBuffer[] segments;
+
+		MappedCoordinates(Path file, int size) {
+			this.file = file;
+			try {
+				this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+						StandardOpenOption.READ, StandardOpenOption.WRITE);
+				this.segments = new MappedByteBuffer[(size >>> SEGMENT_SHIFT) + 1];
+				for (int i = 0; i < segments.length; i++) {
+					long first = (long) i << SEGMENT_SHIFT;
+					long length = Math.min(1L << SEGMENT_SHIFT, size - first);
+					segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, first * BYTES, length * BYTES);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException("Could not map node coordinates to " + file, e);
+			}
+		}
+
+		@Override
+		public void set(int index, double x, double y) {
+			MappedByteBuffer segment = segments[index >>> SEGMENT_SHIFT];
+			int position = (index & SEGMENT_MASK) * BYTES;
+			segment.putDouble(position, x);
+			segment.putDouble(position + Double.BYTES, y);
+		}
+
+		@Override
+		public double getX(int index) {
+			return segments[index >>> SEGMENT_SHIFT].getDouble((index & SEGMENT_MASK) * BYTES);
+		}
+
+		@Override
+		public double getY(int index) {
+			return segments[index >>> SEGMENT_SHIFT].getDouble((index & SEGMENT_MASK) * BYTES + Double.BYTES);
+		}
+
+		@Override
+		public void close() {
+			// the mapped buffers are released by the garbage collector, the file can be deleted before that
+			try {
+				channel.close();
+				Files.deleteIfExists(file);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+}
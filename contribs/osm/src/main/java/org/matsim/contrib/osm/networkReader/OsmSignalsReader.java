@@ -115,6 +115,10 @@ public class OsmSignalsReader extends SupersonicOsmNetworkReader {
 		@Override
 		OsmSignalsReader createInstance() {
 
+			if (streaming || nodeCoordinatesFile != null) {
+				throw new IllegalArgumentException("The signals reader does not support streaming mode.");
+			}
+
 			OsmSignalsParser parser = new OsmSignalsParser(coordinateTransformation,
 					linkProperties, includeLinkAtCoordWithHierarchy, Executors.newWorkStealingPool());
 
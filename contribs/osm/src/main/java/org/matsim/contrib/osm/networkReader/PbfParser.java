@@ -27,11 +27,15 @@ public class PbfParser implements OsmHandler {
 
     private final Phaser phaser = new Phaser();
     private final ExecutorService executor;
-    private PbfParser(Consumer<OsmNode> nodeHandler, Consumer<OsmWay> waysHandler, Consumer<OsmRelation> relationHandler, ExecutorService executor) {
+    private final boolean nodesBeforeWays;
+    private boolean isNodesFinished = false;
+
+    private PbfParser(Consumer<OsmNode> nodeHandler, Consumer<OsmWay> waysHandler, Consumer<OsmRelation> relationHandler, ExecutorService executor, boolean nodesBeforeWays) {
         this.nodeHandler = nodeHandler;
         this.waysHandler = waysHandler;
         this.relationHandler = relationHandler;
         this.executor = executor;
+        this.nodesBeforeWays = nodesBeforeWays;
     }
 
     public void parse(Path file) {
@@ -92,6 +96,7 @@ public class PbfParser implements OsmHandler {
             } else if (primitiveGroup.getWaysCount() > 0 && waysHandler == null && relationHandler == null) {
                 return ParsingResult.Abort;
             } else if (primitiveGroup.getWaysCount() > 0 && waysHandler != null) {
+                awaitNodes();
                 phaser.register();
                 executor.execute(() -> startParseWaysTask(block, primitiveGroup));
             } else if (primitiveGroup.getRelationsCount() > 0 && relationHandler == null) {
@@ -104,6 +109,18 @@ public class PbfParser implements OsmHandler {
         return ParsingResult.Continue;
     }
 
+    /**
+     * Blocks the reading thread until all node blocks which were handed to the executor so far are handled. This is
+     * done once, when the first block of ways is read. In files sorted by type, like the extracts from geofabrik, all
+     * nodes have been handled then.
+     */
+    private void awaitNodes() {
+        if (nodesBeforeWays && !isNodesFinished) {
+            phaser.arriveAndAwaitAdvance();
+            isNodesFinished = true;
+        }
+    }
+
     // have these more or less identical methods, since I currently don't know how to handle IOExceptions otherwise
     private void startParseDenseTask(Osmformat.PrimitiveBlock block, Osmformat.PrimitiveGroup group) {
 
@@ -185,6 +202,7 @@ public class PbfParser implements OsmHandler {
         private Consumer<OsmWay> waysHandler;
         private Consumer<OsmRelation> relationHandler;
         private ExecutorService executor;
+        private boolean nodesBeforeWays = false;
 
         public Builder setNodeHandler(Consumer<OsmNode> nodeHandler) {
             this.nodeHandler = nodeHandler;
@@ -206,12 +224,21 @@ public class PbfParser implements OsmHandler {
             return this;
         }
 
+        /**
+         * If set, all nodes are handled before the first way is handed to the ways handler. This requires the input file
+         * to be sorted by type, i.e. all nodes are stored before the ways.
+         */
+        public Builder setNodesBeforeWays(boolean nodesBeforeWays) {
+            this.nodesBeforeWays = nodesBeforeWays;
+            return this;
+        }
+
         public PbfParser build() {
 
             if (executor == null) throw new RuntimeException("Executor must be provided");
             if (nodeHandler == null && waysHandler == null && relationHandler == null)
                 throw new RuntimeException("No handler was provided. This way, the file is parsed without extracting information.");
-            return new PbfParser(nodeHandler, waysHandler, relationHandler, executor);
+            return new PbfParser(nodeHandler, waysHandler, relationHandler, executor, nodesBeforeWays);
         }
     }
 }
@@ -4,7 +4,7 @@ import org.matsim.api.core.v01.Coord;
 
 import java.util.List;
 
-class ProcessedOsmNode {
+class ProcessedOsmNode implements OsmNetworkNode {
 
 	private final long id;
 	private final List<ProcessedOsmWay> filteredReferencedWays;
@@ -16,6 +16,7 @@ class ProcessedOsmNode {
 		this.coord = coord;
 	}
 
+	@Override
 	public long getId() {
 		return id;
 	}
@@ -24,16 +25,19 @@ class ProcessedOsmNode {
 		return filteredReferencedWays;
 	}
 
+	@Override
 	public Coord getCoord() {
 		return coord;
 	}
 
-	boolean isWayReferenced(long wayId) {
+	@Override
+	public boolean isWayReferenced(ProcessedOsmWay way) {
 		return filteredReferencedWays.stream()
-				.anyMatch(way -> way.getId() == wayId);
+				.anyMatch(referencedWay -> referencedWay.getId() == way.getId());
 	}
 
-	boolean isIntersection() {
+	@Override
+	public boolean isIntersection() {
 		return filteredReferencedWays.size() > 1;
 	}
 }
\ No newline at end of file
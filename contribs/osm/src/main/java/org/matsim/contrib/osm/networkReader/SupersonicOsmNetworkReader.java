@@ -19,6 +19,7 @@ import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -33,6 +34,9 @@ import java.util.function.Predicate;
  * corresponding links in the matsim-network (e.g. speed, number of lanes). Those default properties may be overridden
  * with custom link properties using the {@link SupersonicOsmNetworkReader.Builder#addOverridingLinkProperties(String, LinkProperties)}
  * method of the Builder.
+ * <p>
+ * By default, all ways of interest and their nodes are kept in memory before the links are created. For large extracts
+ * the reader can be switched into a streaming mode with {@link SupersonicOsmNetworkReader.Builder#setStreaming(boolean)}.
  */
 public class SupersonicOsmNetworkReader {
 
@@ -48,11 +52,14 @@ public class SupersonicOsmNetworkReader {
     private final double adjustCapacityLength;
     private final boolean storeOriginalGeometry;
     private final BiPredicate<Coord, Integer> includeLinkAtCoordWithHierarchy;
+    private final boolean streaming;
+    private final Path nodeCoordinatesFile;
     final OsmNetworkParser parser;
 
     private Network network;
     private Map<Long, ProcessedOsmNode> nodes;
     private Map<Long, ProcessedOsmWay> ways;
+    private OsmNodeStore nodeStore;
 
     /**
      * Provide this getter for inheriting classes
@@ -66,6 +73,16 @@ public class SupersonicOsmNetworkReader {
                                BiPredicate<Coord, Integer> includeLinkAtCoordWithHierarchy,
                                AfterLinkCreated afterLinkCreated,
                                double freeSpeedFactor, double adjustCapacityLength, boolean storeOriginalGeometry) {
+        this(parser, preserveNodeWithId, includeLinkAtCoordWithHierarchy, afterLinkCreated, freeSpeedFactor,
+                adjustCapacityLength, storeOriginalGeometry, false, null);
+    }
+
+    SupersonicOsmNetworkReader(OsmNetworkParser parser,
+                               Predicate<Long> preserveNodeWithId,
+                               BiPredicate<Coord, Integer> includeLinkAtCoordWithHierarchy,
+                               AfterLinkCreated afterLinkCreated,
+                               double freeSpeedFactor, double adjustCapacityLength, boolean storeOriginalGeometry,
+                               boolean streaming, Path nodeCoordinatesFile) {
         this.parser = parser;
         this.preserveNodeWithId = preserveNodeWithId;
         this.includeLinkAtCoordWithHierarchy = includeLinkAtCoordWithHierarchy;
@@ -73,6 +90,8 @@ public class SupersonicOsmNetworkReader {
         this.freeSpeedFactor = freeSpeedFactor;
         this.adjustCapacityLength = adjustCapacityLength;
         this.storeOriginalGeometry = storeOriginalGeometry;
+        this.streaming = streaming;
+        this.nodeCoordinatesFile = nodeCoordinatesFile;
     }
 
     /**
@@ -96,6 +115,8 @@ public class SupersonicOsmNetworkReader {
 
     public Network read(Path inputFile) {
 
+        if (streaming) return stream(inputFile);
+
         parser.parse(inputFile);
 
         // set up state for convertion of parsed osm data
@@ -118,12 +139,50 @@ public class SupersonicOsmNetworkReader {
                 .forEach(this::addLinkToNetwork);
     }
 
-    private ProcessedOsmNode getNodeFromWay(ProcessedOsmWay way, int index) {
+    /**
+     * Reads the file in two passes without keeping the ways in memory. The first pass collects the nodes referenced
+     * by the ways of interest into a compact {@link OsmNodeStore}. The second pass stores the coordinates of those
+     * nodes, and then converts each way into links while the blocks of the file are decoded in parallel.
+     */
+    private Network stream(Path inputFile) {
+
+        this.network = NetworkUtils.createNetwork();
+
+        try (OsmNodeStore store = parser.collectReferencedNodes(inputFile, nodeCoordinatesFile)) {
+            this.nodeStore = store;
+
+            // the ways are converted on the threads of the parser. Keep the first failure, so that it isn't lost there
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            log.info("starting conversion \uD83D\uDE80");
+            parser.stream(inputFile, store, way -> {
+                try {
+                    for (WaySegment segment : createWaySegments(way)) {
+                        createLinks(segment).forEach(this::addLinkToNetwork);
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            if (failure.get() != null) throw failure.get();
+        } finally {
+            this.nodeStore = null;
+        }
+
+        log.info("finished conversion");
+        return network;
+    }
+
+    private OsmNetworkNode getNode(long nodeId) {
+        return nodeStore == null ? nodes.get(nodeId) : nodeStore.getNode(nodeId);
+    }
+
+    private OsmNetworkNode getNodeFromWay(ProcessedOsmWay way, int index) {
         long nodeId = way.getNodeIds().get(index);
-        ProcessedOsmNode node = nodes.get(nodeId);
+        OsmNetworkNode node = getNode(nodeId);
         if (node == null) {
             throw new RuntimeException("A node with id: " + nodeId + " was null. " +
-                    "Ensure you pass the 'completeWays=yes' argument when executing osmosis commands.");
+                    "Ensure you pass the 'completeWays=yes' argument when executing osmosis commands. " +
+                    "In streaming mode, the file must also be sorted by type, i.e. all nodes must be stored before the ways.");
         }
         return node;
     }
@@ -137,16 +196,16 @@ public class SupersonicOsmNetworkReader {
         for (int i = 1; i < way.getNodeIds().size(); i++) {
 
             // get the first node of the segment
-            ProcessedOsmNode fromNodeForSegment = getNodeFromWay(way, fromNodeForSegmentIndex);
+            OsmNetworkNode fromNodeForSegment = getNodeFromWay(way, fromNodeForSegmentIndex);
             // get the from and to nodes for a sub segment of the current way
-            ProcessedOsmNode fromOsmNode = getNodeFromWay(way, i - 1);
-            ProcessedOsmNode toOsmNode = getNodeFromWay(way, i);
+            OsmNetworkNode fromOsmNode = getNodeFromWay(way, i - 1);
+            OsmNetworkNode toOsmNode = getNodeFromWay(way, i);
 
             // add the distance between those nodes to the overall length of segment
             segmentLength += CoordUtils.calcEuclideanDistance(fromOsmNode.getCoord(), toOsmNode.getCoord());
 
             if (isLoop(fromNodeForSegment, toOsmNode)) {
-                Collection<WaySegment> loopSegments = handleLoop(nodes, fromNodeForSegment, way, i);
+                Collection<WaySegment> loopSegments = handleLoop(fromNodeForSegment, way, i);
                 segments.addAll(loopSegments);
 
                 segmentLength = 0;
@@ -174,33 +233,33 @@ public class SupersonicOsmNetworkReader {
         return segments;
     }
 
-    private boolean isCreateSegment(ProcessedOsmNode from, ProcessedOsmNode to, ProcessedOsmWay way) {
+    private boolean isCreateSegment(OsmNetworkNode from, OsmNetworkNode to, ProcessedOsmWay way) {
 
         // if the user wants to have this node, then he should get it no matter what the other conditions are.
         if (preserveNodeWithId.test(to.getId())) return true;
 
         return (to.isIntersection() || to.getId() == way.getEndNodeId())
-                && (to.isWayReferenced(way.getId()) || from.isWayReferenced(way.getId()));
+                && (to.isWayReferenced(way) || from.isWayReferenced(way));
     }
 
-    private boolean isLoop(ProcessedOsmNode fromNode, ProcessedOsmNode toNode) {
+    private boolean isLoop(OsmNetworkNode fromNode, OsmNetworkNode toNode) {
         return fromNode.getId() == toNode.getId();
     }
 
-    private Collection<WaySegment> handleLoop(Map<Long, ProcessedOsmNode> nodes, ProcessedOsmNode node, ProcessedOsmWay way, int toNodeIndex) {
+    private Collection<WaySegment> handleLoop(OsmNetworkNode node, ProcessedOsmWay way, int toNodeIndex) {
 
         // we need an extra test whether the loop is within the link filter
         if (!includeLinkAtCoordWithHierarchy.test(node.getCoord(), way.getLinkProperties().hierarchyLevel))
             return Collections.emptyList();
 
         List<WaySegment> result = new ArrayList<>();
-        ProcessedOsmNode toSegmentNode = node;
+        OsmNetworkNode toSegmentNode = node;
 
         // iterate backwards and keep all elements of the loop. Don't do thinning since this is an edge case
         for (int i = toNodeIndex - 1; i > 0; i--) {
 
             long fromId = way.getNodeIds().get(i);
-            ProcessedOsmNode fromSegmentNode = nodes.get(fromId);
+            OsmNetworkNode fromSegmentNode = getNode(fromId);
 
             result.add(new WaySegment(
                     fromSegmentNode, toSegmentNode, new TLongArrayList(new long[] { fromSegmentNode.getId(), toSegmentNode.getId()}),
@@ -356,7 +415,7 @@ public class SupersonicOsmNetworkReader {
 
         for (var i = startIndex; i != endIndex; i += incrementBy) {
             var id = nodeIds.get(i);
-            var node = nodes.get(id);
+            var node = getNode(id);
             var coord = node.getCoord();
             stringBuilder.append(node.getId());
             stringBuilder.append(",");
@@ -420,6 +479,8 @@ public class SupersonicOsmNetworkReader {
         double freeSpeedFactor = LinkProperties.DEFAULT_FREESPEED_FACTOR;
         double adjustCapacityLength = LinkProperties.DEFAULT_ADJUST_CAPACITY_LENGTH;
         boolean storeOriginalGeometry = false;
+        boolean streaming = false;
+        Path nodeCoordinatesFile;
 
         /**
          * Replace all Link-Properties at once. Link properties describe how an osm-highway-tag is translated into a
@@ -541,6 +602,33 @@ public class SupersonicOsmNetworkReader {
             return this;
         }
 
+        /**
+         * Sets whether the osm file is read in streaming mode. By default, all ways of interest and their nodes are kept
+         * in memory until the network is created. In streaming mode, only the ids of the nodes referenced by these ways
+         * are collected in a first pass over the file. In a second pass, the coordinates of these nodes are stored, and
+         * each way is converted into links as soon as it is read. This needs much less memory for large extracts.
+         * <p>
+         * Streaming requires the file to be sorted by type, i.e. all nodes are stored before the ways. This is the case
+         * for the extracts from geofabrik; other files can be sorted with 'osmium sort'.
+         *
+         * @param streaming flag if set to true, the file is read in streaming mode. default is false
+         */
+        public AbstractBuilder<T> setStreaming(boolean streaming) {
+            this.streaming = streaming;
+            return this;
+        }
+
+        /**
+         * Sets a file into which the coordinates of the nodes are memory mapped in streaming mode, instead of keeping
+         * them on the heap. The file is created, and deleted once the network is read.
+         *
+         * @param nodeCoordinatesFile file for the node coordinates. default is null, which keeps them on the heap
+         */
+        public AbstractBuilder<T> setNodeCoordinatesFile(Path nodeCoordinatesFile) {
+            this.nodeCoordinatesFile = nodeCoordinatesFile;
+            return this;
+        }
+
         /**
          * Builds a reader
          */
@@ -566,14 +654,15 @@ public class SupersonicOsmNetworkReader {
             return new SupersonicOsmNetworkReader(
                     parser, preserveNodeWithId,
                     includeLinkAtCoordWithHierarchy,
-                    afterLinkCreated, freeSpeedFactor, adjustCapacityLength, storeOriginalGeometry
+                    afterLinkCreated, freeSpeedFactor, adjustCapacityLength, storeOriginalGeometry,
+                    streaming, nodeCoordinatesFile
             );
         }
     }
 
     static class WaySegment {
-        private final ProcessedOsmNode fromNode;
-        private final ProcessedOsmNode toNode;
+        private final OsmNetworkNode fromNode;
+        private final OsmNetworkNode toNode;
         private final double length;
         private final LinkProperties linkProperties;
         private final Map<String, String> tags;
@@ -581,7 +670,7 @@ public class SupersonicOsmNetworkReader {
         private final long segmentId;
         private final TLongList nodesForSegment;
 
-        public WaySegment(ProcessedOsmNode fromNode, ProcessedOsmNode toNode, TLongList nodesForSegment, double length, LinkProperties linkProperties, Map<String, String> tags, long originalWayId, long segmentId) {
+        public WaySegment(OsmNetworkNode fromNode, OsmNetworkNode toNode, TLongList nodesForSegment, double length, LinkProperties linkProperties, Map<String, String> tags, long originalWayId, long segmentId) {
             this.fromNode = fromNode;
             this.toNode = toNode;
             this.length = length;
@@ -592,11 +681,11 @@ public class SupersonicOsmNetworkReader {
             this.nodesForSegment = nodesForSegment;
         }
 
-        public ProcessedOsmNode getFromNode() {
+        public OsmNetworkNode getFromNode() {
             return fromNode;
         }
 
-        public ProcessedOsmNode getToNode() {
+        public OsmNetworkNode getToNode() {
             return toNode;
         }
 
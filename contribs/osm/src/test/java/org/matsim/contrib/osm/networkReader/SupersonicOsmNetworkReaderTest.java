@@ -28,6 +28,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -691,6 +692,71 @@ public class SupersonicOsmNetworkReaderTest {
 
 	}
 
+	@Test
+	void linkGrid_streaming() {
+
+		Utils.OsmData grid = Utils.createGridWithDifferentLevels();
+		final Path file = Paths.get(matsimTestUtils.getOutputDirectory(), "grid-streaming.pbf");
+		writeOsmData(grid.getNodes(), grid.getWays(), file);
+		BiPredicate<Coord, Integer> filter = (coord, level) -> !(level == LinkProperties.LEVEL_TERTIARY && coord.getX() > 100);
+
+		Network expected = new SupersonicOsmNetworkReader.Builder()
+				.setCoordinateTransformation(transformation)
+				.setIncludeLinkAtCoordWithHierarchy(filter)
+				.build()
+				.read(file);
+
+		Network streamed = new SupersonicOsmNetworkReader.Builder()
+				.setCoordinateTransformation(transformation)
+				.setIncludeLinkAtCoordWithHierarchy(filter)
+				.setStreaming(true)
+				.build()
+				.read(file);
+
+		assertEquals(10, streamed.getLinks().size());
+		assertEquals(8, streamed.getNodes().size());
+		Utils.assertEquals(expected, streamed);
+	}
+
+	@Test
+	void twoIntersectingLinks_oneWithLoop_streamingWithMappedCoordinates() {
+
+		final List<Tag> tags = Collections.singletonList(new Tag("highway", MOTORWAY));
+		final List<OsmNode> nodes = Arrays.asList(new Node(1, 0, 0), new Node(2, 1, 1), new Node(3, 2, 2),
+				new Node(4, 0, 2), new Node(5, 2, 0), new Node(6, 3, 3),
+				new Node(7, 4, 3), new Node(8, 4, 2));
+		final List<OsmWay> ways = Arrays.asList(new Way(1, new TLongArrayList(new long[]{1, 2, 6, 7, 8, 6, 3}), tags),
+				new Way(2, new TLongArrayList(new long[]{4, 2, 5}), tags));
+		final Path file = Paths.get(matsimTestUtils.getOutputDirectory(), "two-intersecting-links-with-loop-streaming.pbf");
+		final Path coordinatesFile = Paths.get(matsimTestUtils.getOutputDirectory(), "node-coordinates.bin");
+		writeOsmData(nodes, ways, file);
+
+		Network expected = new SupersonicOsmNetworkReader.Builder()
+				.setCoordinateTransformation(transformation)
+				.setStoreOriginalGeometry(true)
+				.build()
+				.read(file);
+
+		Network streamed = new SupersonicOsmNetworkReader.Builder()
+				.setCoordinateTransformation(transformation)
+				.setStoreOriginalGeometry(true)
+				.setStreaming(true)
+				.setNodeCoordinatesFile(coordinatesFile)
+				.build()
+				.read(file);
+
+		assertEquals(8, streamed.getNodes().size());
+		assertEquals(8, streamed.getLinks().size());
+		Utils.assertEquals(expected, streamed);
+		for (Link link : expected.getLinks().values()) {
+			assertEquals(link.getAttributes().getAttribute(NetworkUtils.ORIG_GEOM),
+					streamed.getLinks().get(link.getId()).getAttributes().getAttribute(NetworkUtils.ORIG_GEOM));
+		}
+
+		// the file is only used while reading
+		assertFalse(Files.exists(coordinatesFile));
+	}
+
 	private void assertOriginalGeometryOnLink(Link link, List<OsmNode> osmNodes, boolean isForward) {
 		assertNotNull(link.getAttributes().getAttribute(NetworkUtils.ORIG_GEOM));
 		var originalGeometry = NetworkUtils.getOriginalGeometry(link);
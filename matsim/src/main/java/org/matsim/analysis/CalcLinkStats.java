@@ -179,60 +179,50 @@ public class CalcLinkStats {
 			}
 			out.write("\n");
 
-			// write data
+			// write data, one line at a time
+			StringBuilder line = new StringBuilder(4096);
 			for (Map.Entry<Id<Link>, LinkData> entry : this.linkData.entrySet()) {
 				Id<Link> linkId = entry.getKey();
 				LinkData data = entry.getValue();
 				Link link = this.network.getLinks().get(linkId);
 
-				out.write(linkId.toString());
-				out.write("\t"); // origId, no longer supported
-				out.write("\t" + link.getFromNode().getId().toString());
-				out.write("\t" + link.getToNode().getId().toString());
-				out.write("\t" + Double.toString(link.getLength()));
-				out.write("\t" + Double.toString(link.getFreespeed()));
-				out.write("\t" + Double.toString(link.getCapacity()));
+				line.setLength(0);
+				line.append(linkId);
+				line.append('\t'); // origId, no longer supported
+				line.append('\t').append(link.getFromNode().getId());
+				line.append('\t').append(link.getToNode().getId());
+				line.append('\t').append(link.getLength());
+				line.append('\t').append(link.getFreespeed());
+				line.append('\t').append(link.getCapacity());
 
 				// HRS0-1, HRS1-2, ... HRS23-24
-//				int[] sum = {0, 0, 0};
 				for (int i = 0; i < this.nofHours; i++) {
-					out.write("\t" + Double.toString(data.volumes[MIN][i]));
-//					sum[MIN] = sum[MIN] + data.volumes[MIN][i];
-					out.write("\t" + Double.toString((data.volumes[SUM][i]) / this.count));
-//					sum[SUM] = sum[SUM] + data.volumes[SUM][i];
-					out.write("\t" + Double.toString(data.volumes[MAX][i]));
-//					sum[MAX] = sum[MAX] + data.volumes[MAX][i];
+					line.append('\t').append(data.volumes[MIN][i]);
+					line.append('\t').append((data.volumes[SUM][i]) / this.count);
+					line.append('\t').append(data.volumes[MAX][i]);
 				}
 
 				// HRS0-nofHours
-				out.write("\t" + Double.toString(data.volumes[MIN][this.nofHours]));
-				out.write("\t" + Double.toString((data.volumes[SUM][this.nofHours]) / this.count));
-				out.write("\t" + Double.toString(data.volumes[MAX][this.nofHours]));
+				line.append('\t').append(data.volumes[MIN][this.nofHours]);
+				line.append('\t').append((data.volumes[SUM][this.nofHours]) / this.count);
+				line.append('\t').append(data.volumes[MAX][this.nofHours]);
 
 				// TRAVELTIME0-1, TRAVELTIME1-2, ... TRAVELTIME23-24
 				for (int i = 0; i < this.nofHours; i++) {
-					String ttimesMin = Double.toString(data.ttimes[MIN][i]);
-					out.write("\t" + ttimesMin);
+					double ttimesMin = data.ttimes[MIN][i];
+					line.append('\t').append(ttimesMin);
+					double ttsum = data.ttimes[SUM][i];
 					if (data.volumes[SUM][i] == 0) {
 						// nobody traveled along the link in this hour, so we cannot calculate an average
 						// use the value available or the minimum instead (min and max should be the same, =freespeed)
-						double ttsum = data.ttimes[SUM][i];
-						if (ttsum != 0.0) {
-							out.write("\t" + Double.toString(ttsum));
-						} else {
-							out.write("\t" + ttimesMin);
-						}
+						line.append('\t').append(ttsum != 0.0 ? ttsum : ttimesMin);
 					} else {
-						double ttsum = data.ttimes[SUM][i];
-						if (ttsum == 0) {
-							out.write("\t" + ttimesMin);
-						} else {
-							out.write("\t" + Double.toString(ttsum / data.volumes[SUM][i]));
-						}
+						line.append('\t').append(ttsum == 0 ? ttimesMin : ttsum / data.volumes[SUM][i]);
 					}
-					out.write("\t" + Double.toString(data.ttimes[MAX][i]));
+					line.append('\t').append(data.ttimes[MAX][i]);
 				}
-				out.write("\n");
+				line.append('\n');
+				out.append(line);
 			}
 
 		} catch (IOException e) {
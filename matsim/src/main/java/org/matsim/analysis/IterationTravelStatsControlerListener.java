@@ -63,9 +63,11 @@ class IterationTravelStatsControlerListener implements IterationEndsListener, Sh
 
     @Override
     public void notifyIterationEnds(IterationEndsEvent event) {
-        travelDistanceStats.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
-        pHbyModeCalculator.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
-        pkMbyModeCalculator.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
+        // the legs and trips are extracted once and shared by the analyses below
+        TripLegTable table = TripLegTable.create(experiencedPlansService.getExperiencedPlans().values());
+        travelDistanceStats.addIteration(event.getIteration(), table);
+        pHbyModeCalculator.addIteration(event.getIteration(), table);
+        pkMbyModeCalculator.addIteration(event.getIteration(), table);
 
 		boolean writeGraph = isWriteGraph(event);
 		pHbyModeCalculator.writeOutput(writeGraph);
@@ -149,12 +149,11 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 
 				// Sum for each mode
 				for (String mode : modes) {
-					int[] vol = volumes.getVolumesForLink(link.getId(), mode);
-					if (vol == null) {
-						row.add(0);
-					} else {
-						row.add(Arrays.stream(vol).sum());
+					int sum = 0;
+					for (int slot = 0; slot < volumes.getVolumesArraySize(); slot++) {
+						sum += volumes.getVolume(link.getId(), mode, slot);
 					}
+					row.add(sum);
 				}
 
 				for (String attr : attributes) {
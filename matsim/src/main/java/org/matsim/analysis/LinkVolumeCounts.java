@@ -0,0 +1,222 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkVolumeCounts.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts vehicles per link, time slot and mode in flat <code>int</code> arrays, indexed by the {@link org.matsim.api.core.v01.Id#index()
+ * index} of the link, a time slot and a small integer for the mode, see {@link #getModeIndex(String)}.
+ *
+ * <p>The counts of consecutive links are stored together in chunks, which are only allocated once a vehicle is counted on one
+ * of their links. Instances are not thread-safe; if vehicles are counted in several threads, every thread can count into its
+ * own instance, and the instances are combined with {@link #addAll(LinkVolumeCounts)} afterwards.</p>
+ */
+public final class LinkVolumeCounts {
+
+	private static final int CHUNK_BITS = 8;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** the counts of all modes together */
+	private static final int TOTAL = 0;
+
+	private final int numberOfSlots;
+
+	private final Map<String, Integer> modeIndices = new HashMap<>();
+	private final List<String> modes = new ArrayList<>();
+
+	// [TOTAL] and [mode index + 1], then the chunks of the links, then (link index & CHUNK_MASK) * numberOfSlots + slot
+	private int[][][] counts = new int[1][0][];
+
+	public LinkVolumeCounts(int numberOfSlots) {
+		this.numberOfSlots = numberOfSlots;
+	}
+
+	public int getNumberOfSlots() {
+		return this.numberOfSlots;
+	}
+
+	/**
+	 * @return the index of the mode, which is assigned when the mode is used for the first time. <code>null</code> is a valid mode.
+	 */
+	public int getModeIndex(String mode) {
+		Integer index = this.modeIndices.get(mode);
+		if (index == null) {
+			index = this.modes.size();
+			this.modeIndices.put(mode, index);
+			this.modes.add(mode);
+			this.counts = Arrays.copyOf(this.counts, this.counts.length + 1);
+			this.counts[this.counts.length - 1] = new int[0][];
+		}
+		return index;
+	}
+
+	/**
+	 * @return the index of the mode, or -1 if it was never used.
+	 */
+	public int findModeIndex(String mode) {
+		Integer index = this.modeIndices.get(mode);
+		return index == null ? -1 : index;
+	}
+
+	public String getMode(int modeIndex) {
+		return this.modes.get(modeIndex);
+	}
+
+	public int getNumberOfModes() {
+		return this.modes.size();
+	}
+
+	/**
+	 * Counts a vehicle of an unknown mode, it is only included in the total counts.
+	 */
+	public void add(int linkIndex, int slot) {
+		getOrCreateChunk(TOTAL, linkIndex)[offset(linkIndex, slot)]++;
+	}
+
+	public void add(int linkIndex, int modeIndex, int slot) {
+		int offset = offset(linkIndex, slot);
+		getOrCreateChunk(TOTAL, linkIndex)[offset]++;
+		getOrCreateChunk(modeIndex + 1, linkIndex)[offset]++;
+	}
+
+	/**
+	 * @return the number of vehicles of all modes.
+	 */
+	public int get(int linkIndex, int slot) {
+		int[] chunk = getChunk(TOTAL, linkIndex);
+		return chunk == null ? 0 : chunk[offset(linkIndex, slot)];
+	}
+
+	public int get(int linkIndex, int modeIndex, int slot) {
+		int[] chunk = getChunk(modeIndex + 1, linkIndex);
+		return chunk == null ? 0 : chunk[offset(linkIndex, slot)];
+	}
+
+	/**
+	 * @return whether any vehicle was counted on the link.
+	 */
+	public boolean hasCounts(int linkIndex) {
+		return hasCountsInRow(TOTAL, linkIndex);
+	}
+
+	public boolean hasCounts(int linkIndex, int modeIndex) {
+		return hasCountsInRow(modeIndex + 1, linkIndex);
+	}
+
+	/**
+	 * @return whether any vehicle of the mode was counted on any link.
+	 */
+	public boolean hasCountsOfMode(int modeIndex) {
+		for (int[] chunk : this.counts[modeIndex + 1]) {
+			if (chunk != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return one more than the largest index of a link on which a vehicle may have been counted.
+	 */
+	public int getLinkIndexLimit() {
+		return this.counts[TOTAL].length << CHUNK_BITS;
+	}
+
+	/**
+	 * Adds the counts of the other instance to this one. The modes are matched by their names, the number of slots must be the same.
+	 */
+	public void addAll(LinkVolumeCounts other) {
+		if (other.numberOfSlots != this.numberOfSlots) {
+			throw new IllegalArgumentException("cannot add counts with " + other.numberOfSlots + " slots to counts with " + this.numberOfSlots + " slots.");
+		}
+		addAll(other.counts[TOTAL], TOTAL);
+		for (int m = 0; m < other.modes.size(); m++) {
+			addAll(other.counts[m + 1], getModeIndex(other.modes.get(m)) + 1);
+		}
+	}
+
+	private void addAll(int[][] otherChunks, int row) {
+		for (int c = 0; c < otherChunks.length; c++) {
+			int[] otherChunk = otherChunks[c];
+			if (otherChunk != null) {
+				int[] chunk = getOrCreateChunk(row, c << CHUNK_BITS);
+				for (int i = 0; i < chunk.length; i++) {
+					chunk[i] += otherChunk[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes all counts. The indices of the modes are kept.
+	 */
+	public void clear() {
+		for (int row = 0; row < this.counts.length; row++) {
+			this.counts[row] = new int[0][];
+		}
+	}
+
+	private int offset(int linkIndex, int slot) {
+		return (linkIndex & CHUNK_MASK) * this.numberOfSlots + slot;
+	}
+
+	private boolean hasCountsInRow(int row, int linkIndex) {
+		int[] chunk = getChunk(row, linkIndex);
+		if (chunk == null) {
+			return false;
+		}
+		int start = offset(linkIndex, 0);
+		for (int i = start; i < start + this.numberOfSlots; i++) {
+			if (chunk[i] != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int[] getChunk(int row, int linkIndex) {
+		int[][] chunks = this.counts[row];
+		int c = linkIndex >>> CHUNK_BITS;
+		return c < chunks.length ? chunks[c] : null;
+	}
+
+	private int[] getOrCreateChunk(int row, int linkIndex) {
+		int[][] chunks = this.counts[row];
+		int c = linkIndex >>> CHUNK_BITS;
+		if (c >= chunks.length) {
+			chunks = Arrays.copyOf(chunks, Math.max(c + 1, 2 * chunks.length));
+			this.counts[row] = chunks;
+		}
+		int[] chunk = chunks[c];
+		if (chunk == null) {
+			chunk = new int[CHUNK_SIZE * this.numberOfSlots];
+			chunks[c] = chunk;
+		}
+		return chunk;
+	}
+
+}
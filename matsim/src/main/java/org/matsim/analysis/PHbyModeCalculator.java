@@ -24,7 +24,7 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -35,11 +35,10 @@ import org.apache.commons.csv.CSVPrinter;
 import org.apache.logging.log4j.LogManager;
 import org.jfree.chart.axis.CategoryLabelPositions;
 import org.matsim.api.core.v01.IdMap;
-import org.matsim.api.core.v01.population.*;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
-import org.matsim.core.router.StageActivityTypeIdentifier;
-import org.matsim.core.scoring.EventsToLegs;
 import org.matsim.core.utils.charts.StackedBarChart;
 
 /**
@@ -64,46 +63,38 @@ public class PHbyModeCalculator {
 	}
 
 	void addIteration(int iteration, IdMap<Person, Plan> map) {
-		Map<String,TravelTimeAndWaitTime> phtbyMode = map.values()
-				.parallelStream()
-				.flatMap(plan -> plan.getPlanElements().stream())
-				.map(PHbyModeCalculator::mapPlanElementToEntry)
-				.collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue, TravelTimeAndWaitTime::sum));
-		phtPerIteration.put(iteration,phtbyMode);
+		addIteration(iteration, TripLegTable.create(map.values()));
 	}
 
-	private static AbstractMap.SimpleEntry<String, TravelTimeAndWaitTime> mapPlanElementToEntry(PlanElement pe) {
-		if (pe instanceof Leg leg) {
+	void addIteration(int iteration, TripLegTable table) {
+		double[] travelTimes = new double[table.getNumberOfModes()];
+		double[] waitTimes = new double[table.getNumberOfModes()];
+		for (int i = 0; i < table.numberOfLegs; i++) {
 			double travelTime = 0.0;
 			double waitTime = 0.0;
-			if (leg.getRoute()!=null) {
-				travelTime = leg.getRoute().getTravelTime().seconds();
-				double enterVehicleTime = Double.NaN;
-				Object attr = leg.getAttributes().getAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME);
-				if (attr != null) {
-					enterVehicleTime = (Double) attr;
-				}
-				waitTime = enterVehicleTime - leg.getDepartureTime().seconds();
+			if (table.legHasRoute[i]) {
+				travelTime = table.legTravelTimes[i];
+				double enterVehicleTime = table.legEnterVehicleTimes[i];
+				waitTime = enterVehicleTime - table.legDepartureTimes[i];
 				if (!Double.isFinite(waitTime)) {waitTime = 0.0;}
 				if (waitTime >= 0.0) {
 					travelTime -= waitTime;
 				} else {
-					throw new RuntimeException("negative wait time" + enterVehicleTime + " " + leg.getDepartureTime()
-							.seconds());
+					throw new RuntimeException("negative wait time" + enterVehicleTime + " " + table.legDepartureTimes[i]);
 				}
 			}
 			if (Double.isNaN(travelTime)) {travelTime = 0.0; }
-			return new AbstractMap.SimpleEntry<>(leg.getMode(), new TravelTimeAndWaitTime(travelTime, waitTime));
+			travelTimes[table.legModes[i]] += travelTime;
+			waitTimes[table.legModes[i]] += waitTime;
 		}
-
-		if (pe instanceof Activity act) {
-			if (StageActivityTypeIdentifier.isStageActivity(act.getType())) {
-				double duration = act.getEndTime().orElse(0) - act.getStartTime().orElse(0);
-				return new AbstractMap.SimpleEntry<>(STAGE_ACTIVITY, new TravelTimeAndWaitTime(0.0, duration));
-			}
+		Map<String,TravelTimeAndWaitTime> phtbyMode = new HashMap<>();
+		for (int mode = 0; mode < travelTimes.length; mode++) {
+			phtbyMode.put(table.getMode(mode), new TravelTimeAndWaitTime(travelTimes[mode], waitTimes[mode]));
 		}
-
-		return new AbstractMap.SimpleEntry<>(STAGE_ACTIVITY, new TravelTimeAndWaitTime(0.0, 0.0));
+		if (table.numberOfActivities > 0) {
+			phtbyMode.merge(STAGE_ACTIVITY, new TravelTimeAndWaitTime(0.0, table.stageActivityDuration), TravelTimeAndWaitTime::sum);
+		}
+		phtPerIteration.put(iteration,phtbyMode);
 	}
 
 	void writeOutput(boolean writePng) {
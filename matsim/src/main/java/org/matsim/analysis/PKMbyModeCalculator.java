@@ -24,7 +24,7 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.AbstractMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.TreeSet;
@@ -35,7 +35,6 @@ import org.apache.commons.csv.CSVPrinter;
 import org.apache.logging.log4j.LogManager;
 import org.jfree.chart.axis.CategoryLabelPositions;
 import org.matsim.api.core.v01.IdMap;
-import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.groups.GlobalConfigGroup;
@@ -60,17 +59,21 @@ public class PKMbyModeCalculator {
     }
 
     void addIteration(int iteration, IdMap<Person, Plan> map) {
-        Map<String,Double> pmtbyMode = map.values()
-                .parallelStream()
-                .flatMap(plan -> plan.getPlanElements().stream())
-                .filter(Leg.class::isInstance)
-                .map(l->{
-                    Leg leg = (Leg) l;
-                    double dist = leg.getRoute()!=null?leg.getRoute().getDistance():0;
-                    if (Double.isNaN(dist)) {dist = 0.0; }
-                    return new AbstractMap.SimpleEntry<>(leg.getMode(),dist);
-                })
-                .collect(Collectors.toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue, Double::sum));
+        addIteration(iteration, TripLegTable.create(map.values()));
+    }
+
+    void addIteration(int iteration, TripLegTable table) {
+        double[] pmt = new double[table.getNumberOfModes()];
+        for (int i = 0; i < table.numberOfLegs; i++) {
+            double dist = table.legDistances[i];
+            if (!Double.isNaN(dist)) {
+                pmt[table.legModes[i]] += dist;
+            }
+        }
+        Map<String,Double> pmtbyMode = new HashMap<>();
+        for (int mode = 0; mode < pmt.length; mode++) {
+            pmtbyMode.put(table.getMode(mode), pmt[mode]);
+        }
         pmtPerIteration.put(iteration,pmtbyMode);
     }
 
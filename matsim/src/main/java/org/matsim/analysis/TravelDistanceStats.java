@@ -23,14 +23,11 @@ package org.matsim.analysis;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.IdMap;
-import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
-import org.matsim.core.router.TripStructureUtils;
-import org.matsim.core.router.TripStructureUtils.Trip;
 import org.matsim.core.utils.charts.XYLineChart;
 import org.matsim.core.utils.io.IOUtils;
 
@@ -39,7 +36,6 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  *
@@ -109,13 +105,17 @@ public class TravelDistanceStats {
 	}
 
 	public void addIteration(int iteration, IdMap<Person, Plan> map) {
-		DoubleSummaryStatistics legStats = getLegStats(map);
-		DoubleSummaryStatistics tripStats = getTripStats(map);
+		addIteration(iteration, TripLegTable.create(map.values()));
+	}
+
+	void addIteration(int iteration, TripLegTable table) {
+		DoubleSummaryStatistics legStats = getFiniteStats(table.legDistances, table.numberOfLegs);
+		DoubleSummaryStatistics tripStats = getFiniteStats(table.tripDistances, table.numberOfTrips);
 
 		log.info("-- average leg distance per plan (executed plans only): " + legStats.getAverage() + " meters");
-        log.info("average leg distance per Person (executed plans only): " + legStats.getSum() / map.size() + " meters (statistic on all " + legStats.getCount() + " legs which have a finite distance)");
+        log.info("average leg distance per Person (executed plans only): " + legStats.getSum() / table.numberOfPlans + " meters (statistic on all " + legStats.getCount() + " legs which have a finite distance)");
         log.info("-- average trip distance per plan (executed plans only): " + tripStats.getAverage() + " meters");
-        log.info("average trip distance per Person (executed plans only): " + tripStats.getSum() / map.size() + " meters (statistic on all " + tripStats.getCount() + " trips which have a finite distance)");
+        log.info("average trip distance per Person (executed plans only): " + tripStats.getSum() / table.numberOfPlans + " meters (statistic on all " + tripStats.getCount() + " trips which have a finite distance)");
         log.info("(TravelDistanceStats takes an average over all legs where the simulation reports travelled (network) distances");
 		log.info("(and teleported legs whose route contains a distance.)");// TODO: still valid?
 
@@ -196,39 +196,15 @@ public class TravelDistanceStats {
 		chart.saveAsPng(this.legStatsPngName + ".png", 800, 600);
 	}
 
-	private static DoubleSummaryStatistics getTripStats(IdMap<Person, Plan> map) {
-		return map.values()
-				  .parallelStream()
-				  .flatMap(plan -> TripStructureUtils.getTrips(plan).stream())
-				  .mapToDouble(t -> {
-					  Trip trip = (Trip) t;
-					  return trip.getTripElements()
-								 .stream()
-								 .filter(Leg.class::isInstance)
-								 .collect(Collectors.summingDouble(l -> {
-									 Leg leg = (Leg) l;
-									 // TODO NaN handling of Collectors.summingDouble will lead to many NaNs... rethink
-									 return leg.getRoute() != null ? leg.getRoute().getDistance() : Double.NaN;
-								 }));
-				  })
-				  // the following means trips with infinite distance are silently ignored.
-				  .filter(Double::isFinite)
-				  .summaryStatistics();
-	}
-
-	private static DoubleSummaryStatistics getLegStats(IdMap<Person, Plan> map) {
-		return map.values()
-				  //TODO: This probably doesn't control how many threads parallelStream is using despite the number of threads setting in config
-				  .parallelStream()
-				  .flatMap(plan -> plan.getPlanElements().stream())
-				  .filter(Leg.class::isInstance)
-				  .mapToDouble(l -> {
-					  Leg leg = (Leg) l;
-					  return leg.getRoute() != null ? leg.getRoute().getDistance() : Double.NaN;
-				  })
-				  // the following means legs with infinite distance are ignored
-				  .filter(Double::isFinite)
-				  .summaryStatistics();
+	private static DoubleSummaryStatistics getFiniteStats(double[] distances, int size) {
+		DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+		for (int i = 0; i < size; i++) {
+			// the following means legs and trips with infinite distance (or without route) are silently ignored.
+			if (Double.isFinite(distances[i])) {
+				stats.accept(distances[i]);
+			}
+		}
+		return stats;
 	}
 
 	public void close() {
@@ -0,0 +1,231 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TripLegTable.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.router.StageActivityTypeIdentifier;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.scoring.EventsToLegs;
+
+/**
+ * The legs and trips of a set of plans, usually the experienced plans of an iteration, extracted once in one pass over the
+ * plans and stored column by column, so that several analyses can use them without going through the plans again.
+ *
+ * <p>The trips are defined like by {@link TripStructureUtils#getTrips(Plan)}. Times and distances which are not available
+ * are stored as {@link Double#NaN}, the analyses decide how to handle them.</p>
+ */
+/* deliberately package */ final class TripLegTable {
+
+	private static final int PLANS_PER_CHUNK = 1024;
+
+	private final String[] modes;
+
+	final int numberOfPlans;
+
+	final int numberOfLegs;
+	/** index of the mode, see {@link #getMode(int)} */
+	final int[] legModes;
+	final boolean[] legHasRoute;
+	/** the distance of the route, NaN if the leg has no route */
+	final double[] legDistances;
+	/** the travel time of the route, NaN if the leg has no route or the route has no travel time */
+	final double[] legTravelTimes;
+	final double[] legDepartureTimes;
+	/** the time at which the vehicle was entered, see {@link EventsToLegs#ENTER_VEHICLE_TIME_ATTRIBUTE_NAME} */
+	final double[] legEnterVehicleTimes;
+
+	final int numberOfTrips;
+	/** the sum of the distances of the legs, NaN if one of the legs has no route */
+	final double[] tripDistances;
+
+	final int numberOfActivities;
+	/** the sum of the durations of all stage activities */
+	final double stageActivityDuration;
+
+	private TripLegTable(List<Chunk> chunks) {
+		Map<String, Integer> modeIndices = new HashMap<>();
+		List<String> modes = new ArrayList<>();
+		int plans = 0, legs = 0, trips = 0, activities = 0;
+		double stageDuration = 0;
+		for (Chunk chunk : chunks) {
+			plans += chunk.plans;
+			legs += chunk.legs;
+			trips += chunk.trips;
+			activities += chunk.activities;
+			stageDuration += chunk.stageActivityDuration;
+		}
+		this.numberOfPlans = plans;
+		this.numberOfLegs = legs;
+		this.numberOfTrips = trips;
+		this.numberOfActivities = activities;
+		this.stageActivityDuration = stageDuration;
+		this.legModes = new int[legs];
+		this.legHasRoute = new boolean[legs];
+		this.legDistances = new double[legs];
+		this.legTravelTimes = new double[legs];
+		this.legDepartureTimes = new double[legs];
+		this.legEnterVehicleTimes = new double[legs];
+		this.tripDistances = new double[trips];
+
+		int leg = 0, trip = 0;
+		for (Chunk chunk : chunks) {
+			int[] modeMapping = new int[chunk.modes.size()];
+			for (int m = 0; m < modeMapping.length; m++) {
+				modeMapping[m] = modeIndices.computeIfAbsent(chunk.modes.get(m), mode -> {
+					modes.add(mode);
+					return modes.size() - 1;
+				});
+			}
+			for (int i = 0; i < chunk.legs; i++) {
+				this.legModes[leg + i] = modeMapping[chunk.legModes[i]];
+			}
+			System.arraycopy(chunk.legHasRoute, 0, this.legHasRoute, leg, chunk.legs);
+			System.arraycopy(chunk.legDistances, 0, this.legDistances, leg, chunk.legs);
+			System.arraycopy(chunk.legTravelTimes, 0, this.legTravelTimes, leg, chunk.legs);
+			System.arraycopy(chunk.legDepartureTimes, 0, this.legDepartureTimes, leg, chunk.legs);
+			System.arraycopy(chunk.legEnterVehicleTimes, 0, this.legEnterVehicleTimes, leg, chunk.legs);
+			System.arraycopy(chunk.tripDistances, 0, this.tripDistances, trip, chunk.trips);
+			leg += chunk.legs;
+			trip += chunk.trips;
+		}
+		this.modes = modes.toArray(new String[0]);
+	}
+
+	/**
+	 * Extracts the legs and trips of the plans, several chunks of plans in parallel. The order of the legs and trips is the order
+	 * of the plans.
+	 */
+	static TripLegTable create(Collection<? extends Plan> plans) {
+		List<? extends Plan> planList = new ArrayList<>(plans);
+		int numberOfChunks = (planList.size() + PLANS_PER_CHUNK - 1) / PLANS_PER_CHUNK;
+		List<Chunk> chunks = IntStream.range(0, numberOfChunks).parallel().mapToObj(c -> {
+			Chunk chunk = new Chunk();
+			for (Plan plan : planList.subList(c * PLANS_PER_CHUNK, Math.min((c + 1) * PLANS_PER_CHUNK, planList.size()))) {
+				chunk.add(plan);
+			}
+			return chunk;
+		}).toList();
+		return new TripLegTable(chunks);
+	}
+
+	int getNumberOfModes() {
+		return this.modes.length;
+	}
+
+	String getMode(int modeIndex) {
+		return this.modes[modeIndex];
+	}
+
+	private static final class Chunk {
+
+		private final Map<String, Integer> modeIndices = new HashMap<>();
+		private final List<String> modes = new ArrayList<>();
+
+		private int plans = 0;
+
+		private int legs = 0;
+		private int[] legModes = new int[64];
+		private boolean[] legHasRoute = new boolean[64];
+		private double[] legDistances = new double[64];
+		private double[] legTravelTimes = new double[64];
+		private double[] legDepartureTimes = new double[64];
+		private double[] legEnterVehicleTimes = new double[64];
+
+		private int trips = 0;
+		private double[] tripDistances = new double[16];
+
+		private int activities = 0;
+		private double stageActivityDuration = 0;
+
+		private void add(Plan plan) {
+			this.plans++;
+			List<PlanElement> elements = plan.getPlanElements();
+			int originActivityIndex = -1;
+			double tripDistance = 0;
+			for (int index = 0; index < elements.size(); index++) {
+				PlanElement pe = elements.get(index);
+				if (pe instanceof Leg leg) {
+					double distance = addLeg(leg);
+					tripDistance += distance;
+				} else if (pe instanceof Activity act) {
+					this.activities++;
+					if (StageActivityTypeIdentifier.isStageActivity(act.getType())) {
+						this.stageActivityDuration += act.getEndTime().orElse(0) - act.getStartTime().orElse(0);
+						continue;
+					}
+					// see TripStructureUtils.getTrips()
+					if (originActivityIndex >= 0 && index - originActivityIndex > 1) {
+						addTrip(tripDistance);
+					}
+					originActivityIndex = index;
+					tripDistance = 0;
+				}
+			}
+		}
+
+		private double addLeg(Leg leg) {
+			if (this.legs == this.legModes.length) {
+				int length = 2 * this.legs;
+				this.legModes = Arrays.copyOf(this.legModes, length);
+				this.legHasRoute = Arrays.copyOf(this.legHasRoute, length);
+				this.legDistances = Arrays.copyOf(this.legDistances, length);
+				this.legTravelTimes = Arrays.copyOf(this.legTravelTimes, length);
+				this.legDepartureTimes = Arrays.copyOf(this.legDepartureTimes, length);
+				this.legEnterVehicleTimes = Arrays.copyOf(this.legEnterVehicleTimes, length);
+			}
+			Route route = leg.getRoute();
+			Object enterVehicleTime = leg.getAttributes().getAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME);
+			double distance = route != null ? route.getDistance() : Double.NaN;
+
+			this.legModes[this.legs] = this.modeIndices.computeIfAbsent(leg.getMode(), mode -> {
+				this.modes.add(mode);
+				return this.modes.size() - 1;
+			});
+			this.legHasRoute[this.legs] = route != null;
+			this.legDistances[this.legs] = distance;
+			this.legTravelTimes[this.legs] = route != null ? route.getTravelTime().orElse(Double.NaN) : Double.NaN;
+			this.legDepartureTimes[this.legs] = leg.getDepartureTime().orElse(Double.NaN);
+			this.legEnterVehicleTimes[this.legs] = enterVehicleTime != null ? (Double) enterVehicleTime : Double.NaN;
+			this.legs++;
+			return distance;
+		}
+
+		private void addTrip(double distance) {
+			if (this.trips == this.tripDistances.length) {
+				this.tripDistances = Arrays.copyOf(this.tripDistances, 2 * this.trips);
+			}
+			this.tripDistances[this.trips++] = distance;
+		}
+	}
+
+}
@@ -23,7 +23,7 @@ package org.matsim.analysis;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.IdMap;
+import org.matsim.api.core.v01.IdSet;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
@@ -31,17 +31,19 @@ import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.api.experimental.events.EventsManager;
-import org.matsim.vehicles.Vehicle;
 
 import jakarta.inject.Inject;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 
 /**
  * Counts the number of vehicles leaving a link, aggregated into time bins of a specified size.
  *
+ * <p>The counts are stored in a {@link LinkVolumeCounts}, indexed by the index of the link and the mode. Several analyzers
+ * which counted different events, e.g. in different threads, can be combined with {@link #addAll(VolumesAnalyzer)}.</p>
+ *
  * @author mrieser
  */
 public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTrafficEventHandler {
@@ -50,12 +52,13 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	private final int timeBinSize;
 	private final int maxTime;
 	private final int maxSlotIndex;
-	private final IdMap<Link, int[]> links;
+	private final LinkVolumeCounts counts;
 
 	// for multi-modal support
 	private final boolean observeModes;
-	private final IdMap<Vehicle, String> enRouteModes;
-	private final IdMap<Link, Map<String, int[]>> linksPerMode;
+	// the mode index + 1 per vehicle index, 0 if the vehicle did not enter traffic (yet)
+	private int[] enRouteModes = new int[0];
+	private final int unknownModeIndex;
 
 	@Inject
 	VolumesAnalyzer(Network network, EventsManager eventsManager) {
@@ -71,48 +74,35 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 		this.timeBinSize = timeBinSize;
 		this.maxTime = maxTime;
 		this.maxSlotIndex = (this.maxTime / this.timeBinSize) + 1;
-		this.links = new IdMap<>(Link.class);
+		this.counts = new LinkVolumeCounts(this.maxSlotIndex + 1);
 
 		this.observeModes = observeModes;
-		if (this.observeModes) {
-			this.enRouteModes = new IdMap<>(Vehicle.class);
-			this.linksPerMode = new IdMap<>(Link.class);
-		} else {
-			this.enRouteModes = null;
-			this.linksPerMode = null;
-		}
+		// vehicles without a VehicleEntersTrafficEvent are counted with mode null
+		this.unknownModeIndex = this.observeModes ? this.counts.getModeIndex(null) : -1;
 	}
 
 	@Override
 	public void handleEvent(VehicleEntersTrafficEvent event) {
 		if (this.observeModes) {
-			this.enRouteModes.put(event.getVehicleId(), event.getNetworkMode());
+			int vehicleIndex = event.getVehicleId().index();
+			if (vehicleIndex >= this.enRouteModes.length) {
+				this.enRouteModes = Arrays.copyOf(this.enRouteModes, Math.max(vehicleIndex + 1, 2 * this.enRouteModes.length));
+			}
+			this.enRouteModes[vehicleIndex] = this.counts.getModeIndex(event.getNetworkMode()) + 1;
 		}
 	}
 
 	@Override
 	public void handleEvent(final LinkLeaveEvent event) {
-		int[] volumes = this.links.get(event.getLinkId());
-		if (volumes == null) {
-			volumes = new int[this.maxSlotIndex + 1]; // initialized to 0 by default, according to JVM specs
-			this.links.put(event.getLinkId(), volumes);
-		}
+		int linkIndex = event.getLinkId().index();
 		int timeslot = getTimeSlotIndex(event.getTime());
-		volumes[timeslot]++;
 
 		if (this.observeModes) {
-			Map<String, int[]> modeVolumes = this.linksPerMode.get(event.getLinkId());
-			if (modeVolumes == null) {
-				modeVolumes = new HashMap<>();
-				this.linksPerMode.put(event.getLinkId(), modeVolumes);
-			}
-			String mode = this.enRouteModes.get(event.getVehicleId());
-			volumes = modeVolumes.get(mode);
-			if (volumes == null) {
-				volumes = new int[this.maxSlotIndex + 1]; // initialized to 0 by default, according to JVM specs
-				modeVolumes.put(mode, volumes);
-			}
-			volumes[timeslot]++;
+			int vehicleIndex = event.getVehicleId().index();
+			int mode = vehicleIndex < this.enRouteModes.length ? this.enRouteModes[vehicleIndex] - 1 : -1;
+			this.counts.add(linkIndex, mode < 0 ? this.unknownModeIndex : mode, timeslot);
+		} else {
+			this.counts.add(linkIndex, timeslot);
 		}
 	}
 
@@ -126,26 +116,69 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	/**
 	 * @param linkId
 	 * @return Array containing the number of vehicles leaving the link <code>linkId</code> per time bin,
-	 * starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.
+	 * starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds, or <code>null</code> if no vehicle left the link.
+	 * The array is a new copy on every call, so changing it does not change the volumes of this analyzer. Callers which
+	 * loop over many links or time bins should use {@link #getVolume(Id, int)} instead, which does not allocate an array.
 	 */
 	public int[] getVolumesForLink(final Id<Link> linkId) {
-		return this.links.get(linkId);
+		int linkIndex = linkId.index();
+		if (!this.counts.hasCounts(linkIndex)) {
+			return null;
+		}
+		int[] volumes = new int[this.maxSlotIndex + 1];
+		for (int slot = 0; slot < volumes.length; slot++) {
+			volumes[slot] = this.counts.get(linkIndex, slot);
+		}
+		return volumes;
 	}
 
 	/**
 	 * @param linkId
 	 * @param mode
 	 * @return Array containing the number of vehicles using the specified mode leaving the link
-	 * <code>linkId</code> per time bin, starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.
+	 * <code>linkId</code> per time bin, starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds, or <code>null</code>
+	 * if no such vehicle left the link. Like {@link #getVolumesForLink(Id)}, this returns a new copy on every call, see
+	 * {@link #getVolume(Id, String, int)} for looking up single time bins.
 	 */
 	public int[] getVolumesForLink(final Id<Link> linkId, String mode) {
 		if (observeModes) {
-			Map<String, int[]> modeVolumes = this.linksPerMode.get(linkId);
-			if (modeVolumes != null) return modeVolumes.get(mode);
+			int linkIndex = linkId.index();
+			int modeIndex = this.counts.findModeIndex(mode);
+			if (modeIndex >= 0 && this.counts.hasCounts(linkIndex, modeIndex)) {
+				int[] volumes = new int[this.maxSlotIndex + 1];
+				for (int slot = 0; slot < volumes.length; slot++) {
+					volumes[slot] = this.counts.get(linkIndex, modeIndex, slot);
+				}
+				return volumes;
+			}
 		}
 		return null;
 	}
 
+	/**
+	 * @return the number of vehicles leaving the link <code>linkId</code> in the given time bin. Unlike {@link #getVolumesForLink(Id)},
+	 * this does not copy the volumes of all time bins, so it is the better choice when iterating over the time bins.
+	 */
+	public int getVolume(final Id<Link> linkId, final int timeSlot) {
+		Objects.checkIndex(timeSlot, this.maxSlotIndex + 1);
+		return this.counts.get(linkId.index(), timeSlot);
+	}
+
+	/**
+	 * @return the number of vehicles using the specified mode leaving the link <code>linkId</code> in the given time bin.
+	 * @see #getVolume(Id, int)
+	 */
+	public int getVolume(final Id<Link> linkId, String mode, final int timeSlot) {
+		Objects.checkIndex(timeSlot, this.maxSlotIndex + 1);
+		if (observeModes) {
+			int modeIndex = this.counts.findModeIndex(mode);
+			if (modeIndex >= 0) {
+				return this.counts.get(linkId.index(), modeIndex, timeSlot);
+			}
+		}
+		return 0;
+	}
+
 	/**
 	 * @return The size of the arrays returned by calls to the {@link #getVolumesForLink(Id)} and the {@link #getVolumesForLink(Id, String)}
 	 * methods.
@@ -179,14 +212,14 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 
 		double[] volumes = new double[24];
 
-		int[] volumesForLink = this.getVolumesForLink(linkId);
-		if (volumesForLink == null) return volumes;
+		int linkIndex = linkId.index();
+		if (!this.counts.hasCounts(linkIndex)) return volumes;
 
 		int slotsPerHour = (int) (3600.0 / this.timeBinSize);
 		for (int hour = 0; hour < 24; hour++) {
 			double time = hour * 3600.0;
 			for (int i = 0; i < slotsPerHour; i++) {
-				volumes[hour] += volumesForLink[this.getTimeSlotIndex(time)];
+				volumes[hour] += this.counts.get(linkIndex, this.getTimeSlotIndex(time));
 				time += this.timeBinSize;
 			}
 		}
@@ -198,18 +231,16 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 			if (3600.0 % this.timeBinSize != 0) log.error("Volumes per hour and per link probably not correct!");
 
 			double[] volumes = new double[24];
-			for (int hour = 0; hour < 24; hour++) {
-				volumes[hour] = 0.0;
-			}
 
-			int[] volumesForLink = this.getVolumesForLink(linkId, mode);
-			if (volumesForLink == null) return volumes;
+			int linkIndex = linkId.index();
+			int modeIndex = this.counts.findModeIndex(mode);
+			if (modeIndex < 0 || !this.counts.hasCounts(linkIndex, modeIndex)) return volumes;
 
 			int slotsPerHour = (int) (3600.0 / this.timeBinSize);
 			for (int hour = 0; hour < 24; hour++) {
 				double time = hour * 3600.0;
 				for (int i = 0; i < slotsPerHour; i++) {
-					volumes[hour] += volumesForLink[this.getTimeSlotIndex(time)];
+					volumes[hour] += this.counts.get(linkIndex, modeIndex, this.getTimeSlotIndex(time));
 					time += this.timeBinSize;
 				}
 			}
@@ -223,16 +254,14 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 */
 	public Set<String> getModes() {
 		Set<String> modes = new TreeSet<>();
-
-		for (Map<String, int[]> map : this.linksPerMode.values()) {
-			try {
-				modes.addAll(map.keySet());
-			} catch (NullPointerException ex) {
-				// Fails on initialized entries, which can happen during tests
-				// will just be ignored here
+		if (this.observeModes) {
+			for (int m = 0; m < this.counts.getNumberOfModes(); m++) {
+				String mode = this.counts.getMode(m);
+				if (mode != null && this.counts.hasCountsOfMode(m)) {
+					modes.add(mode);
+				}
 			}
 		}
-
 		return modes;
 	}
 
@@ -240,15 +269,31 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 * @return Set of Strings containing all link ids for which counting-values are available.
 	 */
 	public Set<Id<Link>> getLinkIds() {
-		return this.links.keySet();
+		Set<Id<Link>> linkIds = new IdSet<>(Link.class);
+		int limit = Math.min(this.counts.getLinkIndexLimit(), Id.getNumberOfIds(Link.class));
+		for (int linkIndex = 0; linkIndex < limit; linkIndex++) {
+			if (this.counts.hasCounts(linkIndex)) {
+				linkIds.add(Id.get(linkIndex, Link.class));
+			}
+		}
+		return linkIds;
+	}
+
+	/**
+	 * Adds the counts of another analyzer with the same time bins, e.g. one which handled the events of another thread.
+	 */
+	public void addAll(VolumesAnalyzer other) {
+		if (other.timeBinSize != this.timeBinSize || other.maxTime != this.maxTime) {
+			throw new IllegalArgumentException("cannot add volumes with different time bins.");
+		}
+		this.counts.addAll(other.counts);
 	}
 
 	@Override
 	public void reset(final int iteration) {
-		this.links.clear();
+		this.counts.clear();
 		if (observeModes) {
-			this.linksPerMode.clear();
-			this.enRouteModes.clear();
+			Arrays.fill(this.enRouteModes, 0);
 		}
 	}
 }
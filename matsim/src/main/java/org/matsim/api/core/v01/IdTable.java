@@ -0,0 +1,208 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IdTable.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.api.core.v01;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Interning table for the {@link Id}s of one type.
+ *
+ * <p>The ids are stored in an open-addressing hash table with linear probing, and in an append-only array
+ * of chunks to look them up by their index. Looking up existing ids does not need any locks. New ids are
+ * added concurrently by first reserving a free slot of the hash table with a compare-and-set, so only the
+ * thread winning the slot assigns the next index. This keeps the indices dense without a global lock.
+ * Growing the hash table excludes all insertions, which is rare, as its capacity is doubled every time.</p>
+ */
+/* deliberately package */ final class IdTable {
+
+	private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(Object[].class);
+	private static final VarHandle CHUNKS = MethodHandles.arrayElementVarHandle(Id[][].class);
+	private static final VarHandle IDS = MethodHandles.arrayElementVarHandle(Id[].class);
+
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int MIN_CAPACITY = 1024;
+
+	/** Placeholder for a slot of the hash table, while the id for this slot is created. */
+	private record Reservation(String key) {
+	}
+
+	private final BiFunction<String, Integer, Id<?>> idFactory;
+	private final ReentrantReadWriteLock resizeLock = new ReentrantReadWriteLock();
+	private final AtomicInteger size = new AtomicInteger();
+
+	private volatile Object[] slots;
+	private volatile Id<?>[][] chunks;
+
+	IdTable(BiFunction<String, Integer, Id<?>> idFactory) {
+		this.idFactory = idFactory;
+		this.slots = new Object[2 * MIN_CAPACITY];
+		this.chunks = new Id<?>[MIN_CAPACITY / CHUNK_SIZE + 1][];
+	}
+
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	int size() {
+		return this.size.get();
+	}
+
+	/**
+	 * @return the id for the given key, or <code>null</code> if it does not exist yet.
+	 */
+	Id<?> get(String key) {
+		Object[] table = this.slots;
+		int mask = table.length - 1;
+		for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+			Object slot = SLOTS.getAcquire(table, i);
+			if (slot == null) {
+				return null;
+			}
+			if (slot instanceof Id<?> id && id.toString().equals(key)) {
+				return id;
+			}
+		}
+	}
+
+	Id<?> get(int index) {
+		if (index < 0 || index >= this.size.get()) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + this.size.get());
+		}
+		while (true) {
+			Id<?>[] chunk = (Id<?>[]) CHUNKS.getAcquire(this.chunks, index >>> CHUNK_BITS);
+			Id<?> id = chunk == null ? null : (Id<?>) IDS.getAcquire(chunk, index & (CHUNK_SIZE - 1));
+			if (id != null) {
+				return id;
+			}
+			// the index is already counted, but another thread is still creating the id with this index
+			Thread.onSpinWait();
+		}
+	}
+
+	Id<?> getOrCreate(String key) {
+		Id<?> id = get(key);
+		if (id != null) {
+			return id;
+		}
+		this.resizeLock.readLock().lock();
+		try {
+			id = insert(key);
+		} finally {
+			this.resizeLock.readLock().unlock();
+		}
+		if (this.size.get() * 2 > this.slots.length) {
+			ensureCapacity(this.size.get() * 2);
+		}
+		return id;
+	}
+
+	private Id<?> insert(String key) {
+		Object[] table = this.slots;
+		int mask = table.length - 1;
+		for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+			Object slot = SLOTS.getAcquire(table, i);
+			if (slot == null) {
+				Reservation reservation = new Reservation(key);
+				if (SLOTS.compareAndSet(table, i, null, reservation)) {
+					int index = this.size.getAndIncrement();
+					Id<?> id = this.idFactory.apply(key, index);
+					setIndex(index, id);
+					SLOTS.setRelease(table, i, id);
+					return id;
+				}
+				slot = SLOTS.getAcquire(table, i);
+			}
+			while (slot instanceof Reservation reservation) {
+				if (!reservation.key().equals(key)) {
+					break;
+				}
+				// another thread creates the same id right now
+				Thread.onSpinWait();
+				slot = SLOTS.getAcquire(table, i);
+			}
+			if (slot instanceof Id<?> id && id.toString().equals(key)) {
+				return id;
+			}
+		}
+	}
+
+	private void setIndex(int index, Id<?> id) {
+		// the chunks array is only replaced while no insertions take place, see ensureCapacity()
+		Id<?>[][] chunks = this.chunks;
+		int chunkIndex = index >>> CHUNK_BITS;
+		Id<?>[] chunk = (Id<?>[]) CHUNKS.getAcquire(chunks, chunkIndex);
+		if (chunk == null) {
+			Id<?>[] newChunk = new Id<?>[CHUNK_SIZE];
+			chunk = (Id<?>[]) CHUNKS.compareAndExchange(chunks, chunkIndex, null, newChunk);
+			if (chunk == null) {
+				chunk = newChunk;
+			}
+		}
+		IDS.setRelease(chunk, index & (CHUNK_SIZE - 1), id);
+	}
+
+	/**
+	 * Grows the table so it can store at least the given number of ids without growing again.
+	 */
+	void ensureCapacity(int expectedSize) {
+		this.resizeLock.writeLock().lock();
+		try {
+			int capacity = this.slots.length;
+			while (capacity < 2 * expectedSize) {
+				capacity *= 2;
+			}
+			if (capacity == this.slots.length) {
+				return;
+			}
+			Object[] oldSlots = this.slots;
+			Object[] newSlots = new Object[capacity];
+			int mask = capacity - 1;
+			for (Object slot : oldSlots) {
+				// there are no reservations left, as no insertion takes place
+				if (slot != null) {
+					int i = hash(slot.toString()) & mask;
+					while (newSlots[i] != null) {
+						i = (i + 1) & mask;
+					}
+					newSlots[i] = slot;
+				}
+			}
+
+			// every id stored in the hash table must have a place in the chunks
+			int chunkCount = capacity / CHUNK_SIZE + 1;
+			if (this.chunks.length < chunkCount) {
+				Id<?>[][] newChunks = new Id<?>[chunkCount][];
+				System.arraycopy(this.chunks, 0, newChunks, 0, this.chunks.length);
+				this.chunks = newChunks;
+			}
+			this.slots = newSlots;
+		} finally {
+			this.resizeLock.writeLock().unlock();
+		}
+	}
+
+}
@@ -37,6 +37,7 @@ public final class PopulationWriter implements MatsimWriter {
 	private final Population population;
 	private final Network network;
 	private final Map<Class<?>,AttributeConverter<?>> attributeConverters = new HashMap<>();
+	private int numberOfThreads = 0;
 
 	public PopulationWriter(
 			final CoordinateTransformation transformation,
@@ -61,6 +62,16 @@ public final class PopulationWriter implements MatsimWriter {
 	}
 
 
+	/**
+	 * Sets the number of threads for writing the population in parallel, usually
+	 * {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()}. See
+	 * {@link org.matsim.core.population.io.PopulationWriter#setNumberOfThreads(int)}.
+	 */
+	public PopulationWriter setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+		return this;
+	}
+
 	public <T> void putAttributeConverter(Class<T> clazz, AttributeConverter<T> converter) {
 		this.attributeConverters.put( clazz , converter );
 	}
@@ -108,6 +119,7 @@ public final class PopulationWriter implements MatsimWriter {
 		final org.matsim.core.population.io.PopulationWriter writer =
 				new org.matsim.core.population.io.PopulationWriter( transformation , this.population, this.network);
 		writer.putAttributeConverters( attributeConverters );
+		writer.setNumberOfThreads( numberOfThreads );
 		writer.writeV6(filename);
 	}
 
@@ -115,6 +127,7 @@ public final class PopulationWriter implements MatsimWriter {
 		final org.matsim.core.population.io.PopulationWriter writer =
 				new org.matsim.core.population.io.PopulationWriter( transformation , this.population, this.network);
 		writer.putAttributeConverters( attributeConverters );
+		writer.setNumberOfThreads( numberOfThreads );
 		writer.writeV6(stream);
 	}
 }
@@ -78,6 +78,10 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	private static final String CLEAN_ITERS_AT_END = "cleanItersAtEnd";
 	private static final String COMPRESSION_TYPE = "compressionType";
 	private static final String EVENT_TYPE_TO_CREATE_SCORING_FUNCTIONS = "createScoringFunctionType";
+	private static final String NUMBER_OF_OUTPUT_WRITER_THREADS = "numberOfOutputWriterThreads";
+	private static final String NUMBER_OF_COMPRESSION_THREADS = "numberOfCompressionThreads";
+	private static final String INSTRUMENTATION = "instrumentation";
+	private static final String INSTRUMENTATION_PORT = "instrumentationPort";
 
 	/*package*/ static final String MOBSIM = "mobsim";
 	public enum MobsimType {qsim, JDEQSim, hermes}
@@ -109,6 +113,12 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 
 	private CleanIterations cleanItersAtEnd = CleanIterations.keep;
 
+	private int numberOfOutputWriterThreads = 0;
+	private int numberOfCompressionThreads = 1;
+
+	private boolean instrumentation = false;
+	private int instrumentationPort = 0;
+
 	public ControllerConfigGroup() {
 		super(GROUP_NAME);
 	}
@@ -151,6 +161,15 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 				"to a file. `0' disables snapshots writing completely");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
 		map.put(CLEAN_ITERS_AT_END, "Defines what should be done with the ITERS directory when a simulation finished successfully");
+		map.put(NUMBER_OF_OUTPUT_WRITER_THREADS, "Default=0. Number of background threads writing iteration output (plans dumps, events files) while" +
+				" the iterations continue. `0' writes all output synchronously. Plans dumps are written from a packed copy of the population," +
+				" which takes additional memory until the dump is written, mostly for the selected plans.");
+		map.put(NUMBER_OF_COMPRESSION_THREADS, "Default=1. Number of threads compressing a single gzip or zstd output file while the controller runs." +
+				" Values larger than 1 also decompress input files in a separate thread.");
+		map.put(INSTRUMENTATION, "Default=false. If true, the time spent in every controler listener, mobsim engine, events handler, replanning strategy" +
+				" and iteration step is measured and written to instrumentation.csv in the output directory after every iteration.");
+		map.put(INSTRUMENTATION_PORT, "Default=0. If instrumentation is enabled and this is larger than 0, the current timers are also served in the" +
+				" Prometheus text format at http://localhost:<port>/metrics while the simulation runs.");
 		return map;
 	}
 
@@ -427,6 +446,45 @@ public final class ControllerConfigGroup extends ReflectiveConfigGroup {
 	public void setEventTypeToCreateScoringFunctions(EventTypeToCreateScoringFunctions eventTypeToCreateScoringFunctions) {
 		this.eventTypeToCreateScoringFunctions = eventTypeToCreateScoringFunctions;
 	}
+	@StringGetter(NUMBER_OF_OUTPUT_WRITER_THREADS)
+	public int getNumberOfOutputWriterThreads() {
+		return numberOfOutputWriterThreads;
+	}
+
+	@StringSetter(NUMBER_OF_OUTPUT_WRITER_THREADS)
+	public void setNumberOfOutputWriterThreads(int numberOfOutputWriterThreads) {
+		this.numberOfOutputWriterThreads = numberOfOutputWriterThreads;
+	}
+
+	@StringGetter(NUMBER_OF_COMPRESSION_THREADS)
+	public int getNumberOfCompressionThreads() {
+		return numberOfCompressionThreads;
+	}
+
+	@StringSetter(NUMBER_OF_COMPRESSION_THREADS)
+	public void setNumberOfCompressionThreads(int numberOfCompressionThreads) {
+		this.numberOfCompressionThreads = numberOfCompressionThreads;
+	}
+
+	@StringGetter(INSTRUMENTATION)
+	public boolean isInstrumentation() {
+		return instrumentation;
+	}
+
+	@StringSetter(INSTRUMENTATION)
+	public void setInstrumentation(boolean instrumentation) {
+		this.instrumentation = instrumentation;
+	}
+
+	@StringGetter(INSTRUMENTATION_PORT)
+	public int getInstrumentationPort() {
+		return instrumentationPort;
+	}
+
+	@StringSetter(INSTRUMENTATION_PORT)
+	public void setInstrumentationPort(int instrumentationPort) {
+		this.instrumentationPort = instrumentationPort;
+	}
 	// ---
 	int writePlansUntilIteration = 1 ;
 	public int getWritePlansUntilIteration() {
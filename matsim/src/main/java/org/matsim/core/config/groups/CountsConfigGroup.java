@@ -46,6 +46,7 @@ public final class CountsConfigGroup extends ReflectiveConfigGroup {
 	private static final String ANALYZEDMODES = "analyzedModes";
 	private static final String FILTERMODES = "filterModes";
 	private static final String INPUT_CRS = "inputCRS";
+	private static final String WRITECOUNTSERRORSTATS = "writeCountsErrorStats";
 	
 	private String outputFormat = "txt";
 
@@ -74,6 +75,7 @@ public final class CountsConfigGroup extends ReflectiveConfigGroup {
 	private String analyzedModes = TransportMode.car;
 	private boolean filterModes = false;
 	private String inputCRS = null;
+	private boolean writeCountsErrorStats = false;
 
 	public CountsConfigGroup() {
 		super(GROUP_NAME);
@@ -107,6 +109,8 @@ public final class CountsConfigGroup extends ReflectiveConfigGroup {
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
+		comments.put(WRITECOUNTSERRORSTATS, "If true, the volumes at the count stations are counted from the events, and their errors " +
+				"against the counts are written to countsErrorStats.csv in every iteration, independently of " + WRITECOUNTSINTERVAL + ".");
 		return comments;
 	}
 
@@ -220,4 +224,14 @@ public final class CountsConfigGroup extends ReflectiveConfigGroup {
 		this.inputCRS = inputCRS;
 	}
 
+	@StringGetter( WRITECOUNTSERRORSTATS )
+	public boolean isWriteCountsErrorStats() {
+		return this.writeCountsErrorStats;
+	}
+
+	@StringSetter( WRITECOUNTSERRORSTATS )
+	public void setWriteCountsErrorStats(final boolean writeCountsErrorStats) {
+		this.writeCountsErrorStats = writeCountsErrorStats;
+	}
+
 }
@@ -58,12 +58,14 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	private static final String NETWORK_ROUTE_TYPE = "networkRouteType";
 //	private static final String SUBPOPULATION_ATTRIBUTE = "subpopulationAttributeName";
 	private static final String INPUT_CRS = "inputCRS";
+	private static final String PACKING_NON_SELECTED_PLANS = "packingNonSelectedPlans";
 
 	private String inputFile = null;
 	private String networkRouteType = NetworkRouteType.LinkNetworkRoute;
 	private String inputPersonAttributeFile = null;
 //	private String subpopulationAttributeName = "subpopulation";
 	private String inputCRS = null;
+	private boolean packingNonSelectedPlans = false;
 	
 	//--
 	
@@ -114,6 +116,10 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
 
+		comments.put( PACKING_NON_SELECTED_PLANS, "If set to true, persons keep only their selected plan as regular objects and store all other plans " +
+				"in a packed binary form, which is inflated again when the plan gets selected. Saves a lot of memory with many plans per person, " +
+				"at the cost of some cpu time when plans are (de)selected. default=false." );
+
 		return comments;
 	}
 
@@ -257,6 +263,16 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		this.inputCRS = inputCRS;
 	}
 
+	@StringGetter( PACKING_NON_SELECTED_PLANS )
+	public boolean isPackingNonSelectedPlans() {
+		return packingNonSelectedPlans;
+	}
+
+	@StringSetter( PACKING_NON_SELECTED_PLANS )
+	public void setPackingNonSelectedPlans(boolean packingNonSelectedPlans) {
+		this.packingNonSelectedPlans = packingNonSelectedPlans;
+	}
+
 	/**
 	 * @deprecated -- replace extraction of subpopulation by {@link PopulationUtils#getSubpopulation(HasPlansAndId)}
 	 */
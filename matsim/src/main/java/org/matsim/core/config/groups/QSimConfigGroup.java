@@ -58,6 +58,7 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private static final String STUCK_TIME = "stuckTime";
 	private static final String REMOVE_STUCK_VEHICLES = "removeStuckVehicles";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
+	private static final String NUMBER_OF_ENGINE_THREADS = "numberOfEngineThreads";
 	private static final String TRAFFIC_DYNAMICS = "trafficDynamics";
 	private static final String SIM_STARTTIME_INTERPRETATION = "simStarttimeInterpretation";
 	private static final String USE_PERSON_ID_FOR_MISSING_VEHICLE_ID = "usePersonIdForMissingVehicleId";
@@ -91,6 +92,7 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	private boolean usePersonIdForMissingVehicleId = true;
 	@Positive
 	private int numberOfThreads = 1;
+	private int numberOfEngineThreads = 1;
 	//	private static final String CREATING_VEHICLES_FOR_ALL_NETWORK_MODES = "creatingVehiclesForAllNetworkModes";
 //	private boolean creatingVehiclesForAllNetworkModes = true;
 	// ---
@@ -171,6 +173,12 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "Number of threads used for the QSim.  "
 				+ "Note that this setting is independent from the \"global\" threads setting.  "
 				+ "In contrast to earlier versions, the non-parallel special version is no longer there.");
+		map.put(NUMBER_OF_ENGINE_THREADS, "Number of threads which run the mobsim engines that allow it (the activity and teleportation "
+				+ "engines, and all engines implementing ConcurrentMobsimEngine) at the same time within a time step, at the position of the first "
+				+ "of them in the order of the engines.  Their agent handovers and events are replayed at the end of their common step, in "
+				+ "the order of the engines.  The result is deterministic, "
+				+ "but an agent handed over to an engine which has already been stepped is handled one time step later than with 1 "
+				+ "(the default), where all engines run one after the other.");
 		map.put(REMOVE_STUCK_VEHICLES, REMOVE_STUCK_VEHICLES_STRING);
 		map.put(STUCK_TIME, STUCK_TIME_STRING);
 
@@ -226,6 +234,9 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		map.put(SEEP_MODE, "If link dynamics is set as " + LinkDynamics.SeepageQ + ", set a seep mode. Default is bike.");
 		map.put(IS_SEEP_MODE_STORAGE_FREE, "If link dynamics is set as " + LinkDynamics.SeepageQ + ", set to true if seep mode do not consumes any space on the link. Default is false.");
 		map.put(IS_RESTRICTING_SEEPAGE, "If link dynamics is set as " + LinkDynamics.SeepageQ + ", set to false if all seep modes should perform seepage. Default is true (better option).");
+		map.put(USING_TIMING_WHEEL_TELEPORTATION, "If true, teleported agents are kept in buckets per second of their arrival time, and the "
+				+ "arrivals of a time step are handled as a batch. Agents arriving in the same time step arrive in the same order as by default. "
+				+ "Default is false.");
 		map.put(FILTER_SNAPSHOTS, "If set to " + FilterSnapshots.withLinkAttributes + " snapshots will only be generated for links which include " + SnapshotWritersModule.GENERATE_SNAPSHOT_FOR_LINK_KEY + " as attribute key. Default is no filtering.");
 //		map.put(CREATING_VEHICLES_FOR_ALL_NETWORK_MODES, "If set to true, creates a vehicle for each person corresponding to every network mode. However, " +
 //				"this will be overridden if vehicle source is "+ VehiclesSource.fromVehiclesData+".");
@@ -469,6 +480,19 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.numberOfThreads = numberOfThreads;
 	}
 
+	@StringGetter(NUMBER_OF_ENGINE_THREADS)
+	public int getNumberOfEngineThreads() {
+		return this.numberOfEngineThreads;
+	}
+
+	@StringSetter(NUMBER_OF_ENGINE_THREADS)
+	public void setNumberOfEngineThreads(final int numberOfEngineThreads) {
+		if ( numberOfEngineThreads < 1 ) {
+			throw new IllegalArgumentException( "Number of engine threads must be strictly positive, got "+numberOfEngineThreads );
+		}
+		this.numberOfEngineThreads = numberOfEngineThreads;
+	}
+
 	@StringGetter(SIM_STARTTIME_INTERPRETATION)
 	public StarttimeInterpretation getSimStarttimeInterpretation() {
 		return simStarttimeInterpretation;
@@ -635,6 +659,17 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 		this.isRestrictingSeepage = isRestrictingSeepage;
 	}
 	// ---
+	private static final String USING_TIMING_WHEEL_TELEPORTATION = "usingTimingWheelTeleportation";
+	private boolean usingTimingWheelTeleportation = false;
+	@StringGetter(USING_TIMING_WHEEL_TELEPORTATION)
+	public boolean isUsingTimingWheelTeleportation() {
+		return usingTimingWheelTeleportation;
+	}
+	@StringSetter(USING_TIMING_WHEEL_TELEPORTATION)
+	public void setUsingTimingWheelTeleportation(boolean usingTimingWheelTeleportation) {
+		this.usingTimingWheelTeleportation = usingTimingWheelTeleportation;
+	}
+	// ---
 	private boolean usingTravelTimeCheckInTeleportation = false ;
 	public boolean isUsingTravelTimeCheckInTeleportation() {
 		// yyyyyy this should better become a threshold number!  kai, aug'16
@@ -292,6 +292,13 @@ public final class ReplanningConfigGroup extends ConfigGroup {
 		map.put(ReflectiveDelegate.EXTERNAL_EXE_TMP_FILE_ROOT_DIR, "root directory for temporary files generated by the external executable. Provided as a service; "
 				+ "I don't think this is used by MATSim.") ;
 		map.put(ReflectiveDelegate.EXTERNAL_EXE_TIME_OUT, "time out value (in seconds) after which matsim will consider the external strategy as failed") ;
+		map.put(ReflectiveDelegate.NUMBER_OF_REPLANNING_THREADS, "number of threads removing plans, choosing the strategies and selecting the plans of the persons. "
+				+ "With 0 (the default), the persons are handled one after the other, drawing from the global random number generator. "
+				+ "With 1 or more, every person draws from its own random number stream, and the result is the same for any number of threads. "
+				+ "Custom strategy choosers and plan selectors then need to be thread-safe.") ;
+		map.put(ReflectiveDelegate.REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD, "relative change of the network travel time of a trip below which the ReRoute strategy keeps the route of the trip. "
+				+ "E.g. with 0.05, a trip is only routed again if its current route became at least 5% faster or slower since it was routed, "
+				+ "or if its departure time or its activities changed. With 0 (the default), all trips are routed again.") ;
 		return map ;
 	}
 
@@ -400,10 +407,26 @@ public final class ReplanningConfigGroup extends ConfigGroup {
 		return delegate.getFractionOfIterationsToDisableInnovation();
 	}
 
+	public int getNumberOfReplanningThreads() {
+		return delegate.getNumberOfReplanningThreads();
+	}
+
+	public void setNumberOfReplanningThreads(int numberOfReplanningThreads) {
+		delegate.setNumberOfReplanningThreads(numberOfReplanningThreads);
+	}
+
 	public void setFractionOfIterationsToDisableInnovation(double fraction) {
 		delegate.setFractionOfIterationsToDisableInnovation(fraction);
 	}
 
+	public double getReRouteTravelTimeChangeThreshold() {
+		return delegate.getReRouteTravelTimeChangeThreshold();
+	}
+
+	public void setReRouteTravelTimeChangeThreshold(double threshold) {
+		delegate.setReRouteTravelTimeChangeThreshold(threshold);
+	}
+
 	@Override
 	public final Map<String, String> getParams() {
 		return delegate.getParams();
@@ -416,6 +439,8 @@ public final class ReplanningConfigGroup extends ConfigGroup {
 		 static final String EXTERNAL_EXE_TIME_OUT = "ExternalExeTimeOut";
 		 static final String ITERATION_FRACTION_TO_DISABLE_INNOVATION = "fractionOfIterationsToDisableInnovation" ;
 		 static final String PLAN_SELECTOR_FOR_REMOVAL = "planSelectorForRemoval" ;
+		 static final String NUMBER_OF_REPLANNING_THREADS = "numberOfReplanningThreads" ;
+		 static final String REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD = "reRouteTravelTimeChangeThreshold" ;
 
 		private int maxAgentPlanMemorySize = 5;
 		private String externalExeConfigTemplate = null;
@@ -427,6 +452,8 @@ public final class ReplanningConfigGroup extends ConfigGroup {
 		//---
 		private double fraction = Double.POSITIVE_INFINITY ;
 		//---
+		private int numberOfReplanningThreads = 0;
+		private double reRouteTravelTimeChangeThreshold = 0.;
 
 		public ReflectiveDelegate() {
 			super( ReplanningConfigGroup.GROUP_NAME );
@@ -492,6 +519,29 @@ public final class ReplanningConfigGroup extends ConfigGroup {
 		public void setFractionOfIterationsToDisableInnovation(double fraction) {
 			this.fraction = fraction;
 		}
+
+		@StringGetter( NUMBER_OF_REPLANNING_THREADS )
+		public int getNumberOfReplanningThreads() {
+			return numberOfReplanningThreads;
+		}
+
+		@StringSetter( NUMBER_OF_REPLANNING_THREADS )
+		public void setNumberOfReplanningThreads(int numberOfReplanningThreads) {
+			this.numberOfReplanningThreads = numberOfReplanningThreads;
+		}
+
+		@StringGetter( REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD )
+		public double getReRouteTravelTimeChangeThreshold() {
+			return reRouteTravelTimeChangeThreshold;
+		}
+
+		@StringSetter( REROUTE_TRAVEL_TIME_CHANGE_THRESHOLD )
+		public void setReRouteTravelTimeChangeThreshold(double threshold) {
+			if (threshold < 0) {
+				throw new IllegalArgumentException("the threshold must not be negative, but is " + threshold);
+			}
+			this.reRouteTravelTimeChangeThreshold = threshold;
+		}
 	}
 }
 
@@ -74,6 +74,10 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 	private static final String WRITE_EXPERIENCED_PLANS = "writeExperiencedPlans";
 
+	private static final String NUMBER_OF_SCORING_THREADS = "numberOfScoringThreads";
+
+	private static final String USE_COMPILED_SCORING = "useCompiledScoring";
+
 	private static final String MARGINAL_UTL_OF_MONEY = "marginalUtilityOfMoney";
 
 	private static final String UTL_OF_LINE_SWITCH = "utilityOfLineSwitch";
@@ -417,6 +421,13 @@ public final class ScoringConfigGroup extends ConfigGroup {
 				"[utils/unit_of_money] conversion of money (e.g. toll, distance cost) into utils. Normall positive (i.e. toll/cost/fare are processed as negative amounts of money).");
 		map.put(WRITE_EXPERIENCED_PLANS,
 				"write a plans file in each iteration directory which contains what each agent actually did, and the score it received.");
+		map.put(NUMBER_OF_SCORING_THREADS,
+				"number of threads computing the scores from the events. With 0 or 1, the events are scored in the thread of the events manager. "
+						+ "With more threads, the persons are distributed among that many scoring shards. The scores are identical, "
+						+ "but custom scoring functions must then not share any mutable state between persons.");
+		map.put(USE_COMPILED_SCORING,
+				"if true, the default scoring function compiles the activity and mode parameters into tables, records activities and legs "
+						+ "as primitive values and scores them in one go at the end. The scores are identical to the default implementation.");
 
 		return map;
 	}
@@ -783,6 +794,22 @@ public final class ScoringConfigGroup extends ConfigGroup {
 		delegate.setWriteExperiencedPlans(writeExperiencedPlans);
 	}
 
+	public int getNumberOfScoringThreads() {
+		return delegate.getNumberOfScoringThreads();
+	}
+
+	public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+		delegate.setNumberOfScoringThreads(numberOfScoringThreads);
+	}
+
+	public boolean isUseCompiledScoring() {
+		return delegate.isUseCompiledScoring();
+	}
+
+	public void setUseCompiledScoring(boolean useCompiledScoring) {
+		delegate.setUseCompiledScoring(useCompiledScoring);
+	}
+
 	public double getMarginalUtlOfWaiting_utils_hr() {
 		if (getScoringParameters(null) != null)
 			return getScoringParameters(null).getMarginalUtlOfWaiting_utils_hr();
@@ -1581,6 +1608,10 @@ public final class ScoringConfigGroup extends ConfigGroup {
 
 		private boolean writeExperiencedPlans = false;
 
+		private int numberOfScoringThreads = 0;
+
+		private boolean useCompiledScoring = false;
+
 		private Double fractionOfIterationsToStartScoreMSA = null;
 
 		private boolean usingOldScoringBelowZeroUtilityDuration = false;
@@ -1659,5 +1690,27 @@ public final class ScoringConfigGroup extends ConfigGroup {
 			this.writeExperiencedPlans = writeExperiencedPlans;
 		}
 
+		@StringGetter(NUMBER_OF_SCORING_THREADS)
+		public int getNumberOfScoringThreads() {
+			return numberOfScoringThreads;
+		}
+
+		@StringSetter(NUMBER_OF_SCORING_THREADS)
+		public void setNumberOfScoringThreads(int numberOfScoringThreads) {
+			testForLocked();
+			this.numberOfScoringThreads = numberOfScoringThreads;
+		}
+
+		@StringGetter(USE_COMPILED_SCORING)
+		public boolean isUseCompiledScoring() {
+			return useCompiledScoring;
+		}
+
+		@StringSetter(USE_COMPILED_SCORING)
+		public void setUseCompiledScoring(boolean useCompiledScoring) {
+			testForLocked();
+			this.useCompiledScoring = useCompiledScoring;
+		}
+
 	}
 }
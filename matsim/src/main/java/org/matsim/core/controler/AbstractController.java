@@ -26,6 +26,8 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.controler.listener.ControlerListener;
 import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.instrumentation.Instrumentation;
+import org.matsim.core.utils.io.IOUtils;
 import org.matsim.utils.MemoryObserver;
 
 import java.io.UncheckedIOException;
@@ -74,6 +76,10 @@ import java.io.UncheckedIOException;
 
     protected final void run(final Config config) {
         MemoryObserver.start(60);
+        Instrumentation.reset();
+        Instrumentation.setEnabled(config.controller().isInstrumentation());
+        final int previousCompressionThreads = IOUtils.getCompressionThreads();
+        IOUtils.setCompressionThreads(Math.max(1, config.controller().getNumberOfCompressionThreads()));
         MatsimRuntimeModifications.MyRunnable runnable = new MatsimRuntimeModifications.MyRunnable() {
             @Override
             public void run() throws MatsimRuntimeModifications.UnexpectedShutdownException {
@@ -89,7 +95,13 @@ import java.io.UncheckedIOException;
                 controlerListenerManagerImpl.fireControlerShutdownEvent(unexpected, thisIteration == null ? -1 : thisIteration);
             }
         };
-        MatsimRuntimeModifications.run(runnable);
+        try {
+            MatsimRuntimeModifications.run(runnable);
+        } finally {
+            // both are static, so they must not stay changed for the rest of the JVM if the run fails
+            IOUtils.setCompressionThreads(previousCompressionThreads);
+            Instrumentation.setEnabled(false);
+        }
         OutputDirectoryLogging.closeOutputDirLogging();
         MemoryObserver.stop();
     }
@@ -243,7 +255,9 @@ import java.io.UncheckedIOException;
 
     private void iterationStep(String iterationStepName, Runnable iterationStep) throws MatsimRuntimeModifications.UnexpectedShutdownException {
         this.getStopwatch().beginOperation(iterationStepName);
+        long start = Instrumentation.start();
         iterationStep.run();
+        Instrumentation.stop(Instrumentation.PHASE, iterationStepName, start);
         this.getStopwatch().endOperation(iterationStepName);
         if (Thread.interrupted()) {
             throw new MatsimRuntimeModifications.UnexpectedShutdownException();
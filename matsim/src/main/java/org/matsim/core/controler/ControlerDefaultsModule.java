@@ -33,6 +33,7 @@ import org.matsim.analysis.VolumesAnalyzerModule;
 import org.matsim.core.controler.events.StartupEvent;
 import org.matsim.core.controler.listener.StartupListener;
 import org.matsim.core.events.EventsManagerModule;
+import org.matsim.core.instrumentation.InstrumentationModule;
 import org.matsim.core.mobsim.DefaultMobsimModule;
 import org.matsim.core.population.VspPlansCleanerModule;
 import org.matsim.core.replanning.StrategyManagerModule;
@@ -78,6 +79,9 @@ public final class ControlerDefaultsModule extends AbstractModule {
         install(new SnapshotWritersModule());
         install(new DependencyGraphModule());
         install(new PlanInheritanceModule());
+        if (getConfig().controller().isInstrumentation()) {
+            install(new InstrumentationModule());
+        }
 
 		// Comment by Tarek Chouaki.
 		// To make sure the cache files used under ChartUtils are located in tmp folder in the output directory
@@ -24,6 +24,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.core.controler.events.*;
 import org.matsim.core.controler.listener.*;
+import org.matsim.core.instrumentation.Instrumentation;
 import org.matsim.core.utils.misc.ClassUtils;
 
 import javax.swing.event.EventListenerList;
@@ -104,13 +105,17 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (StartupListener aListener : listener) {
             log.info("calling notifyStartup on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyStartup(event);
+            addTime(aListener, "notifyStartup", start);
         }
 		listener = this.listenerList.getListeners(StartupListener.class);
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (StartupListener aListener : listener) {
             log.info("calling notifyStartup on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyStartup(event);
+            addTime(aListener, "notifyStartup", start);
         }
 		log.info("all ControlerStartupListeners called." );
 	}
@@ -126,14 +131,18 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 
         for (ShutdownListener aListener : listener) {
             log.info("calling notifyShutdown on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyShutdown(event);
+            addTime(aListener, "notifyShutdown", start);
         }
         listener = this.listenerList.getListeners(ShutdownListener.class);
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
 
         for (ShutdownListener aListener : listener) {
             log.info("calling notifyShutdown on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyShutdown(event);
+            addTime(aListener, "notifyShutdown", start);
         }
         log.info("all ControlerShutdownListeners called.");
 	}
@@ -148,13 +157,17 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (IterationStartsListener aListener : listener) {
             log.info("calling notifyIterationStarts on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyIterationStarts(event);
+            addTime(aListener, "notifyIterationStarts", start);
         }
 		listener = this.listenerList.getListeners(IterationStartsListener.class);
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (IterationStartsListener aListener : listener) {
             log.info("calling notifyIterationStarts on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyIterationStarts(event);
+            addTime(aListener, "notifyIterationStarts", start);
         }
 		log.info("[it." + iteration + "] all ControlerIterationStartsListeners called.");
 	}
@@ -170,7 +183,9 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 			Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
 			for (IterationEndsListener aListener : listener) {
                 log.info("calling notifyIterationEnds on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+                long start = Instrumentation.start();
                 aListener.notifyIterationEnds(event);
+                addTime(aListener, "notifyIterationEnds", start);
             }
 		}
 		{
@@ -178,7 +193,9 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 			Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
             for (IterationEndsListener aListener : listener) {
                 log.info("calling notifyIterationEnds on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+                long start = Instrumentation.start();
                 aListener.notifyIterationEnds(event);
+                addTime(aListener, "notifyIterationEnds", start);
             }
 		}
 		log.info("[it." + iteration + "] all ControlerIterationEndsListeners called.");
@@ -195,7 +212,9 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 			Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
             for (ScoringListener aListener : listener) {
                 log.info("calling notifyScoring on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+                long start = Instrumentation.start();
                 aListener.notifyScoring(event);
+                addTime(aListener, "notifyScoring", start);
             }
 		}
 		{
@@ -203,7 +222,9 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 			Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
             for (ScoringListener aListener : listener) {
                 log.info("calling notifyScoring on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+                long start = Instrumentation.start();
                 aListener.notifyScoring(event);
+                addTime(aListener, "notifyScoring", start);
             }
 		}
 		log.info("[it." + iteration + "] all ControlerScoringListeners called.");
@@ -219,13 +240,17 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (ReplanningListener aListener : listener) {
             log.info("calling notifyReplanning on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyReplanning(event);
+            addTime(aListener, "notifyReplanning", start);
         }
 		listener = this.listenerList.getListeners(ReplanningListener.class);
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (ReplanningListener aListener : listener) {
             log.info("calling notifyReplanning on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyReplanning(event);
+            addTime(aListener, "notifyReplanning", start);
         }
 		log.info("[it." + iteration + "] all ControlerReplanningListeners called.");
 	}
@@ -240,13 +265,17 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (BeforeMobsimListener aListener : listener) {
             log.info("calling notifyBeforeMobsim on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyBeforeMobsim(event);
+            addTime(aListener, "notifyBeforeMobsim", start);
         }
 		listener = this.listenerList.getListeners(BeforeMobsimListener.class);
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (BeforeMobsimListener aListener : listener) {
             log.info("calling notifyBeforeMobsim on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyBeforeMobsim(event);
+            addTime(aListener, "notifyBeforeMobsim", start);
         }
 		log.info("[it." + iteration + "] all ControlerBeforeMobsimListeners called.");
 	}
@@ -261,15 +290,25 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (AfterMobsimListener aListener : listener) {
             log.info("calling notifyAfterMobsim on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyAfterMobsim(event);
+            addTime(aListener, "notifyAfterMobsim", start);
         }
 		listener = this.listenerList.getListeners(AfterMobsimListener.class);
 		Arrays.sort(listener, Comparator.comparingDouble(ControlerListener::priority).reversed());
         for (AfterMobsimListener aListener : listener) {
             log.info("calling notifyAfterMobsim on " + aListener.getClass().getName() + " with priority " + aListener.priority());
+            long start = Instrumentation.start();
             aListener.notifyAfterMobsim(event);
+            addTime(aListener, "notifyAfterMobsim", start);
         }
 		log.info("[it." + iteration + "] all ControlerAfterMobsimListeners called.");
 	}
 
+	private static void addTime(ControlerListener listener, String method, long start) {
+		if (start != Instrumentation.DISABLED) {
+			Instrumentation.getTimer(Instrumentation.LISTENER, listener.getClass().getName() + "." + method).stop(start);
+		}
+	}
+
 }
@@ -0,0 +1,185 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IterationOutputWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+/**
+ * Writes iteration output in background threads, so the iterations do not have to wait for disk I/O and compression.
+ *
+ * <p>Tasks handed to {@link #write(String, Runnable)} must only work on data which is not modified any more by the
+ * iterations, i.e. on a snapshot of the data or on a writer which does not receive any more input.
+ * Use {@link #isAsynchronous()} to find out whether taking such a snapshot is necessary. With
+ * {@link ControllerConfigGroup#getNumberOfOutputWriterThreads()} set to 0, all tasks are executed directly.</p>
+ *
+ * <p>The number of pending tasks is bounded; if too many tasks are pending, {@link #write(String, Runnable)}
+ * blocks until one of them is finished. All pending tasks are finished at shutdown, or earlier by calling
+ * {@link #flush()}. At the end of each iteration, a short report about the background writing is logged.</p>
+ */
+@Singleton
+public final class IterationOutputWriter implements IterationEndsListener, ShutdownListener {
+	private static final Logger log = LogManager.getLogger(IterationOutputWriter.class);
+
+	private final int numberOfThreads;
+	private final Semaphore pendingTasks;
+	private final List<Future<?>> futures = new ArrayList<>();
+	private ExecutorService executor = null;
+
+	private final AtomicInteger finishedTasks = new AtomicInteger();
+	private final AtomicLong busyNanos = new AtomicLong();
+	private long blockedNanos = 0;
+
+	@Inject
+	IterationOutputWriter(ControllerConfigGroup config) {
+		this(config.getNumberOfOutputWriterThreads());
+	}
+
+	public IterationOutputWriter(int numberOfThreads) {
+		this.numberOfThreads = Math.max(0, numberOfThreads);
+		this.pendingTasks = new Semaphore(2 * Math.max(1, this.numberOfThreads));
+	}
+
+	/**
+	 * @return <code>true</code> if tasks are executed in background threads, and thus need to work on snapshots of data
+	 * that changes during the iterations.
+	 */
+	public boolean isAsynchronous() {
+		return this.numberOfThreads > 0;
+	}
+
+	/**
+	 * Executes the task, either directly or in a background thread. Exceptions thrown by previously executed tasks
+	 * are re-thrown.
+	 */
+	public synchronized void write(String description, Runnable task) {
+		throwFailures(false);
+		if (!isAsynchronous()) {
+			task.run();
+			return;
+		}
+		long start = System.nanoTime();
+		this.pendingTasks.acquireUninterruptibly();
+		this.blockedNanos += System.nanoTime() - start;
+
+		if (this.executor == null) {
+			this.executor = Executors.newFixedThreadPool(this.numberOfThreads, runnable -> {
+				Thread thread = new Thread(runnable, "IterationOutputWriter");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		this.futures.add(this.executor.submit(() -> {
+			long taskStart = System.nanoTime();
+			try {
+				log.debug("writing " + description);
+				task.run();
+			} finally {
+				this.busyNanos.addAndGet(System.nanoTime() - taskStart);
+				this.finishedTasks.incrementAndGet();
+				this.pendingTasks.release();
+			}
+		}));
+	}
+
+	/**
+	 * Waits until all pending tasks are finished.
+	 */
+	public synchronized void flush() {
+		long start = System.nanoTime();
+		throwFailures(true);
+		this.blockedNanos += System.nanoTime() - start;
+	}
+
+	private void throwFailures(boolean wait) {
+		Iterator<Future<?>> iterator = this.futures.iterator();
+		while (iterator.hasNext()) {
+			Future<?> future = iterator.next();
+			if (!wait && !future.isDone()) {
+				continue;
+			}
+			iterator.remove();
+			try {
+				future.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				throw new RuntimeException("writing iteration output failed", e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		if (!isAsynchronous()) {
+			return;
+		}
+		synchronized (this) {
+			int tasks = this.finishedTasks.getAndSet(0);
+			double busy = this.busyNanos.getAndSet(0) / 1e9;
+			double blocked = this.blockedNanos / 1e9;
+			this.blockedNanos = 0;
+			log.info(String.format("background output writing: %d tasks finished, %.1f sec writing, of which %.1f sec overlapped with the iterations; %.1f sec waited for the writers; %d tasks pending.",
+					tasks, busy, Math.max(0, busy - blocked), blocked, this.futures.stream().filter(future -> !future.isDone()).count()));
+		}
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		try {
+			flush();
+		} finally {
+			synchronized (this) {
+				if (this.executor != null) {
+					this.executor.shutdown();
+					this.executor = null;
+				}
+			}
+		}
+	}
+
+	@Override
+	public double priority() {
+		// run after all other listeners, they might still hand over some output
+		return Double.NEGATIVE_INFINITY;
+	}
+
+}
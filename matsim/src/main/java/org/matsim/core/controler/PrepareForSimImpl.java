@@ -42,6 +42,8 @@ import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.algorithms.TransportModeNetworkFilter;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.algorithms.NearestLinkCache;
 import org.matsim.core.population.algorithms.ParallelPersonAlgorithmUtils;
 import org.matsim.core.population.algorithms.PersonPrepareForSim;
 import org.matsim.core.population.routes.NetworkRoute;
@@ -167,9 +169,14 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 				throw new RuntimeException("Facilities source '"+this.facilitiesConfigGroup.getFacilitiesSource()+"' is not implemented.");
 		}
 
+		// look up the nearest links of all facilities and activities without a link at once, in parallel, instead of
+		// once per activity in PersonPrepareForSim
+		final NearestLinkCache carOnlyNearestLinks = NearestLinkCache.create(carOnlyNetwork,
+				NearestLinkCache.collectCoordsWithoutLink(population, this.activityFacilities), globalConfigGroup.getNumberOfThreads());
+
 		// get links for facilities
 		// using car only network to get the links for facilities. Amit July'18
-		XY2LinksForFacilities.run(carOnlyNetwork, this.activityFacilities);
+		XY2LinksForFacilities.run(carOnlyNearestLinks, this.activityFacilities);
 
 		// yyyy from a behavioral perspective, the vehicle must be somehow linked to
 		// the person (maybe via the household).    kai, feb'18
@@ -195,9 +202,12 @@ public final class PrepareForSimImpl implements PrepareForSim, PrepareForMobsim
 		// (i.e. we introduce a separate PersonPrepareForMobsim).  kai, jul'18
 		ParallelPersonAlgorithmUtils.run(population, globalConfigGroup.getNumberOfThreads(),
 				() -> new PersonPrepareForSim(new PlanRouter(tripRouterProvider.get(), activityFacilities, timeInterpretation), scenario,
-						carOnlyNetwork)
+						carOnlyNearestLinks)
 		);
 
+		// the steps above inflate all plans, so non-selected plans which are stored in packed form need to be packed again
+		PopulationUtils.packNonSelectedPlans(population);
+
 		if (scenario instanceof Lockable) {
 			((Lockable)scenario).setLocked();
 			// see comment in ScenarioImpl. kai, sep'14
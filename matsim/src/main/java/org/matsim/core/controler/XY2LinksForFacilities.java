@@ -21,14 +21,18 @@ package org.matsim.core.controler;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.algorithms.NearestLinkCache;
 import org.matsim.facilities.ActivityFacilities;
 import org.matsim.facilities.ActivityFacility;
 import org.matsim.facilities.ActivityFacilityImpl;
 
+import java.util.function.Function;
+
 /**
  * Created by amit on 13.07.18.
  */
@@ -38,6 +42,14 @@ public class XY2LinksForFacilities {
     public static final Logger LOGGER = LogManager.getLogger(XY2LinksForFacilities.class);
 
     public static void run(Network network, ActivityFacilities facilities){
+        run(facilities, coord -> NetworkUtils.getNearestLink(network, coord));
+    }
+
+    public static void run(NearestLinkCache nearestLinks, ActivityFacilities facilities){
+        run(facilities, nearestLinks::getNearestLink);
+    }
+
+    private static void run(ActivityFacilities facilities, Function<Coord, Link> nearestLinkFunction){
 
         int coordNullWarn = 0;
         int linkNullWarn = 0;
@@ -52,7 +64,7 @@ public class XY2LinksForFacilities {
                     LOGGER.warn(Gbl.ONLYONCE);
                     linkNullWarn++;
                 }
-                Link link = NetworkUtils.getNearestLink(network, activityFacility.getCoord());
+                Link link = nearestLinkFunction.apply(activityFacility.getCoord());
                 if (link==null) {
                     LOGGER.warn("No nearest link is found for coord "+activityFacility.getCoord());
                 } else{
@@ -33,6 +33,7 @@ import org.matsim.core.config.ConfigWriter;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.VspExperimentalConfigGroup;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.controler.IterationOutputWriter;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.ShutdownListener;
@@ -111,11 +112,16 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 	@Inject
 	private Map<Class<?>,AttributeConverter<?>> attributeConverters = Collections.emptyMap();
 
+	@Inject
+	private IterationOutputWriter outputWriter;
+
 	@Override
 	public void notifyShutdown(ShutdownEvent event) {
 		if ( event.isUnexpected() ) {
 			return ;
 		}
+		// the iteration output copied below needs to be completely written
+		outputWriter.flush();
 		dumpPlans();
 		dumpNetwork();
 		dumpConfig();
@@ -319,6 +325,7 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 		// dump plans
 
 		final PopulationWriter writer = new PopulationWriter(this.population, this.network);
+		writer.setNumberOfThreads(this.config.global().getNumberOfThreads());
 		writer.putAttributeConverters(this.attributeConverters);
 		writer.write(this.controlerIO.getOutputFilename(Controler.DefaultFiles.population));
 	}
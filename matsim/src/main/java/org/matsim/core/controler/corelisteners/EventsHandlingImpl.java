@@ -35,6 +35,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.config.groups.ControllerConfigGroup.EventsFileFormat;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.controler.IterationOutputWriter;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.events.IterationEndsEvent;
@@ -66,12 +67,16 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 
 	private int writeMoreUntilIteration;
 
+	private final IterationOutputWriter outputWriter;
+
 	@Inject
 	EventsHandlingImpl(
 			final EventsManager eventsManager,
 			final ControllerConfigGroup config,
-			final OutputDirectoryHierarchy controlerIO) {
+			final OutputDirectoryHierarchy controlerIO,
+			final IterationOutputWriter outputWriter) {
 		this.eventsManager = eventsManager;
+		this.outputWriter = outputWriter;
 		this.writeEventsInterval = config.getWriteEventsInterval();
 		this.eventsFileFormats = config.getEventsFileFormats();
 		this.controlerIO = controlerIO;
@@ -126,8 +131,9 @@ final class EventsHandlingImpl implements EventsHandling, BeforeMobsimListener,
 		 * module, should also be written to the events file.
 		 */
 		for (EventWriter writer : this.eventWriters) {
-			writer.closeFile();
 			this.eventsManager.removeHandler(writer);
+			// the writer does not get any more events, so flushing and compressing the remaining data can happen in the background
+			this.outputWriter.write("events of iteration " + event.getIteration(), writer::closeFile);
 		}
 		this.eventWriters.clear();
 	}
@@ -29,9 +29,11 @@ import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControllerConfigGroup;
 import org.matsim.core.controler.Controler;
+import org.matsim.core.controler.IterationOutputWriter;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.population.PopulationUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -57,6 +59,7 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 	@Inject private Population population;
 	@Inject private IterationStopWatch stopwatch;
 	@Inject private OutputDirectoryHierarchy controlerIO;
+	@Inject private IterationOutputWriter outputWriter;
 	private int writePlansInterval ;
 
 	private int writeMoreUntilIteration;
@@ -77,9 +80,14 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 			log.info("dumping plans...");
 			final String inputCRS = config.plans().getInputCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
+			final String filename = controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population);
+			final int numberOfThreads = config.global().getNumberOfThreads();
+			// the plans get modified by the next replanning, so the background writer needs its own copy. It shares the packed
+			// plans with the population, so mostly the selected plans take additional memory until the dump is written.
+			final Population populationToWrite = outputWriter.isAsynchronous() ? PopulationUtils.createPackedSnapshot(population, config, network) : population;
 
 			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population));
+				outputWriter.write(filename, () -> new PopulationWriter(populationToWrite, network).setNumberOfThreads(numberOfThreads).write(filename));
 			}
 			else {
 				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
@@ -89,9 +97,9 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 								internalCRS,
 								inputCRS );
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), Controler.DefaultFiles.population));
+				outputWriter.write(filename, () -> new PopulationWriter(transformation, populationToWrite, network).setNumberOfThreads(numberOfThreads).write(filename));
 			}
-			log.info("finished plans dump.");
+			log.info(outputWriter.isAsynchronous() ? "handed plans dump over to the background writer." : "finished plans dump.");
 			stopwatch.endOperation("dump all plans");
 		}
 	}
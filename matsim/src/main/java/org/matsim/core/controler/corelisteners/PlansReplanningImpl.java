@@ -23,6 +23,7 @@ package org.matsim.core.controler.corelisteners;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.controler.events.ReplanningEvent;
 import org.matsim.core.controler.listener.ReplanningListener;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.replanning.StrategyManager;
 import org.matsim.core.replanning.conflicts.ConflictManager;
@@ -61,5 +62,7 @@ final class PlansReplanningImpl implements PlansReplanning, ReplanningListener {
 		conflictManager.initializeReplanning(population);
 		strategyManager.run(population, event.getIteration(), replanningContextProvider.get());
 		conflictManager.run(population, event.getIteration());
+		// replanning may inflate any plan of a person, not only the selected one
+		PopulationUtils.packNonSelectedPlans(population);
 	}
 }
@@ -42,6 +42,7 @@ import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityE
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.instrumentation.Instrumentation;
 
 /**
  * EventHandling
@@ -82,12 +83,15 @@ public final class EventsManagerImpl implements EventsManager {
 		protected final Class<? extends Event> eventClass;
 		protected final EventHandler eventHandler;
 		protected final Method method;
+		// see Instrumentation, null if it is disabled
+		protected final Instrumentation.Timer timer;
 
 		protected HandlerInfo(final Class<? extends Event> eventClass, final EventHandler eventHandler,
 				final Method method) {
 			this.eventClass = eventClass;
 			this.eventHandler = eventHandler;
 			this.method = method;
+			this.timer = Instrumentation.isEnabled() ? Instrumentation.getTimer(Instrumentation.HANDLER, eventHandler.getClass().getName()) : null;
 		}
 	}
 
@@ -116,20 +120,30 @@ public final class EventsManagerImpl implements EventsManager {
 		}
 		for (HandlerInfo info : getHandlersForClass( event.getClass() )) {
 			synchronized(info.eventHandler) {
-				if (callHandlerFast(info.eventClass, event, info.eventHandler )) {
-					continue;
-				}
-				try {
-					info.method.invoke(info.eventHandler, event );
-				} catch (IllegalArgumentException | IllegalAccessException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
-				} catch (InvocationTargetException e) {
-					throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
+				if (info.timer == null) {
+					callHandler(info, event);
+				} else {
+					long start = System.nanoTime();
+					callHandler(info, event);
+					info.timer.add(System.nanoTime() - start);
 				}
 			}
 		}
 	}
 
+	private static void callHandler(final HandlerInfo info, final Event event) {
+		if (callHandlerFast(info.eventClass, event, info.eventHandler )) {
+			return;
+		}
+		try {
+			info.method.invoke(info.eventHandler, event );
+		} catch (IllegalArgumentException | IllegalAccessException e) {
+			throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e);
+		} catch (InvocationTargetException e) {
+			throw new RuntimeException("problem invoking EventHandler " + info.eventHandler.getClass().getCanonicalName() + " for event-class " + info.eventClass.getCanonicalName(), e.getCause());
+		}
+	}
+
 
 	@Override
 	public void addHandler (final EventHandler handler) {
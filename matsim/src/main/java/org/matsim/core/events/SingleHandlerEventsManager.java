@@ -71,6 +71,7 @@ import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityE
 import org.matsim.core.api.experimental.events.handler.VehicleDepartsAtFacilityEventHandler;
 import org.matsim.core.events.handler.BasicEventHandler;
 import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.instrumentation.Instrumentation;
 import org.matsim.core.utils.misc.ClassUtils;
 
 /**
@@ -112,6 +113,9 @@ public final class SingleHandlerEventsManager implements EventsManager {
 	private final boolean isVehicleLeavesTrafficHandler;
 	private final boolean isVehicleAbortsHandler;
 	private final boolean isBasicEventHandler;
+
+	// see Instrumentation, null if it is disabled
+	private final Instrumentation.Timer timer;
 	
 	private long counter = 0;
 	private long nextCounterMsg = 1;
@@ -141,6 +145,7 @@ public final class SingleHandlerEventsManager implements EventsManager {
 		this.isVehicleLeavesTrafficHandler = this.eventHandler instanceof VehicleLeavesTrafficEventHandler;
 		this.isVehicleAbortsHandler = this.eventHandler instanceof VehicleAbortsEventHandler;
 		this.isBasicEventHandler = this.eventHandler instanceof BasicEventHandler;
+		this.timer = Instrumentation.isEnabled() ? Instrumentation.getTimer(Instrumentation.HANDLER, eventHandler.getClass().getName()) : null;
 
 		// identify the implemented Handler Interfaces
 		Set<Class<?>> addedHandlers = new HashSet<Class<?>>();
@@ -180,7 +185,13 @@ public final class SingleHandlerEventsManager implements EventsManager {
 			this.nextCounterMsg *= 4;
 			log.info(" event # " + this.counter);
 		}
-		computeEvent(event);
+		if (this.timer == null) {
+			computeEvent(event);
+		} else {
+			long start = System.nanoTime();
+			computeEvent(event);
+			this.timer.add(System.nanoTime() - start);
+		}
 	}
 
 	@Override
@@ -0,0 +1,90 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CsvMetricsSink.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.utils.io.IOUtils;
+
+import jakarta.inject.Inject;
+
+/**
+ * Writes the calls and the time of every timer in every iteration to <code>instrumentation.csv</code> in the output directory.
+ * Timers which were not called in an iteration are left out.
+ */
+/* deliberately package */ final class CsvMetricsSink implements MetricsSink {
+
+	static final String FILENAME = "instrumentation.csv";
+
+	private final BufferedWriter out;
+	private final String delimiter;
+	private final Map<Instrumentation.Timer, long[]> previous = new HashMap<>();
+
+	@Inject
+	CsvMetricsSink(OutputDirectoryHierarchy controlerIO, Config config) {
+		this.delimiter = config.global().getDefaultDelimiter();
+		this.out = IOUtils.getBufferedWriter(controlerIO.getOutputFilename(FILENAME));
+		try {
+			this.out.write(String.join(this.delimiter, "iteration", "category", "name", "calls", "seconds", "cumulative_seconds"));
+			this.out.newLine();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void writeIteration(int iteration, List<Instrumentation.Timer> timers) {
+		try {
+			for (Instrumentation.Timer timer : timers) {
+				long calls = timer.getCalls();
+				long nanos = timer.getNanos();
+				long[] last = this.previous.computeIfAbsent(timer, t -> new long[2]);
+				if (calls > last[0]) {
+					this.out.write(iteration + this.delimiter + timer.getCategory() + this.delimiter + timer.getName() + this.delimiter
+							+ (calls - last[0]) + this.delimiter + (nanos - last[1]) / 1e9 + this.delimiter + nanos / 1e9);
+					this.out.newLine();
+				}
+				last[0] = calls;
+				last[1] = nanos;
+			}
+			this.out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Instrumentation.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A registry of timers which measure where the time of an iteration goes: in which iteration steps, controler listeners,
+ * mobsim engines, events handlers and replanning strategies.
+ *
+ * <p>The timers are only updated while the instrumentation is enabled, see
+ * {@link org.matsim.core.config.groups.ControllerConfigGroup#isInstrumentation()}. A measurement looks like
+ * <pre>
+ * long start = Instrumentation.start();
+ * doSomething();
+ * Instrumentation.stop(Instrumentation.PHASE, "something", start);
+ * </pre>
+ * When it is disabled, this costs one read of a volatile field. Code which measures very often, e.g. once per event, should
+ * look up its {@link Timer} once and use {@link Timer#stop(long)}.</p>
+ *
+ * <p>The timers count the calls and the nanoseconds since the start of the run, they are exported by the
+ * {@link MetricsSink}s bound in the {@link InstrumentationModule}.</p>
+ */
+public final class Instrumentation {
+
+	public static final String PHASE = "phase";
+	public static final String LISTENER = "listener";
+	public static final String ENGINE = "engine";
+	public static final String HANDLER = "handler";
+	public static final String STRATEGY = "strategy";
+
+	/** returned by {@link #start()} if the instrumentation is disabled */
+	public static final long DISABLED = Long.MIN_VALUE;
+
+	private static volatile boolean enabled = false;
+
+	private static final Map<String, Map<String, Timer>> timers = new ConcurrentHashMap<>();
+
+	private Instrumentation() {
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		Instrumentation.enabled = enabled;
+	}
+
+	/**
+	 * @return the current {@link System#nanoTime()}, or {@link #DISABLED}.
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : DISABLED;
+	}
+
+	/**
+	 * Adds the time since <code>start</code> to the timer of the given category and name, unless <code>start</code> is
+	 * {@link #DISABLED}.
+	 */
+	public static void stop(String category, String name, long start) {
+		if (start != DISABLED) {
+			getTimer(category, name).stop(start);
+		}
+	}
+
+	/**
+	 * @return the timer of the given category and name, which is created if it does not exist yet.
+	 */
+	public static Timer getTimer(String category, String name) {
+		Map<String, Timer> timersOfCategory = timers.get(category);
+		if (timersOfCategory == null) {
+			timersOfCategory = timers.computeIfAbsent(category, c -> new ConcurrentHashMap<>());
+		}
+		Timer timer = timersOfCategory.get(name);
+		if (timer == null) {
+			timer = timersOfCategory.computeIfAbsent(name, n -> new Timer(category, n));
+		}
+		return timer;
+	}
+
+	/**
+	 * @return all timers, sorted by category and name.
+	 */
+	public static List<Timer> getTimers() {
+		List<Timer> result = new ArrayList<>();
+		for (Map<String, Timer> timersOfCategory : timers.values()) {
+			result.addAll(timersOfCategory.values());
+		}
+		result.sort(Comparator.comparing(Timer::getCategory).thenComparing(Timer::getName));
+		return result;
+	}
+
+	/**
+	 * Sets all timers back to zero. The timers themselves are kept, as they may be referenced by the measured code.
+	 */
+	public static void reset() {
+		for (Map<String, Timer> timersOfCategory : timers.values()) {
+			for (Timer timer : timersOfCategory.values()) {
+				timer.calls.reset();
+				timer.nanos.reset();
+			}
+		}
+	}
+
+	/**
+	 * Counts the calls and the time spent in one thing. It may be updated from several threads.
+	 */
+	public static final class Timer {
+
+		private final String category;
+		private final String name;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		private Timer(String category, String name) {
+			this.category = category;
+			this.name = name;
+		}
+
+		public void add(long nanos) {
+			this.calls.increment();
+			this.nanos.add(nanos);
+		}
+
+		/**
+		 * Adds the time since <code>start</code>, unless it is {@link Instrumentation#DISABLED}.
+		 */
+		public void stop(long start) {
+			if (start != DISABLED) {
+				add(System.nanoTime() - start);
+			}
+		}
+
+		public String getCategory() {
+			return this.category;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public long getCalls() {
+			return this.calls.sum();
+		}
+
+		public long getNanos() {
+			return this.nanos.sum();
+		}
+
+		@Override
+		public String toString() {
+			return this.category + ":" + this.name + " calls=" + getCalls() + " nanos=" + getNanos();
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * InstrumentationControlerListener.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import java.util.List;
+import java.util.Set;
+
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+
+import jakarta.inject.Inject;
+
+/**
+ * Hands the timers to the {@link MetricsSink}s at the end of every iteration.
+ */
+/* deliberately package */ final class InstrumentationControlerListener implements IterationEndsListener, ShutdownListener {
+
+	private final Set<MetricsSink> sinks;
+
+	@Inject
+	InstrumentationControlerListener(Set<MetricsSink> sinks) {
+		this.sinks = sinks;
+	}
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		List<Instrumentation.Timer> timers = Instrumentation.getTimers();
+		for (MetricsSink sink : this.sinks) {
+			sink.writeIteration(event.getIteration(), timers);
+		}
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		for (MetricsSink sink : this.sinks) {
+			sink.close();
+		}
+	}
+
+	@Override
+	public double priority() {
+		// run after all other listeners, so their time is included
+		return Double.NEGATIVE_INFINITY;
+	}
+
+}
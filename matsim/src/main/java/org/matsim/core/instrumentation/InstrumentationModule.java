@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * InstrumentationModule.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import org.matsim.core.controler.AbstractModule;
+
+import com.google.inject.Binder;
+import com.google.inject.Singleton;
+import com.google.inject.binder.LinkedBindingBuilder;
+import com.google.inject.multibindings.Multibinder;
+
+/**
+ * Exports the {@link Instrumentation} timers to the output directory and, if a port is configured, to a local Prometheus
+ * endpoint. It is installed by default if {@link org.matsim.core.config.groups.ControllerConfigGroup#isInstrumentation()}
+ * is true.
+ */
+public final class InstrumentationModule extends AbstractModule {
+
+	@Override
+	public void install() {
+		Multibinder<MetricsSink> sinks = Multibinder.newSetBinder(binder(), MetricsSink.class);
+
+		bind(CsvMetricsSink.class).in(Singleton.class);
+		sinks.addBinding().to(CsvMetricsSink.class);
+
+		if (getConfig().controller().getInstrumentationPort() > 0) {
+			bind(PrometheusMetricsSink.class).in(Singleton.class);
+			sinks.addBinding().to(PrometheusMetricsSink.class);
+		}
+
+		bind(InstrumentationControlerListener.class).in(Singleton.class);
+		addControlerListenerBinding().to(InstrumentationControlerListener.class);
+	}
+
+	/**
+	 * Allows to add a sink in an AbstractModule, like <code>InstrumentationModule.addMetricsSinkBinding(binder()).to(MySink.class)</code>.
+	 */
+	public static LinkedBindingBuilder<MetricsSink> addMetricsSinkBinding(Binder binder) {
+		return Multibinder.newSetBinder(binder, MetricsSink.class).addBinding();
+	}
+
+}
@@ -0,0 +1,42 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MetricsSink.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import java.util.List;
+
+/**
+ * Receives the {@link Instrumentation} timers at the end of every iteration. Additional sinks can be bound with
+ * {@link InstrumentationModule#addMetricsSinkBinding(com.google.inject.Binder)}.
+ */
+public interface MetricsSink {
+
+	/**
+	 * @param timers all timers, sorted by category and name. They count since the start of the run, not only this iteration.
+	 */
+	void writeIteration(int iteration, List<Instrumentation.Timer> timers);
+
+	/**
+	 * Called when the controler shuts down.
+	 */
+	default void close() {
+	}
+
+}
@@ -0,0 +1,124 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PrometheusMetricsSink.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.Config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import jakarta.inject.Inject;
+
+/**
+ * Serves the current state of the timers in the Prometheus text format at <code>http://localhost:&lt;port&gt;/metrics</code>,
+ * see {@link org.matsim.core.config.groups.ControllerConfigGroup#getInstrumentationPort()}. The timers are read when the
+ * endpoint is requested, so it also shows the progress within an iteration.
+ *
+ * <p>The server only listens on the loopback address, it is meant for a local Prometheus or for a look with curl.</p>
+ */
+/* deliberately package */ final class PrometheusMetricsSink implements MetricsSink {
+
+	private static final Logger log = LogManager.getLogger(PrometheusMetricsSink.class);
+
+	static final String PATH = "/metrics";
+
+	private final HttpServer server;
+	private volatile int lastIteration = -1;
+
+	@Inject
+	PrometheusMetricsSink(Config config) {
+		int port = config.controller().getInstrumentationPort();
+		try {
+			this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		} catch (IOException e) {
+			throw new UncheckedIOException("could not start the instrumentation endpoint on port " + port, e);
+		}
+		this.server.createContext(PATH, this::handle);
+		this.server.start();
+		log.info("serving instrumentation metrics at http://localhost:" + this.server.getAddress().getPort() + PATH);
+	}
+
+	int getPort() {
+		return this.server.getAddress().getPort();
+	}
+
+	@Override
+	public void writeIteration(int iteration, List<Instrumentation.Timer> timers) {
+		this.lastIteration = iteration;
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			byte[] response = format(this.lastIteration, Instrumentation.getTimers()).getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+			exchange.sendResponseHeaders(200, response.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(response);
+			}
+		}
+	}
+
+	static String format(int lastIteration, List<Instrumentation.Timer> timers) {
+		StringBuilder text = new StringBuilder();
+		text.append("# HELP matsim_iteration The last completed iteration.\n");
+		text.append("# TYPE matsim_iteration gauge\n");
+		text.append("matsim_iteration ").append(lastIteration).append('\n');
+		text.append("# HELP matsim_instrumentation_calls_total The number of measured calls.\n");
+		text.append("# TYPE matsim_instrumentation_calls_total counter\n");
+		for (Instrumentation.Timer timer : timers) {
+			text.append("matsim_instrumentation_calls_total");
+			appendLabels(text, timer);
+			text.append(' ').append(timer.getCalls()).append('\n');
+		}
+		text.append("# HELP matsim_instrumentation_seconds_total The time spent in the measured calls.\n");
+		text.append("# TYPE matsim_instrumentation_seconds_total counter\n");
+		for (Instrumentation.Timer timer : timers) {
+			text.append("matsim_instrumentation_seconds_total");
+			appendLabels(text, timer);
+			text.append(' ').append(timer.getNanos() / 1e9).append('\n');
+		}
+		return text.toString();
+	}
+
+	private static void appendLabels(StringBuilder text, Instrumentation.Timer timer) {
+		text.append("{category=\"").append(escape(timer.getCategory())).append("\",name=\"").append(escape(timer.getName())).append("\"}");
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+}
@@ -0,0 +1,195 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentEndTimeQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+/**
+ * A priority queue of agents by the time at which they end what they are doing, e.g. an activity or a teleported leg.
+ * Each agent can be contained at most once. The position of each agent in the heap is stored by the index of its id, so
+ * that an agent can be removed, or rescheduled by removing and adding it, in O(log n) instead of searching through the
+ * whole queue.
+ *
+ * <p>Agents with the same time are ordered by their id, the one with the larger id first. Apart from the lookup of the
+ * agents, the heap works exactly like the {@link java.util.PriorityQueue}, so the order of the agents, including the
+ * iteration order of {@link #getAgents()}, is the same as with a priority queue of such entries.</p>
+ *
+ * <p>All methods are synchronized, as agents may be added from the threads of the parallel qsim.</p>
+ */
+public final class AgentEndTimeQueue {
+
+	private MobsimAgent[] agents = new MobsimAgent[64];
+	private double[] times = new double[64];
+	private int size = 0;
+
+	/** the position in the heap + 1, indexed by the index of the agent id; 0 if the agent is not in the queue */
+	private int[] positions = new int[64];
+
+	/**
+	 * @throws IllegalStateException if the agent is already in the queue.
+	 */
+	public synchronized void add(MobsimAgent agent, double time) {
+		int agentIndex = agent.getId().index();
+		if (agentIndex >= this.positions.length) {
+			this.positions = Arrays.copyOf(this.positions, Math.max(agentIndex + 1, 2 * this.positions.length));
+		}
+		if (this.positions[agentIndex] != 0) {
+			throw new IllegalStateException("agent " + agent.getId() + " is already in the queue.");
+		}
+		if (this.size == this.agents.length) {
+			this.agents = Arrays.copyOf(this.agents, 2 * this.size);
+			this.times = Arrays.copyOf(this.times, 2 * this.size);
+		}
+		siftUp(this.size++, agent, time);
+	}
+
+	/**
+	 * @return <code>true</code> if the agent was in the queue.
+	 */
+	public synchronized boolean remove(MobsimAgent agent) {
+		int agentIndex = agent.getId().index();
+		if (agentIndex >= this.positions.length || this.positions[agentIndex] == 0 || this.agents[this.positions[agentIndex] - 1] != agent) {
+			return false;
+		}
+		removeAt(this.positions[agentIndex] - 1);
+		return true;
+	}
+
+	public synchronized boolean contains(MobsimAgent agent) {
+		int agentIndex = agent.getId().index();
+		return agentIndex < this.positions.length && this.positions[agentIndex] != 0 && this.agents[this.positions[agentIndex] - 1] == agent;
+	}
+
+	/**
+	 * @return the time of the first agent, or {@link Double#POSITIVE_INFINITY} if the queue is empty.
+	 */
+	public synchronized double peekTime() {
+		return this.size == 0 ? Double.POSITIVE_INFINITY : this.times[0];
+	}
+
+	/**
+	 * Removes the first agent, if its time is not after the given time.
+	 *
+	 * @return the removed agent, or <code>null</code>.
+	 */
+	public synchronized MobsimAgent pollUntil(double time) {
+		if (this.size == 0 || this.times[0] > time) {
+			return null;
+		}
+		MobsimAgent agent = this.agents[0];
+		removeAt(0);
+		return agent;
+	}
+
+	public synchronized boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public synchronized int size() {
+		return this.size;
+	}
+
+	/**
+	 * @return a copy of the agents, in the order of the heap.
+	 */
+	public synchronized List<MobsimAgent> getAgents() {
+		return new ArrayList<>(Arrays.asList(this.agents).subList(0, this.size));
+	}
+
+	public synchronized void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.positions[this.agents[i].getId().index()] = 0;
+			this.agents[i] = null;
+		}
+		this.size = 0;
+	}
+
+	private void removeAt(int i) {
+		this.positions[this.agents[i].getId().index()] = 0;
+		int last = --this.size;
+		MobsimAgent moved = this.agents[last];
+		double movedTime = this.times[last];
+		this.agents[last] = null;
+		if (last != i) {
+			siftDown(i, moved, movedTime);
+			if (this.agents[i] == moved) {
+				siftUp(i, moved, movedTime);
+			}
+		}
+	}
+
+	private void siftUp(int k, MobsimAgent agent, double time) {
+		while (k > 0) {
+			int parent = (k - 1) >>> 1;
+			if (compare(time, agent, this.times[parent], this.agents[parent]) >= 0) {
+				break;
+			}
+			set(k, this.agents[parent], this.times[parent]);
+			k = parent;
+		}
+		set(k, agent, time);
+	}
+
+	private void siftDown(int k, MobsimAgent agent, double time) {
+		int half = this.size >>> 1;
+		while (k < half) {
+			int child = 2 * k + 1;
+			int right = child + 1;
+			if (right < this.size && compare(this.times[child], this.agents[child], this.times[right], this.agents[right]) > 0) {
+				child = right;
+			}
+			if (compare(time, agent, this.times[child], this.agents[child]) <= 0) {
+				break;
+			}
+			set(k, this.agents[child], this.times[child]);
+			k = child;
+		}
+		set(k, agent, time);
+	}
+
+	private void set(int k, MobsimAgent agent, double time) {
+		this.agents[k] = agent;
+		this.times[k] = time;
+		this.positions[agent.getId().index()] = k + 1;
+	}
+
+	private static int compare(double time0, MobsimAgent agent0, double time1, MobsimAgent agent1) {
+		int cmp = Double.compare(time0, time1);
+		if (cmp == 0) {
+			// Both depart at the same time -> let the one with the larger id be first (=smaller)
+			//
+			// yy We are not sure what the above comment line is supposed to say.  Presumably, it is supposed
+			// to say that the agent with the larger ID should be "smaller" one in the comparison.
+			// In practice, it seems
+			// that something like "emob_9" is before "emob_8", and something like "emob_10" before "emob_1".
+			// It is unclear why this convention is supposed to be helpful.
+			// kai & dominik, jul'12
+			//
+			return agent1.getId().compareTo(agent0.getId());
+		}
+		return cmp;
+	}
+
+}
@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConcurrentEngineRunner.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.mobsim.qsim.interfaces.ConcurrentMobsimEngine;
+import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
+
+/**
+ * Runs the doSimStep of the {@link ConcurrentMobsimEngine}s of a QSim on a pool of threads.
+ *
+ * <p>While an engine is stepped, the actions it triggers through the {@link InternalInterface} of the QSim and the events
+ * it throws through the events manager returned by {@link #wrap(EventsManager)} are collected in a list per engine, see
+ * {@link #defer(Runnable)}. When all engines are done, these lists are replayed on the calling thread, in the order of the
+ * engines. So the result does not depend on the scheduling of the threads.</p>
+ */
+/* deliberately package */ final class ConcurrentEngineRunner {
+
+	private final int numberOfThreads;
+	private final ThreadLocal<List<Runnable>> deferredActions = new ThreadLocal<>();
+	private ExecutorService executor = null;
+
+	ConcurrentEngineRunner(int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * @return false if the current thread does not step a concurrent engine, so the action needs to be run right away.
+	 */
+	boolean defer(Runnable action) {
+		List<Runnable> actions = this.deferredActions.get();
+		if (actions == null) {
+			return false;
+		}
+		actions.add(action);
+		return true;
+	}
+
+	/**
+	 * @return an events manager which defers the events thrown while a concurrent engine is stepped, and passes all
+	 * other calls on to <code>delegate</code>.
+	 */
+	EventsManager wrap(EventsManager delegate) {
+		return new DeferringEventsManager(delegate);
+	}
+
+	/**
+	 * Calls <code>doSimStep</code> for all engines, which may happen at the same time, and then replays the deferred
+	 * actions of the engines in their order.
+	 */
+	void run(List<MobsimEngine> engines, Consumer<MobsimEngine> doSimStep) {
+		if (this.executor == null) {
+			AtomicInteger counter = new AtomicInteger();
+			this.executor = Executors.newFixedThreadPool(this.numberOfThreads, runnable -> {
+				Thread thread = new Thread(runnable, "QSimEngine." + counter.getAndIncrement());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		List<Future<List<Runnable>>> futures = new ArrayList<>(engines.size());
+		for (MobsimEngine engine : engines) {
+			futures.add(this.executor.submit(() -> {
+				List<Runnable> actions = new ArrayList<>();
+				this.deferredActions.set(actions);
+				try {
+					doSimStep.accept(engine);
+				} finally {
+					this.deferredActions.remove();
+				}
+				return actions;
+			}));
+		}
+
+		List<List<Runnable>> actionsPerEngine = new ArrayList<>(engines.size());
+		for (Future<List<Runnable>> future : futures) {
+			try {
+				actionsPerEngine.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException) {
+					throw runtimeException;
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		}
+
+		for (List<Runnable> actions : actionsPerEngine) {
+			for (Runnable action : actions) {
+				action.run();
+			}
+		}
+	}
+
+	void shutdown() {
+		if (this.executor != null) {
+			this.executor.shutdown();
+			this.executor = null;
+		}
+	}
+
+	private final class DeferringEventsManager implements EventsManager {
+
+		private final EventsManager delegate;
+
+		private DeferringEventsManager(EventsManager delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void processEvent(Event event) {
+			if (!defer(() -> this.delegate.processEvent(event))) {
+				this.delegate.processEvent(event);
+			}
+		}
+
+		@Override
+		public void addHandler(EventHandler handler) {
+			this.delegate.addHandler(handler);
+		}
+
+		@Override
+		public void removeHandler(EventHandler handler) {
+			this.delegate.removeHandler(handler);
+		}
+
+		@Override
+		public void resetHandlers(int iteration) {
+			this.delegate.resetHandlers(iteration);
+		}
+
+		@Override
+		public void initProcessing() {
+			this.delegate.initProcessing();
+		}
+
+		@Override
+		public void afterSimStep(double time) {
+			this.delegate.afterSimStep(time);
+		}
+
+		@Override
+		public void finishProcessing() {
+			this.delegate.finishProcessing();
+		}
+	}
+
+}
@@ -22,10 +22,7 @@
  package org.matsim.core.mobsim.qsim;
 
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.LinkedHashMap;
-import java.util.PriorityQueue;
-import java.util.Queue;
 
 import jakarta.inject.Inject;
 
@@ -40,8 +37,8 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.qsim.interfaces.ConcurrentMobsimEngine;
 import org.matsim.core.network.NetworkUtils;
-import org.matsim.core.utils.collections.Tuple;
 import org.matsim.facilities.Facility;
 import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
 import org.matsim.vis.snapshotwriters.TeleportationVisData;
@@ -50,24 +47,13 @@ import org.matsim.vis.snapshotwriters.TeleportationVisData;
  * Includes all agents that have transportation modes unknown to the
  * NetsimEngine (often all != "car") or have two activities on the same link
  */
-public final class DefaultTeleportationEngine implements TeleportationEngine {
+public final class DefaultTeleportationEngine implements TeleportationEngine, ConcurrentMobsimEngine {
 	private static final Logger log = LogManager.getLogger( DefaultTeleportationEngine.class ) ;
 
-	private final Queue<Tuple<Double, MobsimAgent>> teleportationList = new PriorityQueue<>(
-			30, new Comparator<Tuple<Double, MobsimAgent>>() {
-
-		@Override
-		public int compare(Tuple<Double, MobsimAgent> o1, Tuple<Double, MobsimAgent> o2) {
-			int ret = o1.getFirst().compareTo(o2.getFirst()); // first compare time information
-			if (ret == 0) {
-				ret = o2.getSecond()
-						.getId()
-						.compareTo(o1.getSecond()
-								.getId()); // if they're equal, compare the Ids: the one with the larger Id should be first
-			}
-			return ret;
-		}
-	});
+	/**
+	 * The teleported agents by their arrival time; if they're equal, the one with the larger Id first.
+	 */
+	private final AgentEndTimeQueue teleportationList = new AgentEndTimeQueue();
 	private final LinkedHashMap<Id<Person>, TeleportationVisData> teleportationData = new LinkedHashMap<>();
 	private InternalInterface internalInterface;
 	private Scenario scenario;
@@ -88,22 +74,10 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 
 	@Override
 	public boolean handleDeparture(double now, MobsimAgent agent, Id<Link> linkId) {
-		if (agent.getExpectedTravelTime().isUndefined()) {
-			LogManager.getLogger(this.getClass()).info("mode: " + agent.getMode());
-			throw new RuntimeException("teleportation does not work when travel time is undefined.  There is also really no magic fix for this,"
-					+ " since we cannot guess travel times for arbitrary modes and arbitrary landscapes.  kai/mz, apr'15 & feb'16") ;
-		}
-
-		double travelTime = agent.getExpectedTravelTime().seconds() ;
-		if ( withTravelTimeCheck ) {
-			Double speed = scenario.getConfig().routing().getTeleportedModeSpeeds().get( agent.getMode() ) ;
-			Facility dpfac = agent.getCurrentFacility() ;
-			Facility arfac = agent.getDestinationFacility() ;
-			travelTime = DefaultTeleportationEngine.travelTimeCheck(travelTime, speed, dpfac, arfac);
-		}
+		double travelTime = getTravelTime(agent, scenario, withTravelTimeCheck);
 
 		double arrivalTime = now + travelTime ;
-		this.teleportationList.add(new Tuple<>(arrivalTime, agent));
+		this.teleportationList.add(agent, arrivalTime);
 
 		// === below here is only visualization, no dynamics ===
 		Id<Person> agentId = agent.getId();
@@ -133,21 +107,16 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 	}
 
 	private void handleTeleportationArrivals(double now) {
-		while (!teleportationList.isEmpty()) {
-			Tuple<Double, MobsimAgent> entry = teleportationList.peek();
-			if (entry.getFirst() <= now) {
-				teleportationList.poll();
-				MobsimAgent personAgent = entry.getSecond();
-				personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent.getDestinationLinkId());
-				double distance = personAgent.getExpectedTravelDistance();
-				this.eventsManager.processEvent(
-						new TeleportationArrivalEvent(now, personAgent.getId(), distance, personAgent.getMode()));
-				personAgent.endLegAndComputeNextState(now);
-				this.teleportationData.remove(personAgent.getId());
-				internalInterface.arrangeNextAgentState(personAgent);
-			} else {
-				break;
-			}
+		MobsimAgent personAgent;
+		while ((personAgent = teleportationList.pollUntil(now)) != null) {
+			personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent.getDestinationLinkId());
+			double distance = personAgent.getExpectedTravelDistance();
+			// through the mobsim, see ConcurrentMobsimEngine
+			this.internalInterface.getMobsim().getEventsManager().processEvent(
+					new TeleportationArrivalEvent(now, personAgent.getId(), distance, personAgent.getMode()));
+			personAgent.endLegAndComputeNextState(now);
+			this.teleportationData.remove(personAgent.getId());
+			internalInterface.arrangeNextAgentState(personAgent);
 		}
 	}
 
@@ -158,8 +127,7 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 	@Override
 	public void afterSim() {
 		double now = internalInterface.getMobsim().getSimTimer().getTimeOfDay();
-		for (Tuple<Double, MobsimAgent> entry : teleportationList) {
-			MobsimAgent agent = entry.getSecond();
+		for (MobsimAgent agent : teleportationList.getAgents()) {
 			eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), agent.getDestinationLinkId(), agent.getMode()));
 		}
 		teleportationList.clear();
@@ -170,6 +138,26 @@ public final class DefaultTeleportationEngine implements TeleportationEngine {
 		this.internalInterface = internalInterface;
 	}
 
+	/**
+	 * @return the expected travel time of the agent, but at least the beeline travel time if <code>withTravelTimeCheck</code> is set.
+	 */
+	static double getTravelTime(MobsimAgent agent, Scenario scenario, boolean withTravelTimeCheck) {
+		if (agent.getExpectedTravelTime().isUndefined()) {
+			LogManager.getLogger(DefaultTeleportationEngine.class).info("mode: " + agent.getMode());
+			throw new RuntimeException("teleportation does not work when travel time is undefined.  There is also really no magic fix for this,"
+					+ " since we cannot guess travel times for arbitrary modes and arbitrary landscapes.  kai/mz, apr'15 & feb'16") ;
+		}
+
+		double travelTime = agent.getExpectedTravelTime().seconds() ;
+		if ( withTravelTimeCheck ) {
+			Double speed = scenario.getConfig().routing().getTeleportedModeSpeeds().get( agent.getMode() ) ;
+			Facility dpfac = agent.getCurrentFacility() ;
+			Facility arfac = agent.getDestinationFacility() ;
+			travelTime = DefaultTeleportationEngine.travelTimeCheck(travelTime, speed, dpfac, arfac);
+		}
+		return travelTime;
+	}
+
 	private static Double travelTimeCheck(Double travelTime, Double speed, Facility dpfac, Facility arfac) {
 		if ( speed==null ) {
 			// if we don't have a bushwhacking speed, the only thing we can do is trust the router
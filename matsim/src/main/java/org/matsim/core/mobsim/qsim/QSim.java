@@ -37,6 +37,7 @@ import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.QSimConfigGroup.EndtimeInterpretation;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.instrumentation.Instrumentation;
 import org.matsim.core.mobsim.framework.AgentSource;
 import org.matsim.core.mobsim.framework.HasPerson;
 import org.matsim.core.mobsim.framework.MobsimAgent;
@@ -113,6 +114,10 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 
 	private final Collection<MobsimEngine> mobsimEngines = new ArrayList<>();
 
+	// see QSimConfigGroup.getNumberOfEngineThreads(), null if the engines run one after the other
+	private final ConcurrentEngineRunner concurrentEngineRunner;
+	private final List<MobsimEngine> concurrentEngines = new ArrayList<>();
+
 	private final MobsimTimer simTimer;
 
 	private TeleportationEngine teleportationEngine;
@@ -137,6 +142,9 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 	private final Map<MobsimEngine, AtomicLong> mobsimEngineRunTimes;
 	private ActivityEngine activityEngine;
 
+	// see Instrumentation, null if it is disabled
+	private final Map<MobsimEngine, Instrumentation.Timer> mobsimEngineTimers = Instrumentation.isEnabled() ? new HashMap<>() : null;
+
 	{
 		if (analyzeRunTimes) this.mobsimEngineRunTimes = new HashMap<>();
 		else this.mobsimEngineRunTimes = null;
@@ -148,9 +156,16 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 		// from possibly multi-threaded engines, and they access
 		// global mutable data.
 
+		// Within the doSimStep of a ConcurrentMobsimEngine, they are deferred to the end of the concurrent step.
+
 		@Override
-		public synchronized void arrangeNextAgentState(MobsimAgent agent) {
-			QSim.this.arrangeNextAgentAction(agent);
+		public void arrangeNextAgentState(MobsimAgent agent) {
+			if (isDeferred(() -> QSim.this.arrangeNextAgentAction(agent))) {
+				return;
+			}
+			synchronized (this) {
+				QSim.this.arrangeNextAgentAction(agent);
+			}
 		}
 
 		@Override
@@ -159,18 +174,27 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 		}
 
 		@Override
-		public synchronized void registerAdditionalAgentOnLink(final MobsimAgent planAgent) {
-			if (QSim.this.netEngine != null) {
+		public void registerAdditionalAgentOnLink(final MobsimAgent planAgent) {
+			if (QSim.this.netEngine == null || isDeferred(() -> QSim.this.netEngine.registerAdditionalAgentOnLink(planAgent))) {
+				return;
+			}
+			synchronized (this) {
 				QSim.this.netEngine.registerAdditionalAgentOnLink(planAgent);
 			}
 		}
 
 		@Override
-		public synchronized MobsimAgent unregisterAdditionalAgentOnLink(Id<Person> agentId, Id<Link> linkId) {
-			if (QSim.this.netEngine != null) {
+		public MobsimAgent unregisterAdditionalAgentOnLink(Id<Person> agentId, Id<Link> linkId) {
+			if (QSim.this.netEngine == null || isDeferred(() -> QSim.this.netEngine.unregisterAdditionalAgentOnLink(agentId, linkId))) {
+				return null;
+			}
+			synchronized (this) {
 				return QSim.this.netEngine.unregisterAdditionalAgentOnLink(agentId, linkId);
 			}
-			return null;
+		}
+
+		private boolean isDeferred(Runnable action) {
+			return QSim.this.concurrentEngineRunner != null && QSim.this.concurrentEngineRunner.defer(action);
 		}
 
 //		@Override
@@ -214,8 +238,13 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 	private QSim( final Scenario sc, EventsManager events, Injector childInjector ) {
 		this.scenario = sc;
 		if ( sc.getConfig().qsim().getNumberOfThreads() > 1) {
-			this.events = EventsUtils.getParallelFeedableInstance( events );
+			events = EventsUtils.getParallelFeedableInstance( events );
+		}
+		if ( sc.getConfig().qsim().getNumberOfEngineThreads() > 1 ) {
+			this.concurrentEngineRunner = new ConcurrentEngineRunner( sc.getConfig().qsim().getNumberOfEngineThreads() );
+			this.events = this.concurrentEngineRunner.wrap( events );
 		} else {
+			this.concurrentEngineRunner = null;
 			this.events = events;
 		}
 		this.listenerManager = new MobsimListenerManager( this );
@@ -362,6 +391,10 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 			}
 		}
 
+		if (this.concurrentEngineRunner != null) {
+			this.concurrentEngineRunner.shutdown();
+		}
+
 		if (gotException) throw new RuntimeException( "got exception while cleaning up the QSim. Please check the error messages above for details.");
 		events.finishProcessing();
 		if (analyzeRunTimes) {
@@ -397,7 +430,7 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 		 */
 		if (this.withindayEngine != null) {
 			if (analyzeRunTimes) startClockTime = System.nanoTime();
-			this.withindayEngine.doSimStep(now);
+			doSimStep(this.withindayEngine, now);
 			if (analyzeRunTimes) this.mobsimEngineRunTimes.get(this.withindayEngine).addAndGet(System.nanoTime() - this.startClockTime);
 		}
 
@@ -408,7 +441,15 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 			// withindayEngine.doSimStep(time) has already been called
 			if (mobsimEngine == this.withindayEngine) continue;
 
-			mobsimEngine.doSimStep(now);
+			if (this.concurrentEngines.size() > 1 && this.concurrentEngines.contains(mobsimEngine)) {
+				// all concurrent engines are stepped together, at the position of the first one
+				if (mobsimEngine == this.concurrentEngines.get(0)) {
+					this.concurrentEngineRunner.run(this.concurrentEngines, engine -> doSimStep(engine, now));
+				}
+				continue;
+			}
+
+			doSimStep(mobsimEngine, now);
 
 			if (analyzeRunTimes)
 				this.mobsimEngineRunTimes.get(mobsimEngine).addAndGet(System.nanoTime() - this.startClockTime);
@@ -441,6 +482,16 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 		return doContinue;
 	}
 
+	private void doSimStep(MobsimEngine mobsimEngine, double now) {
+		if (this.mobsimEngineTimers == null) {
+			mobsimEngine.doSimStep(now);
+		} else {
+			long start = System.nanoTime();
+			mobsimEngine.doSimStep(now);
+			this.mobsimEngineTimers.get(mobsimEngine).add(System.nanoTime() - start);
+		}
+	}
+
 	public void insertAgentIntoMobsim(final MobsimAgent agent) {
 		if (this.agents.containsKey(agent.getId())) {
 			throw new RuntimeException("Agent with same Id (" + agent.getId().toString() + ") already in mobsim; aborting ... ") ;
@@ -635,8 +686,14 @@ public final class QSim implements VisMobsim, Netsim, ActivityEndRescheduler {
 		}
 		mobsimEngine.setInternalInterface(this.internalInterface);
 		this.mobsimEngines.add(mobsimEngine);
+		if (this.concurrentEngineRunner != null && mobsimEngine instanceof ConcurrentMobsimEngine && mobsimEngine != this.withindayEngine) {
+			this.concurrentEngines.add(mobsimEngine);
+		}
 
 		if (analyzeRunTimes) this.mobsimEngineRunTimes.put(mobsimEngine, new AtomicLong());
+		if (this.mobsimEngineTimers != null) {
+			this.mobsimEngineTimers.put(mobsimEngine, Instrumentation.getTimer(Instrumentation.ENGINE, mobsimEngine.getClass().getName()));
+		}
 	}
 
 	@Override
@@ -26,7 +26,12 @@ public class TeleportationModule extends AbstractQSimModule {
 
 	@Override
 	protected void configureQSim() {
-		bind(DefaultTeleportationEngine.class).asEagerSingleton();
-		addQSimComponentBinding( COMPONENT_NAME ).to( DefaultTeleportationEngine.class );
+		if (getConfig().qsim().isUsingTimingWheelTeleportation()) {
+			bind(TimingWheelTeleportationEngine.class).asEagerSingleton();
+			addQSimComponentBinding( COMPONENT_NAME ).to( TimingWheelTeleportationEngine.class );
+		} else {
+			bind(DefaultTeleportationEngine.class).asEagerSingleton();
+			addQSimComponentBinding( COMPONENT_NAME ).to( DefaultTeleportationEngine.class );
+		}
 	}
 }
@@ -0,0 +1,307 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TimingWheelTeleportationEngine.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import jakarta.inject.Inject;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.qsim.interfaces.ConcurrentMobsimEngine;
+import org.matsim.vis.snapshotwriters.AgentSnapshotInfo;
+import org.matsim.vis.snapshotwriters.TeleportationVisData;
+
+/**
+ * Teleports agents like the {@link DefaultTeleportationEngine}, but keeps them in a timing wheel with one bucket per second
+ * of the arrival time, see {@link org.matsim.core.config.groups.QSimConfigGroup#isUsingTimingWheelTeleportation()}.
+ *
+ * <p>The teleported legs are stored in primitive arrays, a bucket only holds the indices of its legs. In each time step, the
+ * due buckets are taken out as one batch, which is sorted like the priority queue of the default engine, so the agents
+ * arrive in the same order. Arrivals too far in the future for the wheel wait in an {@link AgentEndTimeQueue} until the wheel
+ * reaches them.</p>
+ *
+ * <p>No visualization data is kept while the agents are teleported. It is only created when someone asks for it, see
+ * {@link #addAgentSnapshotInfo(Collection)}.</p>
+ */
+public final class TimingWheelTeleportationEngine implements TeleportationEngine, ConcurrentMobsimEngine {
+
+	private static final int WHEEL_SIZE = 4096; // seconds, must be a power of 2
+	private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+	private final Scenario scenario;
+	private final EventsManager eventsManager;
+	private final boolean withTravelTimeCheck;
+	private InternalInterface internalInterface;
+
+	// the teleported legs, indexed by a leg index which is re-used after the arrival
+	private MobsimAgent[] agents = new MobsimAgent[256];
+	private double[] arrivalTimes = new double[256];
+	private double[] departureTimes = new double[256];
+	private int[] departureLinks = new int[256];
+	private int[] freeLegs = new int[256];
+	private int numberOfFreeLegs = 0;
+	private int legIndexLimit = 0;
+
+	/** the leg index of each agent in the overflow queue, indexed by the index of the agent id */
+	private int[] overflowLegs = new int[256];
+
+	private final int[][] buckets = new int[WHEEL_SIZE][];
+	private final int[] bucketSizes = new int[WHEEL_SIZE];
+	/** the second of the first bucket of the wheel; all legs in the wheel arrive before currentSecond + WHEEL_SIZE */
+	private long currentSecond = Long.MIN_VALUE;
+	private final AgentEndTimeQueue overflow = new AgentEndTimeQueue();
+
+	// the arrivals of the current time step, sorted; legs which arrive in the same time step while it is handled are inserted
+	private int[] batch = new int[256];
+	private int batchStart = 0;
+	private int batchEnd = 0;
+	private double batchTime = Double.NEGATIVE_INFINITY;
+	private final IntComparator arrivalOrder = this::compare;
+
+	@Inject
+	public TimingWheelTeleportationEngine(Scenario scenario, EventsManager eventsManager) {
+		this(scenario, eventsManager, scenario.getConfig().qsim().isUsingTravelTimeCheckInTeleportation());
+	}
+
+	public TimingWheelTeleportationEngine(Scenario scenario, EventsManager eventsManager, boolean withTravelTimeCheck) {
+		this.scenario = scenario;
+		this.eventsManager = eventsManager;
+		this.withTravelTimeCheck = withTravelTimeCheck;
+		for (int i = 0; i < WHEEL_SIZE; i++) {
+			this.buckets[i] = new int[4];
+		}
+	}
+
+	@Override
+	public boolean handleDeparture(double now, MobsimAgent agent, Id<Link> linkId) {
+		double travelTime = DefaultTeleportationEngine.getTravelTime(agent, this.scenario, this.withTravelTimeCheck);
+		double arrivalTime = now + travelTime;
+
+		int leg = addLeg(agent, arrivalTime, now, linkId.index());
+		if (arrivalTime <= this.batchTime) {
+			// arrives in the time step which is just handled
+			insertIntoBatch(leg);
+		} else {
+			schedule(leg);
+		}
+		return true;
+	}
+
+	@Override
+	public void doSimStep(double time) {
+		long second = (long) Math.floor(time);
+		if (this.currentSecond == Long.MIN_VALUE) {
+			this.currentSecond = second;
+		}
+
+		// all buckets before the current second are due completely
+		long lastSecond = Math.min(second, this.currentSecond + WHEEL_SIZE);
+		for (long s = this.currentSecond; s < lastSecond; s++) {
+			int bucket = (int) (s & WHEEL_MASK);
+			for (int i = 0; i < this.bucketSizes[bucket]; i++) {
+				addToBatch(this.buckets[bucket][i]);
+			}
+			this.bucketSizes[bucket] = 0;
+		}
+		this.currentSecond = Math.max(this.currentSecond, second);
+
+		// legs from the overflow queue which are now within the wheel
+		while (this.overflow.peekTime() < this.currentSecond + WHEEL_SIZE) {
+			MobsimAgent agent = this.overflow.pollUntil(Double.POSITIVE_INFINITY);
+			schedule(this.overflowLegs[agent.getId().index()]);
+		}
+
+		// the bucket of the current second may contain legs which arrive later in this second
+		int bucket = (int) (this.currentSecond & WHEEL_MASK);
+		int[] legs = this.buckets[bucket];
+		int remaining = 0;
+		for (int i = 0; i < this.bucketSizes[bucket]; i++) {
+			if (this.arrivalTimes[legs[i]] <= time) {
+				addToBatch(legs[i]);
+			} else {
+				legs[remaining++] = legs[i];
+			}
+		}
+		this.bucketSizes[bucket] = remaining;
+
+		handleArrivals(time);
+	}
+
+	private void handleArrivals(double now) {
+		sortBatch();
+		this.batchTime = now;
+		while (this.batchStart < this.batchEnd) {
+			int leg = this.batch[this.batchStart++];
+			MobsimAgent personAgent = this.agents[leg];
+			removeLeg(leg);
+			personAgent.notifyArrivalOnLinkByNonNetworkMode(personAgent.getDestinationLinkId());
+			double distance = personAgent.getExpectedTravelDistance();
+			// through the mobsim, see ConcurrentMobsimEngine
+			this.internalInterface.getMobsim().getEventsManager().processEvent(
+					new TeleportationArrivalEvent(now, personAgent.getId(), distance, personAgent.getMode()));
+			personAgent.endLegAndComputeNextState(now);
+			this.internalInterface.arrangeNextAgentState(personAgent);
+		}
+		this.batchTime = Double.NEGATIVE_INFINITY;
+		this.batchStart = 0;
+		this.batchEnd = 0;
+	}
+
+	@Override
+	public Collection<AgentSnapshotInfo> addAgentSnapshotInfo(Collection<AgentSnapshotInfo> snapshotList) {
+		double time = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
+		for (int leg = 0; leg < this.legIndexLimit; leg++) {
+			MobsimAgent agent = this.agents[leg];
+			if (agent != null) {
+				Link currLink = this.scenario.getNetwork().getLinks().get(Id.get(this.departureLinks[leg], Link.class));
+				Link destLink = this.scenario.getNetwork().getLinks().get(agent.getDestinationLinkId());
+				TeleportationVisData agentInfo = new TeleportationVisData(this.departureTimes[leg], agent.getId(),
+						currLink.getToNode().getCoord(), destLink.getToNode().getCoord(), this.arrivalTimes[leg] - this.departureTimes[leg]);
+				agentInfo.updatePosition(time);
+				snapshotList.add(agentInfo);
+			}
+		}
+		return snapshotList;
+	}
+
+	@Override
+	public void onPrepareSim() {
+	}
+
+	@Override
+	public void afterSim() {
+		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
+		this.batchStart = 0;
+		this.batchEnd = 0;
+		for (int leg = 0; leg < this.legIndexLimit; leg++) {
+			if (this.agents[leg] != null) {
+				addToBatch(leg);
+			}
+		}
+		sortBatch();
+		for (int i = 0; i < this.batchEnd; i++) {
+			MobsimAgent agent = this.agents[this.batch[i]];
+			this.eventsManager.processEvent(new PersonStuckEvent(now, agent.getId(), agent.getDestinationLinkId(), agent.getMode()));
+			removeLeg(this.batch[i]);
+		}
+		this.batchEnd = 0;
+		this.overflow.clear();
+		Arrays.fill(this.bucketSizes, 0);
+		this.currentSecond = Long.MIN_VALUE;
+	}
+
+	@Override
+	public void setInternalInterface(InternalInterface internalInterface) {
+		this.internalInterface = internalInterface;
+	}
+
+	private int addLeg(MobsimAgent agent, double arrivalTime, double departureTime, int departureLink) {
+		int leg;
+		if (this.numberOfFreeLegs > 0) {
+			leg = this.freeLegs[--this.numberOfFreeLegs];
+		} else {
+			if (this.legIndexLimit == this.agents.length) {
+				int length = 2 * this.legIndexLimit;
+				this.agents = Arrays.copyOf(this.agents, length);
+				this.arrivalTimes = Arrays.copyOf(this.arrivalTimes, length);
+				this.departureTimes = Arrays.copyOf(this.departureTimes, length);
+				this.departureLinks = Arrays.copyOf(this.departureLinks, length);
+				this.freeLegs = Arrays.copyOf(this.freeLegs, length);
+			}
+			leg = this.legIndexLimit++;
+		}
+		this.agents[leg] = agent;
+		this.arrivalTimes[leg] = arrivalTime;
+		this.departureTimes[leg] = departureTime;
+		this.departureLinks[leg] = departureLink;
+		return leg;
+	}
+
+	private void removeLeg(int leg) {
+		this.agents[leg] = null;
+		this.freeLegs[this.numberOfFreeLegs++] = leg;
+	}
+
+	private void schedule(int leg) {
+		double arrivalTime = this.arrivalTimes[leg];
+		// before the first time step, the wheel has not started yet
+		if (this.currentSecond == Long.MIN_VALUE || arrivalTime >= this.currentSecond + WHEEL_SIZE) {
+			MobsimAgent agent = this.agents[leg];
+			int agentIndex = agent.getId().index();
+			if (agentIndex >= this.overflowLegs.length) {
+				this.overflowLegs = Arrays.copyOf(this.overflowLegs, Math.max(agentIndex + 1, 2 * this.overflowLegs.length));
+			}
+			this.overflowLegs[agentIndex] = leg;
+			this.overflow.add(agent, arrivalTime);
+			return;
+		}
+		long second = Math.max((long) Math.floor(arrivalTime), this.currentSecond);
+		int bucket = (int) (second & WHEEL_MASK);
+		if (this.bucketSizes[bucket] == this.buckets[bucket].length) {
+			this.buckets[bucket] = Arrays.copyOf(this.buckets[bucket], 2 * this.bucketSizes[bucket]);
+		}
+		this.buckets[bucket][this.bucketSizes[bucket]++] = leg;
+	}
+
+	private void addToBatch(int leg) {
+		if (this.batchEnd == this.batch.length) {
+			this.batch = Arrays.copyOf(this.batch, 2 * this.batchEnd);
+		}
+		this.batch[this.batchEnd++] = leg;
+	}
+
+	private void insertIntoBatch(int leg) {
+		// the position in the remaining batch, after all legs which are before it
+		int position = this.batchStart;
+		while (position < this.batchEnd && compare(this.batch[position], leg) < 0) {
+			position++;
+		}
+		addToBatch(leg);
+		System.arraycopy(this.batch, position, this.batch, position + 1, this.batchEnd - 1 - position);
+		this.batch[position] = leg;
+	}
+
+	private void sortBatch() {
+		// sorts the leg indices in place, without boxing them; no two legs are equal, so the sort need not be stable
+		IntArrays.quickSort(this.batch, this.batchStart, this.batchEnd, this.arrivalOrder);
+	}
+
+	/**
+	 * Like the priority queue of the {@link DefaultTeleportationEngine}: by arrival time, and the agent with the larger id first.
+	 */
+	private int compare(int leg0, int leg1) {
+		int cmp = Double.compare(this.arrivalTimes[leg0], this.arrivalTimes[leg1]);
+		if (cmp == 0) {
+			return this.agents[leg1].getId().compareTo(this.agents[leg0].getId());
+		}
+		return cmp;
+	}
+
+}
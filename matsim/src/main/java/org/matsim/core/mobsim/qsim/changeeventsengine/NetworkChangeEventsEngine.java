@@ -25,6 +25,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
 import org.matsim.core.mobsim.jdeqsim.Message;
 import org.matsim.core.mobsim.jdeqsim.MessageQueue;
 import org.matsim.core.mobsim.qsim.InternalInterface;
@@ -34,15 +36,33 @@ import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkUtils;
 
 import jakarta.inject.Inject;
-import java.util.Queue;
 
-class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Applies the network change events to the links of the mobsim.
+ *
+ * <p>The change events of the network are compiled before the simulation into the distinct change times, and for each,
+ * the links which change then. Before each time step, the links of the change times which have been reached are updated
+ * once each, no matter how many change events they have at that time. Change events which are added during the
+ * simulation, see {@link #addNetworkChangeEvent(NetworkChangeEvent)}, are scheduled in the {@link MessageQueue}.</p>
+ */
+class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI, MobsimBeforeSimStepListener {
 	private static final Logger log = LogManager.getLogger( NetworkChangeEventsEngine.class ) ;
 
 	private final MessageQueue messageQueue;
 	private final Network network;
 	private InternalInterface internalInterface;
 
+	private double[] changeTimes = new double[0];
+	private List<List<Link>> changingLinks = List.of();
+	private int nextChange = 0;
+
 	@Inject
 	NetworkChangeEventsEngine(Network network, MessageQueue messageQueue) {
 		this.network = network;
@@ -51,9 +71,31 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 
 	@Override
 	public void onPrepareSim() {
-		Queue<NetworkChangeEvent> changeEvents = NetworkUtils.getNetworkChangeEvents(this.network);
-		for (final NetworkChangeEvent changeEvent : changeEvents) {
-			addNetworkChangeEventToMessageQ(changeEvent);
+		List<NetworkChangeEvent> changeEvents = new ArrayList<>(NetworkUtils.getNetworkChangeEvents(this.network));
+		changeEvents.sort(new NetworkChangeEvent.StartTimeComparator());
+
+		List<Double> times = new ArrayList<>();
+		List<List<Link>> links = new ArrayList<>();
+		Set<Link> linksAtTime = new LinkedHashSet<>();
+		for (int i = 0; i < changeEvents.size(); i++) {
+			NetworkChangeEvent changeEvent = changeEvents.get(i);
+			linksAtTime.addAll(changeEvent.getLinks());
+			if (i + 1 == changeEvents.size() || changeEvents.get(i + 1).getStartTime() != changeEvent.getStartTime()) {
+				times.add(changeEvent.getStartTime());
+				links.add(List.copyOf(linksAtTime));
+				linksAtTime.clear();
+			}
+		}
+		this.changeTimes = times.stream().mapToDouble(Double::doubleValue).toArray();
+		this.changingLinks = links;
+		this.nextChange = 0;
+	}
+
+	@Override
+	public void notifyMobsimBeforeSimStep(MobsimBeforeSimStepEvent e) {
+		while (this.nextChange < this.changeTimes.length && this.changeTimes[this.nextChange] <= e.getSimulationTime()) {
+			applyTheChanges(this.changingLinks.get(this.nextChange));
+			this.nextChange++;
 		}
 	}
 
@@ -74,7 +116,11 @@ class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 	}
 
 	private void applyTheChangeEvent(NetworkChangeEvent changeEvent) {
-		for (Link link : changeEvent.getLinks()) {
+		applyTheChanges(changeEvent.getLinks());
+	}
+
+	private void applyTheChanges(Collection<Link> links) {
+		for (Link link : links) {
 			final NetsimLink netsimLink = this.internalInterface.getMobsim().getNetsimNetwork().getNetsimLink(link.getId());
 			if ( netsimLink instanceof TimeVariantLink) {
 				((TimeVariantLink) netsimLink).recalcTimeVariantAttributes();
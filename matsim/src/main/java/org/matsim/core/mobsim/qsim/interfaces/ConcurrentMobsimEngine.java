@@ -0,0 +1,42 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConcurrentMobsimEngine.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.interfaces;
+
+import org.matsim.core.config.groups.QSimConfigGroup;
+import org.matsim.core.mobsim.qsim.InternalInterface;
+
+/**
+ * A {@link MobsimEngine} whose {@link #doSimStep(double)} may run at the same time as the one of the other concurrent
+ * engines of the QSim, see {@link QSimConfigGroup#getNumberOfEngineThreads()}. By implementing this interface, the engine
+ * declares that, within its doSimStep,<ul>
+ * <li> it only changes its own state and the state of the agents it currently holds,
+ * <li> it hands agents to other engines only through the {@link InternalInterface}, and
+ * <li> it throws events only through the events manager of the mobsim, {@link Netsim#getEventsManager()}, which is the
+ * one the agents use as well.
+ * </ul>
+ * The calls to the {@link InternalInterface} and the events of a concurrent engine are then deferred to the end of the
+ * concurrent step and replayed in the order in which the engines were added to the QSim. As a consequence,
+ * {@link InternalInterface#unregisterAdditionalAgentOnLink} returns <code>null</code> within the doSimStep of a concurrent
+ * engine.
+ */
+public interface ConcurrentMobsimEngine extends MobsimEngine {
+
+}
@@ -20,9 +20,11 @@
 package org.matsim.core.mobsim.qsim.pt;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
@@ -54,7 +56,9 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 	private final InternalInterface internalInterface;
 	private final TransitStopAgentTracker agentTracker;
 	private final boolean isGeneratingDeniedBoardingEvents ;
-	private Set<PTPassengerAgent> agentsDeniedToBoard = null;
+	private final boolean isUsingDestinationIndexAtStops;
+	// the vehicles may stop in several threads of the netsim at the same time
+	private Map<Id<Vehicle>, Set<PTPassengerAgent>> agentsDeniedToBoard = null;
 	private Scenario scenario;
 	private EventsManager eventsManager;
 
@@ -66,8 +70,9 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 		this.isGeneratingDeniedBoardingEvents =
 				this.scenario.getConfig().vspExperimental().isGeneratingBoardingDeniedEvents() ;
 		if (this.isGeneratingDeniedBoardingEvents){
-			this.agentsDeniedToBoard = new HashSet<>();
+			this.agentsDeniedToBoard = new ConcurrentHashMap<>();
 		}
+		this.isUsingDestinationIndexAtStops = this.scenario.getConfig().transit().isUsingDestinationIndexAtStops();
 	}
 
 	/**
@@ -83,16 +88,18 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 		double stopTime = stopHandler.handleTransitStop(stop, now, passengersLeaving, passengersEntering, this, vehicle);
 		if (stopTime == 0.0){ // (de-)boarding is complete when the additional stopTime is 0.0
 			if (this.isGeneratingDeniedBoardingEvents){
-				this.fireBoardingDeniedEvents(vehicle, now);
-				this.agentsDeniedToBoard.clear();
+				Set<PTPassengerAgent> agentsDenied = this.agentsDeniedToBoard.remove(vehicle.getId());
+				if (agentsDenied != null) {
+					this.fireBoardingDeniedEvents(vehicle, agentsDenied, now);
+				}
 			}
 		}
 		return stopTime;
 	}
 
-	private void fireBoardingDeniedEvents(TransitVehicle vehicle, double now){
+	private void fireBoardingDeniedEvents(TransitVehicle vehicle, Set<PTPassengerAgent> agentsDenied, double now){
 		Id<Vehicle> vehicleId = vehicle.getId() ;
-		for (PTPassengerAgent agent : this.agentsDeniedToBoard){
+		for (PTPassengerAgent agent : agentsDenied){
 			Id<Person> agentId = agent.getId() ;
 			this.eventsManager.processEvent(
 					new BoardingDeniedEvent(now, agentId, vehicleId)
@@ -104,23 +111,26 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 	private List<PTPassengerAgent> findPassengersEntering(TransitRoute transitRoute, TransitLine transitLine, TransitVehicle vehicle,
 			final TransitStopFacility stop, List<TransitRouteStop> stopsToCome, int freeCapacity, double now) {
 		ArrayList<PTPassengerAgent> passengersEntering = new ArrayList<>();
+		List<PTPassengerAgent> agentsWaiting = this.isUsingDestinationIndexAtStops ?
+				this.agentTracker.getAgentsAtFacilityHeadingFor(stop.getId(), stopsToCome) :
+				this.agentTracker.getAgentsAtFacility(stop.getId());
 
 		if (this.isGeneratingDeniedBoardingEvents) {
 
-			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacility(stop.getId())) {
+			for (PTPassengerAgent agent : agentsWaiting) {
 				if (agent.getEnterTransitRoute(transitLine, transitRoute, stopsToCome, vehicle)) {
 					if (freeCapacity >= 1) {
 						passengersEntering.add(agent);
 						freeCapacity--;
 					} else {
-						this.agentsDeniedToBoard.add(agent);
+						this.agentsDeniedToBoard.computeIfAbsent(vehicle.getId(), id -> new LinkedHashSet<>()).add(agent);
 					}
 				}
 			}
 
 		} else {
 
-			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacility(stop.getId())) {
+			for (PTPassengerAgent agent : agentsWaiting) {
 				if (freeCapacity == 0) {
 					break;
 				}
@@ -26,15 +26,28 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.mobsim.qsim.AgentTracker;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Set;
 
 /**
+ * Keeps track of the agents waiting at transit stops.
+ *
+ * <p>The stops are kept in slots indexed by {@link Id#index()}. Each slot has its own lock, so vehicles at different stops
+ * can be handled by different threads of the netsim. Within a slot, the waiting agents are additionally bucketed by their
+ * desired destination stop, see {@link #getAgentsAtFacilityHeadingFor(Id, List)}.</p>
+ *
  * @author mrieser
  */
 public class TransitStopAgentTracker implements AgentTracker {
@@ -42,7 +55,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 	private final static Logger log = LogManager.getLogger(TransitStopAgentTracker.class);
 	
 	private final EventsManager events;
-	private final Map<Id<TransitStopFacility>, List<PTPassengerAgent>> agentsAtStops = new ConcurrentHashMap<>();
+	private volatile StopSlot[] slots = new StopSlot[16];
 
 	public TransitStopAgentTracker(final EventsManager events) {
 		this.events = events;
@@ -52,15 +65,18 @@ public class TransitStopAgentTracker implements AgentTracker {
 		if (stopId == null) {
 			throw new NullPointerException("stop must not be null.");
 		}
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
-		if (agents == null) {
-			agents = new CopyOnWriteArrayList<>();// TODO check again. this might turn out to be slow, but we likely need something thread safe here. marcel/oct2014 
-			this.agentsAtStops.put(stopId, agents);
-		}
-		if ( !agents.add(agent) ) {
-			log.error("did NOT add agent " + agent.getId() + " since it was already there.");
-		}
 		Id<TransitStopFacility> destinationStopId = agent.getDesiredDestinationStopId();
+		StopSlot slot = getOrCreateSlot(stopId);
+		synchronized (slot) {
+			if (slot.waiting.containsKey(agent)) {
+				log.error("did NOT add agent " + agent.getId() + " since it was already there.");
+			} else {
+				Waiting waiting = new Waiting(agent, destinationStopId, slot.nextSequence++);
+				slot.waiting.put(agent, waiting);
+				slot.agents = null;
+				slot.byDestination.computeIfAbsent(destinationStopId, k -> new LinkedHashSet<>()).add(waiting);
+			}
+		}
 		events.processEvent(new AgentWaitingForPtEvent(now, agent.getId(), stopId, destinationStopId));
 	}
 
@@ -68,26 +84,161 @@ public class TransitStopAgentTracker implements AgentTracker {
 		if (stopId == null) {
 			throw new NullPointerException("stopId must not be null.");
 		}
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
-		if (agents != null) {
-			if (!agents.remove(agent)) {
-				log.error("Agent " + agent.getId() + " could not be removed from waiting at stop " + stopId);
+		StopSlot slot = getSlot(stopId);
+		if (slot != null) {
+			synchronized (slot) {
+				Waiting waiting = slot.waiting.remove(agent);
+				if (waiting == null) {
+					log.error("Agent " + agent.getId() + " could not be removed from waiting at stop " + stopId);
+				} else {
+					slot.agents = null;
+					Set<Waiting> bucket = slot.byDestination.get(waiting.destinationStopId);
+					bucket.remove(waiting);
+					if (bucket.isEmpty()) {
+						slot.byDestination.remove(waiting.destinationStopId);
+					}
+				}
 			}
 		} else {
 			log.error("Agent " + agent.getId() + " could not be removed from waiting at stop " + stopId + " since agents list was null.");
 		}
 	}
 
+	/**
+	 * @return an immutable snapshot of the agents waiting at the stop, in the order in which they started waiting. The
+	 * snapshot is kept until an agent starts or stops waiting at the stop, so vehicles calling at a stop without changes
+	 * in between get the same list.
+	 */
 	@Override
 	public List<PTPassengerAgent> getAgentsAtFacility(final Id<TransitStopFacility> stopId) {
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
-		if (agents == null) {
+		StopSlot slot = getSlot(stopId);
+		if (slot == null) {
 			return Collections.emptyList();
 		}
+		synchronized (slot) {
+			if (slot.waiting.isEmpty()) {
+				return Collections.emptyList();
+			}
+			if (slot.agents == null) {
+				slot.agents = List.copyOf(slot.waiting.keySet());
+			}
+			return slot.agents;
+		}
+	}
+
+	/**
+	 * Looks up the candidates for boarding a vehicle at a stop without going through all agents waiting there. This is only
+	 * correct for agents which never want to enter a vehicle that does not serve their desired destination stop, which holds
+	 * for both {@link org.matsim.pt.config.TransitConfigGroup.BoardingAcceptance} modes of the default agents. The
+	 * destination is taken when the agent starts waiting, so it must not be changed while the agent waits.
+	 *
+	 * @return an immutable snapshot of the agents waiting at the stop whose desired destination stop is one of the
+	 * <code>stopsToCome</code> or unknown, in the order in which they started waiting.
+	 */
+	public List<PTPassengerAgent> getAgentsAtFacilityHeadingFor(final Id<TransitStopFacility> stopId, final List<TransitRouteStop> stopsToCome) {
+		StopSlot slot = getSlot(stopId);
+		if (slot == null) {
+			return Collections.emptyList();
+		}
+		List<Waiting> candidates = new ArrayList<>();
+		int buckets = 0;
+		synchronized (slot) {
+			if (slot.waiting.isEmpty()) {
+				return Collections.emptyList();
+			}
+			Set<Id<TransitStopFacility>> seen = new HashSet<>();
+			for (TransitRouteStop stop : stopsToCome) {
+				Id<TransitStopFacility> destinationStopId = stop.getStopFacility().getId();
+				if (seen.add(destinationStopId)) {
+					buckets += addBucket(slot, destinationStopId, candidates);
+				}
+			}
+			buckets += addBucket(slot, null, candidates);
+		}
+		if (buckets > 1) {
+			candidates.sort(Comparator.comparingLong(w -> w.sequence));
+		}
+		List<PTPassengerAgent> agents = new ArrayList<>(candidates.size());
+		for (Waiting waiting : candidates) {
+			agents.add(waiting.agent);
+		}
 		return Collections.unmodifiableList(agents);
 	}
 
+	private static int addBucket(StopSlot slot, Id<TransitStopFacility> destinationStopId, List<Waiting> candidates) {
+		Set<Waiting> bucket = slot.byDestination.get(destinationStopId);
+		if (bucket == null) {
+			return 0;
+		}
+		candidates.addAll(bucket);
+		return 1;
+	}
+
+	/**
+	 * @return a snapshot of the agents waiting at each stop, in the order of the stops' indices.
+	 */
 	public Map<Id<TransitStopFacility>, List<PTPassengerAgent>> getAgentsAtStop() {
-		return this.agentsAtStops;
+		Map<Id<TransitStopFacility>, List<PTPassengerAgent>> agentsAtStops = new LinkedHashMap<>();
+		for (StopSlot slot : this.slots) {
+			if (slot != null) {
+				List<PTPassengerAgent> agents = getAgentsAtFacility(slot.stopId);
+				if (!agents.isEmpty()) {
+					agentsAtStops.put(slot.stopId, agents);
+				}
+			}
+		}
+		return agentsAtStops;
+	}
+
+	private StopSlot getSlot(final Id<TransitStopFacility> stopId) {
+		StopSlot[] slots = this.slots;
+		int index = stopId.index();
+		return index < slots.length ? slots[index] : null;
+	}
+
+	private StopSlot getOrCreateSlot(final Id<TransitStopFacility> stopId) {
+		StopSlot slot = getSlot(stopId);
+		if (slot != null) {
+			return slot;
+		}
+		synchronized (this) {
+			StopSlot[] slots = this.slots;
+			int index = stopId.index();
+			if (index >= slots.length) {
+				slots = Arrays.copyOf(slots, Math.max(index + 1, 2 * slots.length));
+			}
+			slot = slots[index];
+			if (slot == null) {
+				slot = new StopSlot(stopId);
+				slots[index] = slot;
+			}
+			this.slots = slots;
+			return slot;
+		}
+	}
+
+	private static final class StopSlot {
+		private final Id<TransitStopFacility> stopId;
+		private final Map<PTPassengerAgent, Waiting> waiting = new LinkedHashMap<>();
+		private final Map<Id<TransitStopFacility>, Set<Waiting>> byDestination = new HashMap<>();
+		private long nextSequence = 0;
+		/** snapshot of the keys of {@link #waiting}, or null if they changed since it was taken */
+		private List<PTPassengerAgent> agents = null;
+
+		private StopSlot(Id<TransitStopFacility> stopId) {
+			this.stopId = stopId;
+		}
+	}
+
+	private static final class Waiting {
+		private final PTPassengerAgent agent;
+		private final Id<TransitStopFacility> destinationStopId;
+		private final long sequence;
+
+		private Waiting(PTPassengerAgent agent, Id<TransitStopFacility> destinationStopId, long sequence) {
+			this.agent = agent;
+			this.destinationStopId = destinationStopId;
+			this.sequence = sequence;
+		}
 	}
 }
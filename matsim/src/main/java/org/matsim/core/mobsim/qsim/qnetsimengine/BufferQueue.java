@@ -0,0 +1,116 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BufferQueue.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine;
+
+import java.util.Arrays;
+
+/**
+ * The buffer of a {@link QueueWithBuffer}: the vehicles which are ready to cross the outgoing intersection, together with
+ * the flow capacity they consumed when they entered the buffer. Both are kept in ring buffers, the consumptions in a
+ * primitive array, so the flow capacity update does not need to touch the vehicles.
+ */
+/* deliberately package */ final class BufferQueue {
+
+	// the length is always a power of two
+	private QVehicle[] vehicles = new QVehicle[2];
+	private double[] flowConsumptions = new double[2];
+	private int head = 0;
+	private int size = 0;
+
+	void add(QVehicle vehicle, double flowConsumption) {
+		if (this.size == this.vehicles.length) {
+			grow();
+		}
+		int index = (this.head + this.size) & (this.vehicles.length - 1);
+		this.vehicles[index] = vehicle;
+		this.flowConsumptions[index] = flowConsumption;
+		this.size++;
+	}
+
+	/**
+	 * @return the first vehicle, or <code>null</code> if the buffer is empty.
+	 */
+	QVehicle peek() {
+		return this.size == 0 ? null : this.vehicles[this.head];
+	}
+
+	/**
+	 * @return the first vehicle, which is removed, or <code>null</code> if the buffer is empty.
+	 */
+	QVehicle poll() {
+		if (this.size == 0) {
+			return null;
+		}
+		QVehicle vehicle = this.vehicles[this.head];
+		this.vehicles[this.head] = null;
+		this.head = (this.head + 1) & (this.vehicles.length - 1);
+		this.size--;
+		return vehicle;
+	}
+
+	/**
+	 * @return the vehicle at the given position, counted from the first one.
+	 */
+	QVehicle get(int position) {
+		return this.vehicles[(this.head + position) & (this.vehicles.length - 1)];
+	}
+
+	/**
+	 * @return <code>value</code> minus the flow consumptions of all vehicles in the buffer, subtracted one after the other
+	 * from the first one.
+	 */
+	double subtractFlowConsumptions(double value) {
+		double result = value;
+		for (int i = 0; i < this.size; i++) {
+			result -= this.flowConsumptions[(this.head + i) & (this.flowConsumptions.length - 1)];
+		}
+		return result;
+	}
+
+	int size() {
+		return this.size;
+	}
+
+	boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	void clear() {
+		Arrays.fill(this.vehicles, null);
+		this.head = 0;
+		this.size = 0;
+	}
+
+	private void grow() {
+		int length = 2 * this.vehicles.length;
+		QVehicle[] newVehicles = new QVehicle[length];
+		double[] newFlowConsumptions = new double[length];
+		for (int i = 0; i < this.size; i++) {
+			int index = (this.head + i) & (this.vehicles.length - 1);
+			newVehicles[i] = this.vehicles[index];
+			newFlowConsumptions[i] = this.flowConsumptions[index];
+		}
+		this.vehicles = newVehicles;
+		this.flowConsumptions = newFlowConsumptions;
+		this.head = 0;
+	}
+
+}
@@ -19,43 +19,157 @@
 package org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq;
 
 import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
 
+/**
+ * A first-in-first-out queue of vehicles in a ring buffer. Next to the vehicles, it keeps their earliest link exit times
+ * in a primitive array, so a link can find out if its first vehicle may leave without touching the vehicle object, see
+ * {@link #getEarliestLinkExitTimeOfFirst()}.
+ */
 public final class FIFOVehicleQ extends AbstractQueue<QVehicle> implements VehicleQ<QVehicle>  {
-	
-	private final LinkedList<QVehicle> vehicleQueue = new LinkedList<>();
+
+	// the length is always a power of two
+	private QVehicle[] vehicles = new QVehicle[4];
+	private double[] earliestLinkExitTimes = new double[4];
+	private int head = 0;
+	private int size = 0;
+	private int modCount = 0;
 
 	@Override
 	public boolean offer(QVehicle e) {
-		return vehicleQueue.offer(e);
+		Objects.requireNonNull(e);
+		ensureCapacity();
+		int index = (this.head + this.size) & (this.vehicles.length - 1);
+		this.vehicles[index] = e;
+		this.earliestLinkExitTimes[index] = e.getEarliestLinkExitTime();
+		this.size++;
+		this.modCount++;
+		return true;
+	}
+
+	@Override
+	public void addFirst(QVehicle e) {
+		Objects.requireNonNull(e);
+		ensureCapacity();
+		this.head = (this.head - 1) & (this.vehicles.length - 1);
+		this.vehicles[this.head] = e;
+		this.earliestLinkExitTimes[this.head] = e.getEarliestLinkExitTime();
+		this.size++;
+		this.modCount++;
 	}
 
 	@Override
 	public QVehicle peek() {
-		return vehicleQueue.peek();
+		return this.size == 0 ? null : this.vehicles[this.head];
 	}
 
 	@Override
 	public QVehicle poll() {
-		return vehicleQueue.poll();
+		if (this.size == 0) {
+			return null;
+		}
+		QVehicle vehicle = this.vehicles[this.head];
+		this.vehicles[this.head] = null;
+		this.head = (this.head + 1) & (this.vehicles.length - 1);
+		this.size--;
+		this.modCount++;
+		return vehicle;
 	}
 
+	/**
+	 * The earliest link exit time of a vehicle is only increased while it is in the queue (e.g. at a transit stop), so the
+	 * time stored when it was added is a lower bound.
+	 */
 	@Override
-	public Iterator<QVehicle> iterator() {
-		return vehicleQueue.iterator();
+	public double getEarliestLinkExitTimeOfFirst() {
+		return this.size == 0 ? Double.POSITIVE_INFINITY : this.earliestLinkExitTimes[this.head];
 	}
 
 	@Override
 	public int size() {
-		return vehicleQueue.size();
+		return this.size;
 	}
 
 	@Override
-	public void addFirst(QVehicle e) {
-		vehicleQueue.addFirst(e);
+	public void clear() {
+		Arrays.fill(this.vehicles, null);
+		this.head = 0;
+		this.size = 0;
+		this.modCount++;
+	}
+
+	@Override
+	public Iterator<QVehicle> iterator() {
+		return new Iterator<>() {
+			private int next = 0;
+			private int last = -1;
+			private int expectedModCount = FIFOVehicleQ.this.modCount;
+
+			@Override
+			public boolean hasNext() {
+				return this.next < FIFOVehicleQ.this.size;
+			}
+
+			@Override
+			public QVehicle next() {
+				if (this.expectedModCount != FIFOVehicleQ.this.modCount) {
+					throw new ConcurrentModificationException();
+				}
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				this.last = this.next++;
+				return FIFOVehicleQ.this.vehicles[(FIFOVehicleQ.this.head + this.last) & (FIFOVehicleQ.this.vehicles.length - 1)];
+			}
+
+			@Override
+			public void remove() {
+				if (this.last < 0) {
+					throw new IllegalStateException();
+				}
+				removeAt(this.last);
+				this.next = this.last;
+				this.last = -1;
+				this.expectedModCount = FIFOVehicleQ.this.modCount;
+			}
+		};
+	}
+
+	private void removeAt(int position) {
+		int mask = this.vehicles.length - 1;
+		// move the later vehicles one position forward
+		for (int i = position; i < this.size - 1; i++) {
+			int to = (this.head + i) & mask;
+			int from = (this.head + i + 1) & mask;
+			this.vehicles[to] = this.vehicles[from];
+			this.earliestLinkExitTimes[to] = this.earliestLinkExitTimes[from];
+		}
+		this.vehicles[(this.head + this.size - 1) & mask] = null;
+		this.size--;
+		this.modCount++;
+	}
+
+	private void ensureCapacity() {
+		if (this.size < this.vehicles.length) {
+			return;
+		}
+		int length = 2 * this.vehicles.length;
+		QVehicle[] newVehicles = new QVehicle[length];
+		double[] newTimes = new double[length];
+		for (int i = 0; i < this.size; i++) {
+			int index = (this.head + i) & (this.vehicles.length - 1);
+			newVehicles[i] = this.vehicles[index];
+			newTimes[i] = this.earliestLinkExitTimes[index];
+		}
+		this.vehicles = newVehicles;
+		this.earliestLinkExitTimes = newTimes;
+		this.head = 0;
 	}
 
 }
@@ -30,6 +30,14 @@ public interface VehicleQ<E> extends Queue<E> {
 	// For transit, which inserts its vehicles "in front of" the queue.
 	void addFirst(E previous);
 
+	/**
+	 * @return a lower bound of the earliest link exit time of the first vehicle, {@link Double#POSITIVE_INFINITY} if the
+	 * queue is empty, or {@link Double#NEGATIVE_INFINITY} if the queue does not know it.
+	 */
+	default double getEarliestLinkExitTimeOfFirst() {
+		return isEmpty() ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+	}
+
 	interface Factory<E> {
 		VehicleQ<E> createVehicleQ() ;
 	}
@@ -0,0 +1,106 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkChangeSchedule.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The freespeed, flow capacity and number of lanes of a {@link TimeVariantLinkImpl}, compiled from its change events into
+ * primitive arrays with one entry per change point. The first entry, at {@link Double#NEGATIVE_INFINITY}, holds the base
+ * values. A lookup is one binary search over the change times, for all three attributes.
+ *
+ * <p>The schedule is immutable, so the mobsim and the routers can query it from several threads without locking. If the
+ * change events or the base values of the link change, the link compiles a new one.</p>
+ */
+/* deliberately package */ final class LinkChangeSchedule {
+
+	private final double[] times;
+	private final double[] freespeeds;
+	private final double[] flowCapacitiesPerSec;
+	private final double[] lanes;
+
+	private LinkChangeSchedule(int size) {
+		this.times = new double[size];
+		this.freespeeds = new double[size];
+		this.flowCapacitiesPerSec = new double[size];
+		this.lanes = new double[size];
+	}
+
+	/**
+	 * @param changeEvents the change events of the link by their start time, may be <code>null</code>.
+	 */
+	static LinkChangeSchedule create(TreeMap<Double, NetworkChangeEvent> changeEvents, double baseFreespeed,
+			double baseFlowCapacityPerSec, double baseLanes) {
+		LinkChangeSchedule schedule = new LinkChangeSchedule(1 + (changeEvents == null ? 0 : changeEvents.size()));
+		schedule.times[0] = Double.NEGATIVE_INFINITY;
+		schedule.freespeeds[0] = baseFreespeed;
+		schedule.flowCapacitiesPerSec[0] = baseFlowCapacityPerSec;
+		schedule.lanes[0] = baseLanes;
+
+		if (changeEvents != null) {
+			// go through all change events in chronological sequence, each change applies to the values so far:
+			int i = 0;
+			for (NetworkChangeEvent event : changeEvents.values()) {
+				i++;
+				schedule.times[i] = event.getStartTime();
+				schedule.freespeeds[i] = apply(event.getFreespeedChange(), schedule.freespeeds[i - 1]);
+				schedule.flowCapacitiesPerSec[i] = apply(event.getFlowCapacityChange(), schedule.flowCapacitiesPerSec[i - 1]);
+				schedule.lanes[i] = apply(event.getLanesChange(), schedule.lanes[i - 1]);
+			}
+		}
+		return schedule;
+	}
+
+	private static double apply(ChangeValue value, double currentValue) {
+		if (value == null) {
+			return currentValue;
+		}
+		return switch (value.getType()) {
+			case ABSOLUTE_IN_SI_UNITS -> value.getValue();
+			case FACTOR -> currentValue * value.getValue();
+			case OFFSET_IN_SI_UNITS -> currentValue + value.getValue();
+		};
+	}
+
+	double getFreespeed(double time) {
+		return this.freespeeds[indexOf(time)];
+	}
+
+	double getFlowCapacityPerSec(double time) {
+		return this.flowCapacitiesPerSec[indexOf(time)];
+	}
+
+	double getNumberOfLanes(double time) {
+		return this.lanes[indexOf(time)];
+	}
+
+	private int indexOf(double time) {
+		Preconditions.checkArgument(!Double.isNaN(time), "NaN time is not supported");
+		int key = Arrays.binarySearch(this.times, time);
+		return key >= 0 ? key : -key - 2;
+	}
+
+}
@@ -40,6 +40,8 @@ import org.matsim.core.config.groups.NetworkConfigGroup;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.network.algorithms.NetworkSimplifier;
 import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.utils.collections.PackedRTree;
+import org.matsim.core.utils.collections.QuadTree;
 import org.matsim.core.utils.geometry.CoordUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.misc.OptionalTime;
@@ -803,6 +805,40 @@ public final class NetworkUtils {
 	}
 
 
+	/**
+	 * Creates a static index over the links of the network, which answers nearest-link queries like
+	 * {@link #getNearestLinkExactly(Network, Coord)}, but is not updated when the network changes. Links at the same
+	 * distance, e.g. the two directions of a road, are returned in the order of {@link Network#getLinks()}.
+	 */
+	public static PackedRTree<Link> createLinkRTree(Network network) {
+		return PackedRTree.create(network.getLinks().values(), link -> {
+			Coord from = link.getFromNode().getCoord();
+			Coord to = link.getToNode().getCoord();
+			return new QuadTree.Rect(Math.min(from.getX(), to.getX()), Math.min(from.getY(), to.getY()),
+					Math.max(from.getX(), to.getX()), Math.max(from.getY(), to.getY()));
+		}, NetworkUtils::calcLineSegmentDistanceSquared);
+	}
+
+	private static double calcLineSegmentDistanceSquared(Link link, double x, double y) {
+		double fx = link.getFromNode().getCoord().getX();
+		double fy = link.getFromNode().getCoord().getY();
+		double lineDX = link.getToNode().getCoord().getX() - fx;
+		double lineDY = link.getToNode().getCoord().getY() - fy;
+		double px = fx;
+		double py = fy;
+		if (lineDX != 0.0 || lineDY != 0.0) {
+			double u = ((x - fx) * lineDX + (y - fy) * lineDY) / (lineDX * lineDX + lineDY * lineDY);
+			if (u >= 1) {
+				px = fx + lineDX;
+				py = fy + lineDY;
+			} else if (u > 0) {
+				px = fx + u * lineDX;
+				py = fy + u * lineDY;
+			}
+		}
+		return (x - px) * (x - px) + (y - py) * (y - py);
+	}
+
 	public static Node getNearestNode(Network network, final Coord coord) {
 		if ( network instanceof SearchableNetwork ) {
 			return ((SearchableNetwork)network).getNearestNode(coord);
@@ -38,10 +38,14 @@ import org.matsim.api.core.v01.network.*;
 
 	private TreeMap<Double,NetworkChangeEvent> changeEvents;
 
+	// null for the links with variable intervals, which use the schedule instead
 	private final TimeVariantAttribute variableFreespeed;
 	private final TimeVariantAttribute variableFlowCapacity;
 	private final TimeVariantAttribute variableLanes;
 
+	// compiled when it is first needed after a change, see LinkChangeSchedule
+	private volatile LinkChangeSchedule schedule = null;
+
 	//////////////////////////////////////////////////////////////////////
 	// constructor
 	//////////////////////////////////////////////////////////////////////
@@ -49,10 +53,7 @@ import org.matsim.api.core.v01.network.*;
 	public static TimeVariantLinkImpl createLinkWithVariableIntervalAttributes(final Id<Link> id,
 			final Node from, final Node to, final Network network, final double length,
 			final double freespeed, final double capacity, final double lanes) {
-		return new TimeVariantLinkImpl(id, from, to, network, length, freespeed, capacity, lanes,
-				new VariableIntervalTimeVariantAttribute(),
-				new VariableIntervalTimeVariantAttribute(),
-				new VariableIntervalTimeVariantAttribute());
+		return new TimeVariantLinkImpl(id, from, to, network, length, freespeed, capacity, lanes, null, null, null);
 	}
 
 
@@ -88,7 +89,11 @@ import org.matsim.api.core.v01.network.*;
 			this.changeEvents = new TreeMap<>();
 
 		this.changeEvents.put(event.getStartTime(), event);
+		this.schedule = null;
 
+		if (this.variableFreespeed == null) {
+			return;
+		}
 		if (event.getFreespeedChange() != null) {
 			this.variableFreespeed.incChangeEvents();
 		}
@@ -109,7 +114,11 @@ import org.matsim.api.core.v01.network.*;
 	synchronized void clearEvents() {
 		if(this.changeEvents != null)
 			this.changeEvents.clear();
+		this.schedule = null;
 
+		if (this.variableFreespeed == null) {
+			return;
+		}
 		variableFreespeed.clearEvents();
 		variableFlowCapacity.clearEvents();
 		variableLanes.clearEvents();
@@ -121,13 +130,16 @@ import org.matsim.api.core.v01.network.*;
 	 * @return the freespeed at time <tt>time</tt>.
 	 */
 	@Override
-	public synchronized double getFreespeed(final double time) {
-
-		if (variableFreespeed.isRecalcRequired()) {
-			recalcFreespeed();
+	public double getFreespeed(final double time) {
+		if (this.variableFreespeed == null) {
+			return getSchedule().getFreespeed(time);
+		}
+		synchronized (this) {
+			if (variableFreespeed.isRecalcRequired()) {
+				recalcFreespeed();
+			}
+			return variableFreespeed.getValue(time);
 		}
-
-		return variableFreespeed.getValue(time);
 	}
 
 	@Override
@@ -147,13 +159,16 @@ import org.matsim.api.core.v01.network.*;
 	 * @return the flow capacity at time <tt>time</tt>.
 	 */
 	@Override
-	public synchronized double getFlowCapacityPerSec(final double time) {
-
-		if (variableFlowCapacity.isRecalcRequired()) {
-			recalcFlowCapacity();
+	public double getFlowCapacityPerSec(final double time) {
+		if (this.variableFlowCapacity == null) {
+			return getSchedule().getFlowCapacityPerSec(time);
+		}
+		synchronized (this) {
+			if (variableFlowCapacity.isRecalcRequired()) {
+				recalcFlowCapacity();
+			}
+			return variableFlowCapacity.getValue(time);
 		}
-
-		return variableFlowCapacity.getValue(time);
 	}
 
 	@Override
@@ -171,11 +186,15 @@ import org.matsim.api.core.v01.network.*;
 	 * @return the capacity per network's capperiod timestep
 	 */
 	@Override
-	public synchronized double getCapacity(final double time) {
+	public double getCapacity(final double time) {
 		return getFlowCapacityPerSec(time) * getCapacityPeriod();
 	}
 
 	private synchronized void recalcFlowCapacity() {
+		this.schedule = null;
+		if (this.variableFlowCapacity == null) {
+			return;
+		}
 		double baseFlowCapacityPerSec = this.getCapacity() / getCapacityPeriod();
 		variableFlowCapacity.recalc(changeEvents, TimeVariantAttribute.FLOW_CAPACITY_GETTER, baseFlowCapacityPerSec);
 	}
@@ -193,12 +212,16 @@ import org.matsim.api.core.v01.network.*;
 	 * encode the (min) width of the link to calculate the flow capacity - [GL] 13may08
 	 */
 	@Override
-	public synchronized double getNumberOfLanes(final double time) {
-		if (variableLanes.isRecalcRequired()) {
-			recalcLanes();
+	public double getNumberOfLanes(final double time) {
+		if (this.variableLanes == null) {
+			return getSchedule().getNumberOfLanes(time);
+		}
+		synchronized (this) {
+			if (variableLanes.isRecalcRequired()) {
+				recalcLanes();
+			}
+			return variableLanes.getValue(time);
 		}
-
-		return variableLanes.getValue(time);
 	}
 
 	@Override
@@ -209,11 +232,35 @@ import org.matsim.api.core.v01.network.*;
 
 
 	private synchronized void recalcFreespeed() {
+		this.schedule = null;
+		if (this.variableFreespeed == null) {
+			return;
+		}
 		variableFreespeed.recalc(changeEvents, TimeVariantAttribute.FREESPEED_GETTER, this.getFreespeed() );
 	}
 
 	private synchronized void recalcLanes() {
+		this.schedule = null;
+		if (this.variableLanes == null) {
+			return;
+		}
 		variableLanes.recalc(changeEvents, TimeVariantAttribute.LANES_GETTER, this.getNumberOfLanes() );
 	}
+
+	private LinkChangeSchedule getSchedule() {
+		LinkChangeSchedule schedule = this.schedule;
+		if (schedule == null) {
+			schedule = compileSchedule();
+		}
+		return schedule;
+	}
+
+	private synchronized LinkChangeSchedule compileSchedule() {
+		if (this.schedule == null) {
+			this.schedule = LinkChangeSchedule.create(this.changeEvents, this.getFreespeed(),
+					this.getCapacity() / getCapacityPeriod(), this.getNumberOfLanes());
+		}
+		return this.schedule;
+	}
 }
 
@@ -21,13 +21,12 @@ package org.matsim.core.network.algorithms;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.stream.IntStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -111,29 +110,67 @@ public final class MultimodalNetworkCleaner {
 	public void run(final Set<String> cleaningModes, final Set<String> connectivityModes) {
 		final Set<String> combinedModes = new HashSet<>(cleaningModes);
 		combinedModes.addAll(connectivityModes);
-		final Map<Id<Link>, Link> visitedLinks = new TreeMap<>();
-		Map<Id<Link>, Link> biggestCluster = new TreeMap<>();
-
 		log.info("running " + this.getClass().getName() + " algorithm for modes " + Arrays.toString(cleaningModes.toArray())
 				+ " with connectivity modes " + Arrays.toString(connectivityModes.toArray()) + "...");
 
 		// search the biggest cluster of nodes in the network
 		log.info("  checking " + this.network.getNodes().size() + " nodes and " +
 				this.network.getLinks().size() + " links for dead-ends...");
-		boolean stillSearching = true;
-		Iterator<? extends Link> iter = this.network.getLinks().values().iterator();
-		while (iter.hasNext() && stillSearching) {
-			Link startLink = iter.next();
-			if ((!visitedLinks.containsKey(startLink.getId())) && (intersectingSets(combinedModes, startLink.getAllowedModes()))) {
-				Map<Id<Link>, Link> cluster = this.findCluster(startLink, combinedModes);
-				visitedLinks.putAll(cluster);
-				if (cluster.size() > biggestCluster.size()) {
-					biggestCluster = cluster;
-					if (biggestCluster.size() >= (this.network.getLinks().size() - visitedLinks.size())) {
-						// stop searching here, because we cannot find a bigger cluster in the lasting nodes
-						stillSearching = false;
-					}
-				}
+
+		/* A link is in the cluster of another link if each can be reached from the other, i.e. if both of their nodes are
+		 * in the same strongly connected component of the sub-network with the given modes. If several clusters have the
+		 * same number of links, the one containing the first link in the iteration order of the network's links wins.
+		 */
+		List<Node> nodes = new ArrayList<>(this.network.getNodes().values());
+		int[] positions = new int[Id.getNumberOfIds(Node.class)];
+		for (int i = 0; i < nodes.size(); i++) {
+			positions[nodes.get(i).getId().index()] = i;
+		}
+		List<Link> links = new ArrayList<>(this.network.getLinks().values());
+		boolean[] hasModes = new boolean[links.size()];
+		IntStream.range(0, links.size()).parallel().forEach(l -> hasModes[l] = intersectingSets(combinedModes, links.get(l).getAllowedModes()));
+		int numberOfLinksWithModes = 0;
+		for (boolean b : hasModes) {
+			if (b) {
+				numberOfLinksWithModes++;
+			}
+		}
+		int[] fromNodes = new int[numberOfLinksWithModes];
+		int[] toNodes = new int[numberOfLinksWithModes];
+		int[] linkFromNodes = new int[links.size()];
+		int[] linkToNodes = new int[links.size()];
+		for (int l = 0, j = 0; l < links.size(); l++) {
+			linkFromNodes[l] = positions[links.get(l).getFromNode().getId().index()];
+			linkToNodes[l] = positions[links.get(l).getToNode().getId().index()];
+			if (hasModes[l]) {
+				fromNodes[j] = linkFromNodes[l];
+				toNodes[j] = linkToNodes[l];
+				j++;
+			}
+		}
+		StronglyConnectedComponents components = new StronglyConnectedComponents(nodes.size(), fromNodes, toNodes);
+
+		int[] sizes = new int[components.getNumberOfComponents()];
+		int[] linkComponents = new int[links.size()];
+		for (int l = 0; l < links.size(); l++) {
+			int component = components.getComponent(linkFromNodes[l]);
+			linkComponents[l] = hasModes[l] && component == components.getComponent(linkToNodes[l]) ? component : -1;
+			if (linkComponents[l] >= 0) {
+				sizes[component]++;
+			}
+		}
+		int biggest = -1;
+		for (int l = 0; l < links.size(); l++) {
+			int component = linkComponents[l];
+			if (component >= 0 && (biggest < 0 || sizes[component] > sizes[biggest])) {
+				biggest = component;
+			}
+		}
+
+		Map<Id<Link>, Link> biggestCluster = new TreeMap<>();
+		for (int l = 0; l < links.size(); l++) {
+			if (biggest >= 0 && linkComponents[l] == biggest) {
+				biggestCluster.put(links.get(l).getId(), links.get(l));
 			}
 		}
 		log.info("    The biggest cluster consists of " + biggestCluster.size() + " links.");
@@ -166,64 +203,6 @@ public final class MultimodalNetworkCleaner {
 		log.info("done.");
 	}
 
-	/**
-	 * Finds the cluster of links <pre>startLink</pre> is part of. The cluster
-	 * contains all links which can be reached starting at <code>startLink</code>
-	 * and from where it is also possible to return again to <code>startLink</code>.
-	 *
-	 * @param startLink the link to start building the cluster
-	 * @param modes the set of modes that are allowed to
-	 * @return cluster of links <pre>startLink</pre> is part of
-	 */
-	private Map<Id<Link>, Link> findCluster(final Link startLink, final Set<String> modes) {
-
-		final Map<Id<Link>, DoubleFlagRole> linkRoles = new HashMap<>(this.network.getLinks().size());
-
-		ArrayList<Node> pendingForward = new ArrayList<>();
-		ArrayList<Node> pendingBackward = new ArrayList<>();
-
-		TreeMap<Id<Link>, Link> clusterLinks = new TreeMap<>();
-
-		pendingForward.add(startLink.getToNode());
-		pendingBackward.add(startLink.getFromNode());
-
-		// step through the network in forward mode
-		while (pendingForward.size() > 0) {
-			int idx = pendingForward.size() - 1;
-			Node currNode = pendingForward.remove(idx); // get the last element to prevent object shifting in the array
-			for (Link link : currNode.getOutLinks().values()) {
-				if (intersectingSets(modes, link.getAllowedModes())) {
-					DoubleFlagRole r = getDoubleFlag(link, linkRoles);
-					if (!r.forwardFlag) {
-						r.forwardFlag = true;
-						pendingForward.add(link.getToNode());
-					}
-				}
-			}
-		}
-
-		// now step through the network in backward mode
-		while (pendingBackward.size() > 0) {
-			int idx = pendingBackward.size()-1;
-			Node currNode = pendingBackward.remove(idx); // get the last element to prevent object shifting in the array
-			for (Link link : currNode.getInLinks().values()) {
-				if (intersectingSets(modes, link.getAllowedModes())) {
-					DoubleFlagRole r = getDoubleFlag(link, linkRoles);
-					if (!r.backwardFlag) {
-						r.backwardFlag = true;
-						pendingBackward.add(link.getFromNode());
-						if (r.forwardFlag) {
-							// the node can be reached forward and backward, add it to the cluster
-							clusterLinks.put(link.getId(), link);
-						}
-					}
-				}
-			}
-		}
-
-		return clusterLinks;
-	}
-
 	/**
 	 * @return the removedLinks
 	 */
@@ -259,18 +238,4 @@ public final class MultimodalNetworkCleaner {
 		return false;
 	}
 
-	private static DoubleFlagRole getDoubleFlag(final Link l, final Map<Id<Link>, DoubleFlagRole> linkRoles) {
-		DoubleFlagRole r = linkRoles.get(l.getId());
-		if (null == r) {
-			r = new DoubleFlagRole();
-			linkRoles.put(l.getId(), r);
-		}
-		return r;
-	}
-
-	static class DoubleFlagRole {
-		boolean forwardFlag = false;
-		boolean backwardFlag = false;
-	}
-
 }
@@ -21,8 +21,6 @@
 package org.matsim.core.network.algorithms;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -50,91 +48,51 @@ public final class NetworkCleaner implements NetworkRunnable {
 	private static final Logger log = LogManager.getLogger(NetworkCleaner.class);
 
 	/**
-	 * Finds the cluster of nodes of which <code>startNode</code> is part of. The cluster
-	 * contains all nodes which can be reached starting at <code>startNode</code>
-	 * and from where it is also possible to return again to <code>startNode</code>.
+	 * Searches the biggest cluster in the given Network. The Network is not modified.
 	 *
-	 * @param startNode the node to start building the cluster
-	 * @param network the network the startNode is part of
-	 * @return cluster of nodes of which <code>startNode</code> is part of
+	 * <p>A cluster contains all nodes which can be reached from each other, i.e. it is a strongly connected component
+	 * of the network. If several clusters have the same size, the one containing the first node in the iteration order
+	 * of the network's nodes is returned.</p>
 	 */
-	private Map<Id<Node>, Node> findCluster(final Node startNode, final Network network) {
-
-		final Map<Node, DoubleFlagRole> nodeRoles = new HashMap<>(network.getNodes().size());
-
-		ArrayList<Node> pendingForward = new ArrayList<>();
-		ArrayList<Node> pendingBackward = new ArrayList<>();
-
-		TreeMap<Id<Node>, Node> clusterNodes = new TreeMap<>();
-		clusterNodes.put(startNode.getId(), startNode);
-		DoubleFlagRole r = getDoubleFlag(startNode, nodeRoles);
-		r.forwardFlag = true;
-		r.backwardFlag = true;
+	public Map<Id<Node>, Node> searchBiggestCluster(Network network) {
+		log.info("running " + this.getClass().getName() + " algorithm...");
 
-		pendingForward.add(startNode);
-		pendingBackward.add(startNode);
+		// search the biggest cluster of nodes in the network
+		log.info("  checking " + network.getNodes().size() + " nodes and " +
+				network.getLinks().size() + " links for dead-ends...");
 
-		// step through the network in forward mode
-		while (pendingForward.size() > 0) {
-			int idx = pendingForward.size() - 1;
-			Node currNode = pendingForward.remove(idx); // get the last element to prevent object shifting in the array
-			for (Link link : currNode.getOutLinks().values()) {
-				Node node = link.getToNode();
-				r = getDoubleFlag(node, nodeRoles);
-				if (!r.forwardFlag) {
-					r.forwardFlag = true;
-					pendingForward.add(node);
-				}
-			}
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		int[] positions = new int[Id.getNumberOfIds(Node.class)];
+		for (int i = 0; i < nodes.size(); i++) {
+			positions[nodes.get(i).getId().index()] = i;
 		}
+		int[] fromNodes = new int[network.getLinks().size()];
+		int[] toNodes = new int[fromNodes.length];
+		int l = 0;
+		for (Link link : network.getLinks().values()) {
+			fromNodes[l] = positions[link.getFromNode().getId().index()];
+			toNodes[l] = positions[link.getToNode().getId().index()];
+			l++;
+		}
+		StronglyConnectedComponents components = new StronglyConnectedComponents(nodes.size(), fromNodes, toNodes);
 
-		// now step through the network in backward mode
-		while (pendingBackward.size() > 0) {
-			int idx = pendingBackward.size()-1;
-			Node currNode = pendingBackward.remove(idx); // get the last element to prevent object shifting in the array
-			for (Link link : currNode.getInLinks().values()) {
-				Node node = link.getFromNode();
-				r = getDoubleFlag(node, nodeRoles);
-				if (!r.backwardFlag) {
-					r.backwardFlag = true;
-					pendingBackward.add(node);
-					if (r.forwardFlag) {
-						// the node can be reached forward and backward, add it to the cluster
-						clusterNodes.put(node.getId(), node);
-					}
-				}
+		// the first node of each cluster is found first, so a later cluster only wins if it is strictly bigger
+		int[] sizes = new int[components.getNumberOfComponents()];
+		for (int i = 0; i < nodes.size(); i++) {
+			sizes[components.getComponent(i)]++;
+		}
+		int biggest = -1;
+		for (int i = 0; i < nodes.size(); i++) {
+			int component = components.getComponent(i);
+			if (biggest < 0 || sizes[component] > sizes[biggest]) {
+				biggest = component;
 			}
 		}
 
-		return clusterNodes;
-	}
-
-	/**
-	 * Searches the biggest cluster in the given Network. The Network is not modified.
-	 */
-	public Map<Id<Node>, Node> searchBiggestCluster(Network network) {
-		final Map<Id<Node>, Node> visitedNodes = new TreeMap<>();
 		Map<Id<Node>, Node> biggestCluster = new TreeMap<>();
-
-		log.info("running " + this.getClass().getName() + " algorithm...");
-
-		// search the biggest cluster of nodes in the network
-		log.info("  checking " + network.getNodes().size() + " nodes and " +
-				network.getLinks().size() + " links for dead-ends...");
-		boolean stillSearching = true;
-		Iterator<? extends Node> iter = network.getNodes().values().iterator();
-		while (iter.hasNext() && stillSearching) {
-			Node startNode = iter.next();
-			if (!visitedNodes.containsKey(startNode.getId())) {
-				Map<Id<Node>, Node> cluster = this.findCluster(startNode, network);
-				visitedNodes.putAll(cluster);
-				if (cluster.size() > biggestCluster.size()) {
-					biggestCluster = cluster;
-					if (biggestCluster.size() >= (network.getNodes().size() - visitedNodes.size())) {
-						// stop searching here, because we cannot find a bigger cluster in the lasting nodes
-						stillSearching = false;
-					}
-				}
+		for (int i = 0; i < nodes.size(); i++) {
+			if (components.getComponent(i) == biggest) {
+				biggestCluster.put(nodes.get(i).getId(), nodes.get(i));
 			}
 		}
 		log.info("    The biggest cluster consists of " + biggestCluster.size() + " nodes.");
@@ -164,18 +122,4 @@ public final class NetworkCleaner implements NetworkRunnable {
 		reduceToBiggestCluster(network, biggestCluster);
 	}
 
-	private static DoubleFlagRole getDoubleFlag(final Node n, final Map<Node, DoubleFlagRole> nodeRoles) {
-		DoubleFlagRole r = nodeRoles.get(n);
-		if (null == r) {
-			r = new DoubleFlagRole();
-			nodeRoles.put(n, r);
-		}
-		return r;
-	}
-
-	static class DoubleFlagRole {
-		boolean forwardFlag = false;
-		boolean backwardFlag = false;
-	}
-
 }
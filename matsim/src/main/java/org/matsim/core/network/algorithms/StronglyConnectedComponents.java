@@ -0,0 +1,195 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StronglyConnectedComponents.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network.algorithms;
+
+import java.util.Arrays;
+
+/**
+ * The strongly connected components of a directed graph with nodes <code>0..n-1</code>, given by the end points of its
+ * links. The graph is stored in primitive arrays, and the components are found in O(n+m).
+ *
+ * <p>Road networks usually consist of one giant component and many tiny ones. So first, the nodes reachable forward
+ * and backward from the first node are searched in parallel, on the calling thread and one dedicated thread. Their
+ * intersection is the component of the first node (forward-backward algorithm). The remaining nodes are then split
+ * into components with Tarjan's algorithm, ignoring the nodes of the first component. The component of the first node has the number 0, the others are numbered in the
+ * order in which they are found.</p>
+ *
+ * @see NetworkCleaner
+ * @see MultimodalNetworkCleaner
+ */
+/* deliberately package */ final class StronglyConnectedComponents {
+
+	private static final int UNASSIGNED = -1;
+
+	private final int[] components;
+	private final int numberOfComponents;
+
+	/**
+	 * @param fromNodes the from node of each link
+	 * @param toNodes the to node of each link
+	 */
+	StronglyConnectedComponents(final int numberOfNodes, final int[] fromNodes, final int[] toNodes) {
+		int[] outStarts = new int[numberOfNodes + 1];
+		int[] outNodes = new int[fromNodes.length];
+		int[] inStarts = new int[numberOfNodes + 1];
+		int[] inNodes = new int[fromNodes.length];
+		buildAdjacency(fromNodes, toNodes, outStarts, outNodes);
+		buildAdjacency(toNodes, fromNodes, inStarts, inNodes);
+
+		this.components = new int[numberOfNodes];
+		Arrays.fill(this.components, UNASSIGNED);
+		if (numberOfNodes == 0) {
+			this.numberOfComponents = 0;
+			return;
+		}
+
+		// the forward search runs on a dedicated thread rather than on the shared common pool
+		boolean[][] forward = new boolean[1][];
+		Thread forwardSearch = new Thread(() -> forward[0] = findReachable(0, outStarts, outNodes), "StronglyConnectedComponents");
+		forwardSearch.setDaemon(true);
+		forwardSearch.start();
+		boolean[] backward = findReachable(0, inStarts, inNodes);
+		try {
+			forwardSearch.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		boolean[] reachedForward = forward[0];
+		if (reachedForward == null) {
+			throw new IllegalStateException("the forward search from the first node failed");
+		}
+		for (int node = 0; node < numberOfNodes; node++) {
+			if (reachedForward[node] && backward[node]) {
+				this.components[node] = 0;
+			}
+		}
+
+		this.numberOfComponents = findRemainingComponents(outStarts, outNodes, 1);
+	}
+
+	/**
+	 * Sorts the links by their <code>from</code> node, into compressed adjacency arrays.
+	 */
+	private static void buildAdjacency(int[] from, int[] to, int[] starts, int[] adjacent) {
+		for (int f : from) {
+			starts[f + 1]++;
+		}
+		for (int node = 0; node < starts.length - 1; node++) {
+			starts[node + 1] += starts[node];
+		}
+		int[] next = Arrays.copyOf(starts, starts.length - 1);
+		for (int link = 0; link < from.length; link++) {
+			adjacent[next[from[link]]++] = to[link];
+		}
+	}
+
+	private static boolean[] findReachable(int start, int[] starts, int[] adjacent) {
+		boolean[] reached = new boolean[starts.length - 1];
+		int[] pending = new int[starts.length - 1];
+		int size = 0;
+		reached[start] = true;
+		pending[size++] = start;
+		while (size > 0) {
+			int node = pending[--size];
+			for (int i = starts[node]; i < starts[node + 1]; i++) {
+				int next = adjacent[i];
+				if (!reached[next]) {
+					reached[next] = true;
+					pending[size++] = next;
+				}
+			}
+		}
+		return reached;
+	}
+
+	/**
+	 * Tarjan's algorithm without recursion, for all nodes which are not assigned yet. Links into assigned nodes are
+	 * ignored: every cycle through such a node lies within its component.
+	 *
+	 * @return the number of components
+	 */
+	private int findRemainingComponents(int[] outStarts, int[] outNodes, int nextComponent) {
+		int n = this.components.length;
+		int[] index = new int[n];
+		Arrays.fill(index, UNASSIGNED);
+		int[] lowLink = new int[n];
+		int[] nextLink = new int[n];
+		int[] stack = new int[n];
+		int stackSize = 0;
+		int[] callStack = new int[n];
+		int callStackSize = 0;
+		int nextIndex = 0;
+
+		for (int start = 0; start < n; start++) {
+			if (this.components[start] != UNASSIGNED || index[start] != UNASSIGNED) {
+				continue;
+			}
+			index[start] = lowLink[start] = nextIndex++;
+			nextLink[start] = outStarts[start];
+			stack[stackSize++] = start;
+			callStack[callStackSize++] = start;
+
+			while (callStackSize > 0) {
+				int node = callStack[callStackSize - 1];
+				if (nextLink[node] < outStarts[node + 1]) {
+					int next = outNodes[nextLink[node]++];
+					if (this.components[next] != UNASSIGNED) {
+						continue;
+					}
+					if (index[next] == UNASSIGNED) {
+						index[next] = lowLink[next] = nextIndex++;
+						nextLink[next] = outStarts[next];
+						stack[stackSize++] = next;
+						callStack[callStackSize++] = next;
+					} else {
+						// not assigned yet, so it is still on the stack
+						lowLink[node] = Math.min(lowLink[node], index[next]);
+					}
+				} else {
+					callStackSize--;
+					if (lowLink[node] == index[node]) {
+						int member;
+						do {
+							member = stack[--stackSize];
+							this.components[member] = nextComponent;
+						} while (member != node);
+						nextComponent++;
+					}
+					if (callStackSize > 0) {
+						int parent = callStack[callStackSize - 1];
+						lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+					}
+				}
+			}
+		}
+		return nextComponent;
+	}
+
+	int getComponent(int node) {
+		return this.components[node];
+	}
+
+	int getNumberOfComponents() {
+		return this.numberOfComponents;
+	}
+
+}
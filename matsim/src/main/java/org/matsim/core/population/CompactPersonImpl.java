@@ -0,0 +1,168 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPersonImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.replanning.selectors.RandomPlanSelector;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.core.scenario.Lockable;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesImpl;
+
+/**
+ * {@link Person} implementation which keeps only its selected plan as regular objects, and all
+ * other plans packed in a compact binary form (see {@link CompactPlanCodec}).
+ *
+ * <p>Plans are packed once the person is locked, i.e. added to a population, and afterwards whenever a
+ * plan gets added, or deselected, and after algorithms which touch all plans, such as prepareForSim and replanning
+ * (see {@link PopulationUtils#packNonSelectedPlans(org.matsim.api.core.v01.population.Population)}). Only plans created by the {@link CompactPopulationFactoryImpl} can be packed,
+ * plans created elsewhere (e.g. via {@link PopulationUtils#createPlan(Person)}) are kept as they are.</p>
+ */
+/* deliberately package */ final class CompactPersonImpl implements Person, Lockable {
+
+	private final CompactPlanCodec codec;
+	private final List<Plan> plans = new ArrayList<>(6);
+	private final Id<Person> id;
+
+	private Plan selectedPlan = null;
+
+	private Customizable customizableDelegate;
+	private boolean locked;
+
+	private final Attributes attributes = new AttributesImpl();
+
+	/* deliberately package */ CompactPersonImpl(final Id<Person> id, final CompactPlanCodec codec) {
+		this.id = id;
+		this.codec = codec;
+	}
+
+	@Override
+	public Plan getSelectedPlan() {
+		return this.selectedPlan;
+	}
+
+	@Override
+	public boolean addPlan(final Plan plan) {
+		plan.setPerson(this);
+		// Make sure there is a selected plan if there is at least one plan
+		if (this.selectedPlan == null) this.selectedPlan = plan;
+		if (this.locked) {
+			// the plans added before are complete by now, e.g. when a reader fills the person after it was added to the population
+			packNonSelectedPlans();
+		}
+		return this.plans.add(plan);
+	}
+
+	@Override
+	public void setSelectedPlan(final Plan selectedPlan) {
+		if (selectedPlan != null && !plans.contains( selectedPlan )) {
+			throw new IllegalStateException("The plan to be set as selected is not null nor stored in the person's plans");
+		}
+		Plan deselectedPlan = this.selectedPlan;
+		this.selectedPlan = selectedPlan;
+		if (this.locked && deselectedPlan != selectedPlan) {
+			// only the plan which was selected until now needs to be packed, all other plans are packed already
+			if (deselectedPlan instanceof CompactPlanImpl compactPlan && this.plans.contains(deselectedPlan)) {
+				compactPlan.pack();
+			}
+			if (selectedPlan instanceof CompactPlanImpl compactPlan) {
+				compactPlan.inflate();
+			}
+		}
+	}
+
+	@Override
+	public Plan createCopyOfSelectedPlanAndMakeSelected() {
+		Plan oldPlan = this.getSelectedPlan();
+		if (oldPlan == null) {
+			return null;
+		}
+		Plan newPlan = new CompactPlanImpl(this.codec);
+		newPlan.setPerson(this);
+		PopulationUtils.copyFromTo(oldPlan, newPlan, true);
+		this.getPlans().add(newPlan);
+		this.setSelectedPlan(newPlan);
+		return newPlan;
+	}
+
+	@Override
+	public Id<Person> getId() {
+		return this.id;
+	}
+
+	@Override
+	public String toString() {
+		return "[id=" + this.getId() + "]" + "[nof_plans=" + this.getPlans().size() + "]";
+	}
+
+	@Override
+	public boolean removePlan(final Plan plan) {
+		boolean result = this.getPlans().remove(plan);
+		if ((this.getSelectedPlan() == plan) && result) {
+			this.setSelectedPlan(new RandomPlanSelector<Plan, Person>().selectPlan(this));
+		}
+		return result;
+	}
+
+	@Override
+	public List<Plan> getPlans() {
+		return this.plans;
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		return attributes;
+	}
+
+	@Override
+	public void setLocked() {
+		this.locked = true;
+		packNonSelectedPlans();
+	}
+
+	/* package */ void packNonSelectedPlans() {
+		for (Plan plan : this.plans) {
+			if (plan instanceof CompactPlanImpl compactPlan) {
+				if (plan == this.selectedPlan) {
+					compactPlan.inflate();
+				} else {
+					compactPlan.pack();
+				}
+			}
+		}
+	}
+
+}
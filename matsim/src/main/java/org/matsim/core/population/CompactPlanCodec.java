@@ -0,0 +1,391 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlanCodec.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.population.routes.heavycompressed.VarIntUtils;
+import org.matsim.core.utils.misc.OptionalTime;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Packs the plan elements of a {@link CompactPlanImpl} into a byte array and back.
+ *
+ * <p>Ids are stored by their index, strings like activity types and modes by their position in a
+ * string table shared by all plans of the population, times and distances as varints if they are
+ * whole seconds/meters and as raw doubles otherwise. Coordinates are always stored as raw doubles, so
+ * inflating a plan gives back exactly the values that were packed.</p>
+ *
+ * <p>Plan elements which cannot be represented this way (activities or legs carrying attributes, routes
+ * of other types than {@link NetworkRoute} and {@link GenericRouteImpl}, custom {@link PlanElement}
+ * implementations) are kept as they are and referenced from the byte array.</p>
+ */
+/* deliberately package */ final class CompactPlanCodec {
+
+	private static final int ACTIVITY = 0;
+	private static final int INTERACTION_ACTIVITY = 1;
+	private static final int LEG = 2;
+	private static final int UNPACKED = 3;
+
+	private static final int NO_ROUTE = 0;
+	private static final int NETWORK_ROUTE = 1;
+	private static final int GENERIC_ROUTE = 2;
+
+	private static final int NO_COORD = 0;
+	private static final int COORD_XY = 1;
+	private static final int COORD_XYZ = 2;
+
+	private static final Object[] NO_UNPACKED = new Object[0];
+
+	private final RouteFactories routeFactories;
+	private volatile Class<?> networkRouteClass = null;
+
+	private final Map<String, Integer> stringIndices = new ConcurrentHashMap<>();
+	private final List<String> strings = new CopyOnWriteArrayList<>();
+
+	CompactPlanCodec(RouteFactories routeFactories) {
+		this.routeFactories = routeFactories;
+	}
+
+	/**
+	 * The packed representation of a list of plan elements.
+	 */
+	record Packed(byte[] data, Object[] unpacked) {
+	}
+
+	Packed pack(List<PlanElement> planElements) {
+		Writer writer = new Writer(planElements.size() * 24 + 8);
+		List<Object> unpacked = null;
+		writer.varint(planElements.size());
+		for (PlanElement pe : planElements) {
+			if (isPackable(pe)) {
+				if (pe instanceof Activity act) {
+					packActivity(writer, act);
+				} else {
+					packLeg(writer, (Leg) pe);
+				}
+			} else {
+				if (unpacked == null) {
+					unpacked = new ArrayList<>(2);
+				}
+				writer.varint(UNPACKED);
+				writer.varint(unpacked.size());
+				unpacked.add(pe);
+			}
+		}
+		return new Packed(writer.toByteArray(), unpacked == null ? NO_UNPACKED : unpacked.toArray());
+	}
+
+	ArrayList<PlanElement> unpack(Packed packed) {
+		ByteBuffer bb = ByteBuffer.wrap(packed.data());
+		int size = (int) VarIntUtils.decode(bb);
+		ArrayList<PlanElement> planElements = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			int tag = (int) VarIntUtils.decode(bb);
+			switch (tag) {
+				case ACTIVITY, INTERACTION_ACTIVITY -> planElements.add(unpackActivity(bb, tag));
+				case LEG -> planElements.add(unpackLeg(bb));
+				case UNPACKED -> planElements.add((PlanElement) packed.unpacked()[(int) VarIntUtils.decode(bb)]);
+				default -> throw new IllegalStateException("Unknown plan element tag " + tag + ", the packed plan seems to be corrupt.");
+			}
+		}
+		return planElements;
+	}
+
+	private boolean isPackable(PlanElement pe) {
+		if (pe instanceof ActivityImpl || pe instanceof InteractionActivity) {
+			return pe.getAttributes().isEmpty();
+		}
+		if (pe instanceof LegImpl leg) {
+			if (!leg.getAttributes().isEmpty()) {
+				return false;
+			}
+			Route route = leg.getRoute();
+			return route == null || route.getClass() == GenericRouteImpl.class || route.getClass() == getNetworkRouteClass();
+		}
+		return false;
+	}
+
+	private Class<?> getNetworkRouteClass() {
+		Class<?> clazz = this.networkRouteClass;
+		if (clazz == null) {
+			clazz = this.routeFactories.createRoute(NetworkRoute.class, null, null).getClass();
+			this.networkRouteClass = clazz;
+		}
+		return clazz;
+	}
+
+	private void packActivity(Writer writer, Activity act) {
+		writer.varint(act instanceof InteractionActivity ? INTERACTION_ACTIVITY : ACTIVITY);
+		writer.string(act.getType());
+		Coord coord = act.getCoord();
+		if (coord == null) {
+			writer.varint(NO_COORD);
+		} else if (coord.hasZ()) {
+			writer.varint(COORD_XYZ);
+			writer.rawDouble(coord.getX());
+			writer.rawDouble(coord.getY());
+			writer.rawDouble(coord.getZ());
+		} else {
+			writer.varint(COORD_XY);
+			writer.rawDouble(coord.getX());
+			writer.rawDouble(coord.getY());
+		}
+		writer.id(act.getLinkId());
+		writer.id(act.getFacilityId());
+		if (act instanceof ActivityImpl) {
+			writer.time(act.getStartTime());
+			writer.time(act.getEndTime());
+			writer.time(act.getMaximumDuration());
+		}
+	}
+
+	private Activity unpackActivity(ByteBuffer bb, int tag) {
+		String type = readString(bb);
+		Activity act = tag == INTERACTION_ACTIVITY ? new InteractionActivity(type) : new ActivityImpl(type);
+		int coordType = (int) VarIntUtils.decode(bb);
+		if (coordType == COORD_XY) {
+			act.setCoord(new Coord(bb.getDouble(), bb.getDouble()));
+		} else if (coordType == COORD_XYZ) {
+			act.setCoord(new Coord(bb.getDouble(), bb.getDouble(), bb.getDouble()));
+		}
+		act.setLinkId(readId(bb, Link.class));
+		act.setFacilityId(readId(bb, ActivityFacility.class));
+		if (tag == ACTIVITY) {
+			readTime(bb).ifDefined(act::setStartTime);
+			readTime(bb).ifDefined(act::setEndTime);
+			readTime(bb).ifDefined(act::setMaximumDuration);
+		}
+		return act;
+	}
+
+	private void packLeg(Writer writer, Leg leg) {
+		writer.varint(LEG);
+		writer.string(leg.getMode());
+		writer.nullableString(leg.getRoutingMode());
+		writer.time(leg.getDepartureTime());
+		writer.time(leg.getTravelTime());
+		Route route = leg.getRoute();
+		if (route == null) {
+			writer.varint(NO_ROUTE);
+			return;
+		}
+		writer.varint(route instanceof NetworkRoute ? NETWORK_ROUTE : GENERIC_ROUTE);
+		writer.id(route.getStartLinkId());
+		writer.id(route.getEndLinkId());
+		writer.compactDouble(route.getDistance());
+		writer.time(route.getTravelTime());
+		if (route instanceof NetworkRoute networkRoute) {
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			writer.varint(linkIds.size());
+			for (Id<Link> linkId : linkIds) {
+				writer.varint(linkId.index());
+			}
+			writer.id(networkRoute.getVehicleId());
+			writer.compactDouble(networkRoute.getTravelCost());
+		} else {
+			String description = route.getRouteDescription();
+			if (description == null) {
+				writer.varint(0);
+			} else {
+				byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+				writer.varint(bytes.length + 1L);
+				writer.bytes(bytes);
+			}
+		}
+	}
+
+	private Leg unpackLeg(ByteBuffer bb) {
+		Leg leg = new LegImpl(readString(bb));
+		leg.setRoutingMode(readNullableString(bb));
+		readTime(bb).ifDefined(leg::setDepartureTime);
+		readTime(bb).ifDefined(leg::setTravelTime);
+		int routeType = (int) VarIntUtils.decode(bb);
+		if (routeType == NO_ROUTE) {
+			return leg;
+		}
+		Id<Link> startLinkId = readId(bb, Link.class);
+		Id<Link> endLinkId = readId(bb, Link.class);
+		double distance = readCompactDouble(bb);
+		OptionalTime travelTime = readTime(bb);
+		Route route;
+		if (routeType == NETWORK_ROUTE) {
+			int size = (int) VarIntUtils.decode(bb);
+			List<Id<Link>> linkIds = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				linkIds.add(Id.get((int) VarIntUtils.decode(bb), Link.class));
+			}
+			NetworkRoute networkRoute = this.routeFactories.createRoute(NetworkRoute.class, startLinkId, endLinkId);
+			networkRoute.setLinkIds(startLinkId, linkIds, endLinkId);
+			networkRoute.setVehicleId(readId(bb, Vehicle.class));
+			networkRoute.setTravelCost(readCompactDouble(bb));
+			route = networkRoute;
+		} else {
+			GenericRouteImpl genericRoute = new GenericRouteImpl(startLinkId, endLinkId);
+			int length = (int) VarIntUtils.decode(bb);
+			if (length > 0) {
+				byte[] bytes = new byte[length - 1];
+				bb.get(bytes);
+				genericRoute.setRouteDescription(new String(bytes, StandardCharsets.UTF_8));
+			}
+			route = genericRoute;
+		}
+		route.setDistance(distance);
+		travelTime.ifDefinedOrElse(route::setTravelTime, route::setTravelTimeUndefined);
+		leg.setRoute(route);
+		return leg;
+	}
+
+	private int stringIndex(String value) {
+		Integer index = this.stringIndices.get(value);
+		if (index != null) {
+			return index;
+		}
+		synchronized (this.strings) {
+			return this.stringIndices.computeIfAbsent(value, v -> {
+				this.strings.add(v);
+				return this.strings.size() - 1;
+			});
+		}
+	}
+
+	private String readString(ByteBuffer bb) {
+		return this.strings.get((int) VarIntUtils.decode(bb));
+	}
+
+	private String readNullableString(ByteBuffer bb) {
+		int value = (int) VarIntUtils.decode(bb);
+		return value == 0 ? null : this.strings.get(value - 1);
+	}
+
+	private static <T> Id<T> readId(ByteBuffer bb, Class<T> type) {
+		int value = (int) VarIntUtils.decode(bb);
+		return value == 0 ? null : Id.get(value - 1, type);
+	}
+
+	private static OptionalTime readTime(ByteBuffer bb) {
+		long value = VarIntUtils.decode(bb);
+		if (value == 0) {
+			return OptionalTime.undefined();
+		}
+		return OptionalTime.defined(value == 1 ? bb.getDouble() : (double) (value - 2));
+	}
+
+	private static double readCompactDouble(ByteBuffer bb) {
+		long value = VarIntUtils.decode(bb);
+		return value == 0 ? bb.getDouble() : (double) (value - 1);
+	}
+
+	/** Whether the value survives a round trip through a (non-negative) long without any change. */
+	private static boolean isWholeNumber(double value) {
+		return value >= 0 && value < 0x1p52 && Double.doubleToRawLongBits((double) (long) value) == Double.doubleToRawLongBits(value);
+	}
+
+	private final class Writer {
+		private ByteBuffer bb;
+
+		Writer(int initialCapacity) {
+			this.bb = ByteBuffer.allocate(initialCapacity);
+		}
+
+		private void ensureCapacity(int bytes) {
+			if (this.bb.remaining() < bytes) {
+				ByteBuffer larger = ByteBuffer.allocate(Math.max(this.bb.capacity() * 2, this.bb.position() + bytes));
+				this.bb.flip();
+				larger.put(this.bb);
+				this.bb = larger;
+			}
+		}
+
+		void varint(long value) {
+			ensureCapacity(10);
+			VarIntUtils.encode(this.bb, value);
+		}
+
+		void rawDouble(double value) {
+			ensureCapacity(8);
+			this.bb.putDouble(value);
+		}
+
+		void bytes(byte[] bytes) {
+			ensureCapacity(bytes.length);
+			this.bb.put(bytes);
+		}
+
+		void string(String value) {
+			varint(stringIndex(value));
+		}
+
+		void nullableString(String value) {
+			varint(value == null ? 0 : stringIndex(value) + 1L);
+		}
+
+		void id(Id<?> id) {
+			varint(id == null ? 0 : id.index() + 1L);
+		}
+
+		/** 0: undefined, 1: raw double follows, otherwise whole seconds + 2 */
+		void time(OptionalTime time) {
+			if (time.isUndefined()) {
+				varint(0);
+			} else if (isWholeNumber(time.seconds())) {
+				varint((long) time.seconds() + 2);
+			} else {
+				varint(1);
+				rawDouble(time.seconds());
+			}
+		}
+
+		/** 0: raw double follows, otherwise whole number + 1 */
+		void compactDouble(double value) {
+			if (isWholeNumber(value)) {
+				varint((long) value + 1);
+			} else {
+				varint(0);
+				rawDouble(value);
+			}
+		}
+
+		byte[] toByteArray() {
+			byte[] data = new byte[this.bb.position()];
+			System.arraycopy(this.bb.array(), 0, data, 0, data.length);
+			return data;
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlanImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Customizable;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.replanning.inheritance.PlanInheritanceModule;
+import org.matsim.core.scenario.CustomizableUtils;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+import org.matsim.utils.objectattributes.attributable.LazyAllocationAttributes;
+
+/**
+ * A {@link Plan} which can store its plan elements in packed form (see {@link CompactPlanCodec}).
+ *
+ * <p>Score, type and attributes of the plan are always directly accessible, so plan selectors
+ * do not need to inflate the plan. The plan elements are inflated to regular {@link Activity} and
+ * {@link Leg} objects as soon as {@link #getPlanElements()} is called, and stay inflated until
+ * the plan is packed again by its {@link CompactPersonImpl}, i.e. when it is deselected, or after prepareForSim and
+ * replanning. Callers which only
+ * read the plan elements should use {@link PopulationUtils#getPlanElementsForReading(Plan)}, which does not
+ * inflate the plan. Note that packing creates new plan element objects when the plan is inflated the next
+ * time, so references to plan elements of non-selected plans should not be kept.</p>
+ */
+/* deliberately package */ final class CompactPlanImpl implements Plan {
+
+	private final CompactPlanCodec codec;
+
+	private ArrayList<PlanElement> actsLegs = new ArrayList<>();
+	private CompactPlanCodec.Packed packed = null;
+
+	private Id<Plan> id = null;
+	private Double score = null;
+	private Person person = null;
+	private String type = null;
+
+	private Customizable customizableDelegate;
+	private Attributes attributes = null;
+
+	/* package */ CompactPlanImpl(CompactPlanCodec codec) {
+		this.codec = codec;
+	}
+
+	/* package */ boolean isPacked() {
+		return this.packed != null;
+	}
+
+	/* package */ void pack() {
+		if (this.packed == null) {
+			this.packed = this.codec.pack(this.actsLegs);
+			this.actsLegs = null;
+		}
+	}
+
+	/* package */ void inflate() {
+		if (this.packed != null) {
+			this.actsLegs = this.codec.unpack(this.packed);
+			this.packed = null;
+		}
+	}
+
+	/**
+	 * Creates a packed copy of the plan, for reading only. If the plan is packed with the same codec already, the copy
+	 * shares the packed plan elements, which are never changed, otherwise they are packed from the plan.
+	 */
+	/* package */ static CompactPlanImpl createPackedCopy(Plan plan, CompactPlanCodec codec) {
+		CompactPlanImpl copy = new CompactPlanImpl(codec);
+		if (plan instanceof CompactPlanImpl compactPlan && compactPlan.codec == codec && compactPlan.packed != null) {
+			copy.packed = compactPlan.packed;
+		} else {
+			copy.packed = codec.pack(PopulationUtils.getPlanElementsForReading(plan));
+		}
+		copy.actsLegs = null;
+		copy.score = plan.getScore();
+		copy.type = plan.getType();
+		AttributesUtils.copyAttributesFromTo(plan, copy);
+		return copy;
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		if (this.attributes != null) {
+			return this.attributes;
+		}
+		return new LazyAllocationAttributes(attributes -> this.attributes = attributes, () -> this.attributes);
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public void setPerson(final Person person) {
+		this.person = person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.score;
+	}
+
+	@Override
+	public void setScore(final Double score) {
+		this.score = score;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public void setType(final String type) {
+		this.type = type;
+	}
+
+	@Override
+	public Id<Plan> getId() {
+		if (this.id != null) {
+			return this.id;
+		}
+		Object planId = this.getAttributes().getAttribute(PlanInheritanceModule.PLAN_ID);
+		return planId == null ? null : Id.create(planId.toString(), Plan.class);
+	}
+
+	@Override
+	public void setPlanId(Id<Plan> planId) {
+		this.getAttributes().putAttribute(PlanInheritanceModule.PLAN_ID, planId.toString());
+		this.id = planId;
+	}
+
+	@Override
+	public int getIterationCreated() {
+		return (int) this.getAttributes().getAttribute(PlanInheritanceModule.ITERATION_CREATED);
+	}
+
+	@Override
+	public void setIterationCreated(int iteration) {
+		this.getAttributes().putAttribute(PlanInheritanceModule.ITERATION_CREATED, iteration);
+	}
+
+	@Override
+	public String getPlanMutator() {
+		return (String) this.getAttributes().getAttribute(PlanInheritanceModule.PLAN_MUTATOR);
+	}
+
+	@Override
+	public void setPlanMutator(String planMutator) {
+		this.getAttributes().putAttribute(PlanInheritanceModule.PLAN_MUTATOR, planMutator);
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		inflate();
+		return this.actsLegs;
+	}
+
+	/**
+	 * @return the plan elements, decoded into a new list if the plan is packed. The plan stays packed.
+	 */
+	/* package */ List<PlanElement> getPlanElementsForReading() {
+		if (this.packed != null) {
+			return this.codec.unpack(this.packed);
+		}
+		return this.actsLegs;
+	}
+
+	@Override
+	public void addLeg(final Leg leg) {
+		getPlanElements().add(leg);
+	}
+
+	@Override
+	public void addActivity(final Activity act) {
+		getPlanElements().add(act);
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		if (this.customizableDelegate == null) {
+			this.customizableDelegate = CustomizableUtils.createCustomizable();
+		}
+		return this.customizableDelegate.getCustomAttributes();
+	}
+
+	@Override
+	public String toString() {
+		String scoreString = "undefined";
+		if (this.getScore() != null) {
+			scoreString = this.getScore().toString();
+		}
+		String personIdString = "undefined";
+		if (this.getPerson() != null) {
+			personIdString = this.getPerson().getId().toString();
+		}
+
+		return "[score=" + scoreString + "]" +
+				"[nof_acts_legs=" + (this.packed == null ? Integer.toString(this.actsLegs.size()) : "packed") + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + personIdString + "]";
+	}
+
+}
@@ -0,0 +1,58 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPopulationFactoryImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.RouteFactories;
+
+/**
+ * Population factory creating persons that store their non-selected plans in packed form, see
+ * {@link CompactPersonImpl}. Activities and legs are the same as with the default factory.
+ *
+ * @see PlansConfigGroup#isPackingNonSelectedPlans()
+ */
+/* deliberately package */ final class CompactPopulationFactoryImpl extends PopulationFactoryImpl {
+
+	private final CompactPlanCodec codec;
+
+	CompactPopulationFactoryImpl(RouteFactories routeFactory) {
+		super(routeFactory);
+		this.codec = new CompactPlanCodec(routeFactory);
+	}
+
+	/* package */ CompactPlanCodec getCodec() {
+		return this.codec;
+	}
+
+	@Override
+	public Person createPerson(final Id<Person> id) {
+		return new CompactPersonImpl(id, this.codec);
+	}
+
+	@Override
+	public Plan createPlan() {
+		return new CompactPlanImpl(this.codec);
+	}
+
+}
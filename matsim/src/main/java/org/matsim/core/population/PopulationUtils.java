@@ -57,6 +57,7 @@ import org.matsim.core.config.groups.ScoringConfigGroup;
 import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.gbl.Gbl;
 import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.population.algorithms.ParallelPersonAlgorithmUtils;
 import org.matsim.core.population.io.PopulationReader;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
@@ -143,6 +144,9 @@ public final class PopulationUtils {
 			throw new IllegalArgumentException("The type \"" + networkRouteType + "\" is not a supported type for network routes.");
 		}
 		routeFactory.setRouteFactory(NetworkRoute.class, factory);
+		if (plansConfigGroup.isPackingNonSelectedPlans()) {
+			return new PopulationImpl(new CompactPopulationFactoryImpl(routeFactory));
+		}
 		return new PopulationImpl(new PopulationFactoryImpl(routeFactory));
 	}
 
@@ -353,6 +357,73 @@ public final class PopulationUtils {
 		return new UnmodifiablePlan(plan);
 	}
 
+	/**
+	 * Returns the plan elements for reading only, e.g. for analysis or for writing the plan. Plans which are stored in
+	 * packed form (see {@link PlansConfigGroup#isPackingNonSelectedPlans()}) are decoded into a new list, but stay packed,
+	 * so changes to the returned elements are not stored in the plan. For all other plans, this is the same as
+	 * {@link Plan#getPlanElements()}.
+	 */
+	public static List<PlanElement> getPlanElementsForReading(Plan plan) {
+		if (plan instanceof CompactPlanImpl compactPlan) {
+			return compactPlan.getPlanElementsForReading();
+		}
+		return plan.getPlanElements();
+	}
+
+	/**
+	 * Packs the non-selected plans of all persons again (see {@link PlansConfigGroup#isPackingNonSelectedPlans()}). Algorithms
+	 * which change all plans of a person, e.g. prepareForSim or replanning, inflate them via {@link Plan#getPlanElements()},
+	 * and they would stay inflated otherwise. Persons which do not store their plans in packed form are not changed.
+	 */
+	public static void packNonSelectedPlans(Population population) {
+		for (Person person : population.getPersons().values()) {
+			if (person instanceof CompactPersonImpl compactPerson) {
+				compactPerson.packNonSelectedPlans();
+			}
+		}
+	}
+
+	/**
+	 * Creates a copy of the population which can be written while the population itself changes, e.g. by a background
+	 * writer. All plans of the copy store their plan elements in packed form (see
+	 * {@link PlansConfigGroup#isPackingNonSelectedPlans()}). Plans which are packed already share their packed plan
+	 * elements with the population, so for populations which pack their non-selected plans, only the selected plans are
+	 * encoded, and the copy needs much less memory than a deep copy. The copy is meant for reading only, e.g. via
+	 * {@link #getPlanElementsForReading(Plan)}.
+	 */
+	public static Population createPackedSnapshot(Population population, Config config, Network network) {
+		CompactPlanCodec codec = population.getFactory() instanceof CompactPopulationFactoryImpl compactFactory ? compactFactory.getCodec()
+				: new CompactPlanCodec(population.getFactory().getRouteFactories());
+		Population snapshot = createPopulation(config, network);
+		snapshot.setName(population.getName());
+		AttributesUtils.copyAttributesFromTo(population, snapshot);
+		// the persons of the snapshot are default persons, which do not inflate or pack their plans
+		PopulationFactory factory = getFactory();
+		ParallelPersonAlgorithmUtils.run(population, config.global().getNumberOfThreads(), person -> {
+			Person copy = factory.createPerson(person.getId());
+			AttributesUtils.copyAttributesFromTo(person, copy);
+			for (Plan plan : person.getPlans()) {
+				Plan planCopy = CompactPlanImpl.createPackedCopy(plan, codec);
+				copy.addPlan(planCopy);
+				if (plan == person.getSelectedPlan()) {
+					copy.setSelectedPlan(planCopy);
+				}
+			}
+			synchronized (snapshot) {
+				snapshot.addPerson(copy);
+			}
+		});
+		return snapshot;
+	}
+
+	/**
+	 * @return true if the plan elements of the plan are currently stored in packed form, see
+	 * {@link PlansConfigGroup#isPackingNonSelectedPlans()}
+	 */
+	public static boolean isPacked(Plan plan) {
+		return plan instanceof CompactPlanImpl compactPlan && compactPlan.isPacked();
+	}
+
 	static class UnmodifiablePlan implements Plan {
 		private final Plan delegate;
 		private final List<PlanElement> unmodifiablePlanElements;
@@ -896,7 +967,7 @@ public final class PopulationUtils {
 		out.getPlanElements().clear();
 		out.setScore(in.getScore());
 		out.setType(in.getType());
-		for (PlanElement pe : in.getPlanElements()) {
+		for (PlanElement pe : getPlanElementsForReading(in)) {
 			if (pe instanceof Activity) {
 				/*
 				 * So far, we do not use the check for StageActivityTypeIdentifier.isStageActivity(...). It Would convert ActivityImpl to InteractionActivities.
@@ -0,0 +1,172 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NearestLinkCache.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.algorithms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * The nearest links of a batch of coordinates, as found by {@link NetworkUtils#getNearestLink(Network, Coord)}.
+ *
+ * <p>Large populations contain the same coordinates many times, e.g. the home location in every plan of a person. The
+ * coordinates are thus collected and deduplicated first, and their links are looked up once, in several threads. The cache
+ * is only read afterwards, so it can be shared by the threads of {@link ParallelPersonAlgorithmUtils}. Coordinates
+ * which are not in the cache are looked up directly, so the result is always the same as without the cache.</p>
+ *
+ * @see XY2Links
+ */
+public final class NearestLinkCache {
+
+	private static final Logger log = LogManager.getLogger(NearestLinkCache.class);
+
+	/** number of coordinates a thread looks up at once */
+	private static final int CHUNK_SIZE = 1024;
+
+	private final Network network;
+	private final Map<Coord, Link> nearestLinks;
+
+	private NearestLinkCache(Network network, Map<Coord, Link> nearestLinks) {
+		this.network = network;
+		this.nearestLinks = nearestLinks;
+	}
+
+	/**
+	 * Looks up the nearest links of the coordinates with the given number of threads.
+	 *
+	 * @param coords the coordinates, which should be distinct, see {@link #collectCoordsWithoutLink(Population, ActivityFacilities)}
+	 */
+	public static NearestLinkCache create(Network network, List<Coord> coords, int numberOfThreads) {
+		Link[] links = new Link[coords.size()];
+		if (!coords.isEmpty()) {
+			// build the spatial index of the network before the threads start
+			NetworkUtils.getNearestLink(network, coords.get(0));
+		}
+		int threads = Math.max(1, Math.min(numberOfThreads, links.length / CHUNK_SIZE + 1));
+		if (threads == 1) {
+			findNearestLinks(network, coords, links, 0, links.length);
+		} else {
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int start = 0; start < links.length; start += CHUNK_SIZE) {
+					final int from = start;
+					final int to = Math.min(start + CHUNK_SIZE, links.length);
+					futures.add(executor.submit(() -> findNearestLinks(network, coords, links, from, to)));
+				}
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			} catch (InterruptedException | ExecutionException e) {
+				throw new RuntimeException(e);
+			} finally {
+				executor.shutdown();
+			}
+		}
+		Map<Coord, Link> nearestLinks = new HashMap<>((int) (coords.size() / 0.75) + 1);
+		for (int i = 0; i < links.length; i++) {
+			if (links[i] != null) {
+				nearestLinks.put(coords.get(i), links[i]);
+			}
+		}
+		log.info("found the nearest links of " + nearestLinks.size() + " distinct coordinates.");
+		return new NearestLinkCache(network, nearestLinks);
+	}
+
+	private static void findNearestLinks(Network network, List<Coord> coords, Link[] links, int from, int to) {
+		for (int i = from; i < to; i++) {
+			links[i] = NetworkUtils.getNearestLink(network, coords.get(i));
+		}
+	}
+
+	/**
+	 * Collects the coordinates of all activities in all plans which do not have a link yet, and of the facilities which
+	 * do not have a link yet. Activities without a coordinate are located at their facility, like in {@link XY2Links}.
+	 */
+	public static List<Coord> collectCoordsWithoutLink(Population population, ActivityFacilities facilities) {
+		Set<Coord> coords = new LinkedHashSet<>();
+		for (ActivityFacility facility : facilities.getFacilities().values()) {
+			if (facility.getLinkId() == null && facility.getCoord() != null) {
+				coords.add(facility.getCoord());
+			}
+		}
+		for (Person person : population.getPersons().values()) {
+			for (Plan plan : person.getPlans()) {
+				// reading the activities must not inflate the packed plans of the person
+				for (PlanElement planElement : PopulationUtils.getPlanElementsForReading(plan)) {
+					if (planElement instanceof Activity act && act.getLinkId() == null) {
+						Coord coord = act.getCoord();
+						if (coord == null && act.getFacilityId() != null) {
+							ActivityFacility facility = facilities.getFacilities().get(act.getFacilityId());
+							coord = facility == null ? null : facility.getCoord();
+						}
+						if (coord != null) {
+							coords.add(coord);
+						}
+					}
+				}
+			}
+		}
+		return new ArrayList<>(coords);
+	}
+
+	/**
+	 * @return the nearest link of the coordinate, from the cache if possible.
+	 */
+	public Link getNearestLink(Coord coord) {
+		Link link = this.nearestLinks.get(coord);
+		if (link == null) {
+			link = NetworkUtils.getNearestLink(this.network, coord);
+		}
+		return link;
+	}
+
+	public Network getNetwork() {
+		return this.network;
+	}
+
+	public int size() {
+		return this.nearestLinks.size();
+	}
+
+}
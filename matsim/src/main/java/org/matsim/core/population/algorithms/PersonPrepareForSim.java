@@ -81,6 +81,22 @@ public final class PersonPrepareForSim extends AbstractPersonAlgorithm {
 		this.activityFacilities = scenario.getActivityFacilities();
 		this.scenario = scenario ;
 	}
+
+	/*
+	 * As above, but the nearest links of the activities have already been looked up in the car-only network, see
+	 * NearestLinkCache.  The cache may be shared by all instances.
+	 */
+	public PersonPrepareForSim(final PlanAlgorithm router, final Scenario scenario, final NearestLinkCache carOnlyNearestLinks) {
+		super();
+		this.router = router;
+		this.carOnlyNetwork = carOnlyNearestLinks.getNetwork() ;
+		if (NetworkUtils.isMultimodal(carOnlyNetwork)) {
+			throw new RuntimeException("Expected carOnlyNetwork not to be multi-modal. Aborting!");
+		}
+		this.xy2links = new XY2Links(carOnlyNearestLinks, scenario.getActivityFacilities());
+		this.activityFacilities = scenario.getActivityFacilities();
+		this.scenario = scenario ;
+	}
 	
 	public PersonPrepareForSim(final PlanAlgorithm router, final Scenario scenario) {
 		super();
@@ -45,6 +45,7 @@ public final class XY2Links extends AbstractPersonAlgorithm implements PlanAlgor
 
 	private final Network network;
 	private final ActivityFacilities activityFacilities;
+	private final NearestLinkCache nearestLinkCache;
 
 	/**
 	 * When running XY2Links with given facilities, the linkIds of activities are
@@ -55,6 +56,18 @@ public final class XY2Links extends AbstractPersonAlgorithm implements PlanAlgor
 		super();
 		this.network = network;
 		this.activityFacilities = activityFacilities;
+		this.nearestLinkCache = null;
+	}
+
+	/**
+	 * Takes the nearest links from the cache, which must have been created for the network in which the links should be
+	 * found.
+	 */
+	public XY2Links(final NearestLinkCache nearestLinkCache, final ActivityFacilities activityFacilities) {
+		super();
+		this.network = nearestLinkCache.getNetwork();
+		this.activityFacilities = activityFacilities;
+		this.nearestLinkCache = nearestLinkCache;
 	}
 
 	public XY2Links(final Scenario scenario) {
@@ -118,7 +131,8 @@ public final class XY2Links extends AbstractPersonAlgorithm implements PlanAlgor
 
 				// If the linkId is still null get nearest link from the network
 //				Link link = this.network.getNearestLinkExactly(act.getCoord());
-				Link link = NetworkUtils.getNearestLink(this.network, act.getCoord());
+				Link link = this.nearestLinkCache != null ? this.nearestLinkCache.getNearestLink(act.getCoord()) :
+						NetworkUtils.getNearestLink(this.network, act.getCoord());
 				// getNearestLinkExactly not necessarily better than getNearestLink.  E.g.
 				// n--n-----------------------------n
 				// A home location slightly to the right of the middle node will take:
@@ -27,6 +27,7 @@ import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.Route;
 import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -55,7 +56,7 @@ abstract class AbstractPopulationWriterHandler implements PopulationWriterHandle
 		for (Plan plan : person.getPlans()) {
 			this.startPlan(plan, writer);
 			// act/leg
-			for (Object pe : plan.getPlanElements()) {
+			for (Object pe : PopulationUtils.getPlanElementsForReading(plan)) {
 				if (pe instanceof Activity) {
 					Activity act = (Activity) pe;
 					this.startAct(act, writer);
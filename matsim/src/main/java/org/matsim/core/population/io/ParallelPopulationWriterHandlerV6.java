@@ -25,6 +25,7 @@ import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.population.*;
 import org.matsim.core.population.PersonUtils;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
@@ -41,7 +42,9 @@ import org.matsim.vehicles.Vehicle;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
@@ -50,36 +53,52 @@ import static org.matsim.core.utils.io.XmlUtils.encodeAttributeValue;
 import static org.matsim.core.utils.io.XmlUtils.encodeContent;
 
 /**
+ * Writes the population in the same format as {@link PopulationWriterHandlerImplV6}, but converts the persons to xml
+ * in parallel. Persons are collected into blocks which are converted by worker threads; a dedicated writer thread
+ * writes the finished blocks in their original order into the output (and thus does the compression, if any), so the
+ * output is byte-identical to the one of the sequential writer.
+ *
  * @author steffenaxer
  */
 public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandler {
 
 	private static final Logger LOG = LogManager.getLogger(ParallelPopulationWriterHandlerV6.class);
 
-	private static final int THREAD_LIMIT = 2;
+	private static final int THREAD_LIMIT = 4;
 	private static final int MAX_QUEUE_LENGTH = 1000;
-	private final BlockingQueue<PersonData> inputQueue = new LinkedBlockingQueue<>();
+	private static final int PERSONS_PER_BLOCK = 64;
+	private final BlockingQueue<PersonData> inputQueue = new LinkedBlockingQueue<>(MAX_QUEUE_LENGTH);
 	private final BlockingQueue<CompletableFuture<String>> outputQueue = new LinkedBlockingQueue<>(MAX_QUEUE_LENGTH);
 	private final CoordinateTransformation coordinateTransformation;
+	private final int numberOfThreads;
+	private List<Person> currentBlock = new ArrayList<>(PERSONS_PER_BLOCK);
 	private final AttributesXmlWriterDelegate attributesWriter = new AttributesXmlWriterDelegate();
 	private Thread[] workerThreads;
 	private Thread writeThread;
 	private PersonStringCreator[] workers;
 	private ParallelPopulationWriterV6 writer;
-	private Throwable runnerException = null;
-	private Throwable writerException = null;
+	private volatile Throwable runnerException = null;
+	private volatile Throwable writerException = null;
 
 	public static String FINISH_MARKER = UUID.randomUUID().toString();
 	private final Map<Class<?>, AttributeConverter<?>> converters = new HashMap<>();
 
 	ParallelPopulationWriterHandlerV6(CoordinateTransformation coordinateTransformation) {
+		this(coordinateTransformation, Math.min(THREAD_LIMIT, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * @param numberOfThreads the number of threads converting persons to xml, in addition to the thread writing the output.
+	 */
+	ParallelPopulationWriterHandlerV6(CoordinateTransformation coordinateTransformation, int numberOfThreads) {
 		this.coordinateTransformation = coordinateTransformation;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
 	}
 
 
 	private void tryInitWorkerThreads() {
 		if (workerThreads == null) {
-			int computeThreads = Math.min(THREAD_LIMIT, Runtime.getRuntime().availableProcessors());
+			int computeThreads = this.numberOfThreads;
 			workerThreads = new Thread[computeThreads];
 			workers = new PersonStringCreator[computeThreads];
 			for (int i = 0; i < computeThreads; i++) {
@@ -126,18 +145,19 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 		for (Thread ignore : this.workerThreads) {
 			CompletableFuture<String> workerClose = new CompletableFuture<>();
 			workerClose.complete(FINISH_MARKER);
-			this.inputQueue.put(new PersonData(null, workerClose));
+			putChecked(this.inputQueue, new PersonData(null, workerClose));
 		}
 	}
 
 	void submitClosingMarkerWriter() throws InterruptedException {
 		CompletableFuture<String> writerClose = new CompletableFuture<>();
 		writerClose.complete(FINISH_MARKER);
-		this.outputQueue.put(writerClose);
+		putChecked(this.outputQueue, writerClose);
 	}
 
 	private void joinThreads() {
 		try {
+			this.submitCurrentBlock();
 			this.submitClosingMarkerWorker();
 			//Join worker threads
 			for (Thread worker : workerThreads) {
@@ -146,17 +166,14 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 			// Finish writer
 			this.submitClosingMarkerWriter();
 			this.writeThread.join();
-
+			// allows to re-use this handler for writing another file
+			this.workerThreads = null;
+			this.writeThread = null;
 		} catch (InterruptedException e) {
 			throw new RuntimeException(e);
 		}
 		// pass on potential exceptions
-		if (runnerException != null) {
-			throw new UncheckedIOException(new IOException(runnerException));
-		}
-		if (writerException != null) {
-			throw new UncheckedIOException(new IOException(writerException));
-		}
+		throwPendingExceptions();
 	}
 
 	@Override
@@ -165,8 +182,38 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 		out.write("<!DOCTYPE population SYSTEM \"" + MatsimXmlWriter.DEFAULT_DTD_LOCATION + "population_v6.dtd\">\n\n");
 	}
 
+	/**
+	 * Stops the threads of a previous write which has failed, and forgets its data and exceptions, so that this handler
+	 * can be re-used for writing another file.
+	 */
+	private void resetAfterFailure() {
+		try {
+			if (this.workerThreads != null) {
+				for (Thread worker : this.workerThreads) {
+					worker.interrupt();
+					worker.join();
+				}
+				this.workerThreads = null;
+			}
+			if (this.writeThread != null) {
+				this.writeThread.interrupt();
+				this.writeThread.join();
+				this.writeThread = null;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		this.inputQueue.clear();
+		this.outputQueue.clear();
+		this.currentBlock = new ArrayList<>(PERSONS_PER_BLOCK);
+		this.runnerException = null;
+		this.writerException = null;
+	}
+
 	@Override
 	public void startPlans(final Population plans, final BufferedWriter out) throws IOException {
+		resetAfterFailure();
 		out.write("<population");
 		if (plans.getName() != null) {
 			out.write(" desc=\"" + encodeAttributeValue(plans.getName()) + "\"");
@@ -182,12 +229,43 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 
 	@Override
 	public void writePerson(Person person, BufferedWriter out) throws IOException {
-		try {
-			CompletableFuture<String> f = new CompletableFuture<>();
-			this.inputQueue.put(new PersonData(person, f));
-			this.outputQueue.put(f);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		this.currentBlock.add(person);
+		if (this.currentBlock.size() == PERSONS_PER_BLOCK) {
+			try {
+				submitCurrentBlock();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private void submitCurrentBlock() throws InterruptedException {
+		if (this.currentBlock.isEmpty()) {
+			return;
+		}
+		CompletableFuture<String> f = new CompletableFuture<>();
+		// the output queue defines the order of the blocks, and limits the number of blocks in memory
+		putChecked(this.outputQueue, f);
+		putChecked(this.inputQueue, new PersonData(this.currentBlock, f));
+		this.currentBlock = new ArrayList<>(PERSONS_PER_BLOCK);
+	}
+
+	/**
+	 * Like {@link BlockingQueue#put(Object)}, but does not wait forever if one of the threads has failed.
+	 */
+	private <T> void putChecked(BlockingQueue<T> queue, T element) throws InterruptedException {
+		while (!queue.offer(element, 1, TimeUnit.SECONDS)) {
+			throwPendingExceptions();
+		}
+	}
+
+	private void throwPendingExceptions() {
+		if (runnerException != null) {
+			throw new UncheckedIOException(new IOException(runnerException));
+		}
+		if (writerException != null) {
+			throw new UncheckedIOException(new IOException(writerException));
 		}
 	}
 
@@ -210,11 +288,11 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 		this.converters.putAll(converters);
 	}
 
-	public record PersonData(Person person, CompletableFuture<String> futurePersonString) {
+	public record PersonData(List<Person> persons, CompletableFuture<String> futurePersonString) {
 	}
 
 	public static class ParallelPopulationWriterV6 implements Runnable {
-		private final Counter counter = new Counter("[" + this.getClass().getSimpleName() + "] dumped person # ");
+		private final Counter counter = new Counter("[" + this.getClass().getSimpleName() + "] dumped block of persons # ");
 		private final BlockingQueue<CompletableFuture<String>> outputQueue;
 		private final BufferedWriter out;
 
@@ -234,7 +312,7 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 						counter.printCounter();
 						return;
 					}
-					out.write(f.get());
+					out.write(word);
 					counter.incCounter();
 				} catch (InterruptedException | ExecutionException | IOException e) {
 					throw new RuntimeException(e);
@@ -310,15 +388,23 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 			this.attributesWriter.putAttributeConverters(converters);
 		}
 
-		private void writePerson(PersonData personData) throws IOException, InterruptedException, ExecutionException {
-			StringBuilder out = stringBuilder;
-			Person person = personData.person();
+		private void writeBlock(PersonData personData) throws IOException {
+			for (Person person : personData.persons()) {
+				this.writePerson(person, this.stringBuilder);
+			}
+			CompletableFuture<String> completableFuture = personData.futurePersonString();
+			completableFuture.complete(this.stringBuilder.toString());
 
+			// Reset stringBuilder instead of instantiate
+			this.stringBuilder.setLength(0);
+		}
+
+		private void writePerson(Person person, StringBuilder out) throws IOException {
 			this.startPerson(person, out);
 			for (Plan plan : person.getPlans()) {
 				startPlan(plan, out);
 				// act/leg
-				for (PlanElement pe : plan.getPlanElements()) {
+				for (PlanElement pe : PopulationUtils.getPlanElementsForReading(plan)) {
 					if (pe instanceof Activity act) {
 						this.writeAct(act, out);
 					} else if (pe instanceof Leg leg) {
@@ -336,11 +422,6 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 			}
 			endPerson(out);
 			this.writeSeparator(out);
-			CompletableFuture<String> completableFuture = personData.futurePersonString();
-			completableFuture.complete(out.toString());
-
-			// Reset stringBuilder instead of instantiate
-			stringBuilder.setLength(0);
 		}
 
 		private void startPerson(final Person person, final StringBuilder out) {
@@ -458,15 +539,21 @@ public class ParallelPopulationWriterHandlerV6 implements PopulationWriterHandle
 					ParallelPopulationWriterHandlerV6.PersonData personData = this.queue.take();
 
 					//Happens only when closing
-					if (personData.person == null) {
+					if (personData.persons() == null) {
 						String closeWord = personData.futurePersonString().get();
 						if (closeWord.equals(FINISH_MARKER)) {
 							return;
 						}
-						throw new RuntimeException("Inconsistent state, person must not be null.");
+						throw new RuntimeException("Inconsistent state, persons must not be null.");
 					}
 
-					this.writePerson(personData);
+					try {
+						this.writeBlock(personData);
+					} catch (RuntimeException | IOException e) {
+						// make sure the writer thread does not wait forever for this block
+						personData.futurePersonString().completeExceptionally(e);
+						throw e;
+					}
 				}
 			} catch (InterruptedException | ExecutionException | IOException e) {
 				throw new RuntimeException(e);
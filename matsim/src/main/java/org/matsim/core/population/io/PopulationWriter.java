@@ -53,6 +53,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 
 	private final static Logger log = LogManager.getLogger(PopulationWriter.class);
 	private final Map<Class<?>,AttributeConverter<?>> converters = new HashMap<>();
+	private int numberOfThreads = 0;
 
 
 	public PopulationWriter(final Population population) {
@@ -103,11 +104,7 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		this.population = population;
 		this.network = network;
 		this.write_person_fraction = fraction;
-		if (FeatureFlags.useParallelIO()) {
-			this.handler = new ParallelPopulationWriterHandlerV6(coordinateTransformation);
-		} else {
-			this.handler = new PopulationWriterHandlerImplV6(coordinateTransformation);
-		}
+		this.handler = createHandlerV6();
 	}
 
 	/**
@@ -126,6 +123,29 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 		this( new IdentityTransformation() , population , network , fraction );
 	}
 
+	/**
+	 * Sets the number of threads which convert the persons to xml if the population is written in parallel, see
+	 * {@link FeatureFlags#useParallelIO()}. Usually {@link org.matsim.core.config.groups.GlobalConfigGroup#getNumberOfThreads()}.
+	 * Values below 1 use the default of the parallel writer.
+	 */
+	public PopulationWriter setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+		if (this.handler instanceof ParallelPopulationWriterHandlerV6) {
+			this.handler = createHandlerV6();
+		}
+		return this;
+	}
+
+	private PopulationWriterHandler createHandlerV6() {
+		if (!FeatureFlags.useParallelIO()) {
+			return new PopulationWriterHandlerImplV6(coordinateTransformation);
+		}
+		if (this.numberOfThreads > 0) {
+			return new ParallelPopulationWriterHandlerV6(coordinateTransformation, this.numberOfThreads);
+		}
+		return new ParallelPopulationWriterHandlerV6(coordinateTransformation);
+	}
+
 	public void putAttributeConverters( final Map<Class<?>, AttributeConverter<?>> converters ) {
 		this.converters.putAll( converters );
 	}
@@ -214,23 +234,13 @@ public final class PopulationWriter extends AbstractMatsimWriter implements Mats
 	}
 
 	public void writeV6(final String filename) {
-		if (FeatureFlags.useParallelIO()) {
-			this.handler = new ParallelPopulationWriterHandlerV6(coordinateTransformation);
-			write(filename);
-		} else {
-			this.handler = new PopulationWriterHandlerImplV6(coordinateTransformation);
-			write(filename);
-		}
+		this.handler = createHandlerV6();
+		write(filename);
 	}
 
 	public void writeV6(final OutputStream stream) {
-		if (FeatureFlags.useParallelIO()) {
-			this.handler = new ParallelPopulationWriterHandlerV6(coordinateTransformation);
-			write(stream);
-		} else {
-			this.handler = new PopulationWriterHandlerImplV6(coordinateTransformation);
-			write(stream);
-		}
+		this.handler = createHandlerV6();
+		write(stream);
 	}
 
 	public void setWriterHandler(final PopulationWriterHandler handler) {
@@ -23,12 +23,14 @@ import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.population.BasicPlan;
 import org.matsim.api.core.v01.population.HasPlansAndId;
 import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.replanning.modules.GenericPlanStrategyModule;
 import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.RandomUnscoredPlanSelector;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * @author nagel
@@ -69,14 +71,23 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 	
 	@Override
 	public void run(final HasPlansAndId<T, I> person) {
-		this.counter++;
-		
+		handlePlan(selectPlan(person, MatsimRandom.getRandom()));
+	}
+
+	/**
+	 * Selects the plan of the person and, if this strategy is innovative, makes a copy of it. Does not change the state of this
+	 * strategy, so it can be called for several persons in parallel, with a random number generator for every thread.
+	 *
+	 * @return the copied plan to be handled by the modules
+	 * @see #handlePlan(BasicPlan)
+	 */
+	/* package */ T selectPlan(final HasPlansAndId<T, I> person, final Random random) {
 		// if there is at least one unscored plan, find that one:
-		T plan = new RandomUnscoredPlanSelector<T, I>().selectPlan(person) ;
+		T plan = new RandomUnscoredPlanSelector<T, I>().selectPlan(person, random) ;
 		
 		// otherwise, find one according to selector (often defined in PlanStrategy ctor):
 		if (plan == null) {
-			plan = this.planSelector.selectPlan(person);
+			plan = this.planSelector.selectPlan(person, random);
 		}
 		
 		// "select" that plan:
@@ -99,7 +110,17 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 				((Plan) plan).setIterationCreated(this.replanningContext.getIteration());
 				((Plan) plan).setPlanMutator(this.toString());
 			}
-			
+		}
+		return plan;
+	}
+
+	/**
+	 * Hands the plan returned by {@link #selectPlan(HasPlansAndId, Random)} to the modules, if this strategy is innovative.
+	 */
+	/* package */ void handlePlan(T plan) {
+		this.counter++;
+
+		if (this.firstModule != null) {
 			// add new plan to container that contains the plans that are handled by this PlanStrategy:
 			this.plans.add(plan);
 
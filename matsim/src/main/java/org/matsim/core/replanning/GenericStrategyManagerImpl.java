@@ -25,17 +25,21 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.population.*;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.instrumentation.Instrumentation;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.replanning.choosers.StrategyChooser;
 import org.matsim.core.replanning.choosers.WeightedStrategyChooser;
 import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.GenericWorstPlanForRemovalSelector;
-import org.matsim.core.replanning.selectors.RandomPlanSelector;
 import org.matsim.core.replanning.selectors.WorstPlanForRemovalSelector;
 
 /**
@@ -88,6 +92,14 @@ public class GenericStrategyManagerImpl<PL extends BasicPlan, AG extends HasPlan
 
 	private final StrategyChooser<PL, AG> strategyChooser;
 
+	private int numberOfThreads = 0;
+
+	/** number of persons a thread handles at once in the parallel mode */
+	private static final int CHUNK_SIZE = 256;
+
+	// see Instrumentation
+	private final Map<GenericPlanStrategy<PL, AG>, Instrumentation.Timer> strategyTimers = new HashMap<>();
+
 
 //	private String subpopulationAttributeName = null;
 	
@@ -212,40 +224,139 @@ public class GenericStrategyManagerImpl<PL extends BasicPlan, AG extends HasPlan
 	{
 		// initialize all strategies
 		for (GenericPlanStrategy<PL, AG> strategy : distinctStrategies()) {
+			long start = Instrumentation.start();
 			strategy.init(replanningContext);
+			addTime(strategy, start);
 		}
 
-		// then go through the population and ...
-		for (HasPlansAndId<PL, AG> person : persons ) {
-
-			// ... reduce the number of plans to the allowed maximum (in evol comp lang this is "selection")
-			if ((this.maxPlansPerAgent > 0) && (person.getPlans().size() > this.maxPlansPerAgent)) {
-				removePlans( person, this.maxPlansPerAgent);
-			}
+		if (this.numberOfThreads > 0) {
+			runInParallel(persons, replanningContext);
+		} else {
+			// then go through the population and ...
+			for (HasPlansAndId<PL, AG> person : persons ) {
 
-			// ... choose the strategy to be used for this person (in evol comp lang this would be the choice of the mutation operator)
-//			String subpopName = null;
-//			if (this.subpopulationAttributeName != null) {
-//				subpopName = (String) PopulationUtils.getPersonAttribute( person, this.subpopulationAttributeName) ;
-//			}
-			String subpopName = PopulationUtils.getSubpopulation( person );
-			GenericPlanStrategy<PL, AG> strategy = this.chooseStrategy(person, subpopName, replanningContext);
+				// ... reduce the number of plans to the allowed maximum (in evol comp lang this is "selection")
+				// ... and choose the strategy to be used for this person (in evol comp lang this would be the choice of the mutation operator)
+				GenericPlanStrategy<PL, AG> strategy = removePlansAndChooseStrategy(person, replanningContext, MatsimRandom.getRandom());
 
-			if (strategy==null) {
-				throw new RuntimeException("No strategy found! Have you defined at least one replanning strategy per subpopulation? Current subpopulation = " + subpopName);
+				// ... and run the strategy:
+				long start = Instrumentation.start();
+				strategy.run(person);
+				addTime(strategy, start);
 			}
-			
-			// ... and run the strategy:
-			strategy.run(person);
 		}
 
 		// finally make sure all strategies have finished there work
 		for (GenericPlanStrategy<PL, AG> strategy : distinctStrategies()) {
+			long start = Instrumentation.start();
 			strategy.finish();
+			addTime(strategy, start);
 		}
 
 	}
 
+	/**
+	 * The time of a strategy includes the selection of the plans and the modules, but only as far as they run in the calling
+	 * thread, see {@link #runInParallel}.
+	 */
+	private void addTime(GenericPlanStrategy<PL, AG> strategy, long start) {
+		if (start != Instrumentation.DISABLED) {
+			this.strategyTimers.computeIfAbsent(strategy, s -> Instrumentation.getTimer(Instrumentation.STRATEGY, s.toString())).stop(start);
+		}
+	}
+
+	private GenericPlanStrategy<PL, AG> removePlansAndChooseStrategy(HasPlansAndId<PL, AG> person, ReplanningContext replanningContext, Random random) {
+		if ((this.maxPlansPerAgent > 0) && (person.getPlans().size() > this.maxPlansPerAgent)) {
+			removePlans( person, this.maxPlansPerAgent, random);
+		}
+
+//		String subpopName = null;
+//		if (this.subpopulationAttributeName != null) {
+//			subpopName = (String) PopulationUtils.getPersonAttribute( person, this.subpopulationAttributeName) ;
+//		}
+		String subpopName = PopulationUtils.getSubpopulation( person );
+		GenericPlanStrategy<PL, AG> strategy = strategyChooser.chooseStrategy(person, subpopName, replanningContext, this.getStrategyWeights(subpopName), random);
+
+		if (strategy==null) {
+			throw new RuntimeException("No strategy found! Have you defined at least one replanning strategy per subpopulation? Current subpopulation = " + subpopName);
+		}
+		return strategy;
+	}
+
+	/**
+	 * Removes the plans, chooses the strategies and selects the plans of the persons in several threads. Every person draws its
+	 * random numbers from its own stream, see {@link PersonRandom}, which is handed to the plan selectors and the strategy chooser,
+	 * so the result does not depend on the number of threads. The selected or copied plans are then handed to the strategy modules
+	 * in the order of the persons, in the calling thread. Strategies which are not a {@link GenericPlanStrategyImpl} are run
+	 * completely in the calling thread, in the order of the persons, drawing from the global random number generator.
+	 */
+	@SuppressWarnings("unchecked")
+	private void runInParallel(final Iterable<? extends HasPlansAndId<PL, AG>> persons, final ReplanningContext replanningContext) {
+		final List<HasPlansAndId<PL, AG>> personList = new ArrayList<>();
+		persons.forEach(personList::add);
+		final GenericPlanStrategy<PL, AG>[] strategies = new GenericPlanStrategy[personList.size()];
+		final Object[] plans = new Object[personList.size()];
+		// drawn from the global random number generator, so the streams of the persons depend on the seed and the iteration
+		final long seed = MatsimRandom.getRandom().nextLong();
+
+		final AtomicInteger nextChunk = new AtomicInteger();
+		final AtomicReference<Throwable> exception = new AtomicReference<>();
+		Runnable worker = () -> {
+			PersonRandom random = new PersonRandom();
+			try {
+				int start;
+				while (exception.get() == null && (start = nextChunk.getAndIncrement() * CHUNK_SIZE) < personList.size()) {
+					for (int i = start; i < Math.min(start + CHUNK_SIZE, personList.size()); i++) {
+						HasPlansAndId<PL, AG> person = personList.get(i);
+						random.setPerson(seed, person.getId());
+						GenericPlanStrategy<PL, AG> strategy = removePlansAndChooseStrategy(person, replanningContext, random);
+						strategies[i] = strategy;
+						if (strategy instanceof GenericPlanStrategyImpl) {
+							plans[i] = ((GenericPlanStrategyImpl<PL, AG>) strategy).selectPlan(person, random);
+						}
+					}
+				}
+			} catch (Throwable e) {
+				exception.compareAndSet(null, e);
+			}
+		};
+
+		int threads = Math.min(this.numberOfThreads, personList.size() / CHUNK_SIZE + 1);
+		if (threads == 1) {
+			worker.run();
+		} else {
+			Thread[] workers = new Thread[threads];
+			for (int i = 0; i < threads; i++) {
+				workers[i] = new Thread(worker, "StrategyManager." + i);
+				workers[i].setDaemon(true);
+				workers[i].start();
+			}
+			for (Thread thread : workers) {
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		}
+		Throwable throwable = exception.get();
+		if (throwable instanceof RuntimeException) {
+			throw (RuntimeException) throwable;
+		} else if (throwable != null) {
+			throw new RuntimeException(throwable);
+		}
+
+		for (int i = 0; i < personList.size(); i++) {
+			long start = Instrumentation.start();
+			if (strategies[i] instanceof GenericPlanStrategyImpl) {
+				((GenericPlanStrategyImpl<PL, AG>) strategies[i]).handlePlan((PL) plans[i]);
+			} else {
+				strategies[i].run(personList.get(i));
+			}
+			addTime(strategies[i], start);
+		}
+	}
+
 	private Collection<GenericPlanStrategy<PL, AG>> distinctStrategies() {
 		// Leaving out duplicate strategies in different subpopulations
 		Collection<GenericPlanStrategy<PL, AG>> strategies = new LinkedHashSet<>();
@@ -255,17 +366,19 @@ public class GenericStrategyManagerImpl<PL extends BasicPlan, AG extends HasPlan
 		return strategies;
 	}
 
-	private void removePlans(final HasPlansAndId<PL, AG> person, final int maxNumberOfPlans) {
+	private void removePlans(final HasPlansAndId<PL, AG> person, final int maxNumberOfPlans, final Random random) {
 		while (person.getPlans().size() > maxNumberOfPlans) {
-			PL plan = this.removalPlanSelector.selectPlan(person);
-			person.removePlan(plan);
+			PL plan = this.removalPlanSelector.selectPlan(person, random);
 			if (plan == person.getSelectedPlan()) {
-				final PL newPlanToSelect = new RandomPlanSelector<PL, AG>().selectPlan(person) ;
-				if ( newPlanToSelect == null ) {
+				// select one of the remaining plans at random, like the person would do in removePlan(), but with the given random numbers
+				final List<PL> remainingPlans = new ArrayList<>(person.getPlans());
+				remainingPlans.remove(plan);
+				if ( remainingPlans.isEmpty() ) {
 					throw new IllegalStateException( "could not find a plan to select for person "+person );
 				}
-				person.setSelectedPlan( newPlanToSelect );
+				person.setSelectedPlan( remainingPlans.get((int) (random.nextDouble() * remainingPlans.size())) );
 			}
+			person.removePlan(plan);
 		}
 	}
 
@@ -363,6 +476,17 @@ public class GenericStrategyManagerImpl<PL extends BasicPlan, AG extends HasPlan
 		this.removalPlanSelector = planSelector;
 	}
 
+	/**
+	 * Sets the number of threads removing plans, choosing the strategies and selecting plans. With 0, the persons are handled one
+	 * after the other, drawing from the global random number generator. With one or more threads, every person draws from its own
+	 * stream of random numbers, which gives the same result for any number of threads. The strategy choosers, plan selectors and
+	 * the plan selector for removal then need to be thread-safe, and need to draw from the random number generator handed to them,
+	 * see {@link PlanSelector#selectPlan(HasPlansAndId, Random)}. The default ones do both.
+	 */
+	public final void setNumberOfThreads( final int numberOfThreads ) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	final int getMaxPlansPerAgent() {
 		return this.maxPlansPerAgent ;
 	}
@@ -0,0 +1,85 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PersonRandom.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.replanning;
+
+import java.util.Random;
+
+import org.matsim.api.core.v01.Id;
+
+/**
+ * Counter-based random number generator, providing an independent stream of random numbers for every person.
+ *
+ * <p>The n-th number of a stream is a hash of the key of the stream and n, so switching to the stream of another person only
+ * means setting another key, see {@link #setPerson(long, Id)}. The key only depends on the seed and the person id, so the
+ * random numbers drawn for a person do not depend on the order in which the persons are handled, nor on the thread.</p>
+ */
+/* deliberately package */ final class PersonRandom extends Random {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long key;
+	private long counter;
+
+	PersonRandom() {
+		super(0);
+	}
+
+	/**
+	 * Starts the stream of the given person.
+	 */
+	void setPerson(long seed, Id<?> personId) {
+		setSeed(mix64(seed ^ hash(personId.toString())));
+	}
+
+	@Override
+	public synchronized void setSeed(long seed) {
+		// also resets the cached gaussian of the super class
+		super.setSeed(seed);
+		this.key = seed;
+		this.counter = 0;
+	}
+
+	@Override
+	protected int next(int bits) {
+		this.counter++;
+		return (int) (mix64(this.key + this.counter * GOLDEN_GAMMA) >>> (64 - bits));
+	}
+
+	/** 64 bit FNV-1a hash, as {@link String#hashCode()} has too many collisions for large populations. */
+	private static long hash(String id) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < id.length(); i++) {
+			hash ^= id.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/** the finalizer of SplitMix64 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+}
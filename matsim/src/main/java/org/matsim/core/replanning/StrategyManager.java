@@ -71,6 +71,7 @@ public class StrategyManager implements MatsimManager {
 
 		this(strategyChooser);
 		setMaxPlansPerAgent(replanningConfigGroup.getMaxAgentPlanMemorySize());
+		setNumberOfThreads(replanningConfigGroup.getNumberOfReplanningThreads());
 
 		int globalInnovationDisableAfter = (int) ((controllerConfigGroup.getLastIteration() - controllerConfigGroup.getFirstIteration())
 				* replanningConfigGroup.getFractionOfIterationsToDisableInnovation() + controllerConfigGroup.getFirstIteration());
@@ -172,6 +173,13 @@ public class StrategyManager implements MatsimManager {
 		delegate.setMaxPlansPerAgent(maxPlansPerAgent);
 	}
 
+	/**
+	 * @see GenericStrategyManagerImpl#setNumberOfThreads(int)
+	 */
+	public final void setNumberOfThreads(final int numberOfThreads) {
+		delegate.setNumberOfThreads(numberOfThreads);
+	}
+
 	public final int getMaxPlansPerAgent() {
 		return delegate.getMaxPlansPerAgent();
 	}
@@ -7,6 +7,8 @@ import org.matsim.core.replanning.GenericPlanStrategy;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.replanning.ReplanningUtils;
 
+import java.util.Random;
+
 /**
  * This chooser forces to select an innovative strategy every X iteration for every X person in the population.
  */
@@ -42,6 +44,11 @@ public class ForceInnovationStrategyChooser<PL extends BasicPlan, AG extends Has
 
 	@Override
 	public GenericPlanStrategy<PL, AG> chooseStrategy(HasPlansAndId<PL, AG> person, String subpopulation, ReplanningContext replanningContext, Weights<PL, AG> weights) {
+		return chooseStrategy(person, subpopulation, replanningContext, weights, MatsimRandom.getRandom());
+	}
+
+	@Override
+	public GenericPlanStrategy<PL, AG> chooseStrategy(HasPlansAndId<PL, AG> person, String subpopulation, ReplanningContext replanningContext, Weights<PL, AG> weights, Random random) {
 
 		double[] w = new double[weights.size()];
 		double total = 0;
@@ -64,7 +71,7 @@ public class ForceInnovationStrategyChooser<PL extends BasicPlan, AG extends Has
 			total += w[i];
 		}
 
-		double rnd = MatsimRandom.getRandom().nextDouble() * total;
+		double rnd = random.nextDouble() * total;
 
 		// If all weights are zero the first one is returned
 		double sum = 0.0;
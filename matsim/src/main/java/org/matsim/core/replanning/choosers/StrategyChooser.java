@@ -5,12 +5,23 @@ import org.matsim.api.core.v01.population.HasPlansAndId;
 import org.matsim.core.replanning.GenericPlanStrategy;
 import org.matsim.core.replanning.ReplanningContext;
 
+import java.util.Random;
+
 /**
  * Interface for choosing a strategy for each person, each iteration.
  */
 public interface StrategyChooser<T extends BasicPlan, I extends HasPlansAndId<? extends BasicPlan, I>> {
 	GenericPlanStrategy<T, I> chooseStrategy(HasPlansAndId<T, I> person, final String subpopulation, ReplanningContext replanningContext, Weights<T,I> weights);
 
+	/**
+	 * Like {@link #chooseStrategy(HasPlansAndId, String, ReplanningContext, Weights)}, but draws the random numbers from the given
+	 * generator. This is used when the strategies are chosen for several persons in parallel. Choosers drawing random numbers
+	 * should override it; the default ignores the generator.
+	 */
+	default GenericPlanStrategy<T, I> chooseStrategy(HasPlansAndId<T, I> person, final String subpopulation, ReplanningContext replanningContext, Weights<T,I> weights, Random random) {
+		return chooseStrategy(person, subpopulation, replanningContext, weights);
+	}
+
 
 	interface Weights<T extends BasicPlan, I> {
 
@@ -6,6 +6,8 @@ import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.replanning.GenericPlanStrategy;
 import org.matsim.core.replanning.ReplanningContext;
 
+import java.util.Random;
+
 /**
  * Default strategy chooser based on the configured weights.
  */
@@ -13,7 +15,12 @@ public class WeightedStrategyChooser<PL extends BasicPlan, AG extends HasPlansAn
 
 	@Override
 	public GenericPlanStrategy<PL, AG> chooseStrategy(HasPlansAndId<PL, AG> person, String subpopulation, ReplanningContext replanningContext, StrategyChooser.Weights<PL, AG> weights) {
-		double rnd = MatsimRandom.getRandom().nextDouble() * weights.getTotalWeights();
+		return chooseStrategy(person, subpopulation, replanningContext, weights, MatsimRandom.getRandom());
+	}
+
+	@Override
+	public GenericPlanStrategy<PL, AG> chooseStrategy(HasPlansAndId<PL, AG> person, String subpopulation, ReplanningContext replanningContext, StrategyChooser.Weights<PL, AG> weights, Random random) {
+		double rnd = random.nextDouble() * weights.getTotalWeights();
 
 		double sum = 0.0;
 		for (int i = 0, max = weights.size(); i < max; i++) {
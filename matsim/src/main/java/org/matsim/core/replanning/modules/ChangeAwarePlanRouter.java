@@ -0,0 +1,239 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ChangeAwarePlanRouter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.replanning.modules;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.algorithms.PlanAlgorithm;
+import org.matsim.core.population.routes.GenericRouteImpl;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.router.PlanRouter;
+import org.matsim.core.router.TripRouter;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.router.TripStructureUtils.Trip;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.utils.timing.TimeInterpretation;
+import org.matsim.core.utils.timing.TimeTracker;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.facilities.FacilitiesUtils;
+
+/**
+ * Routes the trips of a plan like {@link PlanRouter}, but keeps the route of a trip if the travel time along its network
+ * routes changed by less than a threshold since it was routed.
+ *
+ * <p>The travel time of every network route is recorded when it is routed. The records are not stored in the plans, so they
+ * do not show up in the output, but in a map per person, keyed by the mode, departure time and a hash of the links of the route. Copies
+ * of a plan thus find the records of the original plan. A trip is only kept if it still departs at the same time and
+ * connects the same links, it has at least one network leg, all its legs are network legs with a recorded travel time or
+ * teleported legs, and the travel time of its network routes according to the current travel times differs from the
+ * recorded one by less than the threshold. Trips without network legs are always routed again, which is cheap.</p>
+ */
+/* deliberately package */ final class ChangeAwarePlanRouter implements PlanAlgorithm {
+
+	/**
+	 * The network route of a leg, as far as it matters for its travel time. The links of the route are only kept as a 64 bit
+	 * hash, so the records do not duplicate the routes of the population.
+	 */
+	/* package */ record RouteKey(String mode, double departureTime, long linksHash) {
+
+		static RouteKey of(Leg leg, NetworkRoute route) {
+			return new RouteKey(leg.getMode(), leg.getDepartureTime().seconds(), hashLinks(route));
+		}
+
+		/** FNV-1a over the indices of the start link, the links and the end link of the route. */
+		private static long hashLinks(NetworkRoute route) {
+			long hash = 0xcbf29ce484222325L;
+			hash = (hash ^ route.getStartLinkId().index()) * 0x100000001b3L;
+			for (Id<Link> linkId : route.getLinkIds()) {
+				hash = (hash ^ linkId.index()) * 0x100000001b3L;
+			}
+			return (hash ^ route.getEndLinkId().index()) * 0x100000001b3L;
+		}
+
+	}
+
+	private final TripRouter tripRouter;
+	private final ActivityFacilities facilities;
+	private final TimeInterpretation timeInterpretation;
+	private final Network network;
+	private final Map<String, TravelTime> travelTimes;
+	private final double threshold;
+	private final Map<Id<Person>, Map<RouteKey, Double>> recordedTravelTimes;
+	private final AtomicLong keptTrips;
+	private final AtomicLong routedTrips;
+
+	ChangeAwarePlanRouter(TripRouter tripRouter, ActivityFacilities facilities, TimeInterpretation timeInterpretation, Network network,
+			Map<String, TravelTime> travelTimes, double threshold, Map<Id<Person>, Map<RouteKey, Double>> recordedTravelTimes,
+			AtomicLong keptTrips, AtomicLong routedTrips) {
+		this.tripRouter = tripRouter;
+		this.facilities = facilities;
+		this.timeInterpretation = timeInterpretation;
+		this.network = network;
+		this.travelTimes = travelTimes;
+		this.threshold = threshold;
+		this.recordedTravelTimes = recordedTravelTimes;
+		this.keptTrips = keptTrips;
+		this.routedTrips = routedTrips;
+	}
+
+	@Override
+	public void run(final Plan plan) {
+		final List<Trip> trips = TripStructureUtils.getTrips(plan);
+		TimeTracker timeTracker = new TimeTracker(timeInterpretation);
+		final Person person = plan.getPerson();
+		final Map<RouteKey, Double> recorded = person == null ? Map.of() : this.recordedTravelTimes.getOrDefault(person.getId(), Map.of());
+		final Map<RouteKey, Double> newlyRecorded = new HashMap<>();
+
+		for (Trip oldTrip : trips) {
+			timeTracker.addActivity(oldTrip.getOriginActivity());
+
+			if (isUnchanged(oldTrip, timeTracker.getTime().seconds(), person, recorded)) {
+				this.keptTrips.incrementAndGet();
+				timeTracker.addElements(oldTrip.getTripElements());
+				continue;
+			}
+
+			final String routingMode = TripStructureUtils.identifyMainMode(oldTrip.getTripElements());
+			final List<? extends PlanElement> newTripElements = tripRouter.calcRoute( //
+					routingMode, //
+					FacilitiesUtils.toFacility(oldTrip.getOriginActivity(), facilities), //
+					FacilitiesUtils.toFacility(oldTrip.getDestinationActivity(), facilities), //
+					timeTracker.getTime().seconds(), //
+					plan.getPerson(), //
+					oldTrip.getTripAttributes() //
+			);
+			this.routedTrips.incrementAndGet();
+
+			PlanRouter.putVehicleFromOldTripIntoNewTripIfMeaningful(oldTrip, newTripElements);
+			TripRouter.insertTrip(plan, oldTrip.getOriginActivity(), newTripElements, oldTrip.getDestinationActivity());
+
+			for (Leg leg : TripStructureUtils.getLegs(newTripElements)) {
+				if (leg.getRoute() instanceof NetworkRoute route && leg.getDepartureTime().isDefined()) {
+					TravelTime travelTime = this.travelTimes.get(leg.getMode());
+					if (travelTime != null) {
+						newlyRecorded.put(RouteKey.of(leg, route), calcTravelTime(route, leg.getDepartureTime().seconds(), travelTime, person));
+					}
+				}
+			}
+
+			timeTracker.addElements(newTripElements);
+		}
+
+		if (person != null) {
+			updateRecords(person, recorded, newlyRecorded);
+		}
+	}
+
+	/**
+	 * Keeps the records of the routes which are still used in one of the plans of the person, so the records of removed plans
+	 * do not pile up.
+	 */
+	private void updateRecords(Person person, Map<RouteKey, Double> recorded, Map<RouteKey, Double> newlyRecorded) {
+		Map<RouteKey, Double> records = new HashMap<>();
+		for (Plan plan : person.getPlans()) {
+			// reading the legs must not inflate the packed plans of the person
+			for (Leg leg : TripStructureUtils.getLegs(PopulationUtils.getPlanElementsForReading(plan))) {
+				if (leg.getRoute() instanceof NetworkRoute route && leg.getDepartureTime().isDefined()) {
+					RouteKey key = RouteKey.of(leg, route);
+					Double travelTime = newlyRecorded.getOrDefault(key, recorded.get(key));
+					if (travelTime != null) {
+						records.put(key, travelTime);
+					}
+				}
+			}
+		}
+		if (records.isEmpty()) {
+			this.recordedTravelTimes.remove(person.getId());
+		} else {
+			this.recordedTravelTimes.put(person.getId(), records);
+		}
+	}
+
+	private boolean isUnchanged(Trip trip, double departureTime, Person person, Map<RouteKey, Double> recorded) {
+		List<Leg> legs = trip.getLegsOnly();
+		if (legs.isEmpty() || legs.get(0).getDepartureTime().isUndefined() || legs.get(0).getDepartureTime().seconds() != departureTime) {
+			return false;
+		}
+		Route firstRoute = legs.get(0).getRoute();
+		Route lastRoute = legs.get(legs.size() - 1).getRoute();
+		if (firstRoute == null || lastRoute == null
+				|| !isSameLink(trip.getOriginActivity(), firstRoute.getStartLinkId())
+				|| !isSameLink(trip.getDestinationActivity(), lastRoute.getEndLinkId())) {
+			return false;
+		}
+
+		boolean hasNetworkRoute = false;
+		double recordedTravelTime = 0;
+		double currentTravelTime = 0;
+		for (Leg leg : legs) {
+			Route route = leg.getRoute();
+			if (route instanceof NetworkRoute networkRoute) {
+				TravelTime travelTime = this.travelTimes.get(leg.getMode());
+				Double recordedLegTravelTime = leg.getDepartureTime().isDefined() ? recorded.get(RouteKey.of(leg, networkRoute)) : null;
+				if (recordedLegTravelTime == null || travelTime == null) {
+					return false;
+				}
+				hasNetworkRoute = true;
+				recordedTravelTime += recordedLegTravelTime;
+				currentTravelTime += calcTravelTime(networkRoute, leg.getDepartureTime().seconds(), travelTime, person);
+			} else if (!(route instanceof GenericRouteImpl)) {
+				// e.g. transit routes, which do not depend on the travel times, but possibly on other things
+				return false;
+			}
+		}
+		// trips with teleported legs only do not depend on the travel times, but are cheap to route
+		return hasNetworkRoute && Math.abs(currentTravelTime - recordedTravelTime) <= this.threshold * recordedTravelTime;
+	}
+
+	private static boolean isSameLink(Activity activity, Id<Link> linkId) {
+		return activity.getLinkId() != null && activity.getLinkId().equals(linkId);
+	}
+
+	/**
+	 * The travel time from leaving the start link to leaving the end link, like a vehicle following the route would experience it.
+	 */
+	private double calcTravelTime(NetworkRoute route, double departureTime, TravelTime travelTime, Person person) {
+		if (route.getStartLinkId().equals(route.getEndLinkId()) && route.getLinkIds().isEmpty()) {
+			return 0;
+		}
+		Map<Id<Link>, ? extends Link> links = this.network.getLinks();
+		double time = departureTime;
+		for (Id<Link> linkId : route.getLinkIds()) {
+			time += travelTime.getLinkTravelTime(links.get(linkId), time, person, null);
+		}
+		time += travelTime.getLinkTravelTime(links.get(route.getEndLinkId()), time, person, null);
+		return time - departureTime;
+	}
+
+}
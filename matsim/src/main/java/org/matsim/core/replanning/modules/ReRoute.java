@@ -20,12 +20,22 @@
 
 package org.matsim.core.replanning.modules;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.population.algorithms.PlanAlgorithm;
 import org.matsim.core.router.PlanRouter;
 import org.matsim.core.router.TripRouter;
+import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.timing.TimeInterpretation;
 import org.matsim.facilities.ActivityFacilities;
 
@@ -34,21 +44,44 @@ import jakarta.inject.Provider;
 /**
  * Uses the routing algorithm provided by the {@linkplain Controler} for
  * calculating the routes of plans during Replanning.
+ * <p></p>
+ * If a travel time change threshold is given, trips are only routed again if the travel time along their network
+ * routes changed by more than this fraction since they were routed, see {@link ChangeAwarePlanRouter}.
  *
  * @author mrieser
  */
 public class ReRoute extends AbstractMultithreadedModule {
+	private static final Logger log = LogManager.getLogger(ReRoute.class);
 
 	private ActivityFacilities facilities;
 	private final TimeInterpretation timeInterpretation;
 
 	private final Provider<TripRouter> tripRouterProvider;
 
+	private final Network network;
+	private final Map<String, TravelTime> travelTimes;
+	private final double travelTimeChangeThreshold;
+	private final Map<Id<Person>, Map<ChangeAwarePlanRouter.RouteKey, Double>> recordedTravelTimes = new ConcurrentHashMap<>();
+	private final AtomicLong keptTrips = new AtomicLong();
+	private final AtomicLong routedTrips = new AtomicLong();
+
 	public ReRoute(ActivityFacilities facilities, Provider<TripRouter> tripRouterProvider, GlobalConfigGroup globalConfigGroup, TimeInterpretation timeInterpretation) {
+		this(facilities, tripRouterProvider, globalConfigGroup, timeInterpretation, null, null, 0.);
+	}
+
+	/**
+	 * @param travelTimeChangeThreshold the relative change of the travel time of a trip below which its route is kept,
+	 * or 0 to route all trips again.
+	 */
+	public ReRoute(ActivityFacilities facilities, Provider<TripRouter> tripRouterProvider, GlobalConfigGroup globalConfigGroup, TimeInterpretation timeInterpretation,
+			Network network, Map<String, TravelTime> travelTimes, double travelTimeChangeThreshold) {
 		super(globalConfigGroup);
 		this.facilities = facilities;
 		this.tripRouterProvider = tripRouterProvider;
 		this.timeInterpretation = timeInterpretation;
+		this.network = network;
+		this.travelTimes = travelTimes;
+		this.travelTimeChangeThreshold = travelTimeChangeThreshold;
 	}
 
 	public ReRoute(Scenario scenario, Provider<TripRouter> tripRouterProvider, TimeInterpretation timeInterpretation) {
@@ -57,6 +90,19 @@ public class ReRoute extends AbstractMultithreadedModule {
 
 	@Override
 	public final PlanAlgorithm getPlanAlgoInstance() {
+			if (this.travelTimeChangeThreshold > 0) {
+				return new ChangeAwarePlanRouter(
+						tripRouterProvider.get(),
+						facilities,
+						timeInterpretation,
+						network,
+						travelTimes,
+						travelTimeChangeThreshold,
+						recordedTravelTimes,
+						keptTrips,
+						routedTrips
+						);
+			}
 			return new PlanRouter(
 					tripRouterProvider.get(),
 					facilities,
@@ -64,4 +110,11 @@ public class ReRoute extends AbstractMultithreadedModule {
 					);
 	}
 
+	@Override
+	protected void afterFinishReplanningHook() {
+		if (this.travelTimeChangeThreshold > 0) {
+			log.info("kept the routes of " + this.keptTrips.getAndSet(0) + " trips, routed " + this.routedTrips.getAndSet(0) + " trips again.");
+		}
+	}
+
 }
@@ -20,6 +20,8 @@
 
 package org.matsim.core.replanning.selectors;
 
+import java.util.Random;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.population.BasicPlan;
@@ -63,9 +65,14 @@ public final class ExpBetaPlanChanger<T extends BasicPlan, I> implements PlanSel
 	 */
 	@Override
 	public T selectPlan(final HasPlansAndId<T, I> person) {
+		return selectPlan(person, MatsimRandom.getRandom());
+	}
+
+	@Override
+	public T selectPlan(final HasPlansAndId<T, I> person, final Random random) {
 		// current plan and random plan:
 		T currentPlan = person.getSelectedPlan();
-		T otherPlan = new RandomPlanSelector<T, I>().selectPlan(person);
+		T otherPlan = new RandomPlanSelector<T, I>().selectPlan(person, random);
 
 		if (currentPlan == null) {
 			// this case should only happen when the agent has no plans at all
@@ -112,7 +119,7 @@ public final class ExpBetaPlanChanger<T extends BasicPlan, I> implements PlanSel
 		// (so far, this is >1 if otherScore>currentScore, and <=1 otherwise)
 		// (beta is the slope (strength) of the operation: large beta means strong reaction)
 
-		if (MatsimRandom.getRandom().nextDouble() < 0.01*weight ) { // as of now, 0.01 is hardcoded (proba to change when both
+		if (random.nextDouble() < 0.01*weight ) { // as of now, 0.01 is hardcoded (proba to change when both
 			                                           // scores are the same)
 			return otherPlan;
 		}
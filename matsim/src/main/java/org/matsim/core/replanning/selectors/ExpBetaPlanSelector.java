@@ -22,6 +22,7 @@ package org.matsim.core.replanning.selectors;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Random;
 
 import org.apache.logging.log4j.LogManager;
 import org.matsim.api.core.v01.population.BasicPlan;
@@ -53,6 +54,11 @@ public class ExpBetaPlanSelector<T extends BasicPlan, I> implements PlanSelector
 	 */
 	@Override
 	public T selectPlan(final HasPlansAndId<T, I> person) {
+		return selectPlan(person, MatsimRandom.getRandom());
+	}
+
+	@Override
+	public T selectPlan(final HasPlansAndId<T, I> person, final Random random) {
 
 		// get the weights of all plans
 		Map<T, Double> weights = this.calcWeights(person);
@@ -63,7 +69,7 @@ public class ExpBetaPlanSelector<T extends BasicPlan, I> implements PlanSelector
 		}
 
 		// choose a random number over interval [0, sumWeights[
-		double selnum = sumWeights * MatsimRandom.getRandom().nextDouble();
+		double selnum = sumWeights * random.nextDouble();
 		for (T plan : person.getPlans()) {
 			selnum -= weights.get(plan);
 			if (selnum <= 0.0) {
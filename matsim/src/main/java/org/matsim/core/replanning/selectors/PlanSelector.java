@@ -21,6 +21,8 @@ package org.matsim.core.replanning.selectors;
 import org.matsim.api.core.v01.population.BasicPlan;
 import org.matsim.api.core.v01.population.HasPlansAndId;
 
+import java.util.Random;
+
 /**
  * @author nagel
  *
@@ -29,4 +31,13 @@ public interface PlanSelector<T extends BasicPlan, I> {
 	
 	T selectPlan( HasPlansAndId<T, I> member ) ; 
 
+	/**
+	 * Like {@link #selectPlan(HasPlansAndId)}, but draws the random numbers from the given generator instead of
+	 * {@link org.matsim.core.gbl.MatsimRandom#getRandom()}.  This is used when plans are selected for several persons in
+	 * parallel.  Selectors drawing random numbers should override it; the default ignores the generator.
+	 */
+	default T selectPlan( HasPlansAndId<T, I> member, Random random ) {
+		return selectPlan( member ) ;
+	}
+
 }
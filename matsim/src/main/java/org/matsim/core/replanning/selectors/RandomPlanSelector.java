@@ -20,6 +20,8 @@
 
 package org.matsim.core.replanning.selectors;
 
+import java.util.Random;
+
 import org.matsim.api.core.v01.population.BasicPlan;
 import org.matsim.api.core.v01.population.HasPlansAndId;
 import org.matsim.core.gbl.MatsimRandom;
@@ -38,13 +40,18 @@ public class RandomPlanSelector<T extends BasicPlan, I> implements PlanSelector<
 	 */
 	@Override
 	public T selectPlan(final HasPlansAndId<T, I> person) {
+		return selectPlan(person, MatsimRandom.getRandom());
+	}
+
+	@Override
+	public T selectPlan(final HasPlansAndId<T, I> person, final Random random) {
 		// this used to use person.getRandomPlan(), but I inlined the function here in order to get rid of the function of the data class.
 		// kai, nov'13
 		if (person.getPlans().size() == 0) {
 			return null;
 		}
 		
-		int index = (int)(MatsimRandom.getRandom().nextDouble()*person.getPlans().size());
+		int index = (int)(random.nextDouble()*person.getPlans().size());
 		// yyyy As far as I can tell, this produces race conditions when running multi-threaded.  I.e. when running the same
 		// setup twice, this function may return different results per thread or per person.  kai, jun'14
 		
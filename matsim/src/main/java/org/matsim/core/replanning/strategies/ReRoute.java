@@ -19,14 +19,19 @@
 
 package org.matsim.core.replanning.strategies;
 
+import java.util.Map;
+
+import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.GlobalConfigGroup;
 import org.matsim.core.replanning.PlanStrategy;
 import org.matsim.core.replanning.PlanStrategyImpl;
 import org.matsim.core.replanning.PlanStrategyImpl.Builder;
 import org.matsim.core.replanning.selectors.RandomPlanSelector;
 import org.matsim.core.router.TripRouter;
+import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.timing.TimeInterpretation;
 import org.matsim.facilities.ActivityFacilities;
 
@@ -39,11 +44,21 @@ public class ReRoute implements Provider<PlanStrategy> {
 	@Inject private ActivityFacilities facilities;
 	@Inject private Provider<TripRouter> tripRouterProvider;
 	@Inject private TimeInterpretation timeInterpretation;
+	@Inject private Config config;
+	@Inject private Provider<Network> networkProvider;
+	@Inject private Provider<Map<String, TravelTime>> travelTimesProvider;
 
 	@Override
 	public PlanStrategy get() {
 		Builder builder = new PlanStrategyImpl.Builder(new RandomPlanSelector<Plan,Person>()) ;
-		builder.addStrategyModule(new org.matsim.core.replanning.modules.ReRoute(facilities, tripRouterProvider, globalConfigGroup, timeInterpretation));
+		double threshold = config.replanning().getReRouteTravelTimeChangeThreshold();
+		if (threshold > 0) {
+			// the travel times are only needed, and thus only looked up, if unchanged routes are kept
+			builder.addStrategyModule(new org.matsim.core.replanning.modules.ReRoute(facilities, tripRouterProvider, globalConfigGroup, timeInterpretation,
+					networkProvider.get(), travelTimesProvider.get(), threshold));
+		} else {
+			builder.addStrategyModule(new org.matsim.core.replanning.modules.ReRoute(facilities, tripRouterProvider, globalConfigGroup, timeInterpretation));
+		}
 		return builder.build() ;
 	}
 
@@ -55,14 +55,19 @@ public final class EventsToActivities implements ActivityStartEventHandler, Acti
 	}
 
     private final IdMap<Person, Activity> activities = new IdMap<>(Person.class);
-    private final List<ActivityHandler> activityHandlers = new ArrayList<>();
+    private final List<ActivityHandler> activityHandlers;
 
     public EventsToActivities() {
+        this.activityHandlers = new ArrayList<>();
+    }
 
+    private EventsToActivities(List<ActivityHandler> activityHandlers) {
+        this.activityHandlers = activityHandlers;
     }
 
     @Inject
     EventsToActivities(ControlerListenerManager controlerListenerManager) {
+        this();
         controlerListenerManager.addControlerListener(new AfterMobsimListener() {
             @Override
             public void notifyAfterMobsim(AfterMobsimEvent event) {
@@ -81,8 +86,9 @@ public final class EventsToActivities implements ActivityStartEventHandler, Acti
             activity = firstActivity;
         }
         activity.setEndTime(event.getTime());
+        PersonExperiencedActivity experiencedActivity = new PersonExperiencedActivity(event.getPersonId(), activity);
         for (ActivityHandler activityHandler : this.activityHandlers) {
-            activityHandler.handleActivity(new PersonExperiencedActivity(event.getPersonId(), activity));
+            activityHandler.handleActivity(experiencedActivity);
         }
     }
 
@@ -105,10 +111,19 @@ public final class EventsToActivities implements ActivityStartEventHandler, Acti
         this.activityHandlers.add(activityHandler);
     }
 
+    /**
+     * Creates an instance for a subset of the persons, which passes its activities to the handlers of this instance.
+     * Used for sharded scoring, see {@link ScoringFunctionsForPopulation}.
+     */
+    /* package */ EventsToActivities createShard() {
+        return new EventsToActivities(this.activityHandlers);
+    }
+
     public void finish() {
         this.activities.forEach((id, activity) -> {
+            PersonExperiencedActivity experiencedActivity = new PersonExperiencedActivity(id, activity);
             for (ActivityHandler activityHandler : this.activityHandlers) {
-                activityHandler.handleActivity(new PersonExperiencedActivity(id, activity));
+                activityHandler.handleActivity(experiencedActivity);
             }
         });
     }
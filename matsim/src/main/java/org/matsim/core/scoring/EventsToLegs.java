@@ -20,8 +20,10 @@
 package org.matsim.core.scoring;
 
 import com.google.inject.Inject;
+import gnu.trove.list.array.TIntArrayList;
 import org.apache.logging.log4j.LogManager;
 import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.events.*;
 import org.matsim.api.core.v01.events.handler.*;
@@ -34,7 +36,6 @@ import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.TeleportationArrivalEventHandler;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
-import org.matsim.core.gbl.Gbl;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteUtils;
@@ -47,9 +48,7 @@ import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 import org.matsim.vehicles.Vehicle;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Converts a stream of Events into a stream of Legs. Passes Legs to a single LegHandler which must be registered with this class.
@@ -70,18 +69,6 @@ public final class EventsToLegs
 	public static final String ENTER_VEHICLE_TIME_ATTRIBUTE_NAME = "enterVehicleTime";
 	public static final String VEHICLE_ID_ATTRIBUTE_NAME = "vehicleId";
 
-	private static class PendingTransitTravel {
-		final Id<Vehicle> vehicleId;
-		final Id<TransitStopFacility> accessStop;
-		final double boardingTime;
-
-		PendingTransitTravel(Id<Vehicle> vehicleId, Id<TransitStopFacility> accessStop, double boardingTime) {
-			this.vehicleId = vehicleId;
-			this.accessStop = accessStop;
-			this.boardingTime = boardingTime;
-		}
-	}
-
 	private static class LineAndRoute {
 		final Id<TransitLine> transitLineId;
 		final Id<TransitRoute> transitRouteId;
@@ -110,20 +97,46 @@ public final class EventsToLegs
 		}
 	}
 
-	private static class PendingVehicleTravel {
-		private final int accessLinkIdx;
-		private final VehicleRoute route;
+	/**
+	 * The state of the current leg of a person. There is one instance per person, which is reused for all legs of the person,
+	 * so reconstructing the legs does not create any intermediate objects apart from the legs and routes passed to the handlers.
+	 */
+	private static class PendingLeg {
+		private Leg leg;
+		private Id<Link> departureLinkId;
+
+		private boolean teleported = false;
+		private double teleportationDistance;
+
+		private boolean transitTravel = false;
+		private Id<Vehicle> transitVehicleId;
+		private Id<TransitStopFacility> accessStop;
+		private double boardingTime;
+
+		private boolean vehicleTravel = false;
+		private VehicleRoute route;
+		private int accessLinkIdx;
 		private double relativePositionOnDepartureLink;
 
-		private PendingVehicleTravel(VehicleRoute route, int accessLinkIdx) {
-			this.route = route;
-			this.accessLinkIdx = accessLinkIdx;
+		private void reset() {
+			this.teleported = false;
+			this.transitTravel = false;
+			this.vehicleTravel = false;
+			detachFromRoute();
+		}
+
+		private void detachFromRoute() {
+			if (this.route != null) {
+				this.route.newVehicleTravels.remove(this);
+				this.route = null;
+			}
 		}
 	}
 
 	private static class VehicleRoute {
-		private final List<Id<Link>> links = new ArrayList<>();
-		private final List<PendingVehicleTravel> newVehicleTravels = new ArrayList<>();
+		/** the indices of the link ids, see {@link Id#index()}. */
+		private final TIntArrayList links = new TIntArrayList();
+		private final List<PendingLeg> newVehicleTravels = new ArrayList<>();
 		private double relativePositionOnLastArrivalLink;
 	}
 
@@ -139,17 +152,10 @@ public final class EventsToLegs
 		this.transitSchedule = transitSchedule;
 	}
 
-	private Map<Id<Person>, Leg> legs = new HashMap<>();
-	private Map<Id<Person>, List<Id<Link>>> experiencedRoutes = new HashMap<>();
-	private Map<Id<Person>, Double> relPosOnDepartureLinkPerPerson = new HashMap<>();
-	private Map<Id<Person>, Double> relPosOnArrivalLinkPerPerson = new HashMap<>();
-
-	private Map<Id<Person>, TeleportationArrivalEvent> routelessTravels = new HashMap<>();
-	private Map<Id<Person>, PendingTransitTravel> transitTravels = new HashMap<>();
-	private Map<Id<Person>, PendingVehicleTravel> vehicleTravels = new HashMap<>();
+	private final IdMap<Person, PendingLeg> pendingLegs = new IdMap<>(Person.class);
 
-	private Map<Id<Vehicle>, LineAndRoute> transitVehicle2currentRoute = new HashMap<>();
-	private Map<Id<Vehicle>, VehicleRoute> vehicle2route = new HashMap<>();
+	private final IdMap<Vehicle, LineAndRoute> transitVehicle2currentRoute = new IdMap<>(Vehicle.class);
+	private final IdMap<Vehicle, VehicleRoute> vehicle2route = new IdMap<>(Vehicle.class);
 
 	private List<LegHandler> legHandlers = new ArrayList<>();
 
@@ -165,20 +171,41 @@ public final class EventsToLegs
 		this.network = network;
 	}
 
+	/**
+	 * Creates an instance for a subset of the persons, which passes its legs to the handlers of this instance.
+	 * Used for sharded scoring, see {@link ScoringFunctionsForPopulation}.
+	 */
+	/* package */ EventsToLegs createShard() {
+		EventsToLegs shard = new EventsToLegs(this.network);
+		shard.transitSchedule = this.transitSchedule;
+		shard.legHandlers = this.legHandlers;
+		return shard;
+	}
+
+	/**
+	 * Starts following the route of a vehicle which was entered before by persons which are not handled by this instance.
+	 * The given link, if any, is the link the vehicle is currently on, which is the only part of the route that can still
+	 * become part of the legs handled by this instance.
+	 */
+	/* package */ void followVehicle(Id<Vehicle> vehicleId, Id<Link> currentLinkId) {
+		if (transitVehicle2currentRoute.containsKey(vehicleId)) {
+			return;
+		}
+		VehicleRoute route = vehicle2route.computeIfAbsent(vehicleId, id -> new VehicleRoute());
+		if (route.links.isEmpty() && currentLinkId != null) {
+			route.links.add(currentLinkId.index());
+		}
+	}
+
 	@Override
 	public void reset(int iteration) {
-		legs.clear();
-		experiencedRoutes.clear();
-
-		transitTravels.clear();
-		vehicleTravels.clear();
-		routelessTravels.clear();
+		// the pending legs are kept for the next iteration
+		for (PendingLeg pendingLeg : pendingLegs.values()) {
+			pendingLeg.reset();
+		}
 
 		transitVehicle2currentRoute.clear();
 		vehicle2route.clear();
-
-		relPosOnDepartureLinkPerPerson.clear();
-		relPosOnArrivalLinkPerPerson.clear();
 	}
 
 	@Override
@@ -186,31 +213,39 @@ public final class EventsToLegs
 		Leg leg = PopulationUtils.createLeg(event.getLegMode());
 		TripStructureUtils.setRoutingMode(leg, event.getRoutingMode());
 		leg.setDepartureTime(event.getTime());
-		legs.put(event.getPersonId(), leg);
 
-		List<Id<Link>> route = new ArrayList<>();
-		route.add(event.getLinkId());
-		experiencedRoutes.put(event.getPersonId(), route);
+		PendingLeg pendingLeg = pendingLegs.get(event.getPersonId());
+		if (pendingLeg == null) {
+			pendingLeg = new PendingLeg();
+			pendingLegs.put(event.getPersonId(), pendingLeg);
+		}
+		pendingLeg.leg = leg;
+		pendingLeg.departureLinkId = event.getLinkId();
 	}
 
 	@Override
 	public void handleEvent(PersonEntersVehicleEvent event) {
-		Leg leg = legs.get(event.getPersonId());
+		PendingLeg pendingLeg = pendingLegs.get(event.getPersonId());
+		Leg leg = pendingLeg.leg;
 		leg.getAttributes().putAttribute(ENTER_VEHICLE_TIME_ATTRIBUTE_NAME, event.getTime());
 		leg.getAttributes().putAttribute(VEHICLE_ID_ATTRIBUTE_NAME, event.getVehicleId());
 		LineAndRoute lineAndRoute = transitVehicle2currentRoute.get(event.getVehicleId());
 		if (lineAndRoute != null) {
 			if (!event.getPersonId().equals(lineAndRoute.driverId)) {
 				// transit drivers are not considered to travel by transit
-				transitTravels.put(event.getPersonId(),
-						new PendingTransitTravel(event.getVehicleId(), lineAndRoute.lastFacilityId, event.getTime()));
+				pendingLeg.transitTravel = true;
+				pendingLeg.transitVehicleId = event.getVehicleId();
+				pendingLeg.accessStop = lineAndRoute.lastFacilityId;
+				pendingLeg.boardingTime = event.getTime();
 			}
 		} else {
 			VehicleRoute route = vehicle2route.computeIfAbsent(event.getVehicleId(), vehicleId -> new VehicleRoute());
-			int currentLinkIdx = Math.max(0, route.links.size() - 1);
-			PendingVehicleTravel vehicleTravel = new PendingVehicleTravel(route, currentLinkIdx);
-			vehicleTravels.put(event.getPersonId(), vehicleTravel);
-			route.newVehicleTravels.add(vehicleTravel);
+			pendingLeg.detachFromRoute();
+			pendingLeg.vehicleTravel = true;
+			pendingLeg.route = route;
+			pendingLeg.accessLinkIdx = Math.max(0, route.links.size() - 1);
+			pendingLeg.relativePositionOnDepartureLink = 0.0;
+			route.newVehicleTravels.add(pendingLeg);
 		}
 	}
 
@@ -219,15 +254,16 @@ public final class EventsToLegs
 		VehicleRoute route = vehicle2route.get(event.getVehicleId());
 		if (route != null) {
 			if (route.links.isEmpty()) {
-				route.links.add(event.getLinkId());
+				route.links.add(event.getLinkId().index());
 			} else {
 				// in case vehicle was teleported (TODO assuming teleportation is not possible with people on board??)
-				route.links.set(route.links.size() - 1, event.getLinkId());
+				route.links.set(route.links.size() - 1, event.getLinkId().index());
 			}
 
 			//update relativePositionOnDepartureLink for each new passenger and the driver
-			route.newVehicleTravels.forEach(
-					vehicleTravel -> vehicleTravel.relativePositionOnDepartureLink = event.getRelativePositionOnLink());
+			for (PendingLeg vehicleTravel : route.newVehicleTravels) {
+				vehicleTravel.relativePositionOnDepartureLink = event.getRelativePositionOnLink();
+			}
 			route.newVehicleTravels.clear();
 		}
 	}
@@ -236,7 +272,7 @@ public final class EventsToLegs
 	public void handleEvent(LinkEnterEvent event) {
 		VehicleRoute route = vehicle2route.get(event.getVehicleId());
 		if (route != null) {
-			route.links.add(event.getLinkId());
+			route.links.add(event.getLinkId().index());
 		}
 	}
 
@@ -258,43 +294,30 @@ public final class EventsToLegs
 
 	@Override
 	public void handleEvent(TeleportationArrivalEvent travelEvent) {
-		routelessTravels.put(travelEvent.getPersonId(), travelEvent);
+		PendingLeg pendingLeg = pendingLegs.get(travelEvent.getPersonId());
+		if (pendingLeg != null) {
+			pendingLeg.teleported = true;
+			pendingLeg.teleportationDistance = travelEvent.getDistance();
+		}
 	}
 
 	@Override
 	public void handleEvent(PersonArrivalEvent event) {
-		Leg leg = legs.get(event.getPersonId());
+		PendingLeg pendingLeg = pendingLegs.get(event.getPersonId());
+		Leg leg = pendingLeg.leg;
 		leg.setTravelTime(event.getTime() - leg.getDepartureTime().seconds());
 		double travelTime = leg.getDepartureTime().seconds()
 				+ leg.getTravelTime().seconds() - leg.getDepartureTime().seconds();
 		leg.setTravelTime(travelTime);
-		List<Id<Link>> experiencedRoute = experiencedRoutes.get(event.getPersonId());
-		assert experiencedRoute.size() >= 1;
-		PendingTransitTravel pendingTransitTravel;
-		PendingVehicleTravel pendingVehicleTravel;
-		if (experiencedRoute.size() > 1) { // different links processed
-			NetworkRoute networkRoute = RouteUtils.createNetworkRoute(experiencedRoute );
-			networkRoute.setTravelTime(travelTime);
-
-			/* use the relative position of vehicle enter/leave traffic events on first/last links
-			 * to calculate the correct route distance including the first/last link.
-			 * (see MATSIM-227) tt feb'16
-			 */
-			double relPosOnDepartureLink = relPosOnDepartureLinkPerPerson.get(event.getPersonId());
-			Double relPosOnArrivalLink = relPosOnArrivalLinkPerPerson.get(event.getPersonId());
-			Gbl.assertNotNull(relPosOnArrivalLink);
-			networkRoute.setDistance(
-					RouteUtils.calcDistance(networkRoute, relPosOnDepartureLink, relPosOnArrivalLink, network));
-
-			leg.setRoute(networkRoute);
-		} else if ((pendingTransitTravel = transitTravels.remove(event.getPersonId())) != null) {
-			// i.e. experiencedRoute.size()==1 && pending transit travel (= person has entered a vehicle)
-
-			final LineAndRoute lineAndRoute = transitVehicle2currentRoute.get(pendingTransitTravel.vehicleId);
+		if (pendingLeg.transitTravel) {
+			// i.e. pending transit travel (= person has entered a vehicle)
+			pendingLeg.transitTravel = false;
+
+			final LineAndRoute lineAndRoute = transitVehicle2currentRoute.get(pendingLeg.transitVehicleId);
 			assert lineAndRoute != null;
 
 			final TransitStopFacility accessFacility = transitSchedule.getFacilities()
-					.get(pendingTransitTravel.accessStop);
+					.get(pendingLeg.accessStop);
 			assert accessFacility != null;
 
 			final TransitLine line = transitSchedule.getTransitLines().get(lineAndRoute.transitLineId);
@@ -313,21 +336,25 @@ public final class EventsToLegs
 			assert egressFacility != null;
 
 			DefaultTransitPassengerRoute passengerRoute = new DefaultTransitPassengerRoute(accessFacility, line, route, egressFacility);
-			passengerRoute.setBoardingTime(pendingTransitTravel.boardingTime);
+			passengerRoute.setBoardingTime(pendingLeg.boardingTime);
 			passengerRoute.setTravelTime(travelTime);
 			passengerRoute.setDistance(RouteUtils.calcDistance(passengerRoute, transitSchedule, network));
 			leg.setRoute(passengerRoute);
-		} else if ((pendingVehicleTravel = vehicleTravels.remove(event.getPersonId())) != null) {
-			VehicleRoute vehicleRoute = pendingVehicleTravel.route;
-			List<Id<Link>> traveledLinks = vehicleRoute.links.subList(pendingVehicleTravel.accessLinkIdx,
-					vehicleRoute.links.size());
+		} else if (pendingLeg.vehicleTravel) {
+			pendingLeg.vehicleTravel = false;
+			VehicleRoute vehicleRoute = pendingLeg.route;
+			pendingLeg.detachFromRoute();
 			Route route;
-			if (traveledLinks.isEmpty()) {//special case: enter and leave vehicle without entering traffic
-				route = RouteUtils.createGenericRouteImpl(experiencedRoute.get(0), event.getLinkId());
+			if (pendingLeg.accessLinkIdx >= vehicleRoute.links.size()) {//special case: enter and leave vehicle without entering traffic
+				route = RouteUtils.createGenericRouteImpl(pendingLeg.departureLinkId, event.getLinkId());
 				route.setDistance(0.0);
 			} else {
+				List<Id<Link>> traveledLinks = new ArrayList<>(vehicleRoute.links.size() - pendingLeg.accessLinkIdx);
+				for (int i = pendingLeg.accessLinkIdx; i < vehicleRoute.links.size(); i++) {
+					traveledLinks.add(Id.get(vehicleRoute.links.getQuick(i), Link.class));
+				}
 				route = RouteUtils.createNetworkRoute(traveledLinks );
-				double relPosOnDepartureLink = pendingVehicleTravel.relativePositionOnDepartureLink;
+				double relPosOnDepartureLink = pendingLeg.relativePositionOnDepartureLink;
 				double relPosOnArrivalLink = vehicleRoute.relativePositionOnLastArrivalLink;
 				route.setDistance(
 						RouteUtils.calcDistance((NetworkRoute)route, relPosOnDepartureLink, relPosOnArrivalLink,
@@ -337,20 +364,21 @@ public final class EventsToLegs
 			leg.setRoute(route);
 
 		} else {
-			// i.e. experiencedRoute.size()==1 and no pendingTransitTravel
-			TeleportationArrivalEvent travelEvent = routelessTravels.remove(event.getPersonId());
-			Route genericRoute = RouteUtils.createGenericRouteImpl(experiencedRoute.get(0), event.getLinkId());
+			// i.e. no pending transit or vehicle travel
+			Route genericRoute = RouteUtils.createGenericRouteImpl(pendingLeg.departureLinkId, event.getLinkId());
 			genericRoute.setTravelTime(travelTime);
-			if (travelEvent != null) {
-				genericRoute.setDistance(travelEvent.getDistance());
+			if (pendingLeg.teleported) {
+				genericRoute.setDistance(pendingLeg.teleportationDistance);
 			} else {
 				genericRoute.setDistance(0.0);
 			}
+			pendingLeg.teleported = false;
 			leg.setRoute(genericRoute);
 		}
 
+		PersonExperiencedLeg experiencedLeg = new PersonExperiencedLeg(event.getPersonId(), leg);
 		for (LegHandler legHandler : legHandlers) {
-			legHandler.handleLeg(new PersonExperiencedLeg(event.getPersonId(), leg));
+			legHandler.handleLeg(experiencedLeg);
 		}
 	}
 
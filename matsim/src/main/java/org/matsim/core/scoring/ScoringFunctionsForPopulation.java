@@ -24,6 +24,8 @@ import com.google.inject.Inject;
 import gnu.trove.TDoubleCollection;
 import gnu.trove.iterator.TDoubleIterator;
 import gnu.trove.list.array.TDoubleArrayList;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
@@ -40,6 +42,7 @@ import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
@@ -50,7 +53,9 @@ import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControllerConfigGroup;
+import org.matsim.core.config.groups.ScoringConfigGroup;
 import org.matsim.core.controler.ControlerListenerManager;
+import org.matsim.core.controler.listener.AfterMobsimListener;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
 import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.events.algorithms.Vehicle2DriverEventHandler;
@@ -63,8 +68,11 @@ import org.matsim.vehicles.Vehicle;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.matsim.core.router.TripStructureUtils.Trip;
@@ -73,24 +81,39 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
  * This class helps EventsToScore by keeping ScoringFunctions for the entire Population - one per Person -, and dispatching Activities
  * and Legs to the ScoringFunctions. It also gives out the ScoringFunctions, so they can be given other events by EventsToScore.
  * It is not independently useful. Please do not make public.
+ * <p></p>
+ * With {@link ScoringConfigGroup#getNumberOfScoringThreads()} set to more than one thread, the persons are distributed among
+ * that many shards, each with its own {@link EventsToLegs}, {@link EventsToActivities} and driver index, and each running in
+ * its own thread. The events thread then only decides which shards need to see an event: person events go to the shard of the
+ * person, events of vehicles go to the shards of the persons who have entered the vehicle, and transit driver events go to all
+ * shards. Every shard thus sees the events of its persons in the same order as in the sequential mode, and the scores are
+ * identical. The shards are drained after the mobsim, before the scoring functions are finished. The scoring functions, and the
+ * handlers registered at the injected {@link EventsToLegs} and {@link EventsToActivities}, are then called from several threads,
+ * but never concurrently for the same person.
  *
  * @author michaz
  *
  */
  final class ScoringFunctionsForPopulation implements BasicEventHandler {
+	private static final Logger log = LogManager.getLogger(ScoringFunctionsForPopulation.class);
+
+	/** the shard index is stored in the bits of a long. */
+	private static final int MAX_NUMBER_OF_SHARDS = Long.SIZE;
+	private static final int BATCH_SIZE = 1024;
+	private static final int QUEUE_CAPACITY = 16;
+	private static final List<Object> STOP = new ArrayList<>(0);
 
 	private final Population population;
 	private final ScoringFunctionFactory scoringFunctionFactory;
 
-	private final EventsToLegs legsDelegate;
-	private final EventsToActivities actsDelegate;
-
 	private final IdMap<Person, ScoringFunction> agentScorers = new IdMap<>(Person.class);
 	private final IdMap<Person, TDoubleCollection> partialScores = new IdMap<>(Person.class);
 	private final AtomicReference<Throwable> exception = new AtomicReference<>();
 	private final IdMap<Person, Plan> tripRecords = new IdMap<>(Person.class);
 
-	private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+	private final Shard[] shards;
+	/** the state of the vehicles as far as needed to dispatch their events to the shards; only used with more than one shard. */
+	private final IdMap<Vehicle, VehicleShards> vehicleShards = new IdMap<>(Vehicle.class);
 
 	@Inject
 	ScoringFunctionsForPopulation(ControlerListenerManager controlerListenerManager, EventsManager eventsManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs,
@@ -106,16 +129,33 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 		}
 
 		this.population = population;
-		this.legsDelegate = eventsToLegs;
-		this.actsDelegate = eventsToActivities;
 		this.scoringFunctionFactory = scoringFunctionFactory;
 
+		int numberOfShards = Math.min(MAX_NUMBER_OF_SHARDS, Math.max(1, config.scoring().getNumberOfScoringThreads()));
+		this.shards = new Shard[numberOfShards];
+		if (numberOfShards == 1) {
+			this.shards[0] = new Shard(0, eventsToLegs, eventsToActivities);
+		} else {
+			log.info("scoring the events in " + numberOfShards + " shards.");
+			for (int i = 0; i < numberOfShards; i++) {
+				this.shards[i] = new Shard(i, eventsToLegs.createShard(), eventsToActivities.createShard());
+			}
+			// the activities still open at the end of the mobsim are only known by the shards
+			controlerListenerManager.addControlerListener((AfterMobsimListener) event -> {
+				drainShards();
+				for (Shard shard : this.shards) {
+					shard.acts.finish();
+				}
+			});
+		}
+
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this::handleActivity);
 		eventsToLegs.addLegHandler(this::handleLeg);
 	}
 
 	private void init() {
+		drainShards();
 		for (Person person : this.population.getPersons().values()) {
 			this.agentScorers.put(person.getId(), this.scoringFunctionFactory.createNewScoringFunction(person ) );
 			this.partialScores.put(person.getId(), new TDoubleArrayList());
@@ -125,77 +165,285 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	public void handleEvent(Event o) {
-		// this is for the stuff that is directly based on events. note that this passes on _all_ person events, even those which are
-		// aggregated into legs and activities. for the time being, not all PersonEvents may "implement HasPersonId". link enter/leave events
-		// are NOT passed on, for performance reasons. kai/dominik, dec'12
-		if (o instanceof HasPersonId) {
-			ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
-			if (scoringFunction != null) {
-				if (o instanceof PersonStuckEvent) {
-					scoringFunction.agentStuck(o.getTime());
-				} else if (o instanceof PersonMoneyEvent) {
-					scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
-					// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
-					// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
-				} else if (o instanceof PersonScoreEvent) {
-					scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
-				}
-				scoringFunction.handleEvent(o);
-				// passing this on in any case, see comment above.  kai, mar'17
+		if (this.shards.length == 1) {
+			this.shards[0].handleEvent(o);
+		} else {
+			dispatch(o);
+		}
+	}
+
+	private int getShardIndex(Id<Person> personId) {
+		return personId.index() % this.shards.length;
+	}
+
+	/**
+	 * Passes the event on to the shards which need it, see the class comment. Events which are not needed by any shard are dropped
+	 * here, the same events are ignored by {@link Shard#handleEvent(Event)} in the sequential mode.
+	 */
+	private void dispatch(Event o) {
+		if (o instanceof TransitDriverStartsEvent event) {
+			getVehicleShards(event.getVehicleId()).transit = true;
+			sendToAll(o);
+		} else if (o instanceof VehicleArrivesAtFacilityEvent event) {
+			VehicleShards vehicle = this.vehicleShards.get(event.getVehicleId());
+			if (vehicle != null && vehicle.transit) {
+				sendToAll(o);
+			}
+		} else if (o instanceof PersonEntersVehicleEvent event) {
+			int shard = getShardIndex(event.getPersonId());
+			VehicleShards vehicle = getVehicleShards(event.getVehicleId());
+			if (!vehicle.transit && (vehicle.shards & (1L << shard)) == 0) {
+				vehicle.shards |= 1L << shard;
+				send(shard, new FollowVehicle(event.getVehicleId(), vehicle.currentLinkId));
+			}
+			send(shard, o);
+		} else if (o instanceof VehicleEntersTrafficEvent event) {
+			VehicleShards vehicle = getVehicleShards(event.getVehicleId());
+			vehicle.currentLinkId = event.getLinkId();
+			vehicle.driverShard = getShardIndex(event.getPersonId());
+			send(vehicle.shards | (1L << vehicle.driverShard), o);
+		} else if (o instanceof LinkEnterEvent event) {
+			VehicleShards vehicle = this.vehicleShards.get(event.getVehicleId());
+			if (vehicle != null) {
+				vehicle.currentLinkId = event.getLinkId();
+				send(vehicle.driverShard < 0 ? vehicle.shards : vehicle.shards | (1L << vehicle.driverShard), o);
 			}
+		} else if (o instanceof VehicleLeavesTrafficEvent event) {
+			VehicleShards vehicle = getVehicleShards(event.getVehicleId());
+			vehicle.driverShard = -1;
+			send(vehicle.shards | (1L << getShardIndex(event.getPersonId())), o);
+		} else if (o instanceof HasPersonId event) {
+			send(getShardIndex(event.getPersonId()), o);
 		}
+	}
 
-		// Establish and end connection between driver and vehicle
-		if (o instanceof VehicleEntersTrafficEvent) {
-			this.vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+	private VehicleShards getVehicleShards(Id<Vehicle> vehicleId) {
+		VehicleShards vehicle = this.vehicleShards.get(vehicleId);
+		if (vehicle == null) {
+			vehicle = new VehicleShards();
+			this.vehicleShards.put(vehicleId, vehicle);
 		}
-		if (o instanceof VehicleLeavesTrafficEvent) {
-			this.vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+		return vehicle;
+	}
+
+	private void sendToAll(Object item) {
+		for (int i = 0; i < this.shards.length; i++) {
+			send(i, item);
+		}
+	}
+
+	private void send(long shardMask, Object item) {
+		for (long mask = shardMask; mask != 0; mask &= mask - 1) {
+			send(Long.numberOfTrailingZeros(mask), item);
+		}
+	}
+
+	private void send(int shardIndex, Object item) {
+		Shard shard = this.shards[shardIndex];
+		shard.batch.add(item);
+		if (shard.batch.size() == BATCH_SIZE) {
+			shard.sendBatch();
 		}
+	}
 
-		// Pass LinkEnterEvent to person scoring, required e.g. for bicycle where link attributes are observed in scoring
-		/*
-		 * (This shouldn't really be more expensive than passing the link events to the router: here, we have a map lookup
-		 * for agentId, there we have a map lookup for linkId. Should be somewhat similar in terms of average
-		 * computational complexity. In BetaTravelTest, 194sec w/ "false", 193sec w/ "true". However, the experienced
-		 * plans service in fact does the same thing, so we should be able to get away without having to do this twice.
-		 * kai, mar'17)
-		 */
-		if (o instanceof LinkEnterEvent) {
-			Id<Vehicle> vehicleId = ((LinkEnterEvent)o).getVehicleId();
-			Id<Person> driverId = this.vehicles2Drivers.getDriverOfVehicle(vehicleId);
-			ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
-			// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
-			if (scoringFunction != null) {
-				scoringFunction.handleEvent(o);
+	/**
+	 * Waits until the shards have handled all events passed to them so far, and stops their threads. They are started again
+	 * by the next event.
+	 */
+	private void drainShards() {
+		if (this.shards.length == 1) {
+			return;
+		}
+		for (Shard shard : this.shards) {
+			if (!shard.batch.isEmpty()) {
+				shard.sendBatch();
+			}
+			if (shard.thread != null) {
+				shard.put(STOP);
+			}
+		}
+		for (Shard shard : this.shards) {
+			if (shard.thread != null) {
+				try {
+					shard.thread.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new RuntimeException(e);
+				}
+				shard.thread = null;
 			}
 		}
+	}
+
+	/**
+	 * Tells a shard to follow the route of a vehicle which was entered before by persons of other shards.
+	 */
+	private record FollowVehicle(Id<Vehicle> vehicleId, Id<Link> currentLinkId) {
+	}
 
-		/* Now also handle events for eventsToLegs and eventsToActivities.
-		 * This class deliberately only implements BasicEventHandler and not the individual event handlers required
-		 * by EventsToLegs and EventsToActivities to better control the order in which events are passed to scoring
-		 * functions. By handling the delegation here *after* having the events passed to scoringFunction.handleEvent()
-		 * makes sure that the corresponding event was already seen by a scoring function when the call to handleActivity(),
-		 * handleLeg() or handleTrip() is done.
-		 */
-		if (o instanceof ActivityStartEvent) this.handleActivityStart((ActivityStartEvent) o);
-		if (o instanceof ActivityEndEvent) this.actsDelegate.handleEvent((ActivityEndEvent) o);
-
-		if (o instanceof PersonDepartureEvent) this.legsDelegate.handleEvent((PersonDepartureEvent) o);
-		if (o instanceof PersonArrivalEvent) this.legsDelegate.handleEvent((PersonArrivalEvent) o);
-		if (o instanceof LinkEnterEvent) this.legsDelegate.handleEvent((LinkEnterEvent) o);
-		if (o instanceof TeleportationArrivalEvent) this.legsDelegate.handleEvent((TeleportationArrivalEvent) o);
-		if (o instanceof TransitDriverStartsEvent) this.legsDelegate.handleEvent((TransitDriverStartsEvent) o);
-		if (o instanceof PersonEntersVehicleEvent) this.legsDelegate.handleEvent((PersonEntersVehicleEvent) o);
-		if (o instanceof VehicleArrivesAtFacilityEvent) this.legsDelegate.handleEvent((VehicleArrivesAtFacilityEvent) o);
-		if (o instanceof VehicleEntersTrafficEvent) this.legsDelegate.handleEvent((VehicleEntersTrafficEvent) o);
-		if (o instanceof VehicleLeavesTrafficEvent) this.legsDelegate.handleEvent((VehicleLeavesTrafficEvent) o);
+	private static final class VehicleShards {
+		/** the shards whose persons have entered the vehicle so far, and which thus follow its route. */
+		private long shards = 0;
+		/** the shard of the current driver, or -1. */
+		private int driverShard = -1;
+		private Id<Link> currentLinkId = null;
+		private boolean transit = false;
 	}
 
-	private void handleActivityStart(ActivityStartEvent event) {
-		this.actsDelegate.handleEvent(event);
-		if (!StageActivityTypeIdentifier.isStageActivity( event.getActType() ) ) {
-			this.callTripScoring(event);
+	/**
+	 * Handles the events of a subset of the persons. In the sequential mode, there is one shard handling all persons, using the
+	 * injected {@link EventsToLegs} and {@link EventsToActivities}.
+	 */
+	private final class Shard {
+		private final int index;
+		private final EventsToLegs legs;
+		private final EventsToActivities acts;
+		private final Vehicle2DriverEventHandler vehicles2Drivers = new Vehicle2DriverEventHandler();
+
+		// only used with more than one shard
+		private final BlockingQueue<List<Object>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+		private List<Object> batch = new ArrayList<>(BATCH_SIZE);
+		private Thread thread = null;
+
+		private Shard(int index, EventsToLegs legs, EventsToActivities acts) {
+			this.index = index;
+			this.legs = legs;
+			this.acts = acts;
+		}
+
+		private boolean owns(Id<Person> personId) {
+			return shards.length == 1 || (personId != null && getShardIndex(personId) == this.index);
+		}
+
+		private void sendBatch() {
+			if (this.thread == null) {
+				this.thread = new Thread(this::run, "ScoringShard-" + this.index);
+				this.thread.setDaemon(true);
+				this.thread.start();
+			}
+			put(this.batch);
+			this.batch = new ArrayList<>(BATCH_SIZE);
+		}
+
+		private void put(List<Object> items) {
+			try {
+				this.queue.put(items);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		}
+
+		private void run() {
+			while (true) {
+				List<Object> items;
+				try {
+					items = this.queue.take();
+				} catch (InterruptedException e) {
+					exception.compareAndSet(null, e);
+					return;
+				}
+				if (items == STOP) {
+					return;
+				}
+				if (exception.get() != null) {
+					// keep on taking the events, so the events thread does not block; the exception is thrown when finishing
+					continue;
+				}
+				try {
+					for (Object item : items) {
+						if (item instanceof FollowVehicle follow) {
+							this.legs.followVehicle(follow.vehicleId(), follow.currentLinkId());
+						} else {
+							handleEvent((Event) item);
+						}
+					}
+				} catch (Throwable e) {
+					exception.compareAndSet(null, e);
+				}
+			}
+		}
+
+		private void handleEvent(Event o) {
+			// this is for the stuff that is directly based on events. note that this passes on _all_ person events, even those which are
+			// aggregated into legs and activities. for the time being, not all PersonEvents may "implement HasPersonId". link enter/leave events
+			// are NOT passed on, for performance reasons. kai/dominik, dec'12
+			if (o instanceof HasPersonId && owns(((HasPersonId) o).getPersonId())) {
+				ScoringFunction scoringFunction = getScoringFunctionForAgent(((HasPersonId) o).getPersonId());
+				if (scoringFunction != null) {
+					if (o instanceof PersonStuckEvent) {
+						scoringFunction.agentStuck(o.getTime());
+					} else if (o instanceof PersonMoneyEvent) {
+						scoringFunction.addMoney(((PersonMoneyEvent) o).getAmount());
+						// yy looking at this, I am a bit skeptic if it truly makes sense to not pass this additionally into the general events handling function below.
+						// A use case might be different utilities of money by money transaction type (e.g. toll, fare, reimbursement, ...).  kai, mar'17
+					} else if (o instanceof PersonScoreEvent) {
+						scoringFunction.addScore(((PersonScoreEvent) o).getAmount());
+					}
+					scoringFunction.handleEvent(o);
+					// passing this on in any case, see comment above.  kai, mar'17
+				}
+			}
+
+			// Establish and end connection between driver and vehicle
+			if (o instanceof VehicleEntersTrafficEvent) {
+				this.vehicles2Drivers.handleEvent((VehicleEntersTrafficEvent) o);
+			}
+			if (o instanceof VehicleLeavesTrafficEvent) {
+				this.vehicles2Drivers.handleEvent((VehicleLeavesTrafficEvent) o);
+			}
+
+			// Pass LinkEnterEvent to person scoring, required e.g. for bicycle where link attributes are observed in scoring
+			/*
+			 * (This shouldn't really be more expensive than passing the link events to the router: here, we have a map lookup
+			 * for agentId, there we have a map lookup for linkId. Should be somewhat similar in terms of average
+			 * computational complexity. In BetaTravelTest, 194sec w/ "false", 193sec w/ "true". However, the experienced
+			 * plans service in fact does the same thing, so we should be able to get away without having to do this twice.
+			 * kai, mar'17)
+			 */
+			if (o instanceof LinkEnterEvent) {
+				Id<Vehicle> vehicleId = ((LinkEnterEvent)o).getVehicleId();
+				Id<Person> driverId = this.vehicles2Drivers.getDriverOfVehicle(vehicleId);
+				if (owns(driverId)) {
+					ScoringFunction scoringFunction = getScoringFunctionForAgent( driverId );
+					// (this will NOT do the scoring function lookup twice since LinkEnterEvent is not an instance of HasPersonId.  kai, mar'17)
+					if (scoringFunction != null) {
+						scoringFunction.handleEvent(o);
+					}
+				}
+			}
+
+			/* Now also handle events for eventsToLegs and eventsToActivities.
+			 * This class deliberately only implements BasicEventHandler and not the individual event handlers required
+			 * by EventsToLegs and EventsToActivities to better control the order in which events are passed to scoring
+			 * functions. By handling the delegation here *after* having the events passed to scoringFunction.handleEvent()
+			 * makes sure that the corresponding event was already seen by a scoring function when the call to handleActivity(),
+			 * handleLeg() or handleTrip() is done.
+			 */
+			if (o instanceof ActivityStartEvent) this.handleActivityStart((ActivityStartEvent) o);
+			if (o instanceof ActivityEndEvent) this.acts.handleEvent((ActivityEndEvent) o);
+
+			if (o instanceof PersonDepartureEvent) this.legs.handleEvent((PersonDepartureEvent) o);
+			if (o instanceof PersonArrivalEvent) this.legs.handleEvent((PersonArrivalEvent) o);
+			if (o instanceof LinkEnterEvent) this.legs.handleEvent((LinkEnterEvent) o);
+			if (o instanceof TeleportationArrivalEvent) this.legs.handleEvent((TeleportationArrivalEvent) o);
+			if (o instanceof TransitDriverStartsEvent) this.legs.handleEvent((TransitDriverStartsEvent) o);
+			if (o instanceof PersonEntersVehicleEvent) this.legs.handleEvent((PersonEntersVehicleEvent) o);
+			if (o instanceof VehicleArrivesAtFacilityEvent) this.legs.handleEvent((VehicleArrivesAtFacilityEvent) o);
+			if (o instanceof VehicleEntersTrafficEvent) this.legs.handleEvent((VehicleEntersTrafficEvent) o);
+			if (o instanceof VehicleLeavesTrafficEvent) this.legs.handleEvent((VehicleLeavesTrafficEvent) o);
+		}
+
+		private void handleActivityStart(ActivityStartEvent event) {
+			this.acts.handleEvent(event);
+			if (!StageActivityTypeIdentifier.isStageActivity( event.getActType() ) ) {
+				callTripScoring(event);
+			}
+		}
+
+		private void reset(int iteration) {
+			this.legs.reset(iteration);
+			this.acts.reset(iteration);
 		}
 	}
 
@@ -270,6 +518,7 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 	}
 
 	void finishScoringFunctions() {
+		drainShards();
 		// Rethrow an exception in a scoring function (user code) if there was one.
 		Throwable throwable = this.exception.get();
 		if (throwable != null) {
@@ -305,8 +554,16 @@ import static org.matsim.core.router.TripStructureUtils.Trip;
 
 	@Override
 	public void reset(int iteration) {
-		this.legsDelegate.reset(iteration);
-		this.actsDelegate.reset(iteration);
+		drainShards();
+		for (Shard shard : this.shards) {
+			shard.reset(iteration);
+		}
+		for (VehicleShards vehicle : this.vehicleShards.values()) {
+			// the driver index is not reset, like in the sequential mode
+			vehicle.shards = 0;
+			vehicle.currentLinkId = null;
+			vehicle.transit = false;
+		}
 	}
 
 }
@@ -83,8 +83,13 @@ public final class CharyparNagelScoringFunctionFactory implements ScoringFunctio
 		final ScoringParameters parameters = params.getScoringParameters( person );
 
 		SumScoringFunction sumScoringFunction = new SumScoringFunction();
-		sumScoringFunction.addScoringFunction(new CharyparNagelActivityScoring( parameters ));
-		sumScoringFunction.addScoringFunction(new CharyparNagelLegScoring( parameters , this.network, config.transit().getTransitModes() ));
+		if ( config.scoring().isUseCompiledScoring() ) {
+			sumScoringFunction.addScoringFunction(new CompiledActivityScoring( parameters ));
+			sumScoringFunction.addScoringFunction(new CompiledLegScoring( parameters , parameters.marginalUtilityOfMoney, config.transit().getTransitModes() ));
+		} else {
+			sumScoringFunction.addScoringFunction(new CharyparNagelActivityScoring( parameters ));
+			sumScoringFunction.addScoringFunction(new CharyparNagelLegScoring( parameters , this.network, config.transit().getTransitModes() ));
+		}
 		sumScoringFunction.addScoringFunction(new CharyparNagelMoneyScoring( parameters ));
 		sumScoringFunction.addScoringFunction(new CharyparNagelAgentStuckScoring( parameters ));
 		sumScoringFunction.addScoringFunction(new ScoreEventScoring());
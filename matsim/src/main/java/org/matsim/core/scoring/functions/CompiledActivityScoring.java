@@ -0,0 +1,245 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompiledActivityScoring.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring.functions;
+
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.core.scoring.SumScoringFunction;
+
+/**
+ * Scores activities exactly like {@link CharyparNagelActivityScoring} with the {@link ActivityTypeOpeningIntervalCalculator},
+ * but based on the {@link ScoringParameterTable}.
+ *
+ * <p>The activities are only recorded as type index, arrival and departure time, and scored in one loop when the score
+ * is requested. The scores are added up in the same order as by {@link CharyparNagelActivityScoring}, so the result is
+ * the same, bit by bit.</p>
+ */
+/* deliberately package */ final class CompiledActivityScoring implements SumScoringFunction.ActivityScoring {
+
+	private static final Logger log = LogManager.getLogger(CompiledActivityScoring.class);
+
+	private static int firstLastActWarning = 0;
+	private static short firstLastActOpeningTimesWarning = 0;
+
+	private final ScoringParameters params;
+	private final ScoringParameterTable table;
+
+	private Activity firstActivity;
+
+	private int[] types = new int[8];
+	private double[] arrivalTimes = new double[8];
+	private double[] departureTimes = new double[8];
+	private int size = 0;
+	private int scored = 0;
+	private double score = 0.0;
+
+	CompiledActivityScoring(final ScoringParameters params) {
+		this.params = params;
+		this.table = params.getTable();
+		firstLastActOpeningTimesWarning = 0;
+	}
+
+	@Override
+	public void finish() {
+		if (this.firstActivity != null) {
+			add(0.0, this.firstActivity.getEndTime().seconds(), this.firstActivity);
+		}
+	}
+
+	@Override
+	public double getScore() {
+		scoreActivities();
+		return this.score;
+	}
+
+	@Override
+	public void handleFirstActivity(Activity act) {
+		assert act != null;
+		this.firstActivity = act;
+	}
+
+	@Override
+	public void handleActivity(Activity act) {
+		add(act.getStartTime().seconds(), act.getEndTime().seconds(), act);
+	}
+
+	@Override
+	public void handleLastActivity(Activity lastActivity) {
+		if (lastActivity.getType().equals(this.firstActivity.getType()) || this.firstActivity.getType().equals("not specified")) {
+			if (firstLastActOpeningTimesWarning <= 10) {
+				int type = getTypeIndex(lastActivity);
+				if (!Double.isNaN(this.table.openingTime[type]) || !Double.isNaN(this.table.closingTime[type])) {
+					log.warn("There are opening or closing times defined for the first and last activity. The correctness of the scoring function can thus not be guaranteed.");
+					log.warn("first activity: " + this.firstActivity);
+					log.warn("last activity: " + lastActivity);
+					if (firstLastActOpeningTimesWarning == 10) {
+						log.warn("Additional warnings of this type are suppressed.");
+					}
+					firstLastActOpeningTimesWarning++;
+				}
+			}
+			add(lastActivity.getStartTime().seconds(), this.firstActivity.getEndTime().seconds() + 24 * 3600, lastActivity);
+		} else if (this.params.scoreActs) {
+			int last = 0;
+			if (firstLastActWarning <= last) {
+				log.warn("The first and the last activity do not have the same type. ");
+				log.warn("Will score the first activity from midnight to its end, and the last activity from its start to midnight.");
+				log.warn("Because of the nonlinear function, this is not the same as scoring from start to end.");
+				log.warn("first activity: " + this.firstActivity);
+				log.warn("last activity: " + lastActivity);
+				log.warn("This may also happen when plans are not completed when the simulation ends.");
+				if (firstLastActWarning == last) {
+					log.warn("Additional warnings of this type are suppressed.");
+				}
+				firstLastActWarning++;
+			}
+			add(0.0, this.firstActivity.getEndTime().seconds(), this.firstActivity);
+			add(lastActivity.getStartTime().seconds(), this.params.simulationPeriodInDays * 24 * 3600, lastActivity);
+		}
+		this.firstActivity = null;
+	}
+
+	private int getTypeIndex(Activity act) {
+		int type = this.table.getActivityTypeIndex(act.getType());
+		if (type == ScoringParameterTable.UNKNOWN) {
+			throw new IllegalArgumentException("acttype \"" + act.getType() + "\" is not known in utility parameters " +
+					"(module name=\"planCalcScore\" in the config file).");
+		}
+		return type;
+	}
+
+	private void add(double arrivalTime, double departureTime, Activity act) {
+		int type = getTypeIndex(act);
+		if (this.size == this.types.length) {
+			int length = 2 * this.size;
+			this.types = Arrays.copyOf(this.types, length);
+			this.arrivalTimes = Arrays.copyOf(this.arrivalTimes, length);
+			this.departureTimes = Arrays.copyOf(this.departureTimes, length);
+		}
+		this.types[this.size] = type;
+		this.arrivalTimes[this.size] = arrivalTime;
+		this.departureTimes[this.size] = departureTime;
+		this.size++;
+	}
+
+	private void scoreActivities() {
+		for (int i = this.scored; i < this.size; i++) {
+			this.score += calcActScore(this.arrivalTimes[i], this.departureTimes[i], this.types[i]);
+		}
+		this.scored = this.size;
+	}
+
+	/**
+	 * See {@link CharyparNagelActivityScoring#calcActScore(double, double, Activity)} for the explanation of the terms.
+	 */
+	private double calcActScore(final double arrivalTime, final double departureTime, final int type) {
+		final ScoringParameterTable t = this.table;
+		final ScoringParameters p = this.params;
+		double tmpScore = 0.0;
+
+		if (t.scoreAtAll[type]) {
+			double openingTime = t.openingTime[type];
+			double closingTime = t.closingTime[type];
+			boolean hasOpeningTime = !Double.isNaN(openingTime);
+			boolean hasClosingTime = !Double.isNaN(closingTime);
+
+			double activityStart = arrivalTime;
+			double activityEnd = departureTime;
+
+			if (hasOpeningTime && arrivalTime < openingTime) {
+				activityStart = openingTime;
+			}
+			if (hasClosingTime && closingTime < departureTime) {
+				activityEnd = closingTime;
+			}
+			if (hasOpeningTime && hasClosingTime && (openingTime > departureTime || closingTime < arrivalTime)) {
+				// agent could not perform action
+				activityStart = departureTime;
+				activityEnd = departureTime;
+			}
+			double duration = activityEnd - activityStart;
+
+			// disutility if too early
+			if (arrivalTime < activityStart) {
+				tmpScore += p.marginalUtilityOfWaiting_s * (activityStart - arrivalTime);
+			}
+
+			// disutility if too late
+			double latestStartTime = t.latestStartTime[type];
+			if (!Double.isNaN(latestStartTime) && (activityStart > latestStartTime)) {
+				tmpScore += p.marginalUtilityOfLateArrival_s * (activityStart - latestStartTime);
+			}
+
+			double typicalDuration = t.typicalDuration[type];
+			double zeroUtilityDuration_h = t.zeroUtilityDuration_h[type];
+
+			if (p.usingOldScoringBelowZeroUtilityDuration) {
+				if (duration > 0) {
+					double utilPerf = p.marginalUtilityOfPerforming_s * typicalDuration
+							* Math.log((duration / 3600.0) / zeroUtilityDuration_h);
+					double utilWait = p.marginalUtilityOfWaiting_s * duration;
+					tmpScore += Math.max(0, Math.max(utilPerf, utilWait));
+				} else {
+					tmpScore += 2 * p.marginalUtilityOfLateArrival_s * Math.abs(duration);
+				}
+			} else {
+				if (duration >= 3600. * zeroUtilityDuration_h) {
+					double utilPerf = p.marginalUtilityOfPerforming_s * typicalDuration
+							* Math.log((duration / 3600.0) / zeroUtilityDuration_h);
+					tmpScore += utilPerf;
+				} else {
+					// below zeroUtilityDuration, we linearly extend the slope ...:
+					double slopeAtZeroUtility = p.marginalUtilityOfPerforming_s * typicalDuration / (3600. * zeroUtilityDuration_h);
+					if (slopeAtZeroUtility < 0.) {
+						throw new RuntimeException("slope at zero utility < 0.; this should not happen ...");
+					}
+					double durationUnderrun = zeroUtilityDuration_h * 3600. - duration;
+					if (durationUnderrun < 0.) {
+						throw new RuntimeException("durationUnderrun < 0; this should not happen ...");
+					}
+					tmpScore -= slopeAtZeroUtility * durationUnderrun;
+				}
+			}
+
+			// disutility if stopping too early
+			double earliestEndTime = t.earliestEndTime[type];
+			if (!Double.isNaN(earliestEndTime) && (activityEnd < earliestEndTime)) {
+				tmpScore += p.marginalUtilityOfEarlyDeparture_s * (earliestEndTime - activityEnd);
+			}
+
+			// disutility if going to away to late
+			if (activityEnd < departureTime) {
+				tmpScore += p.marginalUtilityOfWaiting_s * (departureTime - activityEnd);
+			}
+
+			// disutility if duration was too short
+			double minimalDuration = t.minimalDuration[type];
+			if (!Double.isNaN(minimalDuration) && (duration < minimalDuration)) {
+				tmpScore += p.marginalUtilityOfEarlyDeparture_s * (minimalDuration - duration);
+			}
+		}
+		return tmpScore;
+	}
+
+}
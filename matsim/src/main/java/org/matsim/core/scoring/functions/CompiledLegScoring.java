@@ -0,0 +1,206 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompiledLegScoring.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring.functions;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.core.gbl.Gbl;
+import org.matsim.core.scoring.SumScoringFunction;
+import org.matsim.pt.PtConstants;
+
+/**
+ * Scores legs exactly like {@link CharyparNagelLegScoring}, but based on the {@link ScoringParameterTable}.
+ *
+ * <p>The legs are only recorded as mode index, departure and arrival time and distance, and scored in one loop when the
+ * score is requested. The corrections for transit legs are recorded in between, so all terms are added up in the same
+ * order as by {@link CharyparNagelLegScoring}, and the result is the same, bit by bit.</p>
+ */
+/* deliberately package */ final class CompiledLegScoring implements SumScoringFunction.LegScoring, SumScoringFunction.ArbitraryEventScoring {
+
+	private static final Logger log = LogManager.getLogger(CompiledLegScoring.class);
+
+	/** marks a recorded term which is added as it is, instead of a leg */
+	private static final int TERM = -1;
+
+	private static int ccc = 0;
+
+	private final ScoringParameters params;
+	private final ScoringParameterTable table;
+	private final double marginalUtilityOfMoney;
+	private final Set<String> ptModes;
+
+	private boolean nextEnterVehicleIsFirstOfTrip = true;
+	private boolean nextStartPtLegIsFirstOfTrip = true;
+	private boolean currentLegIsPtLeg = false;
+	private double lastActivityEndTime = Double.NaN;
+
+	private final boolean[] modesAlreadyConsideredForDailyConstants;
+
+	// for legs, the mode index, departure time, arrival time and distance; for terms, TERM and the value as departure time
+	private int[] modes = new int[8];
+	private double[] departureTimes = new double[8];
+	private double[] arrivalTimes = new double[8];
+	private double[] distances = new double[8];
+	private int size = 0;
+	private int scored = 0;
+	private double score = 0.0;
+
+	CompiledLegScoring(final ScoringParameters params, double marginalUtilityOfMoney, Set<String> ptModes) {
+		this.params = params;
+		this.table = params.getTable();
+		this.marginalUtilityOfMoney = marginalUtilityOfMoney;
+		this.ptModes = ptModes;
+		this.modesAlreadyConsideredForDailyConstants = new boolean[this.table.getNumberOfModes()];
+	}
+
+	@Override
+	public void finish() {
+	}
+
+	@Override
+	public double getScore() {
+		scoreLegs();
+		return this.score;
+	}
+
+	@Override
+	public void handleEvent(Event event) {
+		if (event instanceof ActivityEndEvent activityEndEvent) {
+			// When there is a "real" activity, flags are reset:
+			if (!PtConstants.TRANSIT_ACTIVITY_TYPE.equals(activityEndEvent.getActType())) {
+				this.nextEnterVehicleIsFirstOfTrip = true;
+				this.nextStartPtLegIsFirstOfTrip = true;
+			}
+			this.lastActivityEndTime = event.getTime();
+		}
+
+		if (event instanceof PersonEntersVehicleEvent && this.currentLegIsPtLeg) {
+			if (!this.nextEnterVehicleIsFirstOfTrip) {
+				// all vehicle entering after the first triggers the disutility of line switch:
+				addTerm(this.params.utilityOfLineSwitch);
+			}
+			this.nextEnterVehicleIsFirstOfTrip = false;
+			// add score of waiting, _minus_ score of travelling (since it is added in the legscoring above):
+			addTerm((event.getTime() - this.lastActivityEndTime) * (this.params.marginalUtilityOfWaitingPt_s
+					- this.table.marginalUtilityOfTraveling_s[this.table.getModeIndex(TransportMode.pt)]));
+		}
+
+		if (event instanceof PersonDepartureEvent departureEvent) {
+			String mode = departureEvent.getLegMode();
+
+			this.currentLegIsPtLeg = this.ptModes.contains(mode);
+			if (this.currentLegIsPtLeg) {
+				if (!this.nextStartPtLegIsFirstOfTrip) {
+					// deducting the constant again, see CharyparNagelLegScoring
+					addTerm(-this.table.constant[this.table.getModeIndex(mode)]);
+				}
+				this.nextStartPtLegIsFirstOfTrip = false;
+			}
+		}
+	}
+
+	@Override
+	public void handleLeg(Leg leg) {
+		Gbl.assertIf(leg.getDepartureTime().isDefined());
+		Gbl.assertIf(leg.getTravelTime().isDefined());
+
+		int mode = this.table.getModeIndex(leg.getMode());
+		if (mode == ScoringParameterTable.UNKNOWN) {
+			throw new RuntimeException("just encountered mode for which no scoring parameters are defined: " + leg.getMode());
+		}
+		double distance = Double.NaN;
+		if (this.table.marginalUtilityOfDistance_m[mode] != 0.0 || this.table.monetaryDistanceCostRate[mode] != 0.0) {
+			distance = leg.getRoute().getDistance();
+			if (Double.isNaN(distance)) {
+				if (ccc < 10) {
+					ccc++;
+					log.warn("distance is NaN. Will make score of this plan NaN. Possible reason: Simulation does not report " +
+							"a distance for this trip. Possible reason for that: mode is teleported and router does not " +
+							"write distance into plan.  Needs to be fixed or these plans will die out.");
+					if (ccc == 10) {
+						log.warn(Gbl.FUTURE_SUPPRESSED);
+					}
+				}
+			}
+		}
+		add(mode, leg.getDepartureTime().seconds(), leg.getDepartureTime().seconds() + leg.getTravelTime().seconds(), distance);
+	}
+
+	private void addTerm(double value) {
+		add(TERM, value, Double.NaN, Double.NaN);
+	}
+
+	private void add(int mode, double departureTime, double arrivalTime, double distance) {
+		if (this.size == this.modes.length) {
+			int length = 2 * this.size;
+			this.modes = Arrays.copyOf(this.modes, length);
+			this.departureTimes = Arrays.copyOf(this.departureTimes, length);
+			this.arrivalTimes = Arrays.copyOf(this.arrivalTimes, length);
+			this.distances = Arrays.copyOf(this.distances, length);
+		}
+		this.modes[this.size] = mode;
+		this.departureTimes[this.size] = departureTime;
+		this.arrivalTimes[this.size] = arrivalTime;
+		this.distances[this.size] = distance;
+		this.size++;
+	}
+
+	private void scoreLegs() {
+		final ScoringParameterTable t = this.table;
+		for (int i = this.scored; i < this.size; i++) {
+			int mode = this.modes[i];
+			if (mode == TERM) {
+				this.score += this.departureTimes[i];
+				continue;
+			}
+			double travelTime = this.arrivalTimes[i] - this.departureTimes[i];
+			double tmpScore = 0.0;
+			tmpScore += travelTime * t.marginalUtilityOfTraveling_s[mode];
+			if (t.marginalUtilityOfDistance_m[mode] != 0.0 || t.monetaryDistanceCostRate[mode] != 0.0) {
+				double dist = this.distances[i];
+				tmpScore += t.marginalUtilityOfDistance_m[mode] * dist;
+				tmpScore += t.monetaryDistanceCostRate[mode] * this.marginalUtilityOfMoney * dist;
+			}
+			tmpScore += t.constant[mode];
+			if (!this.modesAlreadyConsideredForDailyConstants[mode]) {
+				tmpScore += t.dailyUtilityConstant[mode] + t.dailyMoneyConstant[mode] * this.marginalUtilityOfMoney;
+				this.modesAlreadyConsideredForDailyConstants[mode] = true;
+			}
+			if (Double.isNaN(tmpScore)) {
+				this.scored = i + 1;
+				log.error("dpTime=" + this.departureTimes[i] + "; ttime=" + travelTime + "; mode index=" + mode);
+				throw new RuntimeException("score is NaN");
+			}
+			this.score += tmpScore;
+		}
+		this.scored = this.size;
+	}
+
+}
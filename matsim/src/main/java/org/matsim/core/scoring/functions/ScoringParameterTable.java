@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScoringParameterTable.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring.functions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.core.utils.misc.OptionalTime;
+
+/**
+ * The activity and mode parameters of one {@link ScoringParameters} instance, compiled into primitive arrays
+ * indexed by the activity type and mode. Undefined times are stored as {@link Double#NaN}.
+ *
+ * <p>As the scoring parameters are usually shared by all persons of a subpopulation, so is this table, see
+ * {@link ScoringParameters#getTable()}.</p>
+ */
+/* deliberately package */ final class ScoringParameterTable {
+
+	static final int UNKNOWN = -1;
+
+	private final Map<String, Integer> activityTypeIndices = new HashMap<>();
+	final boolean[] scoreAtAll;
+	final double[] typicalDuration;
+	final double[] zeroUtilityDuration_h;
+	final double[] openingTime;
+	final double[] closingTime;
+	final double[] latestStartTime;
+	final double[] earliestEndTime;
+	final double[] minimalDuration;
+
+	private final Map<String, Integer> modeIndices = new HashMap<>();
+	final double[] marginalUtilityOfTraveling_s;
+	final double[] marginalUtilityOfDistance_m;
+	final double[] monetaryDistanceCostRate;
+	final double[] constant;
+	final double[] dailyUtilityConstant;
+	final double[] dailyMoneyConstant;
+
+	ScoringParameterTable(ScoringParameters params) {
+		List<ActivityUtilityParameters> activityParams = new ArrayList<>(params.utilParams.values());
+		int n = activityParams.size();
+		this.scoreAtAll = new boolean[n];
+		this.typicalDuration = new double[n];
+		this.zeroUtilityDuration_h = new double[n];
+		this.openingTime = new double[n];
+		this.closingTime = new double[n];
+		this.latestStartTime = new double[n];
+		this.earliestEndTime = new double[n];
+		this.minimalDuration = new double[n];
+		int i = 0;
+		for (Map.Entry<String, ActivityUtilityParameters> entry : params.utilParams.entrySet()) {
+			ActivityUtilityParameters p = entry.getValue();
+			this.activityTypeIndices.put(entry.getKey(), i);
+			this.scoreAtAll[i] = p.isScoreAtAll();
+			this.typicalDuration[i] = p.getTypicalDuration();
+			this.zeroUtilityDuration_h[i] = p.getZeroUtilityDuration_h();
+			this.openingTime[i] = toDouble(p.getOpeningTime());
+			this.closingTime[i] = toDouble(p.getClosingTime());
+			this.latestStartTime[i] = toDouble(p.getLatestStartTime());
+			this.earliestEndTime[i] = toDouble(p.getEarliestEndTime());
+			this.minimalDuration[i] = toDouble(p.getMinimalDuration());
+			i++;
+		}
+
+		// the walk modes without own parameters are scored like walk, but they count separately for the daily constants
+		List<String> modes = new ArrayList<>(params.modeParams.keySet());
+		if (params.modeParams.containsKey(TransportMode.walk)) {
+			for (String walkMode : new String[] {TransportMode.transit_walk, TransportMode.non_network_walk}) {
+				if (!params.modeParams.containsKey(walkMode)) {
+					modes.add(walkMode);
+				}
+			}
+		}
+		int m = modes.size();
+		this.marginalUtilityOfTraveling_s = new double[m];
+		this.marginalUtilityOfDistance_m = new double[m];
+		this.monetaryDistanceCostRate = new double[m];
+		this.constant = new double[m];
+		this.dailyUtilityConstant = new double[m];
+		this.dailyMoneyConstant = new double[m];
+		for (int j = 0; j < m; j++) {
+			ModeUtilityParameters p = params.modeParams.get(modes.get(j));
+			if (p == null) {
+				p = params.modeParams.get(TransportMode.walk);
+			}
+			this.modeIndices.put(modes.get(j), j);
+			this.marginalUtilityOfTraveling_s[j] = p.marginalUtilityOfTraveling_s;
+			this.marginalUtilityOfDistance_m[j] = p.marginalUtilityOfDistance_m;
+			this.monetaryDistanceCostRate[j] = p.monetaryDistanceCostRate;
+			this.constant[j] = p.constant;
+			this.dailyUtilityConstant[j] = p.dailyUtilityConstant;
+			this.dailyMoneyConstant[j] = p.dailyMoneyConstant;
+		}
+	}
+
+	private static double toDouble(OptionalTime time) {
+		return time.isDefined() ? time.seconds() : Double.NaN;
+	}
+
+	/**
+	 * @return the index of the activity type, or {@link #UNKNOWN}.
+	 */
+	int getActivityTypeIndex(String activityType) {
+		Integer index = this.activityTypeIndices.get(activityType);
+		return index == null ? UNKNOWN : index;
+	}
+
+	int getNumberOfModes() {
+		return this.constant.length;
+	}
+
+	/**
+	 * @return the index of the mode, or {@link #UNKNOWN}.
+	 */
+	int getModeIndex(String mode) {
+		Integer index = this.modeIndices.get(mode);
+		return index == null ? UNKNOWN : index;
+	}
+
+}
@@ -50,6 +50,8 @@ public class ScoringParameters implements MatsimParameters {
 
 	public final double simulationPeriodInDays;
 
+	private volatile ScoringParameterTable table = null;
+
 	private ScoringParameters(
 			final Map<String, ActivityUtilityParameters> utilParams,
 			final Map<String, ModeUtilityParameters> modeParams,
@@ -79,6 +81,18 @@ public class ScoringParameters implements MatsimParameters {
 		this.simulationPeriodInDays = simulationPeriodInDays;
 	}
 
+	/**
+	 * @return the parameters compiled into primitive arrays, created on first use.
+	 */
+	/* package */ ScoringParameterTable getTable() {
+		ScoringParameterTable table = this.table;
+		if (table == null) {
+			table = new ScoringParameterTable(this);
+			this.table = table;
+		}
+		return table;
+	}
+
 	public static final class Builder {
 		private final Map<String, ActivityUtilityParameters> utilParams;
 		private final Map<String, ModeUtilityParameters> modeParams;
@@ -23,7 +23,6 @@ import com.google.inject.Inject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.matsim.api.core.v01.Id;
-import org.matsim.api.core.v01.IdMap;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.VehicleAbortsEvent;
@@ -46,14 +45,13 @@ import org.matsim.core.gbl.Gbl;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
-import org.matsim.core.utils.collections.Tuple;
 import org.matsim.vehicles.Vehicle;
 import org.matsim.vehicles.VehicleType;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Calculates actual travel times on link from events and optionally also the link-to-link
@@ -62,6 +60,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * <br>
  * Travel times on links are collected and averaged in bins/slots with a specified size
  * (<code>binSize</code>, in seconds, default 900 seconds = 15 minutes).
+ * <br>
+ * The data is stored in arrays indexed by the {@link Id#index() index} of the link and vehicle ids,
+ * and only allocated for links which are actually used. The events of different vehicles may be handled
+ * concurrently, e.g. by several event streams partitioned by vehicle.
  *
  * @author dgrether
  * @author mrieser
@@ -79,13 +81,14 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	TimeSlotComputation aggregator;
 
 	private final Network network;
-	private IdMap<Link, TravelTimeDataArray> linkData;
+	private volatile AtomicReferenceArray<TravelTimeDataArray> linkData;
 
-	private Map<Tuple<Id<Link>, Id<Link>>, TravelTimeDataArray> linkToLinkData;
+	private Map<Long, TravelTimeDataArray> linkToLinkData;
 
-	private final Map<Id<Vehicle>, LinkEnterEvent> linkEnterEvents;
+	// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
+	// the vehicleEntersTraffic event.  So these also memorize the ignored vehicles from there ...
+	private final VehicleLinkEnterTimes linkEnterTimes;
 
-	private final Set<Id<Vehicle>> vehiclesToIgnore;
 	private final Set<String> analyzedModes;
 
 	private final boolean filterAnalyzedModes;
@@ -216,17 +219,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		this.aggregator = new TimeSlotComputation(this.numSlots, this.timeSlice);
 		this.travelTimeGetter = new AveragingTravelTimeGetter( this.aggregator ) ;
 		if (this.calculateLinkTravelTimes) {
-			this.linkData = new IdMap<>(Link.class);
+			this.linkData = new AtomicReferenceArray<>(Math.max(1, Id.getNumberOfIds(Link.class)));
 		}
 		if (this.calculateLinkToLinkTravelTimes){
 			// assume that every link has 2 outgoing links as default
 			this.linkToLinkData = new ConcurrentHashMap<>((int) (network.getLinks().size() * 1.4 * 2));
 		}
-		this.linkEnterEvents = new ConcurrentHashMap<>();
-
-		// if we just look at one mode, we need to ignore all vehicles with a different mode. However, the info re the mode is only in
-		// the vehicleEntersTraffic event.  So we need to memorize the ignored vehicles from there ...
-		this.vehiclesToIgnore = new HashSet<>();
+		this.linkEnterTimes = new VehicleLinkEnterTimes();
 
 		this.reset(0);
 	}
@@ -235,27 +234,28 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	public void handleEvent(final LinkEnterEvent e) {
 		/* if only some modes are analyzed, we check whether the vehicles
 		 * performs a trip with one of those modes. if not, we skip the event. */
-		if (filterAnalyzedModes && vehiclesToIgnore.contains(e.getVehicleId())) return;
+		if (filterAnalyzedModes && this.linkEnterTimes.isIgnored(e.getVehicleId())) return;
 
-		LinkEnterEvent oldEvent = this.linkEnterEvents.put(e.getVehicleId(), e);
-		if ((oldEvent != null) && this.calculateLinkToLinkTravelTimes) {
-			Tuple<Id<Link>, Id<Link>> fromToLink = new Tuple<>(oldEvent.getLinkId(), e.getLinkId());
-			TravelTimeData data = getLinkToLinkTravelTimeData(fromToLink );
-			double enterTime = oldEvent.getTime();
+		if (this.calculateLinkToLinkTravelTimes) {
+			int fromLinkIndex = this.linkEnterTimes.getLinkIndex(e.getVehicleId());
+			if (fromLinkIndex != VehicleLinkEnterTimes.NO_LINK) {
+				TravelTimeData data = getLinkToLinkTravelTimeData(Id.get(fromLinkIndex, Link.class), e.getLinkId());
+				double enterTime = this.linkEnterTimes.getEnterTime(e.getVehicleId());
 
-			final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
-			data.addTravelTime(timeSlot, e.getTime() - enterTime );
-			data.setNeedsConsolidation( true );
+				final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
+				data.addTravelTime(timeSlot, e.getTime() - enterTime );
+				data.setNeedsConsolidation( true );
+			}
 		}
+		this.linkEnterTimes.enter(e.getVehicleId(), e.getLinkId().index(), e.getTime());
 	}
 
 	@Override
 	public void handleEvent(final LinkLeaveEvent e) {
 		if (this.calculateLinkTravelTimes) {
-			LinkEnterEvent oldEvent = this.linkEnterEvents.get(e.getVehicleId());
-			if (oldEvent != null) {
+			if (this.linkEnterTimes.getLinkIndex(e.getVehicleId()) != VehicleLinkEnterTimes.NO_LINK) {
 				TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
-				double enterTime = oldEvent.getTime();
+				double enterTime = this.linkEnterTimes.getEnterTime(e.getVehicleId());
 
 				final int timeSlot = this.aggregator.getTimeSlotIndex(enterTime );
 				data.addTravelTime(timeSlot, e.getTime() - enterTime );
@@ -270,7 +270,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		 * starts a leg on a non analyzed transport mode, add the vehicle
 		 * to the filtered vehicles set. */
 		if (filterAnalyzedModes && !analyzedModes.contains(event.getNetworkMode())) {
-			this.vehiclesToIgnore.add(event.getVehicleId());
+			this.linkEnterTimes.setIgnored(event.getVehicleId(), true);
 		}
 	}
 
@@ -279,10 +279,10 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		/* remove EnterEvents from list when a vehicle arrives.
 		 * otherwise, the activity duration would be counted as travel time, when the
 		 * vehicle departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		this.linkEnterTimes.remove(event.getVehicleId());
 
 		// try to remove vehicles from set with filtered vehicles
-		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
+		if (filterAnalyzedModes) this.linkEnterTimes.setIgnored(event.getVehicleId(), false);
 	}
 
 	@Override
@@ -290,14 +290,15 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		/* remove EnterEvents from list when a bus stops on a link.
 		 * otherwise, the stop time would be counted as travel time, when the
 		 * bus departs again and leaves the link! */
-		this.linkEnterEvents.remove(event.getVehicleId());
+		this.linkEnterTimes.remove(event.getVehicleId());
 	}
 
 	@Override
 	public void handleEvent(VehicleAbortsEvent event) {
-		LinkEnterEvent e = this.linkEnterEvents.remove(event.getVehicleId());
-		if (e != null) {
-			TravelTimeData data = this.getTravelTimeData(e.getLinkId(), true);
+		int linkIndex = this.linkEnterTimes.getLinkIndex(event.getVehicleId());
+		if (linkIndex != VehicleLinkEnterTimes.NO_LINK) {
+			this.linkEnterTimes.remove(event.getVehicleId());
+			TravelTimeData data = this.getTravelTimeData(Id.get(linkIndex, Link.class), true);
 			data.setNeedsConsolidation( true );
 
 			//			this.aggregator.addStuckEventTravelTime(data, e.getTime(), event.getTime());
@@ -313,27 +314,43 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 		}
 
 		// try to remove vehicle from set with filtered vehicles
-		if (filterAnalyzedModes) this.vehiclesToIgnore.remove(event.getVehicleId());
+		if (filterAnalyzedModes) this.linkEnterTimes.setIgnored(event.getVehicleId(), false);
 	}
 
 	private TravelTimeDataArray getTravelTimeData(final Id<Link> linkId, final boolean createIfMissing) {
-		TravelTimeDataArray data = this.linkData.get(linkId);
+		AtomicReferenceArray<TravelTimeDataArray> linkData = this.linkData;
+		TravelTimeDataArray data = linkId.index() < linkData.length() ? linkData.get(linkId.index()) : null;
 		if ((null == data) && createIfMissing) {
-			data = this.createTravelTimeData(linkId);
-			this.linkData.put(linkId, data);
+			data = this.createLinkTravelTimeData(linkId);
 		}
 		return data;
 	}
 
-	private TravelTimeDataArray getLinkToLinkTravelTimeData( Tuple<Id<Link>, Id<Link>> fromLinkToLink ) {
-		TravelTimeDataArray data = this.linkToLinkData.get(fromLinkToLink);
-		if ( null == data ) {
-			data = this.createTravelTimeData(fromLinkToLink.getFirst()) ;
-			this.linkToLinkData.put(fromLinkToLink, data);
+	/* The data of a link is only created once, so a lock is fine here. It also makes sure that growing the
+	 * array does not lose the data of another link created at the same time. */
+	private synchronized TravelTimeDataArray createLinkTravelTimeData(final Id<Link> linkId) {
+		AtomicReferenceArray<TravelTimeDataArray> linkData = this.linkData;
+		if (linkId.index() >= linkData.length()) {
+			AtomicReferenceArray<TravelTimeDataArray> newLinkData = new AtomicReferenceArray<>(Math.max(linkId.index() + 1, Id.getNumberOfIds(Link.class)));
+			for (int i = 0; i < linkData.length(); i++) {
+				newLinkData.set(i, linkData.get(i));
+			}
+			this.linkData = newLinkData;
+			linkData = newLinkData;
+		}
+		TravelTimeDataArray data = linkData.get(linkId.index());
+		if (data == null) {
+			data = this.createTravelTimeData(linkId);
+			linkData.set(linkId.index(), data);
 		}
 		return data;
 	}
 
+	private TravelTimeDataArray getLinkToLinkTravelTimeData( Id<Link> fromLinkId, Id<Link> toLinkId ) {
+		long key = ((long) fromLinkId.index() << 32) | toLinkId.index();
+		return this.linkToLinkData.computeIfAbsent(key, k -> this.createTravelTimeData(fromLinkId));
+	}
+
 	private TravelTimeDataArray createTravelTimeData(Id<Link> linkId) {
 		return new TravelTimeDataArray(this.network.getLinks().get(linkId), this.numSlots);
 	}
@@ -356,7 +373,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 			throw new IllegalStateException("No link to link travel time is available " +
 									    "if calculation is switched off by config option!");
 		}
-		TravelTimeData data = this.getLinkToLinkTravelTimeData(new Tuple<>(fromLinkId, toLinkId) );
+		TravelTimeData data = this.getLinkToLinkTravelTimeData(fromLinkId, toLinkId);
 		if ( data.isNeedingConsolidation() ) {
 			consolidateData(data);
 		}
@@ -366,9 +383,13 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 	@Override
 	public void reset(int iteration) {
 		if (this.calculateLinkTravelTimes) {
-			for (TravelTimeData data : this.linkData.values()){
-				data.resetTravelTimes();
-				data.setNeedsConsolidation( false );
+			AtomicReferenceArray<TravelTimeDataArray> linkData = this.linkData;
+			for (int i = 0; i < linkData.length(); i++) {
+				TravelTimeData data = linkData.get(i);
+				if (data != null) {
+					data.resetTravelTimes();
+					data.setNeedsConsolidation( false );
+				}
 			}
 		}
 		if (this.calculateLinkToLinkTravelTimes){
@@ -377,8 +398,7 @@ public final class TravelTimeCalculator implements LinkEnterEventHandler, LinkLe
 				data.setNeedsConsolidation( false );
 			}
 		}
-		this.linkEnterEvents.clear();
-		this.vehiclesToIgnore.clear();
+		this.linkEnterTimes.clear();
 	}
 
 	/**
@@ -22,6 +22,8 @@ package org.matsim.core.trafficmonitoring;
 
 import org.matsim.api.core.v01.network.Link;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 
 /**
@@ -55,7 +57,13 @@ class TravelTimeDataArray extends TravelTimeData {
 	 * implementation like SpeedyALT.
 	 *
 	 * -mrieser, april 2021
+	 *
+	 * As count and travel time are stored in the same long value, a travel time
+	 * can be added atomically with a compare-and-set, without any locks. This
+	 * allows to feed a single instance from several event streams in parallel.
 	 */
+	private static final VarHandle DATA = MethodHandles.arrayElementVarHandle(long[].class);
+
 	private final long[] data;
 	private final Link link;
 
@@ -94,15 +102,19 @@ class TravelTimeDataArray extends TravelTimeData {
 
 	@Override
 	public void addTravelTime(final int timeSlot, final double traveltime) {
-		long val = this.data[timeSlot];
-		int cnt = count(val);
-		double tt = traveltime(val);
-		double sum = tt * cnt;
-
-		sum += traveltime;
-		cnt++;
-
-		this.data[timeSlot] = encode(cnt, sum / cnt);
+		long val;
+		long newVal;
+		do {
+			val = (long) DATA.getVolatile(this.data, timeSlot);
+			int cnt = count(val);
+			double tt = traveltime(val);
+			double sum = tt * cnt;
+
+			sum += traveltime;
+			cnt++;
+
+			newVal = encode(cnt, sum / cnt);
+		} while (!DATA.compareAndSet(this.data, timeSlot, val, newVal));
 	}
 
 	@Override
@@ -117,6 +129,10 @@ class TravelTimeDataArray extends TravelTimeData {
 		return freespeed;
 	}
 
+	/* package-private for testing */ int getCount(final int timeSlot) {
+		return count(this.data[timeSlot]);
+	}
+
 	/* package-private for debugging */ String cntToString(){
 		StringBuilder strb = new StringBuilder().append( "cnt=[ " );
 		for( int ii = 0 ; ii < this.data.length ; ii++ ){
@@ -0,0 +1,147 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * VehicleLinkEnterTimes.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.trafficmonitoring;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Remembers for every vehicle the link it entered last, and when, in primitive arrays indexed by the
+ * {@link Id#index() index} of the vehicle id. The arrays are split into chunks which are only allocated
+ * once a vehicle of the chunk shows up.
+ *
+ * <p>Different vehicles may be updated concurrently, e.g. by event streams partitioned by vehicle. The events of
+ * one vehicle must be handled by one thread at a time.</p>
+ */
+/* deliberately package */ final class VehicleLinkEnterTimes {
+
+	static final int NO_LINK = -1;
+
+	private static final int CHUNK_BITS = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	private static final class Chunk {
+		final double[] enterTimes = new double[CHUNK_SIZE];
+		final int[] linkIndices = new int[CHUNK_SIZE];
+		final boolean[] ignored = new boolean[CHUNK_SIZE];
+
+		Chunk() {
+			Arrays.fill(this.linkIndices, NO_LINK);
+		}
+	}
+
+	private volatile AtomicReferenceArray<Chunk> chunks;
+
+	VehicleLinkEnterTimes() {
+		this.chunks = new AtomicReferenceArray<>(Math.max(1, (Id.getNumberOfIds(Vehicle.class) >>> CHUNK_BITS) + 1));
+	}
+
+	private Chunk getChunk(int vehicleIndex) {
+		AtomicReferenceArray<Chunk> chunks = this.chunks;
+		int chunkIndex = vehicleIndex >>> CHUNK_BITS;
+		return chunkIndex < chunks.length() ? chunks.get(chunkIndex) : null;
+	}
+
+	private Chunk getOrCreateChunk(int vehicleIndex) {
+		Chunk chunk = getChunk(vehicleIndex);
+		return chunk == null ? createChunk(vehicleIndex >>> CHUNK_BITS) : chunk;
+	}
+
+	/* Chunks are only added while holding the lock, so growing the array cannot lose a concurrently added chunk.
+	 * This happens once for every CHUNK_SIZE vehicles, so there is no contention in practice. */
+	private synchronized Chunk createChunk(int chunkIndex) {
+		AtomicReferenceArray<Chunk> chunks = this.chunks;
+		if (chunkIndex >= chunks.length()) {
+			AtomicReferenceArray<Chunk> newChunks = new AtomicReferenceArray<>(Math.max(chunkIndex + 1, 2 * chunks.length()));
+			for (int i = 0; i < chunks.length(); i++) {
+				newChunks.set(i, chunks.get(i));
+			}
+			this.chunks = newChunks;
+			chunks = newChunks;
+		}
+		Chunk chunk = chunks.get(chunkIndex);
+		if (chunk == null) {
+			chunk = new Chunk();
+			chunks.set(chunkIndex, chunk);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Remembers that the vehicle entered the given link, replacing the link it entered before.
+	 */
+	void enter(Id<Vehicle> vehicleId, int linkIndex, double time) {
+		Chunk chunk = getOrCreateChunk(vehicleId.index());
+		int i = vehicleId.index() & (CHUNK_SIZE - 1);
+		chunk.linkIndices[i] = linkIndex;
+		chunk.enterTimes[i] = time;
+	}
+
+	/**
+	 * @return the index of the link the vehicle entered last, or {@link #NO_LINK}.
+	 */
+	int getLinkIndex(Id<Vehicle> vehicleId) {
+		Chunk chunk = getChunk(vehicleId.index());
+		return chunk == null ? NO_LINK : chunk.linkIndices[vehicleId.index() & (CHUNK_SIZE - 1)];
+	}
+
+	double getEnterTime(Id<Vehicle> vehicleId) {
+		Chunk chunk = getChunk(vehicleId.index());
+		return chunk == null ? Double.NaN : chunk.enterTimes[vehicleId.index() & (CHUNK_SIZE - 1)];
+	}
+
+	/**
+	 * Forgets the link the vehicle entered last.
+	 */
+	void remove(Id<Vehicle> vehicleId) {
+		Chunk chunk = getChunk(vehicleId.index());
+		if (chunk != null) {
+			chunk.linkIndices[vehicleId.index() & (CHUNK_SIZE - 1)] = NO_LINK;
+		}
+	}
+
+	boolean isIgnored(Id<Vehicle> vehicleId) {
+		Chunk chunk = getChunk(vehicleId.index());
+		return chunk != null && chunk.ignored[vehicleId.index() & (CHUNK_SIZE - 1)];
+	}
+
+	void setIgnored(Id<Vehicle> vehicleId, boolean ignored) {
+		Chunk chunk = ignored ? getOrCreateChunk(vehicleId.index()) : getChunk(vehicleId.index());
+		if (chunk != null) {
+			chunk.ignored[vehicleId.index() & (CHUNK_SIZE - 1)] = ignored;
+		}
+	}
+
+	void clear() {
+		AtomicReferenceArray<Chunk> chunks = this.chunks;
+		for (int i = 0; i < chunks.length(); i++) {
+			Chunk chunk = chunks.get(i);
+			if (chunk != null) {
+				Arrays.fill(chunk.linkIndices, NO_LINK);
+				Arrays.fill(chunk.ignored, false);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,380 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedRTree.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.matsim.api.core.v01.Coord;
+
+/**
+ * A static spatial index for many nearest-neighbour and disk queries on elements which do not change anymore.
+ *
+ * <p>The bounding boxes of the elements are sorted along a Hilbert curve and packed bottom-up into nodes of
+ * {@value #NODE_SIZE} boxes. All boxes are stored in primitive arrays, so the index needs neither node nor leaf
+ * objects. It is built in O(n log n), the sorting is done in parallel. The queries walk the tree without a stack and
+ * do not allocate, apart from the convenience methods returning lists.</p>
+ *
+ * <p>For points, the distance of an element is the distance to its coordinate. For other elements, e.g. links, a
+ * {@link DistanceFunction} can be given which is exact within the bounding box of the element. Elements at the same
+ * distance are returned in the order in which they were given when building the index, so the results do not depend
+ * on the shape of the tree. This is not necessarily the order in which {@link QuadTree} returns them.</p>
+ *
+ * @see QuadTrees#createPackedRTree(Collection)
+ * @see org.matsim.core.network.NetworkUtils#createLinkRTree(org.matsim.api.core.v01.network.Network)
+ */
+public final class PackedRTree<T> {
+
+	public static final int NODE_SIZE = 16;
+
+	private static final int HILBERT_MAX = (1 << 15) - 1;
+
+	@FunctionalInterface
+	public interface DistanceFunction<T> {
+		/**
+		 * @return the squared distance between the element and (x,y), at least the squared distance to its bounding box.
+		 */
+		double calcDistanceSquared(T element, double x, double y);
+	}
+
+	private final List<T> elements;
+	private final DistanceFunction<? super T> distanceFunction;
+
+	// the boxes of the elements in Hilbert order, followed by the nodes, level by level
+	private final double[] minX;
+	private final double[] minY;
+	private final double[] maxX;
+	private final double[] maxY;
+	// for elements the index in the elements list, for nodes the position of their first child
+	private final int[] indices;
+	// the position after the last box of each level, level 0 are the elements
+	private final int[] levelEnds;
+
+	/**
+	 * Creates an index over points.
+	 */
+	public static <T> PackedRTree<T> createForPoints(Collection<? extends T> elements, Function<? super T, Coord> coordFunction) {
+		return create(elements, e -> {
+			Coord c = coordFunction.apply(e);
+			return new QuadTree.Rect(c.getX(), c.getY(), c.getX(), c.getY());
+		}, null);
+	}
+
+	/**
+	 * Creates an index over arbitrary elements.
+	 *
+	 * @param boundsFunction the bounding box of each element
+	 * @param distanceFunction the distance of each element, <code>null</code> to use the distance to its bounding box
+	 */
+	public static <T> PackedRTree<T> create(Collection<? extends T> elements, Function<? super T, QuadTree.Rect> boundsFunction,
+			DistanceFunction<? super T> distanceFunction) {
+		return new PackedRTree<>(new ArrayList<>(elements), boundsFunction, distanceFunction);
+	}
+
+	private PackedRTree(List<T> elements, Function<? super T, QuadTree.Rect> boundsFunction, DistanceFunction<? super T> distanceFunction) {
+		this.elements = elements;
+		this.distanceFunction = distanceFunction;
+		int n = elements.size();
+
+		double[] eMinX = new double[n];
+		double[] eMinY = new double[n];
+		double[] eMaxX = new double[n];
+		double[] eMaxY = new double[n];
+		double globalMinX = Double.POSITIVE_INFINITY;
+		double globalMinY = Double.POSITIVE_INFINITY;
+		double globalMaxX = Double.NEGATIVE_INFINITY;
+		double globalMaxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			QuadTree.Rect bounds = boundsFunction.apply(elements.get(i));
+			eMinX[i] = bounds.minX;
+			eMinY[i] = bounds.minY;
+			eMaxX[i] = bounds.maxX;
+			eMaxY[i] = bounds.maxY;
+			globalMinX = Math.min(globalMinX, bounds.minX);
+			globalMinY = Math.min(globalMinY, bounds.minY);
+			globalMaxX = Math.max(globalMaxX, bounds.maxX);
+			globalMaxY = Math.max(globalMaxY, bounds.maxY);
+		}
+
+		// sort the elements by the Hilbert value of their centers, ties by their index
+		final double offsetX = globalMinX;
+		final double offsetY = globalMinY;
+		final double scaleX = globalMaxX > globalMinX ? HILBERT_MAX / (globalMaxX - globalMinX) : 0.0;
+		final double scaleY = globalMaxY > globalMinY ? HILBERT_MAX / (globalMaxY - globalMinY) : 0.0;
+		long[] keys = new long[n];
+		IntStream.range(0, n).parallel().forEach(i -> {
+			int hx = (int) (((eMinX[i] + eMaxX[i]) / 2 - offsetX) * scaleX);
+			int hy = (int) (((eMinY[i] + eMaxY[i]) / 2 - offsetY) * scaleY);
+			keys[i] = (hilbert(hx, hy) << 32) | i;
+		});
+		Arrays.parallelSort(keys);
+
+		List<Integer> ends = new ArrayList<>();
+		ends.add(n);
+		int numBoxes = n;
+		int count = n;
+		while (count > 1 || (count == 1 && ends.size() == 1)) {
+			count = (count + NODE_SIZE - 1) / NODE_SIZE;
+			numBoxes += count;
+			ends.add(numBoxes);
+		}
+		this.levelEnds = ends.stream().mapToInt(Integer::intValue).toArray();
+		this.minX = new double[numBoxes];
+		this.minY = new double[numBoxes];
+		this.maxX = new double[numBoxes];
+		this.maxY = new double[numBoxes];
+		this.indices = new int[numBoxes];
+
+		for (int pos = 0; pos < n; pos++) {
+			int i = (int) keys[pos];
+			this.minX[pos] = eMinX[i];
+			this.minY[pos] = eMinY[i];
+			this.maxX[pos] = eMaxX[i];
+			this.maxY[pos] = eMaxY[i];
+			this.indices[pos] = i;
+		}
+		for (int level = 1; level < this.levelEnds.length; level++) {
+			int childEnd = this.levelEnds[level - 1];
+			int pos = childEnd;
+			for (int child = levelStart(level - 1); child < childEnd; child += NODE_SIZE, pos++) {
+				double nMinX = Double.POSITIVE_INFINITY;
+				double nMinY = Double.POSITIVE_INFINITY;
+				double nMaxX = Double.NEGATIVE_INFINITY;
+				double nMaxY = Double.NEGATIVE_INFINITY;
+				for (int c = child, end = Math.min(child + NODE_SIZE, childEnd); c < end; c++) {
+					nMinX = Math.min(nMinX, this.minX[c]);
+					nMinY = Math.min(nMinY, this.minY[c]);
+					nMaxX = Math.max(nMaxX, this.maxX[c]);
+					nMaxY = Math.max(nMaxY, this.maxY[c]);
+				}
+				this.minX[pos] = nMinX;
+				this.minY[pos] = nMinY;
+				this.maxX[pos] = nMaxX;
+				this.maxY[pos] = nMaxY;
+				this.indices[pos] = child;
+			}
+		}
+	}
+
+	/**
+	 * @return the position of the point on a Hilbert curve through a grid of 2^15 x 2^15 cells.
+	 */
+	private static long hilbert(int x, int y) {
+		long d = 0;
+		for (int s = 1 << 14; s > 0; s >>= 1) {
+			int rx = (x & s) > 0 ? 1 : 0;
+			int ry = (y & s) > 0 ? 1 : 0;
+			d += (long) s * s * ((3 * rx) ^ ry);
+			if (ry == 0) {
+				if (rx == 1) {
+					x = HILBERT_MAX - x;
+					y = HILBERT_MAX - y;
+				}
+				int tmp = x;
+				x = y;
+				y = tmp;
+			}
+		}
+		return d;
+	}
+
+	public int size() {
+		return this.elements.size();
+	}
+
+	/**
+	 * @return the element at the given index, in the order in which the elements were given when building the index.
+	 */
+	public T get(int index) {
+		return this.elements.get(index);
+	}
+
+	/**
+	 * @return the closest element to (x,y), <code>null</code> if the index is empty.
+	 */
+	public T getClosest(final double x, final double y) {
+		int best = -1;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		long cursor = root();
+		while (cursor >= 0) {
+			int pos = (int) cursor;
+			int level = (int) (cursor >>> 32);
+			if (calcBoxDistanceSquared(pos, x, y) > bestDistance) {
+				cursor = next(pos, level);
+			} else if (level > 0) {
+				cursor = cursor(this.indices[pos], level - 1);
+			} else {
+				int index = this.indices[pos];
+				double distance = calcDistanceSquared(pos, x, y);
+				if (distance < bestDistance || (distance == bestDistance && index < best)) {
+					bestDistance = distance;
+					best = index;
+				}
+				cursor = next(pos, level);
+			}
+		}
+		return best < 0 ? null : this.elements.get(best);
+	}
+
+	/**
+	 * Finds the <code>k</code> closest elements to (x,y), without allocating.
+	 *
+	 * @param indices filled with the indices of the closest elements, see {@link #get(int)}, sorted by distance. Must have
+	 *                a length of at least <code>k</code>.
+	 * @param distances filled with the distances of the closest elements. Must have a length of at least <code>k</code>.
+	 * @return the number of elements found, <code>k</code> unless the index contains fewer elements.
+	 */
+	public int getClosest(final double x, final double y, final int k, final int[] indices, final double[] distances) {
+		if (k <= 0) {
+			return 0;
+		}
+		int found = 0;
+		long cursor = root();
+		while (cursor >= 0) {
+			int pos = (int) cursor;
+			int level = (int) (cursor >>> 32);
+			double bound = found < k ? Double.POSITIVE_INFINITY : distances[k - 1];
+			if (calcBoxDistanceSquared(pos, x, y) > bound) {
+				cursor = next(pos, level);
+			} else if (level > 0) {
+				cursor = cursor(this.indices[pos], level - 1);
+			} else {
+				int index = this.indices[pos];
+				double distance = calcDistanceSquared(pos, x, y);
+				if (found < k || distance < bound || (distance == bound && index < indices[k - 1])) {
+					int i = found < k ? found++ : k - 1;
+					while (i > 0 && (distances[i - 1] > distance || (distances[i - 1] == distance && indices[i - 1] > index))) {
+						distances[i] = distances[i - 1];
+						indices[i] = indices[i - 1];
+						i--;
+					}
+					distances[i] = distance;
+					indices[i] = index;
+				}
+				cursor = next(pos, level);
+			}
+		}
+		for (int i = 0; i < found; i++) {
+			distances[i] = Math.sqrt(distances[i]);
+		}
+		return found;
+	}
+
+	/**
+	 * @return the <code>k</code> closest elements to (x,y), sorted by distance.
+	 */
+	public List<T> getClosest(final double x, final double y, final int k) {
+		int[] indices = new int[Math.max(0, Math.min(k, size()))];
+		int found = getClosest(x, y, indices.length, indices, new double[indices.length]);
+		List<T> result = new ArrayList<>(found);
+		for (int i = 0; i < found; i++) {
+			result.add(this.elements.get(indices[i]));
+		}
+		return result;
+	}
+
+	/**
+	 * Passes all elements with a distance of at most <code>distance</code> to (x,y) to the consumer, in no particular
+	 * order.
+	 */
+	public void forEachInDisk(final double x, final double y, final double distance, final Consumer<? super T> consumer) {
+		double bound = distance * distance;
+		long cursor = root();
+		while (cursor >= 0) {
+			int pos = (int) cursor;
+			int level = (int) (cursor >>> 32);
+			if (calcBoxDistanceSquared(pos, x, y) > bound) {
+				cursor = next(pos, level);
+			} else if (level > 0) {
+				cursor = cursor(this.indices[pos], level - 1);
+			} else {
+				if (calcDistanceSquared(pos, x, y) <= bound) {
+					consumer.accept(this.elements.get(this.indices[pos]));
+				}
+				cursor = next(pos, level);
+			}
+		}
+	}
+
+	/**
+	 * @return all elements with a distance of at most <code>distance</code> to (x,y), in no particular order.
+	 */
+	public List<T> getDisk(final double x, final double y, final double distance) {
+		List<T> result = new ArrayList<>();
+		forEachInDisk(x, y, distance, result::add);
+		return result;
+	}
+
+	// the tree is walked without a stack: a cursor holds the level and the position of a box, the parent of a box is
+	// found from its position within its level.
+
+	private static long cursor(int pos, int level) {
+		return ((long) level << 32) | pos;
+	}
+
+	private long root() {
+		if (this.elements.isEmpty()) {
+			return -1;
+		}
+		int top = this.levelEnds.length - 1;
+		return cursor(this.levelEnds[top] - 1, top);
+	}
+
+	private int levelStart(int level) {
+		return level == 0 ? 0 : this.levelEnds[level - 1];
+	}
+
+	/**
+	 * @return the cursor of the next sibling of the box, or of the next sibling of its closest ancestor which has one, or
+	 * -1 if the walk is done.
+	 */
+	private long next(int pos, int level) {
+		int top = this.levelEnds.length - 1;
+		while (level < top) {
+			int offset = pos - levelStart(level);
+			if (pos + 1 < this.levelEnds[level] && (offset + 1) % NODE_SIZE != 0) {
+				return cursor(pos + 1, level);
+			}
+			pos = this.levelEnds[level] + offset / NODE_SIZE;
+			level++;
+		}
+		return -1;
+	}
+
+	private double calcBoxDistanceSquared(int pos, double x, double y) {
+		double dx = x < this.minX[pos] ? this.minX[pos] - x : (x > this.maxX[pos] ? x - this.maxX[pos] : 0.0);
+		double dy = y < this.minY[pos] ? this.minY[pos] - y : (y > this.maxY[pos] ? y - this.maxY[pos] : 0.0);
+		return dx * dx + dy * dy;
+	}
+
+	private double calcDistanceSquared(int pos, double x, double y) {
+		if (this.distanceFunction == null) {
+			return calcBoxDistanceSquared(pos, x, y);
+		}
+		return this.distanceFunction.calcDistanceSquared(this.elements.get(this.indices[pos]), x, y);
+	}
+
+}
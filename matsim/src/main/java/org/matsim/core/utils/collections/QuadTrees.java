@@ -68,4 +68,16 @@ public class QuadTrees {
 		}
 		return quadTree;
 	}
+
+	/**
+	 * Creates a {@link PackedRTree}, which is faster to build and to query than a {@link QuadTree}, but cannot be
+	 * changed afterwards.
+	 */
+	public static <E extends BasicLocation> PackedRTree<E> createPackedRTree(Collection<E> elements) {
+		return createPackedRTree(elements, BasicLocation::getCoord);
+	}
+
+	public static <E> PackedRTree<E> createPackedRTree(Collection<E> elements, Function<E, Coord> coordFunction) {
+		return PackedRTree.createForPoints(elements, coordFunction);
+	}
 }
@@ -116,6 +116,10 @@ import java.util.zip.GZIPOutputStream;
  * <li><code>*.zst</code>: ZStandard compression</li>
  * </ul>
  *
+ * Gzip and ZStandard output is compressed by several threads, gzip output of more than one block then consists
+ * of several gzip members. Compressed input is decompressed in a separate thread while it is read. The number of
+ * threads is set with {@link #setCompressionThreads(int)}; with a value of 1, everything is done in the calling thread.
+ *
  * <h2>Encryption</h2>
  *
  * Files ending with {@code .enc} are assumed to be encrypted and will be handled with {@link CipherUtils}.
@@ -178,6 +182,26 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 		}
 	}
 
+	private static int compressionThreads = 1;
+
+	/**
+	 * Sets the number of threads used for compressing a single gzip or ZStandard output file. Values larger than 1 also
+	 * enable the decompression of input files in a separate thread. The default is 1, i.e. everything is done in the
+	 * calling thread. The controller sets it to <code>controller.numberOfCompressionThreads</code> while it runs.
+	 * Streams which are already open keep the number of threads they were created with.
+	 */
+	public static void setCompressionThreads(int threads) {
+		if (threads >= 1) {
+			compressionThreads = threads;
+		} else {
+			logger.error("Invalid number of compression threads.");
+		}
+	}
+
+	public static int getCompressionThreads() {
+		return compressionThreads;
+	}
+
 	// Define a number of charsets that are / have been used.
 	public static final Charset CHARSET_UTF8 = StandardCharsets.UTF_8;
 	public static final Charset CHARSET_WINDOWS_ISO88591 = StandardCharsets.ISO_8859_1;
@@ -301,6 +325,9 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 						inputStream = new ZstdInputStream(inputStream);
 						break;
 				}
+				if (compressionThreads > 1) {
+					inputStream = new ReadAheadInputStream(inputStream);
+				}
 			}
 
 			return new UnicodeInputStream(new BufferedInputStream(inputStream));
@@ -359,7 +386,7 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 			if (compression != null) {
 				switch (compression) {
 					case GZIP:
-						outputStream = new GZIPOutputStream(outputStream);
+						outputStream = compressionThreads > 1 ? new ParallelGzipOutputStream(outputStream, compressionThreads) : new GZIPOutputStream(outputStream);
 						break;
 					case LZ4:
 						outputStream = new LZ4FrameOutputStream(outputStream);
@@ -368,7 +395,12 @@ PR ist hier: https://github.com/matsim-org/matsim/pull/646
 						outputStream = new CompressorStreamFactory().createCompressorOutputStream(CompressorStreamFactory.BZIP2, outputStream);
 						break;
 					case ZSTD:
-						outputStream = new ZstdOutputStream(outputStream, zstdCompressionLevel);
+						ZstdOutputStream zstdOutputStream = new ZstdOutputStream(outputStream, zstdCompressionLevel);
+						if (compressionThreads > 1) {
+							// zstd only starts additional jobs when the output is large enough
+							zstdOutputStream.setWorkers(compressionThreads);
+						}
+						outputStream = zstdOutputStream;
 						break;
 				}
 			}
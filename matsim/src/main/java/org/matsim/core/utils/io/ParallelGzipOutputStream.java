@@ -0,0 +1,192 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGzipOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzip output stream compressing blocks of data in parallel, similar to <code>pigz</code>.
+ *
+ * <p>Every block of {@value #BLOCK_SIZE} bytes is compressed to a separate gzip member. The members are written
+ * in order, so the result is a regular multi-member gzip file which can be read by any gzip implementation, including
+ * {@link java.util.zip.GZIPInputStream}. Outputs smaller than one block are compressed by the calling thread
+ * and result in a single member, like with {@link java.util.zip.GZIPOutputStream}.</p>
+ *
+ * <p>The number of blocks being compressed at the same time is limited, so a fast producer waits for the
+ * compression instead of buffering the whole output in memory.</p>
+ */
+/* deliberately package */ final class ParallelGzipOutputStream extends OutputStream {
+
+	/* package */ static final int BLOCK_SIZE = 1024 * 1024;
+
+	private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+	/**
+	 * One pool per thread budget. The pools are shared by all streams with the same budget and never shut down, so
+	 * changing the budget does not affect streams which are still open. Their threads are daemons.
+	 */
+	private static final Map<Integer, ExecutorService> EXECUTORS = new ConcurrentHashMap<>();
+
+	private static final ThreadLocal<Deflater> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+
+	private final OutputStream out;
+	private final int threads;
+	private final ExecutorService blockExecutor;
+	private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int blockLength = 0;
+	private boolean membersWritten = false;
+	private boolean closed = false;
+
+	ParallelGzipOutputStream(OutputStream out, int threads) {
+		this.out = out;
+		this.threads = threads;
+		this.blockExecutor = EXECUTORS.computeIfAbsent(threads, n -> Executors.newFixedThreadPool(n, runnable -> {
+			Thread thread = new Thread(runnable, "ParallelGzipOutputStream-" + n);
+			thread.setDaemon(true);
+			return thread;
+		}));
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (this.blockLength == BLOCK_SIZE) {
+			submitBlock();
+		}
+		this.block[this.blockLength++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.blockLength == BLOCK_SIZE) {
+				submitBlock();
+			}
+			int length = Math.min(len, BLOCK_SIZE - this.blockLength);
+			System.arraycopy(b, off, this.block, this.blockLength, length);
+			this.blockLength += length;
+			off += length;
+			len -= length;
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		final byte[] data = this.block;
+		final int length = this.blockLength;
+		this.pending.add(this.blockExecutor.submit(() -> compress(data, length)));
+		this.block = new byte[BLOCK_SIZE];
+		this.blockLength = 0;
+		// keep all threads busy, but do not buffer more than necessary
+		while (this.pending.size() > this.threads) {
+			writeMember(this.pending.poll());
+		}
+	}
+
+	private void writeMember(Future<byte[]> member) throws IOException {
+		try {
+			this.out.write(member.get());
+			this.membersWritten = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+
+	private static byte[] compress(byte[] data, int length) {
+		Deflater deflater = DEFLATERS.get();
+		deflater.reset();
+		deflater.setInput(data, 0, length);
+		deflater.finish();
+
+		ByteArrayOutputStream member = new ByteArrayOutputStream(length / 4 + 64);
+		member.write(HEADER, 0, HEADER.length);
+		byte[] buffer = new byte[64 * 1024];
+		while (!deflater.finished()) {
+			int n = deflater.deflate(buffer);
+			member.write(buffer, 0, n);
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+		writeIntLE(member, (int) crc.getValue());
+		writeIntLE(member, length);
+		return member.toByteArray();
+	}
+
+	private static void writeIntLE(ByteArrayOutputStream out, int value) {
+		out.write(value);
+		out.write(value >>> 8);
+		out.write(value >>> 16);
+		out.write(value >>> 24);
+	}
+
+	/**
+	 * Writes the members which are already compressed. Like {@link java.util.zip.GZIPOutputStream}, this does not
+	 * compress the data of the current block, as this would deteriorate the compression of frequently flushed streams.
+	 */
+	@Override
+	public void flush() throws IOException {
+		while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+			writeMember(this.pending.poll());
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			if (this.pending.isEmpty() && !this.membersWritten) {
+				// small output, not worth handing it to another thread
+				this.out.write(compress(this.block, this.blockLength));
+			} else {
+				if (this.blockLength > 0) {
+					submitBlock();
+				}
+				while (!this.pending.isEmpty()) {
+					writeMember(this.pending.poll());
+				}
+			}
+			this.block = null;
+		} finally {
+			this.out.close();
+		}
+	}
+
+}
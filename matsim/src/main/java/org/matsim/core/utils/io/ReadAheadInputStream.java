@@ -0,0 +1,153 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReadAheadInputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Input stream reading the next chunk of data from the underlying stream in a background thread, while the
+ * current chunk is consumed. Used for decompressing input files while they are parsed.
+ *
+ * <p>Only one read is in progress at a time, so a stream which is not closed does not occupy a thread.</p>
+ */
+/* deliberately package */ final class ReadAheadInputStream extends InputStream {
+
+	private static final int CHUNK_SIZE = 256 * 1024;
+
+	private static final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+		Thread thread = new Thread(runnable, "ReadAheadInputStream");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final InputStream in;
+
+	private byte[] current = new byte[CHUNK_SIZE];
+	private byte[] next = new byte[CHUNK_SIZE];
+	private int position = 0;
+	private int limit = 0;
+	private Future<Integer> nextLength;
+	private boolean eof = false;
+
+	ReadAheadInputStream(InputStream in) {
+		this.in = in;
+		this.nextLength = readAhead();
+	}
+
+	private Future<Integer> readAhead() {
+		final byte[] buffer = this.next;
+		return executor.submit(() -> {
+			int length = 0;
+			while (length < buffer.length) {
+				int n = this.in.read(buffer, length, buffer.length - length);
+				if (n < 0) {
+					return length == 0 ? -1 : length;
+				}
+				length += n;
+			}
+			return length;
+		});
+	}
+
+	private boolean fill() throws IOException {
+		if (this.eof) {
+			return false;
+		}
+		int length;
+		try {
+			length = this.nextLength.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			this.eof = true;
+			this.nextLength = null;
+			if (e.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
+			throw new IOException(e.getCause());
+		}
+		if (length < 0) {
+			this.eof = true;
+			this.nextLength = null;
+			return false;
+		}
+		byte[] tmp = this.current;
+		this.current = this.next;
+		this.next = tmp;
+		this.position = 0;
+		this.limit = length;
+		this.nextLength = readAhead();
+		return true;
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (this.position == this.limit && !fill()) {
+			return -1;
+		}
+		return this.current[this.position++] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		if (this.position == this.limit && !fill()) {
+			return -1;
+		}
+		int length = Math.min(len, this.limit - this.position);
+		System.arraycopy(this.current, this.position, b, off, length);
+		this.position += length;
+		return length;
+	}
+
+	@Override
+	public int available() {
+		return this.limit - this.position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.nextLength != null) {
+			// the underlying stream must not be closed while it is still read from
+			try {
+				this.nextLength.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// the data is not needed anymore
+			}
+			this.nextLength = null;
+		}
+		this.eof = true;
+		this.position = this.limit;
+		this.in.close();
+	}
+
+}
@@ -0,0 +1,179 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountStationVolumes.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.config.groups.CountsConfigGroup;
+import org.matsim.core.utils.collections.CollectionUtils;
+import org.matsim.core.utils.geometry.CoordUtils;
+
+import jakarta.inject.Inject;
+
+/**
+ * Counts the hourly volumes at the count stations directly from the link leave events, into one array indexed by the
+ * station and the hour. Only the count stations are looked at, so the errors against the counts can be calculated in every
+ * iteration, see {@link #calcErrorStats(double)}, without aggregating the volumes of all links first.
+ *
+ * <p>If {@link CountsConfigGroup#isFilterModes()} is set, the vehicles of all analyzed modes are counted in the same pass,
+ * the volumes are compared like by the {@link CountsControlerListener}.</p>
+ */
+/* deliberately package */ final class CountStationVolumes implements LinkLeaveEventHandler, VehicleEntersTrafficEventHandler {
+
+	static final int HOURS = 24;
+
+	private final List<Count<Link>> stations = new ArrayList<>();
+	/** the station of each link, indexed by the link index, -1 if the link has no station */
+	private final int[] stationIndices;
+	/** the count value per station and hour, NaN if there is no count */
+	private final double[] countValues;
+	private final int[] volumes;
+
+	private final Set<String> analyzedModes;
+	/** whether the vehicle, indexed by the vehicle index, has one of the analyzed modes */
+	private boolean[] countedVehicles = new boolean[0];
+
+	@Inject
+	CountStationVolumes(Counts<Link> counts, Network network, CountsConfigGroup config) {
+		this.analyzedModes = config.isFilterModes() ? CollectionUtils.stringToSet(config.getAnalyzedModes()) : null;
+
+		Coord center = null;
+		if (config.getDistanceFilter() != null && config.getDistanceFilterCenterNode() != null) {
+			center = network.getNodes().get(Id.create(config.getDistanceFilterCenterNode(), Node.class)).getCoord();
+		}
+		int linkIndexLimit = 0;
+		for (Count<Link> count : counts.getCounts().values()) {
+			Link link = network.getLinks().get(count.getId());
+			if (center != null && (link == null || CoordUtils.calcEuclideanDistance(link.getCoord(), center) >= config.getDistanceFilter())) {
+				continue;
+			}
+			this.stations.add(count);
+			linkIndexLimit = Math.max(linkIndexLimit, count.getId().index() + 1);
+		}
+
+		this.stationIndices = new int[linkIndexLimit];
+		Arrays.fill(this.stationIndices, -1);
+		this.countValues = new double[this.stations.size() * HOURS];
+		this.volumes = new int[this.stations.size() * HOURS];
+		for (int station = 0; station < this.stations.size(); station++) {
+			Count<Link> count = this.stations.get(station);
+			this.stationIndices[count.getId().index()] = station;
+			for (int hour = 0; hour < HOURS; hour++) {
+				Volume volume = count.getVolume(hour + 1);
+				this.countValues[station * HOURS + hour] = volume != null ? volume.getValue() : Double.NaN;
+			}
+		}
+	}
+
+	@Override
+	public void handleEvent(VehicleEntersTrafficEvent event) {
+		if (this.analyzedModes != null) {
+			int vehicleIndex = event.getVehicleId().index();
+			if (vehicleIndex >= this.countedVehicles.length) {
+				this.countedVehicles = Arrays.copyOf(this.countedVehicles, Math.max(vehicleIndex + 1, 2 * this.countedVehicles.length));
+			}
+			this.countedVehicles[vehicleIndex] = this.analyzedModes.contains(event.getNetworkMode());
+		}
+	}
+
+	@Override
+	public void handleEvent(LinkLeaveEvent event) {
+		int linkIndex = event.getLinkId().index();
+		if (linkIndex >= this.stationIndices.length || this.stationIndices[linkIndex] < 0) {
+			return;
+		}
+		if (this.analyzedModes != null) {
+			int vehicleIndex = event.getVehicleId().index();
+			if (vehicleIndex >= this.countedVehicles.length || !this.countedVehicles[vehicleIndex]) {
+				return;
+			}
+		}
+		int hour = (int) (event.getTime() / 3600);
+		if (hour < HOURS) {
+			this.volumes[this.stationIndices[linkIndex] * HOURS + hour]++;
+		}
+	}
+
+	@Override
+	public void reset(int iteration) {
+		Arrays.fill(this.volumes, 0);
+		Arrays.fill(this.countedVehicles, false);
+	}
+
+	int getNumberOfStations() {
+		return this.stations.size();
+	}
+
+	int getVolume(int station, int hour) {
+		return this.volumes[station * HOURS + hour];
+	}
+
+	/**
+	 * Compares the volumes, multiplied by the scale factor, with the counts of all station and hours with a count. The
+	 * errors are calculated like by the {@link CountSimComparisonImpl}.
+	 */
+	ErrorStats calcErrorStats(double countsScaleFactor) {
+		int values = 0;
+		double squaredError = 0;
+		double absError = 0;
+		double bias = 0;
+		double relError = 0;
+		double normRelError = 0;
+		for (int i = 0; i < this.countValues.length; i++) {
+			double countValue = this.countValues[i];
+			if (Double.isNaN(countValue)) {
+				continue;
+			}
+			double simValue = this.volumes[i] * countsScaleFactor;
+			double diff = simValue - countValue;
+			values++;
+			squaredError += diff * diff;
+			absError += Math.abs(diff);
+			bias += diff;
+			relError += countValue > 0 ? Math.abs(Math.min(diff / countValue, 1000d)) : (simValue > 0 ? 1000d : 0.0);
+			double max = Math.max(simValue, countValue);
+			normRelError += max == 0.0 ? 0.0 : Math.abs(diff) / max;
+		}
+		if (values == 0) {
+			return new ErrorStats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN);
+		}
+		return new ErrorStats(values, Math.sqrt(squaredError / values), absError / values, bias / values, relError / values, normRelError / values);
+	}
+
+	/**
+	 * The errors over all stations and hours with a count.
+	 */
+	record ErrorStats(int values, double rmse, double meanAbsError, double meanBias, double meanRelError, double meanNormRelError) {
+	}
+
+}
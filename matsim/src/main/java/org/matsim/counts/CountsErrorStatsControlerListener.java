@@ -0,0 +1,103 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountsErrorStatsControlerListener.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.matsim.core.config.groups.CountsConfigGroup;
+import org.matsim.core.config.groups.GlobalConfigGroup;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.events.StartupEvent;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.controler.listener.StartupListener;
+import org.matsim.core.utils.io.IOUtils;
+
+import jakarta.inject.Inject;
+
+/**
+ * Writes the errors of the simulated volumes against the counts in every iteration to <code>countsErrorStats.csv</code>,
+ * based on the {@link CountStationVolumes}. See {@link CountsConfigGroup#isWriteCountsErrorStats()}.
+ */
+/* deliberately package */ final class CountsErrorStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener {
+
+	private static final Logger log = LogManager.getLogger(CountsErrorStatsControlerListener.class);
+
+	static final String FILENAME = "countsErrorStats.csv";
+
+	private final CountStationVolumes volumes;
+	private final CountsConfigGroup config;
+	private final OutputDirectoryHierarchy controlerIO;
+	private final String delimiter;
+	private BufferedWriter out;
+
+	@Inject
+	CountsErrorStatsControlerListener(CountStationVolumes volumes, CountsConfigGroup config, OutputDirectoryHierarchy controlerIO,
+			GlobalConfigGroup globalConfig) {
+		this.volumes = volumes;
+		this.config = config;
+		this.controlerIO = controlerIO;
+		this.delimiter = globalConfig.getDefaultDelimiter();
+	}
+
+	@Override
+	public void notifyStartup(StartupEvent event) {
+		this.out = IOUtils.getBufferedWriter(this.controlerIO.getOutputFilename(FILENAME));
+		try {
+			this.out.write(String.join(this.delimiter, "iteration", "values", "rmse", "mean_abs_error", "mean_bias", "mean_rel_error",
+					"mean_norm_rel_error"));
+			this.out.write("\n");
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void notifyIterationEnds(IterationEndsEvent event) {
+		CountStationVolumes.ErrorStats stats = this.volumes.calcErrorStats(this.config.getCountsScaleFactor());
+		log.info("counts comparison of " + stats.values() + " values at " + this.volumes.getNumberOfStations() + " stations: rmse = "
+				+ stats.rmse() + ", mean relative error = " + stats.meanRelError());
+		try {
+			this.out.write(event.getIteration() + this.delimiter + stats.values() + this.delimiter + stats.rmse() + this.delimiter
+					+ stats.meanAbsError() + this.delimiter + stats.meanBias() + this.delimiter + stats.meanRelError() + this.delimiter
+					+ stats.meanNormRelError() + "\n");
+			this.out.flush();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void notifyShutdown(ShutdownEvent event) {
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -42,6 +42,12 @@ public class CountsModule extends AbstractModule {
     public void install() {
         addControlerListenerBinding().to(CountsControlerListener.class);
         bind(CountsInitializer.class).asEagerSingleton();
+        if (getConfig().counts().isWriteCountsErrorStats()) {
+            bind(CountStationVolumes.class).in(Singleton.class);
+            addEventHandlerBinding().to(CountStationVolumes.class);
+            bind(CountsErrorStatsControlerListener.class).in(Singleton.class);
+            addControlerListenerBinding().to(CountsErrorStatsControlerListener.class);
+        }
     }
 
     private static class CountsInitializer {
@@ -50,6 +50,7 @@ public class TransitConfigGroup extends ReflectiveConfigGroup {
 
 	private static final String INSISTING_ON_USING_DEPRECATED_ATTRIBUTE_FILE = "insistingOnUsingDeprecatedAttributeFiles" ;
 	private static final String USING_TRANSIT_IN_MOBSIM = "usingTransitInMobsim" ;
+	private static final String USING_DESTINATION_INDEX_AT_STOPS = "usingDestinationIndexAtStops" ;
 
 	public enum TransitRoutingAlgorithmType {@Deprecated DijkstraBased, SwissRailRaptor}
 
@@ -110,6 +111,10 @@ public class TransitConfigGroup extends ReflectiveConfigGroup {
 		comments.put(TRANSIT_LINES_ATTRIBUTES, "Optional input file containing additional attributes for transit lines, stored as ObjectAttributes.");
 		comments.put(TRANSIT_STOPS_ATTRIBUTES, "Optional input file containing additional attributes for transit stop facilities, stored as ObjectAttributes.");
 		comments.put(USE_TRANSIT, "Set this parameter to true if transit should be simulated, false if not.");
+		comments.put(USING_DESTINATION_INDEX_AT_STOPS, "If true, a transit vehicle only considers the agents waiting at a stop whose destination stop it serves, " +
+				"instead of asking every waiting agent. This is faster at busy stops, but only correct if the agents never want to enter " +
+				"a vehicle which does not serve their destination stop, and do not change their destination while waiting. " +
+				"This holds for the default agents, but not necessarily for within-day replanning. Defaults to false.");
 		comments.put(ROUTINGALGORITHM_TYPE, "The type of transit routing algorithm used, may have the values: " + Arrays.toString(TransitRoutingAlgorithmType.values()));
 
 		comments.put( SCHEDULE_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
@@ -228,6 +233,16 @@ public class TransitConfigGroup extends ReflectiveConfigGroup {
 		return usingTransitInMobsim ;
 	}
 
+	private boolean usingDestinationIndexAtStops = false ;
+	@StringSetter( USING_DESTINATION_INDEX_AT_STOPS )
+	public final void setUsingDestinationIndexAtStops( boolean val ) {
+		usingDestinationIndexAtStops = val ;
+	}
+	@StringGetter( USING_DESTINATION_INDEX_AT_STOPS )
+	public final boolean isUsingDestinationIndexAtStops(){
+		return usingDestinationIndexAtStops ;
+	}
+
 	@StringSetter(INSISTING_ON_USING_DEPRECATED_ATTRIBUTE_FILE)
 	public final void setInsistingOnUsingDeprecatedAttributeFiles( boolean val ) {
 		this.insistingOnUsingDeprecatedAttributeFiles = val ;
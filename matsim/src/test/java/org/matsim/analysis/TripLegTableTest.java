@@ -0,0 +1,82 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TripLegTableTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.router.TripStructureUtils;
+
+public class TripLegTableTest {
+
+	@Test
+	void testSameLegsAndTripsAsPlans() {
+		Plans plans = new Plans();
+		List<Plan> population = new ArrayList<>();
+		// more plans than fit into one chunk, so that several chunks with different mode orders are merged
+		for (int i = 0; i < 2500; i++) {
+			population.add(i % 3 == 0 ? createPlanWithoutRoute() : plans.createPlanOne());
+		}
+
+		TripLegTable table = TripLegTable.create(population);
+		assertEquals(population.size(), table.numberOfPlans);
+
+		int leg = 0;
+		int trip = 0;
+		for (Plan plan : population) {
+			for (Leg expected : TripStructureUtils.getLegs(plan)) {
+				assertEquals(expected.getMode(), table.getMode(table.legModes[leg]));
+				assertEquals(expected.getRoute() != null, table.legHasRoute[leg]);
+				double distance = expected.getRoute() != null ? expected.getRoute().getDistance() : Double.NaN;
+				assertEquals(distance, table.legDistances[leg], 0.0);
+				leg++;
+			}
+			for (TripStructureUtils.Trip expected : TripStructureUtils.getTrips(plan)) {
+				double distance = 0;
+				for (Leg l : expected.getLegsOnly()) {
+					distance += l.getRoute() != null ? l.getRoute().getDistance() : Double.NaN;
+				}
+				assertEquals(distance, table.tripDistances[trip], 1e-9);
+				trip++;
+			}
+		}
+		assertEquals(leg, table.numberOfLegs);
+		assertEquals(trip, table.numberOfTrips);
+	}
+
+	private static Plan createPlanWithoutRoute() {
+		Plan plan = PopulationUtils.createPlan();
+		plan.addActivity(PopulationUtils.createActivityFromLinkId("home", Id.create("1", Link.class)));
+		plan.addLeg(PopulationUtils.createLeg(TransportMode.bike));
+		plan.addActivity(PopulationUtils.createActivityFromLinkId("work", Id.create("2", Link.class)));
+		return plan;
+	}
+
+}
@@ -3,6 +3,8 @@
  */
 package org.matsim.analysis;
 
+import java.util.Set;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -132,4 +134,47 @@ public class VolumesAnalyzerTest {
 		Assertions.assertEquals(volumeForLinkBike[6], 3, 0);
 
 	}
+
+	@Test
+	void testAddAll() {
+		final Id<Link> link1 = Id.create("addAll1", Link.class);
+		final Id<Link> link2 = Id.create("addAll2", Link.class);
+		Id<Vehicle> veh1 = Id.create("addAll1", Vehicle.class);
+		Id<Vehicle> veh2 = Id.create("addAll2", Vehicle.class);
+		Id<Vehicle> veh3 = Id.create("addAll3", Vehicle.class);
+		Id<Person> person = Id.create("addAll", Person.class);
+		Network network = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getNetwork();
+
+		// e.g. the events of two threads
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(3600, 86400, network);
+		analyzer.handleEvent(new VehicleEntersTrafficEvent(3600.0, person, link1, veh1, TransportMode.car, 1.0));
+		analyzer.handleEvent(new LinkLeaveEvent(3700, veh1, link1));
+		VolumesAnalyzer other = new VolumesAnalyzer(3600, 86400, network);
+		other.handleEvent(new VehicleEntersTrafficEvent(3600.0, person, link1, veh2, TransportMode.bike, 1.0));
+		other.handleEvent(new LinkLeaveEvent(3800, veh2, link1));
+		other.handleEvent(new VehicleEntersTrafficEvent(7200.0, person, link2, veh1, TransportMode.car, 1.0));
+		other.handleEvent(new LinkLeaveEvent(7300, veh1, link2));
+		// a vehicle without mode only counts for the total
+		other.handleEvent(new LinkLeaveEvent(7400, veh3, link2));
+
+		analyzer.addAll(other);
+
+		Assertions.assertEquals(2, analyzer.getVolumesForLink(link1)[1]);
+		Assertions.assertEquals(1, analyzer.getVolumesForLink(link1, TransportMode.car)[1]);
+		Assertions.assertEquals(1, analyzer.getVolumesForLink(link1, TransportMode.bike)[1]);
+		Assertions.assertEquals(2, analyzer.getVolumesForLink(link2)[2]);
+		Assertions.assertEquals(1.0, analyzer.getVolumesPerHourForLink(link2, TransportMode.car)[2], 0);
+		Assertions.assertNull(analyzer.getVolumesForLink(link2, TransportMode.bike));
+		Assertions.assertEquals(Set.of(TransportMode.bike, TransportMode.car), analyzer.getModes());
+		Assertions.assertEquals(Set.of(link1, link2), analyzer.getLinkIds());
+		Assertions.assertEquals(2, analyzer.getVolume(link1, 1));
+		Assertions.assertEquals(1, analyzer.getVolume(link1, TransportMode.bike, 1));
+		Assertions.assertEquals(0, analyzer.getVolume(link2, TransportMode.bike, 2));
+		Assertions.assertEquals(0, analyzer.getVolume(link1, TransportMode.walk, 1));
+
+		analyzer.reset(1);
+		Assertions.assertNull(analyzer.getVolumesForLink(link1));
+		Assertions.assertTrue(analyzer.getModes().isEmpty());
+		Assertions.assertTrue(analyzer.getLinkIds().isEmpty());
+	}
 }
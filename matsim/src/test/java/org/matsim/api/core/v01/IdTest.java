@@ -27,7 +27,12 @@ import org.junit.jupiter.api.Test;
 import org.matsim.core.utils.collections.Tuple;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 	public class IdTest {
 
@@ -134,6 +139,105 @@ import java.util.List;
 		Assertions.assertEquals(countBefore, countAfter, "The number of created Ids should not have changed.");
 	}
 
+	 @Test
+	 void testIndex() {
+		Id.resetCaches();
+		for (int i = 0; i < 10_000; i++) {
+			Id<TLink> linkId = Id.create("link" + i, TLink.class);
+			Assertions.assertEquals(i, linkId.index());
+		}
+		Assertions.assertEquals(10_000, Id.getNumberOfIds(TLink.class));
+		for (int i = 0; i < 10_000; i++) {
+			Id<TLink> linkId = Id.get(i, TLink.class);
+			Assertions.assertEquals("link" + i, linkId.toString());
+			Assertions.assertSame(linkId, Id.get("link" + i, TLink.class));
+		}
+		Assertions.assertNull(Id.get("link10000", TLink.class));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> Id.get(10_000, TLink.class));
+	}
+
+	 @Test
+	 void testConcurrentCreation() throws Exception {
+		Id.resetCaches();
+		int numberOfIds = 50_000;
+		int numberOfThreads = 8;
+		ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			List<Future<List<Id<TNode>>>> futures = new ArrayList<>();
+			for (int t = 0; t < numberOfThreads; t++) {
+				final int offset = t;
+				futures.add(executor.submit(() -> {
+					// all threads create the same ids, in different order
+					List<Id<TNode>> ids = new ArrayList<>(numberOfIds);
+					for (int i = 0; i < numberOfIds; i++) {
+						ids.add(Id.create((i * 7 + offset * 1013) % numberOfIds, TNode.class));
+					}
+					return ids;
+				}));
+			}
+			List<List<Id<TNode>>> results = new ArrayList<>();
+			for (Future<List<Id<TNode>>> future : futures) {
+				results.add(future.get());
+			}
+
+			Assertions.assertEquals(numberOfIds, Id.getNumberOfIds(TNode.class));
+			Set<Integer> indices = new HashSet<>();
+			for (int i = 0; i < numberOfIds; i++) {
+				Id<TNode> nodeId = Id.get(i, TNode.class);
+				Assertions.assertEquals(i, nodeId.index());
+				Assertions.assertSame(nodeId, Id.create(nodeId.toString(), TNode.class));
+				indices.add(nodeId.index());
+			}
+			Assertions.assertEquals(numberOfIds, indices.size());
+			for (List<Id<TNode>> ids : results) {
+				for (Id<TNode> nodeId : ids) {
+					Assertions.assertSame(nodeId, Id.get(nodeId.toString(), TNode.class));
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	 @Test
+	 void testGetByIndexWhileCreating() throws Exception {
+		Id.resetCaches();
+		int numberOfIds = 100_000;
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> creators = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				final int offset = t;
+				creators.add(executor.submit(() -> {
+					for (int i = offset; i < numberOfIds; i += 2) {
+						Id.create(i, TLink.class);
+					}
+				}));
+			}
+			List<Future<?>> readers = new ArrayList<>();
+			for (int t = 0; t < 2; t++) {
+				readers.add(executor.submit(() -> {
+					int checked = 0;
+					while (checked < numberOfIds) {
+						// every id below the current number of ids must be available
+						int size = Id.getNumberOfIds(TLink.class);
+						for (; checked < size; checked++) {
+							Assertions.assertNotNull(Id.get(checked, TLink.class));
+						}
+					}
+				}));
+			}
+			for (Future<?> future : creators) {
+				future.get();
+			}
+			for (Future<?> future : readers) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	private static class TLink {}
 	private static class TNode {}
 
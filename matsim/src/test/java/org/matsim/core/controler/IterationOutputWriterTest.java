@@ -0,0 +1,113 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IterationOutputWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.CRCChecksum;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class IterationOutputWriterTest {
+
+	@RegisterExtension private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testSynchronousWriting() {
+		IterationOutputWriter writer = new IterationOutputWriter(0);
+		AtomicInteger counter = new AtomicInteger();
+		writer.write("test", counter::incrementAndGet);
+		assertFalse(writer.isAsynchronous());
+		assertEquals(1, counter.get());
+	}
+
+	@Test
+	void testFlushWaitsForPendingTasks() throws InterruptedException {
+		IterationOutputWriter writer = new IterationOutputWriter(2);
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicInteger counter = new AtomicInteger();
+		for (int i = 0; i < 10; i++) {
+			writer.write("test " + i, () -> {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+				counter.incrementAndGet();
+			});
+			if (i == 0) {
+				assertEquals(0, counter.get());
+			}
+			if (i == 2) {
+				// the pool only accepts a limited number of pending tasks, so let them finish
+				latch.countDown();
+			}
+		}
+		writer.flush();
+		assertEquals(10, counter.get());
+		writer.notifyShutdown(null);
+	}
+
+	@Test
+	void testFailuresAreRethrown() {
+		IterationOutputWriter writer = new IterationOutputWriter(1);
+		writer.write("failing", () -> {
+			throw new IllegalStateException("disk full");
+		});
+		RuntimeException e = assertThrows(RuntimeException.class, writer::flush);
+		assertEquals("disk full", e.getCause().getMessage());
+		writer.notifyShutdown(null);
+	}
+
+	@Test
+	void testOutputIsIdentical() {
+		String syncDirectory = utils.getOutputDirectory() + "sync/";
+		String asyncDirectory = utils.getOutputDirectory() + "async/";
+		runEquil(0, syncDirectory);
+		runEquil(2, asyncDirectory);
+
+		for (String file : new String[] {"ITERS/it.0/0.plans.xml.gz", "ITERS/it.1/1.plans.xml.gz", "ITERS/it.1/1.events.xml.gz",
+				"output_events.xml.gz", "output_plans.xml.gz"}) {
+			assertEquals(CRCChecksum.getCRCFromFile(syncDirectory + file), CRCChecksum.getCRCFromFile(asyncDirectory + file), file);
+		}
+	}
+
+	private void runEquil(int numberOfThreads, String outputDirectory) {
+		Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.controller().setOutputDirectory(outputDirectory);
+		config.controller().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+		config.controller().setLastIteration(1);
+		config.controller().setWriteEventsInterval(1);
+		config.controller().setWritePlansInterval(1);
+		config.controller().setCreateGraphs(false);
+		config.controller().setNumberOfOutputWriterThreads(numberOfThreads);
+		new Controler(config).run();
+	}
+
+}
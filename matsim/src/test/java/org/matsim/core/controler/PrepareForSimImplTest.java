@@ -808,6 +808,45 @@ public class PrepareForSimImplTest {
 
 	}
 
+	@Test
+	void nonSelectedCompactPlansStayPacked() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPackingNonSelectedPlans(true);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		createAndAddNetwork(scenario);
+		Population pop = scenario.getPopulation();
+		PopulationFactory f = pop.getFactory();
+
+		Person person = f.createPerson(Id.createPersonId("1"));
+		for (int i = 0; i < 3; i++) {
+			Plan plan = f.createPlan();
+			Activity act = f.createActivityFromCoord("home", new Coord(0, 0));
+			act.setEndTime(3600 + i);
+			plan.addActivity(act);
+			plan.addLeg(f.createLeg(TransportMode.car));
+			plan.addActivity(f.createActivityFromCoord("work", new Coord(1000, 0)));
+			person.addPlan(plan);
+		}
+		pop.addPerson(person);
+
+		final PrepareForSimImpl prepareForSimImpl = new PrepareForSimImpl(config.global(), scenario, scenario.getNetwork(),
+			pop, scenario.getActivityFacilities(), new DummyTripRouterProvider(), config.qsim(), config.facilities(),
+			config.plans(), new MainModeIdentifierImpl(), TimeInterpretation.create(config));
+
+		prepareForSimImpl.run();
+
+		for (Plan plan : person.getPlans()) {
+			if (plan == person.getSelectedPlan()) {
+				Assertions.assertFalse(PopulationUtils.isPacked(plan), "the selected plan must not be packed.");
+			} else {
+				Assertions.assertTrue(PopulationUtils.isPacked(plan), "non-selected plans must be packed again after prepareForSim.");
+				Leg leg = (Leg) PopulationUtils.getPlanElementsForReading(plan).get(1);
+				Assertions.assertEquals(TransportMode.car, TripStructureUtils.getRoutingMode(leg),
+					"the changes of prepareForSim must be kept in the packed plan.");
+			}
+		}
+	}
+
 	private class DummyTripRouterProvider implements Provider<TripRouter> {
 		@Override
 		public TripRouter get() {
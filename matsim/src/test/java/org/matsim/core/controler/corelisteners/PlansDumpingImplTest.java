@@ -0,0 +1,103 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlansDumpingImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler.corelisteners;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationWriter;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class PlansDumpingImplTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@ParameterizedTest
+	@ValueSource(booleans = {false, true})
+	void testSnapshotIsWrittenLikeThePopulation(boolean packingNonSelectedPlans) throws IOException {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.global().setNumberOfThreads(2);
+		config.plans().setPackingNonSelectedPlans(packingNonSelectedPlans);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		Population population = scenario.getPopulation();
+		population.getAttributes().putAttribute("source", "equil");
+
+		int i = 0;
+		for (Person person : population.getPersons().values()) {
+			person.getAttributes().putAttribute("age", 20 + i % 50);
+			Plan original = person.getSelectedPlan();
+			original.setScore(i * 0.5);
+			Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+			copy.setType("copy");
+			copy.getAttributes().putAttribute("index", i);
+			Activity firstActivity = (Activity) copy.getPlanElements().get(0);
+			firstActivity.setCoord(new Coord(firstActivity.getCoord().getX(), firstActivity.getCoord().getY(), 12.5 + i));
+			firstActivity.getAttributes().putAttribute("note", "first");
+			Leg leg = (Leg) copy.getPlanElements().get(1);
+			leg.getAttributes().putAttribute("flag", true);
+			person.setSelectedPlan(i % 2 == 0 ? original : copy);
+			i++;
+		}
+
+		Population snapshot = PopulationUtils.createPackedSnapshot(population, config, scenario.getNetwork());
+
+		Path populationFile = Path.of(utils.getOutputDirectory(), "population.xml");
+		Path snapshotFile = Path.of(utils.getOutputDirectory(), "snapshot.xml");
+		new PopulationWriter(population, scenario.getNetwork()).write(populationFile.toString());
+
+		// changes of the population after the snapshot was taken, like in the next iteration, must not show up in the snapshot
+		for (Person person : population.getPersons().values()) {
+			person.getSelectedPlan().setScore(-1.0);
+			Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+			((Activity) copy.getPlanElements().get(0)).setEndTime(0);
+		}
+		new PopulationWriter(snapshot, scenario.getNetwork()).write(snapshotFile.toString());
+
+		assertArrayEquals(Files.readAllBytes(populationFile), Files.readAllBytes(snapshotFile));
+		for (Person person : snapshot.getPersons().values()) {
+			for (Plan plan : person.getPlans()) {
+				assertTrue(PopulationUtils.isPacked(plan));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * InstrumentationTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.instrumentation;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.Controler;
+import org.matsim.core.controler.listener.StartupListener;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class InstrumentationTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@AfterEach
+	void disable() {
+		Instrumentation.setEnabled(false);
+	}
+
+	@Test
+	void testTimersOnlyCountWhileEnabled() {
+		Instrumentation.reset();
+		Instrumentation.setEnabled(false);
+		long start = Instrumentation.start();
+		assertEquals(Instrumentation.DISABLED, start);
+		Instrumentation.stop(Instrumentation.PHASE, "test", start);
+		assertEquals(0, Instrumentation.getTimer(Instrumentation.PHASE, "test").getCalls());
+
+		Instrumentation.setEnabled(true);
+		for (int i = 0; i < 3; i++) {
+			Instrumentation.stop(Instrumentation.PHASE, "test", Instrumentation.start());
+		}
+		Instrumentation.Timer timer = Instrumentation.getTimer(Instrumentation.PHASE, "test");
+		assertEquals(3, timer.getCalls());
+		assertTrue(timer.getNanos() >= 0);
+		assertTrue(Instrumentation.getTimers().contains(timer));
+
+		Instrumentation.reset();
+		assertEquals(0, timer.getCalls());
+		assertSame(timer, Instrumentation.getTimer(Instrumentation.PHASE, "test"));
+	}
+
+	@Test
+	void testPrometheusFormat() throws IOException {
+		Instrumentation.reset();
+		Instrumentation.getTimer(Instrumentation.HANDLER, "some.\"quoted\".Handler").add(1_500_000_000L);
+
+		String text = PrometheusMetricsSink.format(4, List.of(Instrumentation.getTimer(Instrumentation.HANDLER, "some.\"quoted\".Handler")));
+		assertTrue(text.contains("matsim_iteration 4\n"), text);
+		assertTrue(text.contains("matsim_instrumentation_calls_total{category=\"handler\",name=\"some.\\\"quoted\\\".Handler\"} 1\n"), text);
+		assertTrue(text.contains("matsim_instrumentation_seconds_total{category=\"handler\",name=\"some.\\\"quoted\\\".Handler\"} 1.5\n"), text);
+
+		// port 0 lets the system choose a free port
+		PrometheusMetricsSink sink = new PrometheusMetricsSink(ConfigUtils.createConfig());
+		try {
+			sink.writeIteration(7, Instrumentation.getTimers());
+			try (InputStream in = URI.create("http://localhost:" + sink.getPort() + PrometheusMetricsSink.PATH).toURL().openStream()) {
+				String served = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+				assertTrue(served.contains("matsim_iteration 7\n"), served);
+				assertTrue(served.contains("name=\"some.\\\"quoted\\\".Handler\"} 1\n"), served);
+			}
+		} finally {
+			sink.close();
+		}
+	}
+
+	@Test
+	void testControlerWritesInstrumentation() throws IOException {
+		Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config_plans1.xml"));
+		config.controller().setLastIteration(1);
+		config.controller().setInstrumentation(true);
+
+		new Controler(config).run();
+		assertFalse(Instrumentation.isEnabled(), "instrumentation should be disabled after the run");
+
+		boolean listener = false, engine = false, handler = false, strategy = false, phase = false;
+		try (BufferedReader reader = IOUtils.getBufferedReader(utils.getOutputDirectory() + CsvMetricsSink.FILENAME)) {
+			assertEquals("iteration;category;name;calls;seconds;cumulative_seconds", reader.readLine());
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(";");
+				assertEquals(6, parts.length, line);
+				listener |= parts[1].equals(Instrumentation.LISTENER);
+				engine |= parts[1].equals(Instrumentation.ENGINE);
+				handler |= parts[1].equals(Instrumentation.HANDLER);
+				strategy |= parts[0].equals("1") && parts[1].equals(Instrumentation.STRATEGY);
+				phase |= parts[1].equals(Instrumentation.PHASE) && parts[2].equals("mobsim");
+			}
+		}
+		assertTrue(listener, "no listener timers");
+		assertTrue(engine, "no engine timers");
+		assertTrue(handler, "no handler timers");
+		assertTrue(strategy, "no strategy timers");
+		assertTrue(phase, "no phase timers");
+	}
+
+	@Test
+	void testInstrumentationIsDisabledAfterFailedRun() {
+		Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config_plans1.xml"));
+		config.controller().setLastIteration(0);
+		config.controller().setInstrumentation(true);
+
+		Controler controler = new Controler(config);
+		controler.addControlerListener((StartupListener) event -> {
+			throw new RuntimeException("failing on purpose");
+		});
+		assertThrows(RuntimeException.class, controler::run);
+		assertFalse(Instrumentation.isEnabled(), "instrumentation should be disabled after a failed run");
+	}
+
+}
@@ -0,0 +1,107 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AgentEndTimeQueueTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+
+public class AgentEndTimeQueueTest {
+
+	private record Entry(MobsimAgent agent, double time) {
+	}
+
+	@Test
+	void testSameOrderAsPriorityQueue() {
+		List<MobsimAgent> agents = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			MobsimAgent agent = mock(MobsimAgent.class);
+			when(agent.getId()).thenReturn(Id.createPersonId("queue_" + i));
+			agents.add(agent);
+		}
+
+		AgentEndTimeQueue queue = new AgentEndTimeQueue();
+		PriorityQueue<Entry> expected = new PriorityQueue<>((e0, e1) -> {
+			int cmp = Double.compare(e0.time, e1.time);
+			return cmp == 0 ? e1.agent.getId().compareTo(e0.agent.getId()) : cmp;
+		});
+
+		Random random = new Random(4711);
+		double now = 0;
+		for (int step = 0; step < 10000; step++) {
+			MobsimAgent agent = agents.get(random.nextInt(agents.size()));
+			Entry entry = expected.stream().filter(e -> e.agent == agent).findFirst().orElse(null);
+			assertEquals(entry != null, queue.contains(agent));
+			switch (random.nextInt(3)) {
+				case 0 -> {
+					// (re)schedule, with few different times so that the ids decide often
+					if (entry != null) {
+						expected.remove(entry);
+						assertTrue(queue.remove(agent));
+					}
+					double time = now + random.nextInt(10);
+					expected.add(new Entry(agent, time));
+					queue.add(agent, time);
+				}
+				case 1 -> {
+					assertEquals(entry != null, queue.remove(agent));
+					if (entry != null) {
+						expected.remove(entry);
+					}
+				}
+				default -> {
+					now++;
+					MobsimAgent polled;
+					while ((polled = queue.pollUntil(now)) != null) {
+						assertSame(expected.poll().agent, polled);
+					}
+					assertTrue(expected.isEmpty() || expected.peek().time > now);
+				}
+			}
+			assertEquals(expected.size(), queue.size());
+			assertEquals(expected.isEmpty() ? Double.POSITIVE_INFINITY : expected.peek().time, queue.peekTime(), 0.0);
+			assertEquals(expected.stream().map(Entry::agent).toList(), queue.getAgents());
+		}
+
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertFalse(queue.contains(agents.get(0)));
+	}
+
+	@Test
+	void testAddTwice() {
+		MobsimAgent agent = mock(MobsimAgent.class);
+		when(agent.getId()).thenReturn(Id.createPersonId("queue_twice"));
+		AgentEndTimeQueue queue = new AgentEndTimeQueue();
+		queue.add(agent, 10);
+		assertThrows(IllegalStateException.class, () -> queue.add(agent, 20));
+	}
+
+}
@@ -0,0 +1,64 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ConcurrentEngineRunnerTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+
+public class ConcurrentEngineRunnerTest {
+
+	@Test
+	void testSameEventsAsSequentialEngines() {
+		// without zero travel times, no agent is handed over to an engine which has already been stepped
+		double[] travelTimes = {0.5, 1.3, 60.0, 4095.7, 30 * 3600};
+		List<String> expected = runQSim(1, travelTimes);
+		List<String> actual = runQSim(2, travelTimes);
+		assertTrue(expected.size() > 1000);
+		assertTrue(expected.stream().anyMatch(event -> event.contains("stuckAndAbort")));
+
+		// the teleportation engine is stepped together with the activity engine, i.e. before the netsim engine, so only
+		// the order of the events within a time step differs
+		assertNotEquals(expected, actual);
+		assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList());
+	}
+
+	@Test
+	void testDeterministicWithZeroTravelTimes() {
+		double[] travelTimes = {0.0, 0.5, 60.0, 30 * 3600};
+		List<String> sequential = runQSim(1, travelTimes);
+		List<String> first = runQSim(3, travelTimes);
+		List<String> second = runQSim(3, travelTimes);
+		assertEquals(first, second);
+		assertEquals(sequential.size(), first.size());
+	}
+
+	private static List<String> runQSim(int numberOfEngineThreads, double[] travelTimes) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setNumberOfEngineThreads(numberOfEngineThreads);
+		return TeleportationTestScenario.runQSim(config, travelTimes, true);
+	}
+
+}
@@ -0,0 +1,133 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TeleportationTestScenario.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.vehicles.Vehicle;
+import org.matsim.vehicles.VehicleUtils;
+
+/**
+ * Two links back and forth, and 300 agents teleported between them with randomly chosen travel times, many of them
+ * departing and arriving in the same time steps. Used to compare the events of different engine setups.
+ */
+/* deliberately package */ final class TeleportationTestScenario {
+
+	private static final int NUMBER_OF_AGENTS = 300;
+
+	private TeleportationTestScenario() {
+	}
+
+	/**
+	 * @param travelTimes the travel times the teleported legs are drawn from
+	 * @param withCarLegs whether about a quarter of the agents drive their first leg by car through the network
+	 * @return the events of a QSim run, as strings in the order they were thrown
+	 */
+	static List<String> runQSim(Config config, double[] travelTimes, boolean withCarLegs) {
+		config.qsim().setEndTime(20 * 3600);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link l1 = NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), n1, n2, 1000, 10, 1000, 1);
+		Link l2 = NetworkUtils.createAndAddLink(network, Id.create("2", Link.class), n2, n1, 1000, 10, 1000, 1);
+
+		if (withCarLegs) {
+			scenario.getVehicles().addVehicleType(VehicleUtils.getDefaultVehicleType());
+		}
+		Random random = new Random(42);
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		for (int i = 0; i < NUMBER_OF_AGENTS; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Plan plan = pf.createPlan();
+			person.addPlan(plan);
+			Activity home = pf.createActivityFromLinkId("h", l1.getId());
+			home.setEndTime(6 * 3600 + random.nextInt(5) * 0.5);
+			plan.addActivity(home);
+			if (withCarLegs && random.nextInt(4) == 0) {
+				plan.addLeg(createCarLeg(pf, l1, l2));
+			} else {
+				plan.addLeg(createLeg(pf, l1, l2, travelTimes[random.nextInt(travelTimes.length)]));
+			}
+			Activity work = pf.createActivityFromLinkId("w", l2.getId());
+			work.setMaximumDuration(random.nextInt(3));
+			plan.addActivity(work);
+			plan.addLeg(createLeg(pf, l2, l1, travelTimes[random.nextInt(travelTimes.length)]));
+			plan.addActivity(pf.createActivityFromLinkId("h", l1.getId()));
+			if (withCarLegs) {
+				Vehicle vehicle = scenario.getVehicles().getFactory().createVehicle(
+						VehicleUtils.createVehicleId(person, TransportMode.car), VehicleUtils.getDefaultVehicleType());
+				VehicleUtils.insertVehicleIdsIntoAttributes(person, Map.of(TransportMode.car, vehicle.getId()));
+				scenario.getVehicles().addVehicle(vehicle);
+			}
+			scenario.getPopulation().addPerson(person);
+		}
+
+		List<String> events = new ArrayList<>();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		eventsManager.addHandler((BasicEventHandler) event -> events.add(event.toString()));
+		eventsManager.initProcessing();
+		new QSimBuilder(config).useDefaults().build(scenario, eventsManager).run();
+		eventsManager.finishProcessing();
+		return events;
+	}
+
+	private static Leg createLeg(PopulationFactory pf, Link from, Link to, double travelTime) {
+		Leg leg = pf.createLeg(TransportMode.walk);
+		Route route = pf.getRouteFactories().createRoute(Route.class, from.getId(), to.getId());
+		route.setTravelTime(travelTime);
+		route.setDistance(100);
+		leg.setRoute(route);
+		leg.setTravelTime(travelTime);
+		return leg;
+	}
+
+	private static Leg createCarLeg(PopulationFactory pf, Link from, Link to) {
+		Leg leg = pf.createLeg(TransportMode.car);
+		leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(from.getId(), to.getId()));
+		return leg;
+	}
+
+}
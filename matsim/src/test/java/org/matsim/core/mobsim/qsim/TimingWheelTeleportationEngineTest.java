@@ -0,0 +1,55 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * TimingWheelTeleportationEngineTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+
+public class TimingWheelTeleportationEngineTest {
+
+	@Test
+	void testSameEventsAsDefaultEngine() {
+		List<String> expected = runQSim(false);
+		List<String> actual = runQSim(true);
+		assertTrue(expected.size() > 1000);
+		assertTrue(expected.stream().anyMatch(event -> event.contains("stuckAndAbort")));
+
+		// the agents still teleported at the end are aborted in a different order
+		assertEquals(expected.stream().filter(event -> !event.contains("stuckAndAbort")).toList(),
+				actual.stream().filter(event -> !event.contains("stuckAndAbort")).toList());
+		assertEquals(expected.stream().filter(event -> event.contains("stuckAndAbort")).sorted().toList(),
+				actual.stream().filter(event -> event.contains("stuckAndAbort")).sorted().toList());
+	}
+
+	private static List<String> runQSim(boolean usingTimingWheel) {
+		Config config = ConfigUtils.createConfig();
+		config.qsim().setUsingTimingWheelTeleportation(usingTimingWheel);
+		// fractional, zero, long and too long travel times, and many agents arriving at the same time
+		double[] travelTimes = {0.0, 0.5, 1.3, 60.0, 61.0, 4095.7, 5000.0, 9000.0, 30 * 3600};
+		return TeleportationTestScenario.runQSim(config, travelTimes, false);
+	}
+
+}
@@ -22,6 +22,8 @@ package org.matsim.core.mobsim.qsim.pt;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Test;
@@ -31,6 +33,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.pt.fakes.FakeAgent;
 import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
+import org.matsim.pt.transitSchedule.api.TransitRouteStop;
 import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
@@ -119,4 +122,52 @@ public class TransitStopAgentTrackerTest {
 			log.info("catched expected exception.", e);
 		}
 	}
+
+	@Test
+	void testGetAgentsAtFacilityHeadingFor() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TransitStopAgentTracker tracker = new TransitStopAgentTracker(events);
+		TransitScheduleFactory builder = new TransitScheduleFactoryImpl();
+		TransitStopFacility stop1 = builder.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord((double) 2, (double) 3), false);
+		TransitStopFacility stop2 = builder.createTransitStopFacility(Id.create(2, TransitStopFacility.class), new Coord((double) 3, (double) 4), false);
+		TransitStopFacility stop3 = builder.createTransitStopFacility(Id.create(3, TransitStopFacility.class), new Coord((double) 4, (double) 5), false);
+		PTPassengerAgent agent1 = new DestinationAgent(stop2);
+		PTPassengerAgent agent2 = new DestinationAgent(stop3);
+		PTPassengerAgent agent3 = new DestinationAgent(stop2);
+		PTPassengerAgent agent4 = new FakeAgent(null, null); // no destination
+		PTPassengerAgent agent5 = new DestinationAgent(stop3);
+
+		tracker.addAgentToStop(10, agent1, stop1.getId());
+		tracker.addAgentToStop(10, agent2, stop1.getId());
+		tracker.addAgentToStop(10, agent3, stop1.getId());
+		tracker.addAgentToStop(10, agent4, stop1.getId());
+		tracker.addAgentToStop(10, agent5, stop2.getId());
+
+		List<TransitRouteStop> toStop2 = List.of(builder.createTransitRouteStop(stop2, 60, 60));
+		List<TransitRouteStop> toStop2And3 = List.of(builder.createTransitRouteStop(stop2, 60, 60), builder.createTransitRouteStop(stop3, 120, 120));
+
+		assertEquals(List.of(agent1, agent3, agent4), tracker.getAgentsAtFacilityHeadingFor(stop1.getId(), toStop2));
+		assertEquals(List.of(agent1, agent2, agent3, agent4), tracker.getAgentsAtFacilityHeadingFor(stop1.getId(), toStop2And3));
+		assertEquals(List.of(agent4), tracker.getAgentsAtFacilityHeadingFor(stop1.getId(), List.of()));
+		assertEquals(List.of(), tracker.getAgentsAtFacilityHeadingFor(stop2.getId(), toStop2));
+		assertEquals(List.of(), tracker.getAgentsAtFacilityHeadingFor(stop3.getId(), toStop2And3));
+
+		tracker.removeAgentFromStop(agent1, stop1.getId());
+		assertEquals(List.of(agent2, agent3, agent4), tracker.getAgentsAtFacilityHeadingFor(stop1.getId(), toStop2And3));
+		assertEquals(List.of(agent2, agent3, agent4), tracker.getAgentsAtFacility(stop1.getId()));
+	}
+
+	private static class DestinationAgent extends FakeAgent {
+		private final TransitStopFacility destinationStop;
+
+		DestinationAgent(TransitStopFacility destinationStop) {
+			super(null, null);
+			this.destinationStop = destinationStop;
+		}
+
+		@Override
+		public Id<TransitStopFacility> getDesiredDestinationStopId() {
+			return this.destinationStop.getId();
+		}
+	}
 }
@@ -0,0 +1,109 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FIFOVehicleQTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.qnetsimengine.vehicleq;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicle;
+import org.matsim.core.mobsim.qsim.qnetsimengine.QVehicleImpl;
+import org.matsim.vehicles.VehicleUtils;
+
+public class FIFOVehicleQTest {
+
+	@Test
+	void testSameOrderAsLinkedList() {
+		FIFOVehicleQ queue = new FIFOVehicleQ();
+		LinkedList<QVehicle> expected = new LinkedList<>();
+		Random random = new Random(1);
+		for (int i = 0; i < 10000; i++) {
+			int action = random.nextInt(10);
+			if (action < 4) {
+				QVehicle vehicle = createVehicle(i, random.nextInt(100));
+				queue.add(vehicle);
+				expected.add(vehicle);
+			} else if (action < 5) {
+				QVehicle vehicle = createVehicle(i, random.nextInt(100));
+				queue.addFirst(vehicle);
+				expected.addFirst(vehicle);
+			} else if (action < 8) {
+				assertSame(expected.poll(), queue.poll());
+			} else if (!expected.isEmpty()) {
+				// removes a vehicle in the middle, like the seepage does
+				QVehicle vehicle = expected.get(random.nextInt(expected.size()));
+				assertTrue(queue.remove(vehicle));
+				expected.remove(vehicle);
+			}
+			assertEquals(expected.size(), queue.size());
+			assertSame(expected.peek(), queue.peek());
+			assertEquals(expected.isEmpty() ? Double.POSITIVE_INFINITY : expected.peek().getEarliestLinkExitTime(),
+					queue.getEarliestLinkExitTimeOfFirst());
+		}
+		assertEquals(expected, new ArrayList<>(queue));
+		queue.clear();
+		assertNull(queue.peek());
+		assertEquals(Double.POSITIVE_INFINITY, queue.getEarliestLinkExitTimeOfFirst());
+	}
+
+	@Test
+	void testEarliestLinkExitTimeIsLowerBound() {
+		FIFOVehicleQ queue = new FIFOVehicleQ();
+		QVehicle first = createVehicle(1, 10);
+		queue.add(first);
+		queue.add(createVehicle(2, 5));
+		assertEquals(10, queue.getEarliestLinkExitTimeOfFirst(), 0);
+
+		// e.g. a transit vehicle at a stop on the link
+		first.setEarliestLinkExitTime(20);
+		assertEquals(10, queue.getEarliestLinkExitTimeOfFirst(), 0);
+
+		queue.poll();
+		assertEquals(5, queue.getEarliestLinkExitTimeOfFirst(), 0);
+	}
+
+	@Test
+	void testIteratorRemove() {
+		FIFOVehicleQ queue = new FIFOVehicleQ();
+		List<QVehicle> vehicles = new ArrayList<>();
+		for (int i = 0; i < 6; i++) {
+			QVehicle vehicle = createVehicle(i, i);
+			vehicles.add(vehicle);
+			// wraps around the end of the ring buffer
+			queue.addFirst(vehicle);
+		}
+		queue.removeIf(vehicle -> vehicle.getEarliestLinkExitTime() % 2 == 0);
+		assertEquals(List.of(vehicles.get(5), vehicles.get(3), vehicles.get(1)), new ArrayList<>(queue));
+		assertEquals(5, queue.getEarliestLinkExitTimeOfFirst(), 0);
+	}
+
+	private static QVehicle createVehicle(int id, double earliestLinkExitTime) {
+		QVehicle vehicle = new QVehicleImpl(VehicleUtils.createVehicle(Id.createVehicleId(id), VehicleUtils.getDefaultVehicleType()));
+		vehicle.setEarliestLinkExitTime(earliestLinkExitTime);
+		return vehicle;
+	}
+
+}
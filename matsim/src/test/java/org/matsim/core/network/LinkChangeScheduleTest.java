@@ -0,0 +1,100 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkChangeScheduleTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkChangeEvent.ChangeType;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class LinkChangeScheduleTest {
+
+	@Test
+	void testChangesOfDifferentAttributes() {
+		TreeMap<Double, NetworkChangeEvent> changeEvents = new TreeMap<>();
+		NetworkChangeEvent event = new NetworkChangeEvent(100);
+		event.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 0.5));
+		changeEvents.put(event.getStartTime(), event);
+		event = new NetworkChangeEvent(200);
+		event.setFlowCapacityChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 0.25));
+		event.setLanesChange(new ChangeValue(ChangeType.OFFSET_IN_SI_UNITS, 1));
+		changeEvents.put(event.getStartTime(), event);
+		event = new NetworkChangeEvent(300);
+		event.setFreespeedChange(new ChangeValue(ChangeType.OFFSET_IN_SI_UNITS, 3));
+		changeEvents.put(event.getStartTime(), event);
+
+		LinkChangeSchedule schedule = LinkChangeSchedule.create(changeEvents, 10, 0.5, 2);
+
+		double[] times = {Double.NEGATIVE_INFINITY, 0, 99.9, 100, 150, 200, 299, 300, 1e9};
+		double[] freespeeds = {10, 10, 10, 5, 5, 5, 5, 8, 8};
+		double[] flowCapacities = {0.5, 0.5, 0.5, 0.5, 0.5, 0.25, 0.25, 0.25, 0.25};
+		double[] lanes = {2, 2, 2, 2, 2, 3, 3, 3, 3};
+		for (int i = 0; i < times.length; i++) {
+			assertEquals(freespeeds[i], schedule.getFreespeed(times[i]), MatsimTestUtils.EPSILON);
+			assertEquals(flowCapacities[i], schedule.getFlowCapacityPerSec(times[i]), MatsimTestUtils.EPSILON);
+			assertEquals(lanes[i], schedule.getNumberOfLanes(times[i]), MatsimTestUtils.EPSILON);
+		}
+	}
+
+	@Test
+	void testLinkCompilesNewScheduleAfterChanges() {
+		Network network = new NetworkImpl(new VariableIntervalTimeVariantLinkFactory());
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(100, 0));
+		TimeVariantLinkImpl link = (TimeVariantLinkImpl) NetworkUtils.createAndAddLink(network, Id.create("1", Link.class),
+				node1, node2, 100, 10, 3600, 1);
+
+		NetworkChangeEvent event = new NetworkChangeEvent(100);
+		event.addLink(link);
+		event.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 2));
+		link.applyEvent(event);
+		assertEquals(10, link.getFreespeed(50), MatsimTestUtils.EPSILON);
+		assertEquals(20, link.getFreespeed(150), MatsimTestUtils.EPSILON);
+
+		// new base value
+		link.setFreespeed(5);
+		assertEquals(5, link.getFreespeed(50), MatsimTestUtils.EPSILON);
+		assertEquals(10, link.getFreespeed(150), MatsimTestUtils.EPSILON);
+
+		// new change event
+		event = new NetworkChangeEvent(200);
+		event.addLink(link);
+		event.setFlowCapacityChange(new ChangeValue(ChangeType.FACTOR, 0.5));
+		link.applyEvent(event);
+		assertEquals(10, link.getFreespeed(250), MatsimTestUtils.EPSILON);
+		assertEquals(1.0, link.getFlowCapacityPerSec(150), MatsimTestUtils.EPSILON);
+		assertEquals(0.5, link.getFlowCapacityPerSec(250), MatsimTestUtils.EPSILON);
+
+		link.clearEvents();
+		assertEquals(5, link.getFreespeed(250), MatsimTestUtils.EPSILON);
+		assertEquals(1.0, link.getFlowCapacityPerSec(250), MatsimTestUtils.EPSILON);
+	}
+
+}
@@ -0,0 +1,88 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StronglyConnectedComponentsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network.algorithms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link StronglyConnectedComponents} to the components found by searching all paths.
+ */
+public class StronglyConnectedComponentsTest {
+
+	@Test
+	void testEmpty() {
+		StronglyConnectedComponents components = new StronglyConnectedComponents(0, new int[0], new int[0]);
+		assertEquals(0, components.getNumberOfComponents());
+	}
+
+	@Test
+	void testCycleAndChain() {
+		// 0 -> 1 -> 2 -> 0 is a cycle, 3 -> 4 a chain leaving it, 5 has no links
+		int[] from = {0, 1, 2, 2, 3};
+		int[] to = {1, 2, 0, 3, 4};
+		StronglyConnectedComponents components = new StronglyConnectedComponents(6, from, to);
+		assertEquals(0, components.getComponent(0));
+		assertEquals(0, components.getComponent(1));
+		assertEquals(0, components.getComponent(2));
+		assertEquals(4, components.getNumberOfComponents());
+	}
+
+	@Test
+	void testRandomGraphs() {
+		Random random = new Random(20240);
+		for (int g = 0; g < 50; g++) {
+			int n = 1 + random.nextInt(60);
+			int m = random.nextInt(3 * n);
+			int[] from = new int[m];
+			int[] to = new int[m];
+			for (int l = 0; l < m; l++) {
+				from[l] = random.nextInt(n);
+				to[l] = random.nextInt(n);
+			}
+			StronglyConnectedComponents components = new StronglyConnectedComponents(n, from, to);
+
+			boolean[][] reachable = new boolean[n][n];
+			for (int i = 0; i < n; i++) {
+				reachable[i][i] = true;
+			}
+			for (int k = 0; k < n; k++) { // transitive closure
+				for (int l = 0; l < m; l++) {
+					for (int i = 0; i < n; i++) {
+						if (reachable[i][from[l]]) {
+							reachable[i][to[l]] = true;
+						}
+					}
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				for (int j = 0; j < n; j++) {
+					boolean sameComponent = components.getComponent(i) == components.getComponent(j);
+					assertEquals(reachable[i][j] && reachable[j][i], sameComponent, "graph " + g + ", nodes " + i + " and " + j);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,218 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPersonImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.io.PopulationWriter;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.CRCChecksum;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class CompactPersonImplTest {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testNonSelectedPlansArePacked() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPackingNonSelectedPlans(true);
+		Population population = PopulationUtils.createPopulation(config);
+		PopulationFactory pf = population.getFactory();
+
+		Person person = pf.createPerson(Id.create(1, Person.class));
+		Plan plan1 = createPlan(pf, 6.0 * 3600);
+		Plan plan2 = createPlan(pf, 7.5 * 3600 + 0.25);
+		plan2.setScore(12.5);
+		person.addPlan(plan1);
+		person.addPlan(plan2);
+		population.addPerson(person);
+
+		assertSame(plan1, person.getSelectedPlan());
+		assertFalse(((CompactPlanImpl) plan1).isPacked());
+		assertTrue(((CompactPlanImpl) plan2).isPacked());
+		assertEquals(12.5, plan2.getScore(), 0.0);
+		assertTrue(((CompactPlanImpl) plan2).isPacked(), "reading the score must not inflate the plan.");
+
+		person.setSelectedPlan(plan2);
+		assertTrue(((CompactPlanImpl) plan1).isPacked());
+		assertFalse(((CompactPlanImpl) plan2).isPacked());
+
+		List<PlanElement> elements = plan2.getPlanElements();
+		assertEquals(5, elements.size());
+		Activity home = (Activity) elements.get(0);
+		assertEquals("home", home.getType());
+		assertEquals(new Coord(100.25, -20.5), home.getCoord());
+		assertEquals(7.5 * 3600 + 0.25, home.getEndTime().seconds(), 0.0);
+		assertTrue(home.getStartTime().isUndefined());
+		assertEquals(InteractionActivity.class, elements.get(2).getClass());
+
+		Leg leg = (Leg) elements.get(1);
+		assertEquals("car", leg.getMode());
+		assertEquals("car", leg.getRoutingMode());
+		NetworkRoute route = (NetworkRoute) leg.getRoute();
+		assertEquals(Id.create("1", Link.class), route.getStartLinkId());
+		assertEquals(List.of(Id.create("2", Link.class), Id.create("3", Link.class)), route.getLinkIds());
+		assertEquals(Id.create("4", Link.class), route.getEndLinkId());
+		assertEquals(Id.create("v1", Vehicle.class), route.getVehicleId());
+		assertEquals(1234.5, route.getDistance(), 0.0);
+
+		Leg walk = (Leg) elements.get(3);
+		assertEquals("walk", walk.getMode());
+		assertEquals("yes", walk.getAttributes().getAttribute("unpackable"), "legs with attributes are kept as they are.");
+	}
+
+	@Test
+	void testCopyOfSelectedPlan() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPackingNonSelectedPlans(true);
+		Population population = PopulationUtils.createPopulation(config);
+		PopulationFactory pf = population.getFactory();
+
+		Person person = pf.createPerson(Id.create(1, Person.class));
+		Plan plan1 = createPlan(pf, 6.0 * 3600);
+		person.addPlan(plan1);
+		population.addPerson(person);
+
+		Plan plan2 = person.createCopyOfSelectedPlanAndMakeSelected();
+		assertSame(plan2, person.getSelectedPlan());
+		assertEquals(CompactPlanImpl.class, plan2.getClass());
+		assertTrue(((CompactPlanImpl) plan1).isPacked());
+
+		person.removePlan(plan2);
+		assertSame(plan1, person.getSelectedPlan());
+		assertFalse(((CompactPlanImpl) plan1).isPacked());
+		assertEquals(5, plan1.getPlanElements().size());
+	}
+
+	@Test
+	void testReadingDoesNotInflate() {
+		Config config = ConfigUtils.createConfig();
+		config.plans().setPackingNonSelectedPlans(true);
+		Population population = PopulationUtils.createPopulation(config);
+		PopulationFactory pf = population.getFactory();
+
+		Person person = pf.createPerson(Id.create(1, Person.class));
+		Plan plan1 = createPlan(pf, 6.0 * 3600);
+		Plan plan2 = createPlan(pf, 7.0 * 3600);
+		Plan plan3 = createPlan(pf, 8.0 * 3600);
+		person.addPlan(plan1);
+		person.addPlan(plan2);
+		person.addPlan(plan3);
+		population.addPerson(person);
+
+		List<PlanElement> elements = PopulationUtils.getPlanElementsForReading(plan2);
+		assertEquals(5, elements.size());
+		assertEquals(7.0 * 3600, ((Activity) elements.get(0)).getEndTime().seconds(), 0.0);
+		assertTrue(((CompactPlanImpl) plan2).isPacked(), "reading the plan elements must not inflate the plan.");
+		assertSame(plan1.getPlanElements(), PopulationUtils.getPlanElementsForReading(plan1));
+
+		person.setSelectedPlan(plan3);
+		assertTrue(((CompactPlanImpl) plan1).isPacked());
+		assertTrue(((CompactPlanImpl) plan2).isPacked());
+		assertFalse(((CompactPlanImpl) plan3).isPacked());
+		assertEquals(8.0 * 3600, ((Activity) plan3.getPlanElements().get(0)).getEndTime().seconds(), 0.0);
+	}
+
+	@Test
+	void testWrittenPlansAreIdentical() {
+		String referenceFile = utils.getOutputDirectory() + "plans_reference.xml";
+		String compactFile = utils.getOutputDirectory() + "plans_compact.xml";
+
+		writeReplannedPopulation(false, referenceFile);
+		writeReplannedPopulation(true, compactFile);
+
+		assertEquals(CRCChecksum.getCRCFromFile(referenceFile), CRCChecksum.getCRCFromFile(compactFile));
+	}
+
+	private static void writeReplannedPopulation(boolean packing, String filename) {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.plans().setPackingNonSelectedPlans(packing);
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			Plan original = person.getSelectedPlan();
+			original.setScore(10.0);
+			Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+			Activity firstActivity = (Activity) copy.getPlanElements().get(0);
+			firstActivity.setEndTime(firstActivity.getEndTime().seconds() + 0.5);
+			copy.setScore(11.0);
+			person.setSelectedPlan(original);
+		}
+
+		new PopulationWriter(scenario.getPopulation(), scenario.getNetwork()).write(filename);
+	}
+
+	private static Plan createPlan(PopulationFactory pf, double homeEndTime) {
+		Plan plan = pf.createPlan();
+		Activity home = pf.createActivityFromCoord("home", new Coord(100.25, -20.5));
+		home.setLinkId(Id.create("1", Link.class));
+		home.setEndTime(homeEndTime);
+		plan.addActivity(home);
+
+		Leg car = pf.createLeg("car");
+		car.setRoutingMode("car");
+		car.setDepartureTime(homeEndTime);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(Id.create("1", Link.class),
+				List.of(Id.create("2", Link.class), Id.create("3", Link.class)), Id.create("4", Link.class));
+		route.setVehicleId(Id.create("v1", Vehicle.class));
+		route.setDistance(1234.5);
+		route.setTravelTime(300);
+		car.setRoute(route);
+		plan.addLeg(car);
+
+		plan.addActivity(pf.createInteractionActivityFromLinkId("car interaction", Id.create("4", Link.class)));
+
+		Leg walk = pf.createLeg("walk");
+		walk.setRoutingMode("car");
+		walk.getAttributes().putAttribute("unpackable", "yes");
+		plan.addLeg(walk);
+
+		Activity work = pf.createActivityFromLinkId("work", Id.create("4", Link.class));
+		work.setMaximumDuration(8 * 3600);
+		plan.addActivity(work);
+		return plan;
+	}
+
+}
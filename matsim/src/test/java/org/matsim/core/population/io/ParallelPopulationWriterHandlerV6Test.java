@@ -0,0 +1,131 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelPopulationWriterHandlerV6Test.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.utils.objectattributes.AttributeConverter;
+
+public class ParallelPopulationWriterHandlerV6Test {
+
+	@RegisterExtension
+	private MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	void testOutputIsIdenticalToSequentialWriter() throws IOException {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		scenario.getPopulation().setName("test population");
+		scenario.getPopulation().getAttributes().putAttribute("source", "equil");
+
+		int i = 0;
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			person.getAttributes().putAttribute("age", 20 + i % 50);
+			Plan original = person.getSelectedPlan();
+			original.setScore(i * 0.5);
+			Plan copy = person.createCopyOfSelectedPlanAndMakeSelected();
+			copy.setType("copy");
+			copy.getAttributes().putAttribute("index", i);
+			Activity firstActivity = (Activity) copy.getPlanElements().get(0);
+			firstActivity.setStartTime(3600.5);
+			firstActivity.getAttributes().putAttribute("note", "<first & \"home\">");
+			Leg leg = (Leg) copy.getPlanElements().get(1);
+			leg.getAttributes().putAttribute("flag", true);
+			person.setSelectedPlan(i % 2 == 0 ? original : copy);
+			i++;
+		}
+
+		String sequentialFile = utils.getOutputDirectory() + "plans_sequential.xml";
+		String parallelFile = utils.getOutputDirectory() + "plans_parallel.xml";
+
+		PopulationWriter sequentialWriter = new PopulationWriter(scenario.getPopulation(), scenario.getNetwork());
+		sequentialWriter.setWriterHandler(new PopulationWriterHandlerImplV6(new IdentityTransformation()));
+		sequentialWriter.write(sequentialFile);
+
+		PopulationWriter parallelWriter = new PopulationWriter(scenario.getPopulation(), scenario.getNetwork());
+		parallelWriter.setWriterHandler(new ParallelPopulationWriterHandlerV6(new IdentityTransformation()));
+		parallelWriter.write(parallelFile);
+
+		assertEquals(Files.readString(Path.of(sequentialFile)), Files.readString(Path.of(parallelFile)));
+
+		// the handler must be re-usable for writing another file
+		String secondParallelFile = utils.getOutputDirectory() + "plans_parallel_2.xml";
+		parallelWriter.write(secondParallelFile);
+		assertEquals(Files.readString(Path.of(sequentialFile)), Files.readString(Path.of(secondParallelFile)));
+	}
+
+	@Test
+	void testHandlerIsReusableAfterFailure() throws IOException {
+		Config config = ConfigUtils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		Scenario scenario = ScenarioUtils.loadScenario(config);
+		Person failingPerson = scenario.getPopulation().getPersons().values().iterator().next();
+		failingPerson.getAttributes().putAttribute("failing", new Failing());
+
+		PopulationWriter parallelWriter = new PopulationWriter(scenario.getPopulation(), scenario.getNetwork());
+		parallelWriter.putAttributeConverter(Failing.class, new AttributeConverter<Failing>() {
+			@Override
+			public Failing convert(String value) {
+				return new Failing();
+			}
+
+			@Override
+			public String convertToString(Object o) {
+				throw new IllegalStateException("cannot convert");
+			}
+		});
+		parallelWriter.setWriterHandler(new ParallelPopulationWriterHandlerV6(new IdentityTransformation(), 3));
+		assertThrows(RuntimeException.class, () -> parallelWriter.write(utils.getOutputDirectory() + "plans_failed.xml"));
+
+		// the failure of the first file must not affect the next one
+		failingPerson.getAttributes().removeAttribute("failing");
+		String sequentialFile = utils.getOutputDirectory() + "plans_sequential.xml";
+		String parallelFile = utils.getOutputDirectory() + "plans_parallel.xml";
+		PopulationWriter sequentialWriter = new PopulationWriter(scenario.getPopulation(), scenario.getNetwork());
+		sequentialWriter.setWriterHandler(new PopulationWriterHandlerImplV6(new IdentityTransformation()));
+		sequentialWriter.write(sequentialFile);
+		parallelWriter.write(parallelFile);
+
+		assertEquals(Files.readString(Path.of(sequentialFile)), Files.readString(Path.of(parallelFile)));
+	}
+
+	private static class Failing {
+	}
+
+}
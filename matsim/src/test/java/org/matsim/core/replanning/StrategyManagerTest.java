@@ -33,10 +33,12 @@ import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.population.PersonUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.replanning.selectors.BestPlanSelector;
+import org.matsim.core.replanning.selectors.ExpBetaPlanChanger;
 import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.RandomPlanSelector;
 import org.matsim.core.scenario.ScenarioUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -374,6 +376,65 @@ public class StrategyManagerTest {
 		Assertions.assertEquals(1.0, weights.get(2), 1e-8);
 	}
 	
+	@Test
+	void testParallelRunIsIndependentOfNumberOfThreads() {
+		List<String> oneThread = runWithThreads(1);
+		List<String> threeThreads = runWithThreads(3);
+		assertEquals(oneThread, threeThreads);
+		// not all persons did the same
+		assertTrue(oneThread.stream().distinct().count() > 100);
+	}
+
+	private static List<String> runWithThreads(int numberOfThreads) {
+		MatsimRandom.reset(4711);
+		Population population = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getPopulation();
+		for (int i = 0; i < 2000; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create("parallel" + i, Person.class));
+			for (int j = 0; j < 6; j++) {
+				PersonUtils.createAndAddPlan(person, j == 0).setScore((double) ((i * 7 + j * 13) % 23));
+			}
+			population.addPerson(person);
+		}
+
+		StrategyManager manager = new StrategyManager();
+		manager.setNumberOfThreads(numberOfThreads);
+		manager.setMaxPlansPerAgent(4);
+		manager.setPlanSelectorForRemoval(new RandomPlanSelector<>());
+		manager.addStrategy(new PlanStrategyImpl(new ExpBetaPlanChanger<>(1.0)), null, 0.6);
+		manager.addStrategy(new PlanStrategyImpl(new BestPlanSelector<>()), null, 0.1);
+		List<String> handledPlans = new ArrayList<>();
+		PlanStrategyImpl innovation = new PlanStrategyImpl(new RandomPlanSelector<>());
+		innovation.addStrategyModule(new PlanStrategyModule() {
+			@Override
+			public void prepareReplanning(ReplanningContext replanningContext) {
+			}
+
+			@Override
+			public void handlePlan(Plan plan) {
+				handledPlans.add(plan.getPerson().getId() + " " + plan.getScore());
+			}
+
+			@Override
+			public void finishReplanning() {
+			}
+		});
+		manager.addStrategy(innovation, null, 0.3);
+
+		for (int iteration = 0; iteration < 3; iteration++) {
+			manager.run(population, iteration, null);
+		}
+
+		List<String> result = new ArrayList<>(handledPlans);
+		for (Person person : population.getPersons().values()) {
+			StringBuilder plans = new StringBuilder(person.getId() + ":");
+			for (Plan plan : person.getPlans()) {
+				plans.append(' ').append(plan.getScore()).append(plan == person.getSelectedPlan() ? "*" : "");
+			}
+			result.add(plans.toString());
+		}
+		return result;
+	}
+
 	/**
 	 * A simple extension to the PlanStrategy which counts how often it was
 	 * called.
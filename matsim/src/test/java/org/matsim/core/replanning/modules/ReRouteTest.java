@@ -0,0 +1,151 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.replanning.modules;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.router.TripRouterFactoryBuilderWithDefaults;
+import org.matsim.core.router.TripStructureUtils;
+import org.matsim.core.router.util.TravelTime;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.timing.TimeInterpretation;
+
+public class ReRouteTest {
+
+	@Test
+	void testKeepsRoutesWithUnchangedTravelTimes() {
+		Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads(0);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(2000, 0));
+		Node n4 = NetworkUtils.createAndAddNode(network, Id.create("4", Node.class), new Coord(3000, 0));
+		Link l1 = NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), n1, n2, 1000, 10, 1000, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("2", Link.class), n2, n3, 1000, 10, 1000, 1);
+		Link l3 = NetworkUtils.createAndAddLink(network, Id.create("3", Link.class), n3, n4, 1000, 10, 1000, 1);
+
+		PopulationFactory factory = scenario.getPopulation().getFactory();
+		Person person = factory.createPerson(Id.create("1", Person.class));
+		Plan plan = factory.createPlan();
+		person.addPlan(plan);
+		Activity home = factory.createActivityFromLinkId("h", l1.getId());
+		home.setEndTime(7 * 3600);
+		plan.addActivity(home);
+		plan.addLeg(factory.createLeg(TransportMode.car));
+		plan.addActivity(factory.createActivityFromLinkId("w", l3.getId()));
+		scenario.getPopulation().addPerson(person);
+
+		double[] factor = {1.0};
+		TravelTime travelTime = (link, time, p, vehicle) -> factor[0] * link.getLength() / link.getFreespeed();
+		ReRoute module = new ReRoute(scenario.getActivityFacilities(), TripRouterFactoryBuilderWithDefaults.createDefaultTripRouterFactoryImpl(scenario),
+				config.global(), TimeInterpretation.create(config), network, Map.of(TransportMode.car, travelTime), 0.1);
+
+		// the route of the initial plan was not recorded yet
+		List<Leg> initialLegs = reRoute(module, plan);
+		assertTrue(initialLegs.get(0).getAttributes().isEmpty(), "the recorded travel time must not end up in the plans");
+
+		assertSame(initialLegs.get(0), reRoute(module, plan).get(0), "the travel times did not change");
+
+		factor[0] = 1.05;
+		assertSame(initialLegs.get(0), reRoute(module, plan).get(0), "the travel times changed less than the threshold");
+
+		factor[0] = 1.5;
+		List<Leg> legs = reRoute(module, plan);
+		assertNotSame(initialLegs.get(0), legs.get(0), "the travel times changed more than the threshold");
+
+		assertSame(legs.get(0), reRoute(module, plan).get(0), "the travel times did not change since the last routing");
+
+		// the copy of a plan has new legs, but the same routes
+		person.createCopyOfSelectedPlanAndMakeSelected();
+		Plan copy = person.getSelectedPlan();
+		Leg copiedLeg = reRoute(module, copy).get(0);
+		assertSame(TripStructureUtils.getLegs(copy).get(0), copiedLeg, "the travel times did not change since the original plan was routed");
+
+		home.setEndTime(8 * 3600);
+		assertNotSame(legs.get(0), reRoute(module, plan).get(0), "the departure time changed");
+	}
+
+	@Test
+	void testRoutesTeleportedTripsAgain() {
+		Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads(0);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link l1 = NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), n1, n2, 1000, 10, 1000, 1);
+		Link l2 = NetworkUtils.createAndAddLink(network, Id.create("2", Link.class), n2, n1, 1000, 10, 1000, 1);
+
+		PopulationFactory factory = scenario.getPopulation().getFactory();
+		Person person = factory.createPerson(Id.create("1", Person.class));
+		Plan plan = factory.createPlan();
+		person.addPlan(plan);
+		Activity home = factory.createActivityFromLinkId("h", l1.getId());
+		home.setCoord(new Coord(0, 0));
+		home.setEndTime(7 * 3600);
+		plan.addActivity(home);
+		plan.addLeg(factory.createLeg(TransportMode.walk));
+		Activity work = factory.createActivityFromLinkId("w", l2.getId());
+		work.setCoord(new Coord(1000, 0));
+		plan.addActivity(work);
+		scenario.getPopulation().addPerson(person);
+
+		TravelTime travelTime = (link, time, p, vehicle) -> link.getLength() / link.getFreespeed();
+		ReRoute module = new ReRoute(scenario.getActivityFacilities(), TripRouterFactoryBuilderWithDefaults.createDefaultTripRouterFactoryImpl(scenario),
+				config.global(), TimeInterpretation.create(config), network, Map.of(TransportMode.car, travelTime), 0.1);
+
+		Leg leg = reRoute(module, plan, TransportMode.walk).get(0);
+		assertNotSame(leg, reRoute(module, plan, TransportMode.walk).get(0), "trips without network legs are not kept");
+	}
+
+	private static List<Leg> reRoute(ReRoute module, Plan plan) {
+		return reRoute(module, plan, TransportMode.car);
+	}
+
+	private static List<Leg> reRoute(ReRoute module, Plan plan, String mode) {
+		module.prepareReplanning(null);
+		module.handlePlan(plan);
+		module.finishReplanning();
+		return TripStructureUtils.getLegs(plan).stream().filter(leg -> leg.getMode().equals(mode)).toList();
+	}
+
+}
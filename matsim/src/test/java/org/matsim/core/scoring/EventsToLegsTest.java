@@ -91,6 +91,47 @@ public class EventsToLegsTest {
 		Assertions.assertEquals(10.0, lh.handledLeg.getLeg().getAttributes().getAttribute(EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME), EventsToLegs.ENTER_VEHICLE_TIME_ATTRIBUTE_NAME + " missing or incorrect!");
 	}
 
+	@Test
+	void testCreatesSubsequentLegsOfSamePerson() {
+		Scenario scenario = createTriangularNetwork();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		RememberingLegHandler lh = new RememberingLegHandler();
+		eventsToLegs.addLegHandler(lh);
+		Id<Person> agentId = Id.create("1", Person.class);
+		Id<Person> otherAgentId = Id.create("2", Person.class);
+		Id<Vehicle> vehId1 = Id.create("veh1", Vehicle.class);
+		Id<Vehicle> vehId2 = Id.create("veh2", Vehicle.class);
+
+		// enter and leave a vehicle without driving
+		eventsToLegs.handleEvent(new PersonDepartureEvent(10.0, agentId, Id.createLinkId("l1"), "car", "car"));
+		eventsToLegs.handleEvent(new PersonEntersVehicleEvent(10.0, agentId, vehId1));
+		eventsToLegs.handleEvent(new PersonArrivalEvent(12.0, agentId, Id.createLinkId("l1"), "car"));
+		assertLeg(lh, 10., 2., 0.0, "car");
+
+		eventsToLegs.handleEvent(new PersonDepartureEvent(20.0, agentId, Id.createLinkId("l1"), TransportMode.walk, TransportMode.walk));
+		eventsToLegs.handleEvent(new TeleportationArrivalEvent(30.0, agentId, 50.0, TransportMode.walk));
+		eventsToLegs.handleEvent(new PersonArrivalEvent(30.0, agentId, Id.createLinkId("l2"), TransportMode.walk));
+		assertLeg(lh, 20., 10., 50.0, "walk");
+
+		// the first vehicle entering traffic must not change the departure of the current leg
+		eventsToLegs.handleEvent(new PersonDepartureEvent(40.0, agentId, Id.createLinkId("l1"), "car", "car"));
+		eventsToLegs.handleEvent(new PersonEntersVehicleEvent(40.0, agentId, vehId2));
+		eventsToLegs.handleEvent(new VehicleEntersTrafficEvent(40.0, agentId, Id.createLinkId("l1"), vehId2, "car", 1.0));
+		eventsToLegs.handleEvent(new PersonDepartureEvent(40.0, otherAgentId, Id.createLinkId("l1"), "car", "car"));
+		eventsToLegs.handleEvent(new PersonEntersVehicleEvent(40.0, otherAgentId, vehId1));
+		eventsToLegs.handleEvent(new VehicleEntersTrafficEvent(40.0, otherAgentId, Id.createLinkId("l1"), vehId1, "car", 0.5));
+		eventsToLegs.handleEvent(new LinkEnterEvent(41.0, vehId2, Id.createLinkId("l2")));
+		eventsToLegs.handleEvent(new LinkEnterEvent(46.0, vehId2, Id.createLinkId("l3")));
+		eventsToLegs.handleEvent(new VehicleLeavesTrafficEvent(60.0, agentId, Id.createLinkId("l3"), vehId2, "car", 1.0));
+		eventsToLegs.handleEvent(new PersonArrivalEvent(60.0, agentId, Id.createLinkId("l3"), "car"));
+		assertLeg(lh, 40., 20., 550.0, "car");
+
+		// a walk leg after a vehicle leg does not use the vehicle's route
+		eventsToLegs.handleEvent(new PersonDepartureEvent(70.0, agentId, Id.createLinkId("l3"), TransportMode.walk, TransportMode.walk));
+		eventsToLegs.handleEvent(new PersonArrivalEvent(80.0, agentId, Id.createLinkId("l4"), TransportMode.walk));
+		assertLeg(lh, 70., 10., 0.0, "walk");
+	}
+
 	@Test
 	void testCreatesLegWithRoute_jointTrip() {
 		Scenario scenario = createTriangularNetwork();
@@ -21,33 +21,62 @@
 
  package org.matsim.core.scoring;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.api.core.v01.Coord;
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
 import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.PersonMoneyEvent;
 import org.matsim.api.core.v01.events.PersonScoreEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Activity;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.ControlerListenerManagerImpl;
+import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
 import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.misc.CRCChecksum;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
 
 	/**
  * @author mrieser / Simunto GmbH
  */
 public class ScoringFunctionsForPopulationTest {
 
+	@RegisterExtension private MatsimTestUtils utils = new MatsimTestUtils();
+
 	 @Test
 	 void testTripScoring() {
 		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
@@ -134,6 +163,126 @@ public class ScoringFunctionsForPopulationTest {
 		Assertions.assertEquals(1.234+2.345, rsf.separateScoreSum, 1e-7);
 	}
 
+	 @Test
+	 void testShardedScoringOfSharedVehicle() {
+		Id<Person> driverId = Id.create("shardedDriver", Person.class);
+		Id<Person> passengerId = Id.create("shardedPassenger", Person.class);
+		Assertions.assertNotEquals(driverId.index() % 4, passengerId.index() % 4, "the test needs the persons in different shards");
+
+		Map<Id<Person>, List<String>> sequential = scoreSharedVehicle(1, driverId, passengerId);
+		Map<Id<Person>, List<String>> sharded = scoreSharedVehicle(4, driverId, passengerId);
+		Assertions.assertEquals(sequential, sharded);
+		// the passenger only travels the part of the route after boarding
+		Assertions.assertTrue(sharded.get(passengerId).contains("leg ride l2 l3 100.0"), sharded.get(passengerId).toString());
+		Assertions.assertTrue(sharded.get(driverId).contains("linkEnter l3"), sharded.get(driverId).toString());
+		Assertions.assertFalse(sharded.get(passengerId).contains("linkEnter l3"), sharded.get(passengerId).toString());
+	}
+
+	private Map<Id<Person>, List<String>> scoreSharedVehicle(int numberOfThreads, Id<Person> driverId, Id<Person> passengerId) {
+		Config config = ConfigUtils.createConfig();
+		config.scoring().setNumberOfScoringThreads(numberOfThreads);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+		Network network = scenario.getNetwork();
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.createNodeId("n1"), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.createNodeId("n2"), new Coord(100, 0));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.createNodeId("n3"), new Coord(200, 0));
+		Node node4 = NetworkUtils.createAndAddNode(network, Id.createNodeId("n4"), new Coord(300, 0));
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("l1"), node1, node2, 100.0, 10.0, 3600.0, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("l2"), node2, node3, 100.0, 10.0, 3600.0, 1);
+		NetworkUtils.createAndAddLink(network, Id.createLinkId("l3"), node3, node4, 100.0, 10.0, 3600.0, 1);
+		Population population = scenario.getPopulation();
+		population.addPerson(population.getFactory().createPerson(driverId));
+		population.addPerson(population.getFactory().createPerson(passengerId));
+
+		ControlerListenerManagerImpl controlerListenerManager = new ControlerListenerManagerImpl();
+		EventsManager eventsManager = EventsUtils.createEventsManager();
+		EventsToActivities eventsToActivities = new EventsToActivities();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		Map<Id<Person>, List<String>> records = new ConcurrentHashMap<>();
+		eventsToLegs.addLegHandler(leg -> records.computeIfAbsent(leg.getAgentId(), id -> new ArrayList<>())
+				.add("leg " + leg.getLeg().getMode() + " " + leg.getLeg().getRoute().getRouteDescription() + " " + leg.getLeg().getRoute().getDistance()));
+		eventsToActivities.addActivityHandler(activity -> records.computeIfAbsent(activity.getAgentId(), id -> new ArrayList<>())
+				.add("activity " + activity.getActivity().getType()));
+		ScoringFunctionFactory scoringFunctionFactory = person -> new RecordingScoringFunction() {
+			@Override
+			public void handleEvent(Event event) {
+				records.computeIfAbsent(person.getId(), id -> new ArrayList<>()).add(event instanceof LinkEnterEvent linkEnter ?
+						"linkEnter " + linkEnter.getLinkId() : event.getEventType());
+			}
+
+			@Override
+			public void addMoney(double amount) {
+				records.computeIfAbsent(person.getId(), id -> new ArrayList<>()).add("money " + amount);
+			}
+		};
+
+		ScoringFunctionsForPopulation sf = new ScoringFunctionsForPopulation(controlerListenerManager, eventsManager, eventsToActivities, eventsToLegs, population, scoringFunctionFactory, config);
+		controlerListenerManager.fireControlerIterationStartsEvent(0, false);
+
+		Id<Vehicle> vehicleId = Id.createVehicleId("sharedCar");
+		Id<Link> l1 = Id.createLinkId("l1");
+		Id<Link> l2 = Id.createLinkId("l2");
+		Id<Link> l3 = Id.createLinkId("l3");
+		eventsManager.initProcessing();
+		// the driver first drives alone ...
+		eventsManager.processEvent(new ActivityEndEvent(100, driverId, l1, null, "home", null));
+		eventsManager.processEvent(new PersonDepartureEvent(100, driverId, l1, TransportMode.car, TransportMode.car));
+		eventsManager.processEvent(new PersonEntersVehicleEvent(100, driverId, vehicleId));
+		eventsManager.processEvent(new VehicleEntersTrafficEvent(100, driverId, l1, vehicleId, TransportMode.car, 1.0));
+		eventsManager.processEvent(new LinkEnterEvent(110, vehicleId, l2));
+		eventsManager.processEvent(new VehicleLeavesTrafficEvent(120, driverId, l2, vehicleId, TransportMode.car, 1.0));
+		eventsManager.processEvent(new PersonLeavesVehicleEvent(120, driverId, vehicleId));
+		eventsManager.processEvent(new PersonArrivalEvent(120, driverId, l2, TransportMode.car));
+		eventsManager.processEvent(new ActivityStartEvent(120, driverId, l2, null, "pickup", null));
+		// ... and then picks up the passenger
+		eventsManager.processEvent(new ActivityEndEvent(200, driverId, l2, null, "pickup", null));
+		eventsManager.processEvent(new ActivityEndEvent(200, passengerId, l2, null, "home", null));
+		eventsManager.processEvent(new PersonDepartureEvent(200, driverId, l2, TransportMode.car, TransportMode.car));
+		eventsManager.processEvent(new PersonDepartureEvent(200, passengerId, l2, TransportMode.ride, TransportMode.ride));
+		eventsManager.processEvent(new PersonEntersVehicleEvent(200, driverId, vehicleId));
+		eventsManager.processEvent(new PersonEntersVehicleEvent(200, passengerId, vehicleId));
+		eventsManager.processEvent(new VehicleEntersTrafficEvent(200, driverId, l2, vehicleId, TransportMode.car, 1.0));
+		eventsManager.processEvent(new LinkEnterEvent(210, vehicleId, l3));
+		eventsManager.processEvent(new VehicleLeavesTrafficEvent(220, driverId, l3, vehicleId, TransportMode.car, 1.0));
+		eventsManager.processEvent(new PersonLeavesVehicleEvent(220, driverId, vehicleId));
+		eventsManager.processEvent(new PersonLeavesVehicleEvent(220, passengerId, vehicleId));
+		eventsManager.processEvent(new PersonArrivalEvent(220, driverId, l3, TransportMode.car));
+		eventsManager.processEvent(new PersonArrivalEvent(220, passengerId, l3, TransportMode.ride));
+		eventsManager.processEvent(new ActivityStartEvent(220, driverId, l3, null, "work", null));
+		eventsManager.processEvent(new ActivityStartEvent(220, passengerId, l3, null, "work", null));
+		eventsManager.processEvent(new PersonMoneyEvent(230, passengerId, -1.5, "fare", "driver", null));
+		eventsManager.finishProcessing();
+
+		controlerListenerManager.fireControlerAfterMobsimEvent(0, false);
+		// like the injected instance does after the mobsim; in the sharded mode, the shards have done this already
+		eventsToActivities.finish();
+		sf.finishScoringFunctions();
+		return records;
+	}
+
+	 @Test
+	 void testShardedScoringIsIdentical() {
+		String sequentialDirectory = utils.getOutputDirectory() + "sequential/";
+		String shardedDirectory = utils.getOutputDirectory() + "sharded/";
+		runPtTutorial(1, sequentialDirectory);
+		runPtTutorial(4, shardedDirectory);
+
+		for (String file : new String[] {"ITERS/it.0/0.experienced_plans.xml.gz", "output_plans.xml.gz"}) {
+			Assertions.assertEquals(CRCChecksum.getCRCFromFile(sequentialDirectory + file), CRCChecksum.getCRCFromFile(shardedDirectory + file), file);
+		}
+	}
+
+	private void runPtTutorial(int numberOfScoringThreads, String outputDirectory) {
+		Config config = utils.loadConfig(IOUtils.extendUrl(ExamplesUtils.getTestScenarioURL("pt-tutorial"), "0.config.xml"));
+		config.controller().setOutputDirectory(outputDirectory);
+		config.controller().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+		config.controller().setLastIteration(0);
+		config.controller().setCreateGraphs(false);
+		config.scoring().setWriteExperiencedPlans(true);
+		config.scoring().setNumberOfScoringThreads(numberOfScoringThreads);
+		new Controler(config).run();
+	}
+
 	private static class RecordingScoringFunction implements ScoringFunction {
 
 		int tripCounter = 0;
@@ -112,6 +112,52 @@ public class CharyparNagelLegScoringPtChangeTest {
 				"score for car leg differs when changing pt parameters! Probably a problem in line change handling." );
 	}
 
+	@Test
+	void testCompiledScoringOfPtTripIsIdentical() {
+		final Network network = createNetwork();
+		final Random random = new Random( 42 );
+		final ScoringConfigGroup conf = new ScoringConfigGroup();
+		conf.setMarginalUtlOfWaitingPt_utils_hr( -random.nextDouble() * 10 );
+		conf.getModes().get(TransportMode.pt).setMarginalUtilityOfTraveling(-random.nextDouble() * 10);
+		conf.getModes().get(TransportMode.pt).setConstant(-random.nextDouble());
+		conf.getModes().get(TransportMode.walk).setMarginalUtilityOfTraveling(-random.nextDouble() * 10);
+		conf.getModes().get(TransportMode.walk).setDailyUtilityConstant(-random.nextDouble());
+		conf.setUtilityOfLineSwitch( -random.nextDouble() );
+		final ScoringParameters params = new ScoringParameters.Builder(conf, conf.getScoringParameters(null), new ScenarioConfigGroup()).build();
+
+		final CharyparNagelLegScoring scoring = new CharyparNagelLegScoring(params, network, new TransitConfigGroup().getTransitModes());
+		final CompiledLegScoring compiled = new CompiledLegScoring(params, params.marginalUtilityOfMoney, new TransitConfigGroup().getTransitModes());
+
+		final Id<Person> personId = Id.create( 1, Person.class );
+		final Id<Link> linkId = Id.create( 1, Link.class );
+		double time = 7 * 3600 + random.nextDouble();
+		handle( new ActivityEndEvent(time, personId, linkId, null, "home"), scoring, compiled );
+		String[] modes = {TransportMode.walk, TransportMode.pt, TransportMode.transit_walk, TransportMode.pt, TransportMode.walk};
+		for ( String mode : modes ) {
+			handle( new PersonDepartureEvent(time, personId, linkId, mode, TransportMode.pt), scoring, compiled );
+			double travelTime = 60 + random.nextDouble() * 600;
+			if ( mode.equals(TransportMode.pt) ) {
+				handle( new PersonEntersVehicleEvent(time + travelTime / 3, personId, Id.create( mode, Vehicle.class )), scoring, compiled );
+			}
+			final Leg leg = PopulationUtils.createLeg(mode);
+			leg.setDepartureTime( time );
+			leg.setTravelTime( travelTime );
+			scoring.handleLeg( leg );
+			compiled.handleLeg( leg );
+			time += travelTime;
+			handle( new ActivityEndEvent(time, personId, linkId, null, "pt interaction"), scoring, compiled );
+		}
+		scoring.finish();
+		compiled.finish();
+
+		Assertions.assertEquals( scoring.getScore(), compiled.getScore(), 0.0 );
+	}
+
+	private static void handle(Event event, CharyparNagelLegScoring scoring, CompiledLegScoring compiled) {
+		scoring.handleEvent( event );
+		compiled.handleEvent( event );
+	}
+
 	private static CharyparNagelLegScoring createScoring(
 			final int seed,
 			final Network network) {
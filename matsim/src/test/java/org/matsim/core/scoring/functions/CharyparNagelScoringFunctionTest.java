@@ -47,6 +47,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.config.groups.ScoringConfigGroup;
 import org.matsim.core.config.groups.ScoringConfigGroup.ActivityParams;
+import org.matsim.core.config.groups.ScoringConfigGroup.ModeParams;
 import org.matsim.core.config.groups.ScoringConfigGroup.TypicalDurationScoreComputation;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.population.PersonUtils;
@@ -167,6 +168,51 @@ public class CharyparNagelScoringFunctionTest {
 		}
 	}
 
+	/**
+	 * Test that the compiled scoring results in exactly the same scores as the default scoring.
+	 */
+	@ParameterizedTest
+	@EnumSource(TypicalDurationScoreComputation.class)
+	void testCompiledScoringIsEquivalent(TypicalDurationScoreComputation typicalDurationComputation) {
+		Fixture f = new Fixture();
+		for (ActivityParams p : f.config.scoring().getActivityParams()) {
+			p.setTypicalDurationScoreComputation(typicalDurationComputation);
+		}
+		assertCompiledScoreEquals(f);
+
+		f.config.scoring().setPerforming_utils_hr(6.0);
+		f.config.scoring().setMarginalUtlOfWaiting_utils_hr(-10.0);
+		f.config.scoring().setEarlyDeparture_utils_hr(-12.0);
+		f.config.scoring().setLateArrival_utils_hr(-18.0);
+		f.config.scoring().setMarginalUtilityOfMoney(0.5);
+		assertCompiledScoreEquals(f);
+
+		for (String mode : new String[] {TransportMode.car, TransportMode.pt, TransportMode.walk, TransportMode.bike}) {
+			ModeParams modeParams = f.config.scoring().getModes().get(mode);
+			modeParams.setMarginalUtilityOfTraveling(-6.0);
+			modeParams.setConstant(-1.0);
+			modeParams.setMonetaryDistanceRate(-0.0002);
+		}
+		assertCompiledScoreEquals(f);
+
+		ActivityParams wParams = f.config.scoring().getActivityParams("w");
+		wParams.setOpeningTime(8 * 3600.0);
+		wParams.setClosingTime(15 * 3600.0);
+		wParams.setLatestStartTime(13 * 3600.0);
+		wParams.setEarliestEndTime(10.75 * 3600.0);
+		wParams.setMinimalDuration(3 * 3600.0);
+		assertCompiledScoreEquals(f);
+	}
+
+	private void assertCompiledScoreEquals(final Fixture f) {
+		f.config.scoring().setUseCompiledScoring(false);
+		double score = calcScore(f);
+		f.config.scoring().setUseCompiledScoring(true);
+		double compiledScore = calcScore(f);
+		f.config.scoring().setUseCompiledScoring(false);
+		assertEquals(score, compiledScore, 0.0, "the compiled scoring does not result in the same score");
+	}
+
 	/**
 	 * Test the scoring function when all parameters are set to 0.
 	 */
@@ -1,7 +1,11 @@
 package org.matsim.core.trafficmonitoring;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.matsim.api.core.v01.Id;
@@ -41,4 +45,30 @@ public class TravelTimeDataArrayTest{
 		log.info( abc.cntToString() );
 	}
 
+	@Test
+	void testConcurrentAddTravelTime() throws InterruptedException {
+		Network network = NetworkUtils.createNetwork();
+		Node from = NetworkUtils.createNode( Id.createNodeId( "1" ) );
+		Node to = NetworkUtils.createNode( Id.createNodeId( "2" ) );
+		Link link = NetworkUtils.createLink( Id.createLinkId( "1-2" ), from, to, network, 10, 10, 10, 1 );
+		TravelTimeDataArray data = new TravelTimeDataArray( link, 4 );
+
+		List<Thread> threads = new ArrayList<>();
+		for ( int t = 0 ; t < 4 ; t++ ) {
+			threads.add( new Thread( () -> {
+				for ( int i = 0 ; i < 20000 ; i++ ) {
+					data.addTravelTime( 1, 25. );
+				}
+			} ) );
+		}
+		threads.forEach( Thread::start );
+		for ( Thread thread : threads ) {
+			thread.join();
+		}
+
+		Assertions.assertEquals( 80000, data.getCount( 1 ) );
+		Assertions.assertEquals( 0, data.getCount( 0 ) );
+		Assertions.assertEquals( 25.0, data.getTravelTime( 1, 900. ), 1e-8 );
+	}
+
 }
@@ -0,0 +1,141 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PackedRTreeTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.utils.geometry.CoordUtils;
+
+/**
+ * Test for {@link PackedRTree}, comparing its results to a linear search.
+ */
+public class PackedRTreeTest {
+
+	@Test
+	void testEmpty() {
+		PackedRTree<Coord> tree = QuadTrees.createPackedRTree(new ArrayList<Coord>(), c -> c);
+		assertEquals(0, tree.size());
+		assertNull(tree.getClosest(1.0, 2.0));
+		assertTrue(tree.getClosest(1.0, 2.0, 3).isEmpty());
+		assertTrue(tree.getDisk(1.0, 2.0, 100.0).isEmpty());
+	}
+
+	@Test
+	void testSingleElement() {
+		Coord coord = new Coord(10.0, 20.0);
+		PackedRTree<Coord> tree = QuadTrees.createPackedRTree(List.of(coord), c -> c);
+		assertSame(coord, tree.getClosest(-100.0, 50.0));
+		assertEquals(List.of(coord), tree.getClosest(0.0, 0.0, 5));
+		assertEquals(List.of(coord), tree.getDisk(10.0, 25.0, 5.0));
+		assertTrue(tree.getDisk(10.0, 25.0, 4.9).isEmpty());
+	}
+
+	@Test
+	void testClosest_tiesInInputOrder() {
+		List<Coord> coords = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			coords.add(new Coord(i % 10, i / 10));
+		}
+		coords.add(new Coord(5.0, 5.0)); // same location as index 55
+		PackedRTree<Coord> tree = QuadTrees.createPackedRTree(coords, c -> c);
+		assertSame(coords.get(55), tree.getClosest(5.0, 5.0));
+		// (5.5, 5.5) is equally far from four points, the first one given wins
+		assertSame(coords.get(55), tree.getClosest(5.5, 5.5));
+
+		int[] indices = new int[3];
+		double[] distances = new double[3];
+		assertEquals(3, tree.getClosest(5.0, 5.0, 3, indices, distances));
+		assertArrayEquals(new int[] {55, 100, 45}, indices);
+		assertArrayEquals(new double[] {0.0, 0.0, 1.0}, distances, 1e-12);
+	}
+
+	@Test
+	void testRandomPoints() {
+		Random random = new Random(4711);
+		List<Coord> coords = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			coords.add(new Coord(random.nextDouble() * 10000.0, random.nextDouble() * 5000.0));
+		}
+		PackedRTree<Coord> tree = QuadTrees.createPackedRTree(coords, c -> c);
+		assertEquals(coords.size(), tree.size());
+
+		for (int q = 0; q < 200; q++) {
+			Coord query = new Coord(random.nextDouble() * 12000.0 - 1000.0, random.nextDouble() * 7000.0 - 1000.0);
+			List<Coord> sorted = new ArrayList<>(coords);
+			sorted.sort(Comparator.comparingDouble(c -> CoordUtils.calcEuclideanDistance(c, query)));
+
+			assertSame(sorted.get(0), tree.getClosest(query.getX(), query.getY()));
+			assertEquals(sorted.subList(0, 10), tree.getClosest(query.getX(), query.getY(), 10));
+
+			double radius = random.nextDouble() * 500.0;
+			HashSet<Coord> expected = new HashSet<>();
+			for (Coord c : coords) {
+				if (CoordUtils.calcEuclideanDistance(c, query) <= radius) {
+					expected.add(c);
+				}
+			}
+			List<Coord> disk = tree.getDisk(query.getX(), query.getY(), radius);
+			assertEquals(expected.size(), disk.size());
+			assertEquals(expected, new HashSet<>(disk));
+		}
+	}
+
+	@Test
+	void testLinks() {
+		Random random = new Random(42);
+		Network network = NetworkUtils.createNetwork();
+		List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			nodes.add(NetworkUtils.createAndAddNode(network, Id.createNodeId(i), new Coord(random.nextDouble() * 5000.0, random.nextDouble() * 5000.0)));
+		}
+		for (int i = 0; i < 1000; i++) {
+			Node from = nodes.get(random.nextInt(nodes.size()));
+			Node to = nodes.get(random.nextInt(nodes.size()));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), from, to, 100.0, 10.0, 1000.0, 1.0);
+		}
+		PackedRTree<Link> tree = NetworkUtils.createLinkRTree(network);
+
+		for (int q = 0; q < 200; q++) {
+			Coord query = new Coord(random.nextDouble() * 5000.0, random.nextDouble() * 5000.0);
+			Link expected = NetworkUtils.getNearestLinkExactly(network, query);
+			Link actual = tree.getClosest(query.getX(), query.getY());
+			assertEquals(distance(expected, query), distance(actual, query), 1e-9);
+		}
+	}
+
+	private static double distance(Link link, Coord coord) {
+		return CoordUtils.distancePointLinesegment(link.getFromNode().getCoord(), link.getToNode().getCoord(), coord);
+	}
+
+}
@@ -295,6 +295,101 @@ public class IOUtilsTest {
 		Assertions.assertEquals(28, file.length(), "compressed file should be equal 28 bytes, but is " + file.length());
 	}
 
+	@Test
+	void testGetBufferedWriter_gzipped_parallel() throws IOException {
+		assertParallelCompression("test.txt.gz");
+	}
+
+	@Test
+	void testGetBufferedWriter_zst_parallel() throws IOException {
+		assertParallelCompression("test.txt.zst");
+	}
+
+	private void assertParallelCompression(String filename) throws IOException {
+		int threads = IOUtils.getCompressionThreads();
+		IOUtils.setCompressionThreads(4);
+		try {
+			URL url = IOUtils.getFileUrl(this.utils.getOutputDirectory() + filename);
+			int lines = 200_000; // more than a few blocks
+			try (BufferedWriter writer = IOUtils.getBufferedWriter(url)) {
+				for (int i = 0; i < lines; i++) {
+					writer.write("line " + i + " of the parallel compressed file");
+					writer.newLine();
+				}
+			}
+
+			try (BufferedReader reader = IOUtils.getBufferedReader(url)) {
+				for (int i = 0; i < lines; i++) {
+					Assertions.assertEquals("line " + i + " of the parallel compressed file", reader.readLine());
+				}
+				Assertions.assertNull(reader.readLine());
+			}
+
+			// must also be readable without read-ahead
+			IOUtils.setCompressionThreads(1);
+			try (BufferedReader reader = IOUtils.getBufferedReader(url)) {
+				Assertions.assertEquals(lines, reader.lines().count());
+			}
+		} finally {
+			IOUtils.setCompressionThreads(threads);
+		}
+	}
+
+	@Test
+	void testGetBufferedWriter_gzipped_differentThreadBudgets() throws IOException {
+		int threads = IOUtils.getCompressionThreads();
+		try {
+			IOUtils.setCompressionThreads(2);
+			URL url2 = IOUtils.getFileUrl(this.utils.getOutputDirectory() + "test2.txt.gz");
+			BufferedWriter writer2 = IOUtils.getBufferedWriter(url2);
+			IOUtils.setCompressionThreads(3);
+			URL url3 = IOUtils.getFileUrl(this.utils.getOutputDirectory() + "test3.txt.gz");
+			BufferedWriter writer3 = IOUtils.getBufferedWriter(url3);
+
+			// the first writer must still be usable after a writer with another budget was opened
+			int lines = 200_000; // more than a few blocks
+			for (int i = 0; i < lines; i++) {
+				writer2.write("line " + i);
+				writer2.newLine();
+				writer3.write("line " + i);
+				writer3.newLine();
+			}
+			writer2.close();
+			writer3.close();
+
+			for (URL url : new URL[] {url2, url3}) {
+				try (BufferedReader reader = IOUtils.getBufferedReader(url)) {
+					for (int i = 0; i < lines; i++) {
+						Assertions.assertEquals("line " + i, reader.readLine());
+					}
+					Assertions.assertNull(reader.readLine());
+				}
+			}
+		} finally {
+			IOUtils.setCompressionThreads(threads);
+		}
+	}
+
+	@Test
+	void testGetBufferedReader_closeBeforeEnd() throws IOException {
+		int threads = IOUtils.getCompressionThreads();
+		IOUtils.setCompressionThreads(2);
+		try {
+			URL url = IOUtils.getFileUrl(this.utils.getOutputDirectory() + "test.txt.gz");
+			try (BufferedWriter writer = IOUtils.getBufferedWriter(url)) {
+				for (int i = 0; i < 100_000; i++) {
+					writer.write("line " + i);
+					writer.newLine();
+				}
+			}
+			BufferedReader reader = IOUtils.getBufferedReader(url);
+			Assertions.assertEquals("line 0", reader.readLine());
+			reader.close();
+		} finally {
+			IOUtils.setCompressionThreads(threads);
+		}
+	}
+
 	@Test
 	void testGetInputStream_UTFwithoutBOM() throws IOException {
 		String filename = utils.getOutputDirectory() + "test.txt";
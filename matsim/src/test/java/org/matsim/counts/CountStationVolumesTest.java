@@ -0,0 +1,85 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CountStationVolumesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.counts;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.groups.CountsConfigGroup;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class CountStationVolumesTest {
+
+	@Test
+	void testVolumesAndErrorStats() {
+		Network network = NetworkUtils.createNetwork();
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link counted = NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), n1, n2, 1000, 10, 1000, 1);
+		Link other = NetworkUtils.createAndAddLink(network, Id.create("2", Link.class), n2, n1, 1000, 10, 1000, 1);
+
+		Counts<Link> counts = new Counts<>();
+		Count<Link> count = counts.createAndAddCount(counted.getId(), "station");
+		count.createVolume(8, 4.0);
+		count.createVolume(9, 0.0);
+
+		CountsConfigGroup config = new CountsConfigGroup();
+		config.setFilterModes(true);
+		config.setAnalyzedModes(TransportMode.car);
+		CountStationVolumes volumes = new CountStationVolumes(counts, network, config);
+		assertEquals(1, volumes.getNumberOfStations());
+
+		Id<Vehicle> car = Id.create("car", Vehicle.class);
+		Id<Vehicle> truck = Id.create("truck", Vehicle.class);
+		volumes.handleEvent(new VehicleEntersTrafficEvent(7 * 3600, Id.create("1", Person.class), other.getId(), car, TransportMode.car, 1.0));
+		volumes.handleEvent(new VehicleEntersTrafficEvent(7 * 3600, Id.create("2", Person.class), other.getId(), truck, TransportMode.truck, 1.0));
+		volumes.handleEvent(new LinkLeaveEvent(7.5 * 3600, car, counted.getId()));
+		volumes.handleEvent(new LinkLeaveEvent(7.5 * 3600, car, counted.getId()));
+		volumes.handleEvent(new LinkLeaveEvent(7.5 * 3600, truck, counted.getId()));
+		volumes.handleEvent(new LinkLeaveEvent(7.5 * 3600, car, other.getId()));
+		volumes.handleEvent(new LinkLeaveEvent(30 * 3600, car, counted.getId()));
+
+		assertEquals(2, volumes.getVolume(0, 7));
+
+		// hour 8: sim 2 * 3 = 6 vs. count 4; hour 9: sim 0 vs. count 0
+		CountStationVolumes.ErrorStats stats = volumes.calcErrorStats(3.0);
+		assertEquals(2, stats.values());
+		assertEquals(Math.sqrt(4.0 / 2), stats.rmse(), 1e-9);
+		assertEquals(1.0, stats.meanAbsError(), 1e-9);
+		assertEquals(1.0, stats.meanBias(), 1e-9);
+		assertEquals(0.25, stats.meanRelError(), 1e-9);
+		assertEquals(1.0 / 6, stats.meanNormRelError(), 1e-9);
+
+		volumes.reset(1);
+		assertEquals(0, volumes.getVolume(0, 7));
+	}
+
+}
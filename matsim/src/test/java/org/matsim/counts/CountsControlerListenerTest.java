@@ -365,6 +365,35 @@ public class CountsControlerListenerTest {
 
 	}
 
+	@Test
+	void testWriteCountsErrorStats() throws IOException {
+		Config config = util.createConfig(ExamplesUtils.getTestScenarioURL("triangle"));
+		config.network().setInputFile("network.xml");	// network file which is used by the counts file
+
+		CountsConfigGroup cConfig = config.counts();
+		cConfig.setWriteCountsInterval(3);
+		cConfig.setAverageCountsOverIterations(2);
+		cConfig.setInputFile("counts.xml");
+		cConfig.setWriteCountsErrorStats(true);
+
+		config.controller().setMobsim("dummy");
+		config.controller().setFirstIteration(0);
+		config.controller().setLastIteration(3);
+
+		createAndRunControler(config);
+
+		// one line per iteration, not only in the iterations with the full comparison
+		try (BufferedReader reader = IOUtils.getBufferedReader(config.controller().getOutputDirectory() + CountsErrorStatsControlerListener.FILENAME)) {
+			Assertions.assertTrue(reader.readLine().startsWith("iteration"));
+			for (int iteration = 0; iteration <= 3; iteration++) {
+				String[] parts = reader.readLine().split(config.global().getDefaultDelimiter());
+				Assertions.assertEquals(iteration, Integer.parseInt(parts[0]));
+				Assertions.assertTrue(Integer.parseInt(parts[1]) > 0);
+			}
+			Assertions.assertNull(reader.readLine());
+		}
+	}
+
 	private void createAndRunControler(Config config) {
 		final Controler controler = new Controler(ScenarioUtils.loadScenario(config));
 		controler.addOverridingModule(new AbstractModule() {
@@ -0,0 +1,134 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * NearestLinkCacheTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2024 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.population.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.algorithms.NearestLinkCache;
+import org.matsim.core.population.algorithms.XY2Links;
+import org.matsim.core.scenario.ScenarioUtils;
+
+/**
+ * Test for {@link NearestLinkCache}.
+ */
+public class NearestLinkCacheTest {
+
+	@Test
+	void testSameLinksAsWithoutCache() {
+		Random random = new Random(2024);
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			nodes.add(NetworkUtils.createAndAddNode(network, Id.createNodeId(i), new Coord(random.nextInt(2000), random.nextInt(2000))));
+		}
+		for (int i = 0; i < 400; i++) {
+			// every node has an outgoing link
+			Node from = i < 200 ? nodes.get(i) : nodes.get(random.nextInt(200));
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), from, nodes.get(random.nextInt(200)), 100.0, 10.0, 1000.0, 1.0);
+		}
+
+		// every person has the same home in both of its plans, and the first activity of the second plan already has a link
+		PopulationFactory pf = scenario.getPopulation().getFactory();
+		List<Coord> homes = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Person person = pf.createPerson(Id.createPersonId(i));
+			Coord home = new Coord(random.nextInt(2000), random.nextInt(2000));
+			homes.add(home);
+			for (int p = 0; p < 2; p++) {
+				Plan plan = pf.createPlan();
+				Activity first = pf.createActivityFromCoord("home", home);
+				if (p == 1) {
+					first.setLinkId(Id.createLinkId(0));
+				}
+				plan.addActivity(first);
+				plan.addLeg(pf.createLeg(TransportMode.car));
+				plan.addActivity(pf.createActivityFromCoord("work", new Coord(random.nextInt(2000), random.nextInt(2000))));
+				plan.addLeg(pf.createLeg(TransportMode.car));
+				plan.addActivity(pf.createActivityFromCoord("home", home));
+				person.addPlan(plan);
+			}
+			scenario.getPopulation().addPerson(person);
+		}
+
+		List<Coord> coords = NearestLinkCache.collectCoordsWithoutLink(scenario.getPopulation(), scenario.getActivityFacilities());
+		Assertions.assertEquals(50 + 2 * 50, coords.size(), "each home and each work location should be collected once");
+		NearestLinkCache cache = NearestLinkCache.create(network, coords, 2);
+		Assertions.assertEquals(coords.size(), cache.size());
+
+		for (Coord coord : coords) {
+			Assertions.assertSame(NetworkUtils.getNearestLink(network, coord), cache.getNearestLink(coord));
+		}
+		Coord notCached = new Coord(-500, 2500);
+		Assertions.assertSame(NetworkUtils.getNearestLink(network, notCached), cache.getNearestLink(notCached));
+
+		XY2Links withCache = new XY2Links(cache, scenario.getActivityFacilities());
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			withCache.run(person);
+			for (Plan plan : person.getPlans()) {
+				Activity last = (Activity) plan.getPlanElements().get(4);
+				Assertions.assertEquals(NetworkUtils.getNearestLink(network, last.getCoord()).getId(), last.getLinkId());
+			}
+			Assertions.assertEquals(Id.createLinkId(0), ((Activity) person.getPlans().get(1).getPlanElements().get(0)).getLinkId());
+		}
+	}
+
+	@Test
+	void testSeveralThreads() {
+		Random random = new Random(2024);
+		Network network = NetworkUtils.createNetwork();
+		List<Node> nodes = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			nodes.add(NetworkUtils.createAndAddNode(network, Id.createNodeId(i), new Coord(random.nextInt(2000), random.nextInt(2000))));
+		}
+		for (int i = 0; i < 200; i++) {
+			NetworkUtils.createAndAddLink(network, Id.createLinkId(i), nodes.get(i), nodes.get(random.nextInt(200)), 100.0, 10.0, 1000.0, 1.0);
+		}
+
+		// enough coordinates for several chunks
+		List<Coord> coords = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			coords.add(new Coord(i % 2000, i / 2.5));
+		}
+		NearestLinkCache cache = NearestLinkCache.create(network, coords, 4);
+		Assertions.assertEquals(coords.size(), cache.size());
+		for (Coord coord : coords) {
+			Assertions.assertSame(NetworkUtils.getNearestLink(network, coord), cache.getNearestLink(coord));
+		}
+	}
+
+}